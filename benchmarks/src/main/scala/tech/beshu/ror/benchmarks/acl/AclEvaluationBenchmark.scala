@@ -31,6 +31,7 @@ import tech.beshu.ror.accesscontrol.orders.*
 import tech.beshu.ror.accesscontrol.request.RequestContext.Method
 import tech.beshu.ror.benchmarks.support.BenchmarkAclUtils.*
 import tech.beshu.ror.benchmarks.support.BenchmarkSupport.*
+import tech.beshu.ror.es.EsServices
 import tech.beshu.ror.syntax.*
 
 import java.util.concurrent.TimeUnit
@@ -38,6 +39,10 @@ import java.util.concurrent.TimeUnit
 /**
  * Tier-1 KPI: end-to-end ACL evaluation (incl. the `doPrivileged` scheduler hop) over `blocks`
  * blocks of 4 cheap sync rules. `permitPath` matches in the last block; `denyPath` walks all blocks.
+ *
+ * The `...WithCachingServices` variants build the request context per op with the per-request
+ * `EsServices.withCaching` decorators, like `IndexLevelActionFilter` does for every request - their
+ * B/op (minus the plain path's) is the per-request cost of the context and its memoizing services.
  */
 @State(Scope.Thread)
 @BenchmarkMode(Array(Mode.AverageTime))
@@ -53,6 +58,8 @@ class AclEvaluationBenchmark {
   private implicit val loggingContext: LoggingContext = LoggingContext(Set.empty)
 
   private var acl: EnabledAccessControlList = scala.compiletime.uninitialized
+  private var permitHeaders: Set[Header] = scala.compiletime.uninitialized
+  private var denyHeaders: Set[Header] = scala.compiletime.uninitialized
   private var permitContext: NonIndexRequestContext = scala.compiletime.uninitialized
   private var denyContext: NonIndexRequestContext = scala.compiletime.uninitialized
 
@@ -60,10 +67,14 @@ class AclEvaluationBenchmark {
   def setup(): Unit = {
     acl = createAcl(NonEmptyList.fromListUnsafe((1 to blocks).map(createExampleBlock).toList))
     // Last block's credentials, so blocks 1..N-1 deny on auth and block N permits.
-    permitContext = new NonIndexRequestContext(realisticHeaders(createCredentials(s"user$blocks", s"pass$blocks")))
-    denyContext = new NonIndexRequestContext(realisticHeaders(createCredentials("nobody", "nothing")))
+    permitHeaders = realisticHeaders(createCredentials(s"user$blocks", s"pass$blocks"))
+    denyHeaders = realisticHeaders(createCredentials("nobody", "nothing"))
+    permitContext = new NonIndexRequestContext(permitHeaders)
+    denyContext = new NonIndexRequestContext(denyHeaders)
     assertRequestAllowedBy(acl, permitContext, expectedBlockName = s"block$blocks")
     assertRequestForbiddenBy(acl, denyContext)
+    assertRequestAllowedBy(acl, contextWithCachingServices(permitHeaders), expectedBlockName = s"block$blocks")
+    assertRequestForbiddenBy(acl, contextWithCachingServices(denyHeaders))
   }
 
   @Benchmark
@@ -74,6 +85,17 @@ class AclEvaluationBenchmark {
   def denyPath(bh: Blackhole): Unit =
     bh.consume(acl.handleRegularRequest(denyContext).runSyncUnsafe())
 
+  @Benchmark
+  def permitPathWithCachingServices(bh: Blackhole): Unit =
+    bh.consume(acl.handleRegularRequest(contextWithCachingServices(permitHeaders)).runSyncUnsafe())
+
+  @Benchmark
+  def denyPathWithCachingServices(bh: Blackhole): Unit =
+    bh.consume(acl.handleRegularRequest(contextWithCachingServices(denyHeaders)).runSyncUnsafe())
+
+  private def contextWithCachingServices(headers: Set[Header]): NonIndexRequestContext =
+    new NonIndexRequestContext(headers, services = EsServices.withCaching(emptyEsServices))
+
   private def createExampleBlock(blockIndex: Int): Block = {
     val rules = NonEmptyList.of[Rule](
       createAuthKeyRule(s"user$blockIndex", s"pass$blockIndex"),
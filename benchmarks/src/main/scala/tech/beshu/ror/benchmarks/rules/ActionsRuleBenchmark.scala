@@ -30,8 +30,8 @@ import tech.beshu.ror.benchmarks.support.BenchmarkSupport.*
 import java.util.concurrent.TimeUnit
 
 /**
- * Tier-2 KPI: one `actions` rule check over a 10-pattern action list. The miss cost is paid
- * once per block on the deny path, so it multiplies with the ACL block count.
+ * Tier-2 KPI: `blocks` `actions` rule checks (one per ACL block) over a 10-pattern action list. The miss cost is
+ * paid once per block on the deny path, so it multiplies with the ACL block count.
  */
 @State(Scope.Thread)
 @BenchmarkMode(Array(Mode.AverageTime))
@@ -41,26 +41,31 @@ import java.util.concurrent.TimeUnit
 @Fork(2)
 class ActionsRuleBenchmark {
 
-  private var rule: ActionsRule = scala.compiletime.uninitialized
+  @Param(Array("1", "100"))
+  var blocks: Int = scala.compiletime.uninitialized
+
+  private var rules: Vector[ActionsRule] = scala.compiletime.uninitialized
   private var matchingContext: GeneralNonIndexRequestBlockContext = scala.compiletime.uninitialized
   private var missingContext: GeneralNonIndexRequestBlockContext = scala.compiletime.uninitialized
 
   @Setup(Level.Trial)
   def setup(): Unit = {
-    rule = createActionsRule()
+    rules = Vector.fill(blocks)(createActionsRule())
     matchingContext = createBlockContext(searchAction)
     missingContext = createBlockContext(Action("cluster:monitor/health"))
-    assertRulePermitted(rule.check(matchingContext).runSyncUnsafe())
-    assertRuleDenied(rule.check(missingContext).runSyncUnsafe())
+    rules.foreach { rule =>
+      assertRulePermitted(rule.check(matchingContext).runSyncUnsafe())
+      assertRuleDenied(rule.check(missingContext).runSyncUnsafe())
+    }
   }
 
   @Benchmark
   def actionMatched(bh: Blackhole): Unit =
-    bh.consume(rule.check(matchingContext).runSyncUnsafe())
+    rules.foreach(rule => bh.consume(rule.check(matchingContext).runSyncUnsafe()))
 
   @Benchmark
   def actionMissed(bh: Blackhole): Unit =
-    bh.consume(rule.check(missingContext).runSyncUnsafe())
+    rules.foreach(rule => bh.consume(rule.check(missingContext).runSyncUnsafe()))
 
   private def createActionsRule(): ActionsRule = {
     val actions = (1 to 9).map(idx => Action(s"indices:admin/custom-$idx/*")).toList :+ searchAction
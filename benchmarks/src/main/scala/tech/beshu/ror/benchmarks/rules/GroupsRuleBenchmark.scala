@@ -29,6 +29,7 @@ import java.util.concurrent.TimeUnit
 /**
  * Tier-1 KPI: per-request cost of one `groups` (any_of) rule check — group-ids resolution,
  * user-definition matching and basic-auth authentication — at field-max scale (100x100).
+ * `userDefinitions` = the size of the `users` section (the logged user's definition is the last one).
  */
 @State(Scope.Thread)
 @BenchmarkMode(Array(Mode.AverageTime))
@@ -44,12 +45,15 @@ class GroupsRuleBenchmark {
   @Param(Array("5", "100"))
   var userGroups: Int = scala.compiletime.uninitialized
 
+  @Param(Array("1", "600"))
+  var userDefinitions: Int = scala.compiletime.uninitialized
+
   private var rule: AnyOfGroupsRule = scala.compiletime.uninitialized
   private var blockContext: GeneralNonIndexRequestBlockContext = scala.compiletime.uninitialized
 
   @Setup(Level.Trial)
   def setup(): Unit = {
-    rule = createAnyOfGroupsRule("user1", "pass1", configuredGroups, userGroups)
+    rule = createAnyOfGroupsRule("user1", "pass1", configuredGroups, userGroups, otherUserDefinitionCount = userDefinitions - 1)
     blockContext = createBlockContext()
     assertRulePermitted(rule.check(blockContext).runSyncUnsafe())
   }
@@ -0,0 +1,94 @@
+/*
+ *    This file is part of ReadonlyREST.
+ *
+ *    ReadonlyREST is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    ReadonlyREST is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with ReadonlyREST.  If not, see http://www.gnu.org/licenses/
+ */
+package tech.beshu.ror.benchmarks.rules
+
+import cats.data.{NonEmptyList, NonEmptySet}
+import monix.execution.Scheduler.Implicits.global
+import org.openjdk.jmh.annotations.*
+import org.openjdk.jmh.infra.Blackhole
+import tech.beshu.ror.accesscontrol.blocks.BlockContext.MultiIndexRequestBlockContext
+import tech.beshu.ror.accesscontrol.blocks.BlockContext.MultiIndexRequestBlockContext.Indices
+import tech.beshu.ror.accesscontrol.blocks.rules.elasticsearch.indices.IndicesRule
+import tech.beshu.ror.accesscontrol.blocks.variables.runtime.RuntimeMultiResolvableVariable
+import tech.beshu.ror.accesscontrol.blocks.variables.runtime.RuntimeMultiResolvableVariable.AlreadyResolved
+import tech.beshu.ror.accesscontrol.domain.*
+import tech.beshu.ror.accesscontrol.matchers.RandomBasedUniqueIdentifierGenerator
+import tech.beshu.ror.accesscontrol.orders.*
+import tech.beshu.ror.benchmarks.support.BenchmarkAclUtils.*
+import tech.beshu.ror.benchmarks.support.BenchmarkSupport.*
+import tech.beshu.ror.syntax.*
+
+import java.util.concurrent.TimeUnit
+
+/**
+ * Tier-2 KPI: one `indices` rule check of a bulk request - one index pack per bulk item, with the items spread over
+ * `distinctIndices` indices. The distinct packs are processed once, so the cost should follow `distinctIndices`
+ * rather than `bulkItems`.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Array(Mode.AverageTime))
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(2)
+class IndicesRuleBulkBenchmark {
+
+  @Param(Array("100", "10000"))
+  var bulkItems: Int = scala.compiletime.uninitialized
+
+  @Param(Array("3", "100"))
+  var distinctIndices: Int = scala.compiletime.uninitialized
+
+  private var rule: IndicesRule = scala.compiletime.uninitialized
+  private var blockContext: MultiIndexRequestBlockContext = scala.compiletime.uninitialized
+
+  @Setup(Level.Trial)
+  def setup(): Unit = {
+    rule = createIndicesRule()
+    blockContext = createBulkBlockContext()
+    assertRulePermitted(rule.check(blockContext).runSyncUnsafe())
+  }
+
+  @Benchmark
+  def bulkPath(bh: Blackhole): Unit =
+    bh.consume(rule.check(blockContext).runSyncUnsafe())
+
+  private def createIndicesRule(): IndicesRule = {
+    val configured: RuntimeMultiResolvableVariable[ClusterIndexName] =
+      AlreadyResolved(NonEmptyList.one(ClusterIndexName.fromString("logs-*").get))
+    new IndicesRule(
+      IndicesRule.Settings(NonEmptySet.of(configured), mustInvolveIndices = false),
+      RandomBasedUniqueIdentifierGenerator
+    )
+  }
+
+  // each item writes to one of the `logs-app<N>` indices, which all exist in the cluster
+  private def createBulkBlockContext(): MultiIndexRequestBlockContext = {
+    val indexNames = (0 until distinctIndices).map(idx => s"logs-app$idx")
+    val clusterIndices = indexNames
+      .map(name => new FullLocalIndexWithAliases(IndexName.Full(nes(name)), IndexAttribute.Opened, Set.empty))
+      .toCovariantSet
+    val packs = (0 until bulkItems).map { idx =>
+      Indices.Found(Set(RequestedIndex(ClusterIndexName.fromString(indexNames(idx % distinctIndices)).get, excluded = false)))
+    }.toList
+    new BulkRequestContext(
+      realisticHeaders(createCredentials("user1", "pass1")),
+      packs,
+      esServicesWithIndices(clusterIndices)
+    ).initialBlockContext(noBlock)
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ *    This file is part of ReadonlyREST.
+ *
+ *    ReadonlyREST is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    ReadonlyREST is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with ReadonlyREST.  If not, see http://www.gnu.org/licenses/
+ */
+package tech.beshu.ror.benchmarks.rules
+
+import cats.data.{NonEmptyList, NonEmptySet}
+import monix.execution.Scheduler.Implicits.global
+import org.openjdk.jmh.annotations.*
+import org.openjdk.jmh.infra.Blackhole
+import tech.beshu.ror.accesscontrol.blocks.BlockContext.GeneralIndexRequestBlockContext
+import tech.beshu.ror.accesscontrol.blocks.rules.elasticsearch.indices.IndicesRule
+import tech.beshu.ror.accesscontrol.blocks.variables.runtime.RuntimeMultiResolvableVariable
+import tech.beshu.ror.accesscontrol.blocks.variables.runtime.RuntimeMultiResolvableVariable.AlreadyResolved
+import tech.beshu.ror.accesscontrol.domain.*
+import tech.beshu.ror.accesscontrol.matchers.RandomBasedUniqueIdentifierGenerator
+import tech.beshu.ror.accesscontrol.orders.*
+import tech.beshu.ror.benchmarks.support.BenchmarkAclUtils.*
+import tech.beshu.ror.benchmarks.support.BenchmarkSupport.*
+import tech.beshu.ror.es.EsServices
+import tech.beshu.ror.syntax.*
+
+import java.util.concurrent.TimeUnit
+
+/**
+ * Tier-2 KPI: the wildcard expansion of [[IndicesRuleResolutionBenchmark]] against a 10k/100k-index cluster.
+ * `prefixWildcardPath` = a requested `logs-2024-01*` (resolved by a range lookup in the sorted index of the
+ * cluster snapshot). `suffixWildcardPath` = a requested `*-day-1` which has no literal prefix, so it's still
+ * matched against all the cluster indices (the reference full-scan cost).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Array(Mode.AverageTime))
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(2)
+class IndicesRuleLargeClusterBenchmark {
+
+  @Param(Array("10000", "100000"))
+  var clusterIndices: Int = scala.compiletime.uninitialized
+
+  private var rule: IndicesRule = scala.compiletime.uninitialized
+  private var prefixBlockContext: GeneralIndexRequestBlockContext = scala.compiletime.uninitialized
+  private var suffixBlockContext: GeneralIndexRequestBlockContext = scala.compiletime.uninitialized
+
+  @Setup(Level.Trial)
+  def setup(): Unit = {
+    rule = createIndicesRule()
+    val services = esServicesWithIndices(createClusterIndices())
+    prefixBlockContext = createBlockContext("logs-2024-01*", services)
+    suffixBlockContext = createBlockContext("*-day-1", services)
+    assertRulePermitted(rule.check(prefixBlockContext).runSyncUnsafe())
+    assertRulePermitted(rule.check(suffixBlockContext).runSyncUnsafe())
+  }
+
+  @Benchmark
+  def prefixWildcardPath(bh: Blackhole): Unit =
+    bh.consume(rule.check(prefixBlockContext).runSyncUnsafe())
+
+  @Benchmark
+  def suffixWildcardPath(bh: Blackhole): Unit =
+    bh.consume(rule.check(suffixBlockContext).runSyncUnsafe())
+
+  private def createIndicesRule(): IndicesRule = {
+    val configured: RuntimeMultiResolvableVariable[ClusterIndexName] =
+      AlreadyResolved(NonEmptyList.one(ClusterIndexName.fromString("logs-*").get))
+    new IndicesRule(
+      IndicesRule.Settings(NonEmptySet.of(configured), mustInvolveIndices = false),
+      RandomBasedUniqueIdentifierGenerator
+    )
+  }
+
+  // daily indices of 100 apps: `logs-<year>-<month>-app<N>-day-<D>`
+  private def createClusterIndices(): Set[FullLocalIndexWithAliases] =
+    (0 until clusterIndices)
+      .map { idx =>
+        val day = idx / 100
+        val name = f"logs-${2024 + day / 360}-${day / 30 % 12 + 1}%02d-app${idx % 100}-day-${day % 30 + 1}"
+        new FullLocalIndexWithAliases(IndexName.Full(nes(name)), IndexAttribute.Opened, Set.empty)
+      }
+      .toCovariantSet
+
+  private def createBlockContext(requestedIndex: String, services: EsServices) = {
+    val requested = Set(RequestedIndex(ClusterIndexName.fromString(requestedIndex).get, excluded = false))
+    new IndexRequestContext(realisticHeaders(createCredentials("user1", "pass1")), requested, services)
+      .initialBlockContext(noBlock)
+  }
+}
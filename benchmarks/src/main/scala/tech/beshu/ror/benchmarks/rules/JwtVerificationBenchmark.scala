@@ -16,6 +16,8 @@
  */
 package tech.beshu.ror.benchmarks.rules
 
+import eu.timepit.refined.api.Refined
+import eu.timepit.refined.numeric.NonNegative
 import io.jsonwebtoken.{JwtBuilder, Jwts}
 import io.jsonwebtoken.security.Keys
 import monix.execution.Scheduler.Implicits.global
@@ -27,9 +29,11 @@ import tech.beshu.ror.accesscontrol.blocks.definitions.JwtDef.SignatureCheckMeth
 import tech.beshu.ror.accesscontrol.blocks.rules.auth.JwtAuthenticationRule
 import tech.beshu.ror.accesscontrol.domain.*
 import tech.beshu.ror.accesscontrol.domain.AuthorizationTokenDef.AllowedPrefix.StrictlyDefined
+import tech.beshu.ror.accesscontrol.utils.VerifiedJwtCache
 import tech.beshu.ror.benchmarks.support.BenchmarkAclUtils.*
 import tech.beshu.ror.benchmarks.support.BenchmarkSupport.*
 import tech.beshu.ror.syntax.*
+import tech.beshu.ror.utils.RefinedUtils.nonNegativeInt
 import tech.beshu.ror.utils.json.JsonPath
 
 import java.security.{KeyPair, KeyPairGenerator, SecureRandom}
@@ -37,7 +41,8 @@ import java.util.concurrent.TimeUnit
 
 /**
  * Tier-1 KPI: one `jwt_authentication` rule check — token extraction, signature verification and
- * user-claim lookup — for HMAC-SHA256 and RSA-2048. Sets the floor for a future claims cache.
+ * user-claim lookup — for HMAC-SHA256 and RSA-2048. `hmac256`/`rsa2048` run with the verified-tokens
+ * cache disabled (the verifier floor); the `*Cached` variants measure the repeated-token path.
  */
 @State(Scope.Thread)
 @BenchmarkMode(Array(Mode.AverageTime))
@@ -49,6 +54,8 @@ class JwtVerificationBenchmark {
 
   private var hmacRule: JwtAuthenticationRule = scala.compiletime.uninitialized
   private var rsaRule: JwtAuthenticationRule = scala.compiletime.uninitialized
+  private var hmacCachedRule: JwtAuthenticationRule = scala.compiletime.uninitialized
+  private var rsaCachedRule: JwtAuthenticationRule = scala.compiletime.uninitialized
   private var hmacContext: GeneralNonIndexRequestBlockContext = scala.compiletime.uninitialized
   private var rsaContext: GeneralNonIndexRequestBlockContext = scala.compiletime.uninitialized
 
@@ -60,13 +67,17 @@ class JwtVerificationBenchmark {
     generator.initialize(2048)
     val rsaKeyPair: KeyPair = generator.generateKeyPair()
 
-    hmacRule = createJwtRule(SignatureCheckMethod.Hmac(hmacRawKey))
-    rsaRule = createJwtRule(SignatureCheckMethod.Rsa(rsaKeyPair.getPublic))
+    hmacRule = createJwtRule(SignatureCheckMethod.Hmac(hmacRawKey), nonNegativeInt(0))
+    rsaRule = createJwtRule(SignatureCheckMethod.Rsa(rsaKeyPair.getPublic), nonNegativeInt(0))
+    hmacCachedRule = createJwtRule(SignatureCheckMethod.Hmac(hmacRawKey), VerifiedJwtCache.defaultMaxSize)
+    rsaCachedRule = createJwtRule(SignatureCheckMethod.Rsa(rsaKeyPair.getPublic), VerifiedJwtCache.defaultMaxSize)
     hmacContext = createBlockContext(createSignedToken(_.signWith(Keys.hmacShaKeyFor(hmacRawKey))))
     rsaContext = createBlockContext(createSignedToken(_.signWith(rsaKeyPair.getPrivate)))
 
     assertRulePermitted(hmacRule.check(hmacContext).runSyncUnsafe())
     assertRulePermitted(rsaRule.check(rsaContext).runSyncUnsafe())
+    assertRulePermitted(hmacCachedRule.check(hmacContext).runSyncUnsafe())
+    assertRulePermitted(rsaCachedRule.check(rsaContext).runSyncUnsafe())
   }
 
   @Benchmark
@@ -77,13 +88,25 @@ class JwtVerificationBenchmark {
   def rsa2048(bh: Blackhole): Unit =
     bh.consume(rsaRule.check(rsaContext).runSyncUnsafe())
 
-  private def createJwtRule(checkMethod: SignatureCheckMethod): JwtAuthenticationRule =
+  @Benchmark
+  def hmac256Cached(bh: Blackhole): Unit =
+    bh.consume(hmacCachedRule.check(hmacContext).runSyncUnsafe())
+
+  @Benchmark
+  def rsa2048Cached(bh: Blackhole): Unit =
+    bh.consume(rsaCachedRule.check(rsaContext).runSyncUnsafe())
+
+  private def createJwtRule(
+      checkMethod: SignatureCheckMethod,
+      verifiedTokensCacheSize: Int Refined NonNegative
+  ): JwtAuthenticationRule =
     new JwtAuthenticationRule(
       JwtAuthenticationRule.Settings(AuthenticationJwtDef(
         JwtDef.Name(nes("benchmark-jwt")),
         AuthorizationTokenDef(Header.Name.authorization, StrictlyDefined(AuthorizationTokenPrefix.bearer)),
         checkMethod,
-        userClaim = Jwt.ClaimName(JsonPath("sub").get)
+        userClaim = Jwt.ClaimName(JsonPath("sub").get),
+        verifiedTokensCacheSize = verifiedTokensCacheSize
       )),
       CaseSensitivity.Enabled
     )
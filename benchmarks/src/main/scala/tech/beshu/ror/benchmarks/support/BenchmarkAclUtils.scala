@@ -90,18 +90,25 @@ object BenchmarkAclUtils {
       )
     )
 
+  // `otherUserDefinitionCount` definitions of other users (mostly exact usernames, every 10th a `team<N>-*` pattern)
+  // are put before the user's one, like in a big `users` section.
   def createAnyOfGroupsRule(user: String,
                             password: String,
                             configuredGroupCount: Int,
-                            userGroupCount: Int): AnyOfGroupsRule = {
+                            userGroupCount: Int,
+                            otherUserDefinitionCount: Int = 0): AnyOfGroupsRule = {
     val permittedGroupIds = UniqueNonEmptyList.unsafeFrom(
       (0 until configuredGroupCount)
         .map(idx => AlreadyResolved(NonEmptyList.one(createGroupId(idx): GroupIdLike)): RuntimeMultiResolvableVariable[GroupIdLike])
     )
+    val otherUserDefs = (0 until otherUserDefinitionCount).map { idx =>
+      val otherUser = if (idx % 10 == 0) s"team$idx-*" else s"other-user$idx"
+      createUserDef(otherUser, s"pass$idx", userGroupCount = 1)
+    }.toList
     new AnyOfGroupsRule(
       BaseGroupsRule.Settings(
         new RuntimeResolvableGroupsLogic.Simple[GroupsLogic.AnyOf](permittedGroupIds),
-        NonEmptyList.one(createUserDef(user, password, userGroupCount))
+        NonEmptyList.ofInitLast(otherUserDefs, createUserDef(user, password, userGroupCount))
       )
     )(CaseSensitivity.Enabled)
   }
@@ -21,7 +21,8 @@ import eu.timepit.refined.types.string.NonEmptyString
 import monix.eval.Task
 import squants.information.Bytes
 import tech.beshu.ror.accesscontrol.blocks.Block
-import tech.beshu.ror.accesscontrol.blocks.BlockContext.{GeneralIndexRequestBlockContext, GeneralNonIndexRequestBlockContext}
+import tech.beshu.ror.accesscontrol.blocks.BlockContext.{GeneralIndexRequestBlockContext, GeneralNonIndexRequestBlockContext, MultiIndexRequestBlockContext}
+import tech.beshu.ror.accesscontrol.blocks.BlockContext.MultiIndexRequestBlockContext.Indices
 import tech.beshu.ror.accesscontrol.blocks.metadata.BlockMetadata
 import tech.beshu.ror.accesscontrol.domain.*
 import tech.beshu.ror.accesscontrol.domain.ClusterIndexName.Remote.ClusterName
@@ -30,7 +31,7 @@ import tech.beshu.ror.accesscontrol.request.RequestContext.Method
 import tech.beshu.ror.accesscontrol.request.{RequestContext, RestRequest}
 import tech.beshu.ror.es.EsServices
 import tech.beshu.ror.es.services.EsClusterService
-import tech.beshu.ror.es.services.EsClusterService.{Document, DocumentsAccessibility, IndexOrAlias, IndexUuid}
+import tech.beshu.ror.es.services.EsClusterService.{Document, DocumentsAccessibility, IndexOrAlias, IndexUuid, LocalIndicesSnapshot}
 import tech.beshu.ror.syntax.*
 
 import java.time.Instant
@@ -49,6 +50,7 @@ object BenchmarkSupport {
   def nes(value: String): NonEmptyString = NonEmptyString.unsafeFrom(value)
 
   val searchAction: Action = Action("indices:data/read/search")
+  val bulkAction: Action = Action("indices:data/write/bulk")
 
   // The single-rule benchmarks call `initialBlockContext(noBlock)` because the owning `Block` is
   // never dereferenced on the measured path — `rule.check` reads only the block context, while
@@ -93,9 +95,11 @@ object BenchmarkSupport {
   }
 
   final class NonIndexRequestContext(headers: Set[Header],
-                                     action: Action = searchAction)
+                                     action: Action = searchAction,
+                                     services: EsServices = emptyEsServices)
     extends BaseBenchRequestContext(headers, action) {
     override type BLOCK_CONTEXT = GeneralNonIndexRequestBlockContext
+    override val esServices: EsServices = services
 
     override def initialBlockContext(block: Block): GeneralNonIndexRequestBlockContext =
       GeneralNonIndexRequestBlockContext(block, this, BlockMetadata.from(this), Set.empty, List.empty)
@@ -113,6 +117,26 @@ object BenchmarkSupport {
       GeneralIndexRequestBlockContext(block, this, BlockMetadata.from(this), Set.empty, List.empty, requested, Set.empty, Set.empty)
   }
 
+  // Bulk-shaped request: one index pack per bulk item, like the ES module's BulkEsRequestContext builds them.
+  final class BulkRequestContext(headers: Set[Header],
+                                 indexPacks: List[Indices],
+                                 services: EsServices = emptyEsServices)
+    extends BaseBenchRequestContext(headers, bulkAction) {
+    override type BLOCK_CONTEXT = MultiIndexRequestBlockContext
+    override val `type`: Type = Type("BulkRequest")
+    override val requestedIndices: Option[Set[RequestedIndex[ClusterIndexName]]] = Some {
+      indexPacks.flatMap {
+        case Indices.Found(indices) => indices
+        case Indices.NotFound       => Set.empty
+      }.toCovariantSet
+    }
+    override val esServices: EsServices = services
+    override val isCompositeRequest: Boolean = true
+
+    override def initialBlockContext(block: Block): MultiIndexRequestBlockContext =
+      MultiIndexRequestBlockContext(block, this, BlockMetadata.from(this), Set.empty, List.empty, indexPacks)
+  }
+
   // Empty-cluster stub: authorizing concrete (non-wildcard) index names never expands these lists.
   // The two nulls are serviceAccountTokenService and apiKeyService — not invoked by any rule on the
   // measured ACL path (only the auth_account_token / api_key rules touch them, none of which the KPI
@@ -143,6 +167,9 @@ object BenchmarkSupport {
                                              (implicit id: RequestId): Task[DocumentsAccessibility] =
       Task.raiseError(new UnsupportedOperationException("not used by benchmarks"))
     override def allIndicesAndAliases(implicit id: RequestId): Set[FullLocalIndexWithAliases] = localIndices
+    // one snapshot for the whole trial, like the node service which rebuilds it once per cluster metadata version
+    private val indicesSnapshot = new LocalIndicesSnapshot(localIndices)
+    override def localIndicesSnapshot(implicit id: RequestId): LocalIndicesSnapshot = indicesSnapshot
     override def allDataStreamsAndAliases(implicit id: RequestId): Set[FullLocalDataStreamWithAliases] = Set.empty
   }
 }
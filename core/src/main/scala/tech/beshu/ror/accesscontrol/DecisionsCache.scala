@@ -0,0 +1,292 @@
+/*
+ *    This file is part of ReadonlyREST.
+ *
+ *    ReadonlyREST is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    ReadonlyREST is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with ReadonlyREST.  If not, see http://www.gnu.org/licenses/
+ */
+package tech.beshu.ror.accesscontrol
+
+import com.github.benmanes.caffeine.cache.{Cache, Caffeine}
+import com.google.common.hash.{HashCode, HashFunction, Hashing}
+import eu.timepit.refined.api.Refined
+import io.circe.Json
+import eu.timepit.refined.numeric.Positive
+import monix.eval.Task
+import tech.beshu.ror.accesscontrol.AccessControlList.RegularRequestResult
+import tech.beshu.ror.accesscontrol.History.{BlockHistory, RuleHistory}
+import tech.beshu.ror.accesscontrol.blocks.BlockContext.*
+import tech.beshu.ror.accesscontrol.blocks.BlockContext.MultiIndexRequestBlockContext.Indices
+import tech.beshu.ror.accesscontrol.blocks.{Block, BlockContext, BlockContextUpdater, Decision}
+import tech.beshu.ror.accesscontrol.domain.{ClusterIndexName, Header, RequestId, RequestedIndex}
+import tech.beshu.ror.accesscontrol.metrics.AclMetrics
+import tech.beshu.ror.accesscontrol.request.RequestContext
+import tech.beshu.ror.syntax.*
+import tech.beshu.ror.utils.AccessControllerHelper.doPrivileged
+import tech.beshu.ror.utils.RefinedUtils.{PositiveFiniteDuration, positiveInt}
+
+import java.nio.charset.StandardCharsets
+import java.security.SecureRandom
+import java.util.Locale
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.{ConcurrentHashMap, TimeUnit}
+import scala.concurrent.ExecutionContext.global
+
+/**
+ * Decisions of the ACL taken for regular requests, shared by identical requests: the concurrent ones (eg. the
+ * `_search` and `_msearch` requests sent at once by a Kibana dashboard) wait for the decision of the first one instead
+ * of evaluating the blocks on their own, and the following ones get the decision as long as it's fresh (`ttl`).
+ *
+ * Requests are identical when they have the same headers, addresses, method, path, body, action, requested indices
+ * (and the other request-specific parts of the initial block context) and the local cluster metadata version. The
+ * credentials (and the bodies) are never stored - the cache key is an HMAC (with a random, per-instance key) of all
+ * of these. Headers
+ * which are unique for each request (tracing, correlation id) are not taken into account, unless the settings refer
+ * to them (e.g. in a headers rule or a header variable). Only read-only requests handled by the index and non-index
+ * blocks contexts are shared.
+ *
+ * A shared decision holds the block contexts of the evaluated request (with its body), so the size of the cache is
+ * bounded by weight - each decision weighs one unit plus one unit per started KiB of the request body.
+ *
+ * The decisions are forgotten when the local cluster metadata changes or when the engine is reloaded.
+ */
+sealed trait DecisionsCache {
+
+  def decisionFor[B <: BlockContext: BlockContextUpdater](requestContext: RequestContext.Aux[B], firstBlock: Block)(
+      evaluate: Task[(RegularRequestResult[B], History[B])]
+  ): Task[(RegularRequestResult[B], History[B])]
+
+  def invalidateAll(): Unit
+}
+
+object DecisionsCache {
+
+  // `maxSize` is the maximum total weight of the cached decisions
+  final case class Settings(ttl: PositiveFiniteDuration, maxSize: Int Refined Positive)
+
+  object Settings {
+    val defaultMaxSize: Int Refined Positive = positiveInt(10000)
+  }
+
+  val cacheName = "decisions"
+
+  private val requestSpecificHeaders: Set[String] = Set(
+    Header.Name.correlationId.lowerCased,
+    "x-opaque-id",
+    "traceparent",
+    "tracestate"
+  )
+
+  def create(settings: Option[Settings], rorSettings: Json): DecisionsCache = settings match {
+    case Some(s) => new Enabled(s, requestSpecificHeaders.filterNot(isReferredIn(rorSettings)))
+    case None    => Disabled
+  }
+
+  // conservative - a header mentioned anywhere in the settings (keys or string values) is kept in the key
+  private def isReferredIn(rorSettings: Json)(lowerCasedHeaderName: String) = {
+    def textsOf(json: Json): Iterator[String] = json.arrayOrObject(
+      json.asString.iterator,
+      _.iterator.flatMap(textsOf),
+      _.toIterable.iterator.flatMap { case (key, value) => Iterator.single(key) ++ textsOf(value) }
+    )
+    textsOf(rorSettings).exists(_.toLowerCase(Locale.US).contains(lowerCasedHeaderName))
+  }
+
+  case object Disabled extends DecisionsCache {
+
+    override def decisionFor[B <: BlockContext: BlockContextUpdater](
+        requestContext: RequestContext.Aux[B],
+        firstBlock: Block
+    )(
+        evaluate: Task[(RegularRequestResult[B], History[B])]
+    ): Task[(RegularRequestResult[B], History[B])] = evaluate
+
+    override def invalidateAll(): Unit = ()
+  }
+
+  final class Enabled(val settings: Settings, val ignoredHeaders: Set[String]) extends DecisionsCache {
+
+    private val hmac: HashFunction = {
+      val key = new Array[Byte](32)
+      new SecureRandom().nextBytes(key)
+      Hashing.hmacSha256(key)
+    }
+
+    private val decisions: Cache[HashCode, SharedDecision] =
+      doPrivileged {
+        Caffeine
+          .newBuilder()
+          .executor(global)
+          .maximumWeight(settings.maxSize.value.toLong)
+          .weigher[HashCode, SharedDecision]((_, decision) => decision.weight)
+          .expireAfterWrite(settings.ttl.value.toMillis, TimeUnit.MILLISECONDS)
+          .build[HashCode, SharedDecision]()
+      }
+
+    private val inFlight = new ConcurrentHashMap[HashCode, Task[SharedDecision]]()
+    private val newestMetadataVersion = new AtomicLong(Long.MinValue)
+    private val metrics = AclMetrics.cache(cacheName)
+
+    override def decisionFor[B <: BlockContext: BlockContextUpdater](
+        requestContext: RequestContext.Aux[B],
+        firstBlock: Block
+    )(
+        evaluate: Task[(RegularRequestResult[B], History[B])]
+    ): Task[(RegularRequestResult[B], History[B])] = Task.defer {
+      keyOf(requestContext, firstBlock) match {
+        case Some(key) =>
+          val decision = Option(decisions.getIfPresent(key)) match {
+            case Some(cached) =>
+              metrics.recordHit()
+              Task.now(cached)
+            case None =>
+              metrics.recordMiss()
+              val weight = weightOf(requestContext)
+              sharedEvaluation(key, evaluate.map { case (result, history) => SharedDecision(result, history, weight) })
+          }
+          decision.map(rebased(_, requestContext))
+        case None =>
+          evaluate
+      }
+    }
+
+    override def invalidateAll(): Unit = decisions.invalidateAll()
+
+    private def sharedEvaluation(key: HashCode, evaluate: Task[SharedDecision]) = Task.defer {
+      lazy val evaluation: Task[SharedDecision] =
+        evaluate
+          .map { decision =>
+            if (isCacheable(decision)) decisions.put(key, decision)
+            decision
+          }
+          .guarantee(Task.delay(inFlight.remove(key, evaluation)).void)
+          .uncancelable
+          .memoize
+      Option(inFlight.putIfAbsent(key, evaluation)).getOrElse(evaluation)
+    }
+
+    private def isCacheable(decision: SharedDecision) = decision.result match {
+      case RegularRequestResult.Failed(_) => false
+      case _                              => decision.weight <= settings.maxSize.value
+    }
+
+    private def keyOf[B <: BlockContext](requestContext: RequestContext.Aux[B], firstBlock: Block) = {
+      implicit val requestId: RequestId = requestContext.id.toRequestId
+      val initialBlockContext = requestContext.initialBlockContext(firstBlock)
+      for {
+        blockContextSpecificParts <- blockContextSpecificPartsOf(initialBlockContext)
+        if requestContext.isReadOnlyRequest
+        metadataVersion <- requestContext.esServices.clusterService.localMetadataVersion
+      } yield {
+        invalidateOnMetadataChange(metadataVersion)
+        val restRequest = requestContext.restRequest
+        val parts = List(
+          initialBlockContext.getClass.getName,
+          metadataVersion.toString,
+          requestContext.action.value,
+          restRequest.method.value,
+          restRequest.path.value.value,
+          restRequest.localAddress.toString,
+          restRequest.remoteAddress.toString,
+          restRequest.contentLength.toBytes.toString,
+          // the body decides e.g. about the indices of _msearch and _bulk, and the DLS/FLS applied to them
+          restRequest.content,
+          requestContext.indexAttributes.toString,
+          requestContext.isCompositeRequest.toString,
+          requestContext.isAllowedForDLS.toString,
+          requestContext.requestedIndices.map(canonical).toString,
+          canonicalHeaders(restRequest.allHeaders)
+        ) ::: blockContextSpecificParts
+        // each part is prefixed with its length, so the digest input is unambiguous
+        parts
+          .foldLeft(hmac.newHasher()) { (hasher, part) =>
+            hasher.putInt(part.length).putString(part, StandardCharsets.UTF_8)
+          }
+          .hash()
+      }
+    }
+
+    private def blockContextSpecificPartsOf(initialBlockContext: BlockContext): Option[List[String]] = {
+      initialBlockContext match {
+        case _: GeneralNonIndexRequestBlockContext =>
+          Some(Nil)
+        case bc: GeneralIndexRequestBlockContext =>
+          Some(List(canonical(bc.filteredIndices)))
+        case bc: FilterableRequestBlockContext =>
+          Some(List(canonical(bc.filteredIndices), bc.requestFieldsUsage.toString))
+        case bc: MultiIndexRequestBlockContext =>
+          Some(bc.indexPacks.map(canonical))
+        case bc: FilterableMultiRequestBlockContext =>
+          Some(bc.requestFieldsUsage.toString :: bc.indexPacks.map(canonical))
+        case _ =>
+          None
+      }
+    }
+
+    private def weightOf(requestContext: RequestContext) = {
+      val contentKiBs = Math.ceil(requestContext.restRequest.contentLength.toBytes / 1024)
+      Math.min(1 + contentKiBs, Int.MaxValue.toDouble).toInt
+    }
+
+    private def invalidateOnMetadataChange(metadataVersion: Long): Unit = {
+      if (newestMetadataVersion.getAndAccumulate(metadataVersion, Math.max) < metadataVersion) {
+        decisions.invalidateAll()
+      }
+    }
+
+    private def canonicalHeaders(headers: Set[Header]) = {
+      headers
+        .filterNot(header => ignoredHeaders.contains(header.name.lowerCased))
+        .map(header => s"${header.name.lowerCased}:${header.value.value}")
+        .toList
+        .sorted
+        .mkString("\n")
+    }
+
+    private def canonical(indices: Set[RequestedIndex[ClusterIndexName]]): String =
+      indices.map(_.toString).toList.sorted.mkString(",")
+
+    private def canonical(indices: Indices): String = indices match {
+      case Indices.Found(found) => canonical(found)
+      case Indices.NotFound     => "<not found>"
+    }
+
+    // the key contains the block context type, so the shared decision was taken for a request with the same `B`
+    private def rebased[B <: BlockContext: BlockContextUpdater](
+        decision: SharedDecision,
+        requestContext: RequestContext.Aux[B]
+    ): (RegularRequestResult[B], History[B]) = {
+      val rebase: B => B = BlockContextUpdater[B].withRequestContext(_, requestContext)
+      def rebasedDecision(d: Decision[B]): Decision[B] = d match {
+        case Decision.Permitted(context) => Decision.Permitted(rebase(context))
+        case denied @ Decision.Denied(_) => denied
+      }
+      val result = decision.result.asInstanceOf[RegularRequestResult[B]] match {
+        case RegularRequestResult.Allowed(context)   => RegularRequestResult.Allowed(rebase(context))
+        case RegularRequestResult.Forbidden(context) => RegularRequestResult.Forbidden(rebase(context))
+        case other                                   => other
+      }
+      val history = History(decision.history.asInstanceOf[History[B]].blocks.map {
+        case BlockHistory.Permitted(block, Decision.Permitted(context), rules) =>
+          BlockHistory.Permitted(block, Decision.Permitted(rebase(context)), rules.map(rebasedRule(_, rebasedDecision)))
+        case BlockHistory.Denied(block, denied, rules) =>
+          BlockHistory.Denied(block, denied, rules.map(rebasedRule(_, rebasedDecision)))
+      })
+      (result, history)
+    }
+
+    private def rebasedRule[B <: BlockContext](rule: RuleHistory[B], rebase: Decision[B] => Decision[B]) =
+      rule.copy(decision = rebase(rule.decision))
+  }
+
+  private final case class SharedDecision(result: RegularRequestResult[?], history: History[?], weight: Int)
+}
@@ -23,8 +23,9 @@ import monix.execution.Scheduler
 import tech.beshu.ror.accesscontrol.AccessControlList.*
 import tech.beshu.ror.accesscontrol.AccessControlList.UserMetadataRequestResult.*
 import tech.beshu.ror.accesscontrol.EnabledAccessControlList.AccessControlListStaticContext
-import tech.beshu.ror.accesscontrol.History.BlockHistory
+import tech.beshu.ror.accesscontrol.History.{BlockHistory, RuleHistory}
 import tech.beshu.ror.accesscontrol.blocks.Block.Policy
+import tech.beshu.ror.accesscontrol.blocks.BlockPreFilterIndex.SkipReason
 import tech.beshu.ror.accesscontrol.blocks.BlockContext.UserMetadataRequestBlockContext
 import tech.beshu.ror.accesscontrol.blocks.Decision.{Denied, Permitted}
 import tech.beshu.ror.accesscontrol.blocks.metadata.UserMetadata
@@ -32,7 +33,7 @@ import tech.beshu.ror.accesscontrol.blocks.metadata.UserMetadata.WithGroups.Grou
 import tech.beshu.ror.accesscontrol.blocks.metadata.UserMetadata.{MetadataOrigin, WithGroups}
 import tech.beshu.ror.accesscontrol.blocks.rules.Rule.{AuthenticationRule, AuthorizationRule}
 import tech.beshu.ror.accesscontrol.blocks.rules.elasticsearch.FieldsRule
-import tech.beshu.ror.accesscontrol.blocks.{Block, BlockContext, BlockContextUpdater, Decision}
+import tech.beshu.ror.accesscontrol.blocks.{Block, BlockContext, BlockContextUpdater, BlockPreFilterIndex, Decision}
 import tech.beshu.ror.accesscontrol.domain.RorKbnLicenseType.{Enterprise, Free, Pro}
 import tech.beshu.ror.accesscontrol.domain.{Group, Header, LoggedUser, RequestId}
 import tech.beshu.ror.accesscontrol.factory.GlobalSettings
@@ -56,17 +57,69 @@ class EnabledAccessControlList(
 
   override val description: String = "Enabled ROR ACL"
 
+  private val indexedBlocks: NonEmptyList[(Block, Int)] = blocks.zipWithIndex
+
+  private val blockPreFilterIndex: BlockPreFilterIndex = BlockPreFilterIndex.create(blocks)
+
+  private val speculationDepth: Int = staticContext.speculativeBlocksEvaluationDepth
+
+  private val blocksByIdx: Vector[Block] = blocks.toList.toVector
+
   override def handleRegularRequest[B <: BlockContext: BlockContextUpdater](
       context: RequestContext.Aux[B]
+  ): Task[(RegularRequestResult[B], History[B])] =
+    staticContext.decisionsCache.decisionFor(context, blocks.head)(evaluateRegularRequest(context))
+
+  private def evaluateRegularRequest[B <: BlockContext: BlockContextUpdater](
+      context: RequestContext.Aux[B]
   ): Task[(RegularRequestResult[B], History[B])] =
     doPrivileged {
+      val preFilter = blockPreFilterIndex.preFilter(context)
+      val speculations =
+        new SpeculativeBlockEvaluations(blocksByIdx(_).evaluateForRegularRequestWithPendingMetrics(context))
+
+      def evaluationOf(block: Block, blockIdx: Int): Task[(Decision[B], BlockHistory[B])] = {
+        if (speculationDepth == 0) block.evaluateForRegularRequest(context)
+        else
+          for {
+            _ <-
+              if (block.callsExternalServices) speculations.start(speculativeCandidatesAfter(block, blockIdx))
+              else Task.unit
+            (result, evaluation) <- speculations.joinOrEvaluate(blockIdx)
+            _ = evaluation.commit()
+          } yield result
+      }
+
+      // Only the next I/O-bound blocks are worth to be evaluated before their turn comes. The request's credentials
+      // cannot be sent to a service which wouldn't get them without the speculation (the evaluation may never reach
+      // the block), so only the blocks sending them to the services the current block sends them to are speculated.
+      // A block sending the credentials nowhere (e.g. with authorization rules only) still calls an external service
+      // on behalf of the user, so it's never speculated.
+      def speculativeCandidatesAfter(block: Block, blockIdx: Int): List[Int] = {
+        (blockIdx + 1)
+          .until(Math.min(blockIdx + 1 + speculationDepth, blocksByIdx.size))
+          .filter { idx =>
+            val candidate = blocksByIdx(idx)
+            candidate.callsExternalServices &&
+            candidate.credentialsReceivers.nonEmpty &&
+            candidate.credentialsReceivers.subsetOf(block.credentialsReceivers) &&
+            preFilter.skipReasonOf(idx).isEmpty
+          }
+          .toList
+      }
+
       // Recursion instead of a fold: a Permitted decision returns immediately, skipping the per-block
       // wrapping of the remaining blocks (which never run and add no history anyway).
       def executeBlocks(
-          block: Block,
-          remainingBlocks: List[Block]
-      ): WriterT[Task, Vector[BlockHistory[B]], Decision[B]] =
-        executeBlocksForRegularRequest(block, context).flatMap {
+          indexedBlock: (Block, Int),
+          remainingBlocks: List[(Block, Int)]
+      ): WriterT[Task, Vector[BlockHistory[B]], Decision[B]] = {
+        val (block, blockIdx) = indexedBlock
+        val blockDecision = preFilter.skipReasonOf(blockIdx) match {
+          case None             => executeBlocksForRegularRequest(evaluationOf(block, blockIdx))
+          case Some(skipReason) => skipBlock(block, skipReason, context)
+        }
+        blockDecision.flatMap {
           case permitted @ Decision.Permitted(_) =>
             lift(permitted)
           case denied @ Decision.Denied(_) =>
@@ -75,8 +128,10 @@ class EnabledAccessControlList(
               case Nil               => lift(denied)
             }
         }
+      }
 
-      executeBlocks(blocks.head, blocks.tail).run
+      executeBlocks(indexedBlocks.head, indexedBlocks.tail).run
+        .guarantee(speculations.cancelAll)
         .map { case (blocksHistory, result) =>
           val handlingResult: RegularRequestResult[B] = result match {
             case Decision.Permitted(blockContext) =>
@@ -371,17 +426,39 @@ class EnabledAccessControlList(
       }
   }
 
-  private def executeBlocksForRegularRequest[B <: BlockContext: BlockContextUpdater](
-      block: Block,
-      requestContext: RequestContext.Aux[B]
+  private def executeBlocksForRegularRequest[B <: BlockContext](
+      blockEvaluation: Task[(Decision[B], BlockHistory[B])]
   ): WriterT[Task, Vector[BlockHistory[B]], Decision[B]] = {
     for {
-      blockEvalDecision <- WriterT.liftF(block.evaluateForRegularRequest(requestContext))
+      blockEvalDecision <- WriterT.liftF(blockEvaluation)
       (decision, history) = blockEvalDecision
       aclProcessingResult <- lift(decision).tell(Vector(history))
     } yield aclProcessingResult
   }
 
+  // The block cannot match the request (see [[BlockPreFilterIndex]]), so its rules are not evaluated. It's reported in
+  // the history the same way as its full evaluation would be: the rules ordered before the one which would deny it
+  // permit the request (without changing the block context) and the evaluation stops at the denying rule.
+  private def skipBlock[B <: BlockContext](
+      block: Block,
+      skipReason: SkipReason,
+      context: RequestContext.Aux[B]
+  ): WriterT[Task, Vector[BlockHistory[B]], Decision[B]] = {
+    val denied = Decision.Denied[B](skipReason.cause)
+    WriterT
+      .liftF[Task, Vector[BlockHistory[B]], Unit](Task.delay(block.metrics.recordSkipped()))
+      .flatMap { _ =>
+        val passedRulesHistory: Vector[RuleHistory[B]] =
+          if (skipReason.passedRules.isEmpty) Vector.empty
+          else {
+            val permitted = Decision.Permitted(context.initialBlockContext(block))
+            skipReason.passedRules.map(RuleHistory(_, permitted))
+          }
+        val rulesHistory = passedRulesHistory :+ RuleHistory(skipReason.rule, denied)
+        lift(denied).tell(Vector(BlockHistory.Denied(block, denied, rulesHistory)))
+      }
+  }
+
   private def lift[B <: BlockContext](result: Decision[B]): WriterT[Task, Vector[BlockHistory[B]], Decision[B]] = {
     WriterT.value[Task, Vector[BlockHistory[B]], Decision[B]](result)
   }
@@ -450,11 +527,14 @@ object EnabledAccessControlList {
   final class AccessControlListStaticContext(
       blocks: NonEmptyList[Block],
       globalSettings: GlobalSettings,
-      override val obfuscatedHeaders: Set[Header.Name]
+      override val obfuscatedHeaders: Set[Header.Name],
+      val decisionsCache: DecisionsCache = DecisionsCache.Disabled
   ) extends AccessControlStaticContext {
 
     override val forbiddenRequestMessage: String = globalSettings.forbiddenRequestMessage
 
+    val speculativeBlocksEvaluationDepth: Int = globalSettings.speculativeBlocksEvaluationDepth.map(_.value).getOrElse(0)
+
     val usedFlsEngineInFieldsRule: Option[GlobalSettings.FlsEngine] = {
       blocks
         .flatMap(_.rules)
@@ -0,0 +1,60 @@
+/*
+ *    This file is part of ReadonlyREST.
+ *
+ *    ReadonlyREST is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    ReadonlyREST is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with ReadonlyREST.  If not, see http://www.gnu.org/licenses/
+ */
+package tech.beshu.ror.accesscontrol
+
+import cats.implicits.*
+import monix.eval.{Fiber, Task}
+
+import java.util.concurrent.atomic.AtomicReference
+
+/**
+ * The blocks (identified by their index in the ACL) of a single request evaluated speculatively - in parallel with
+ * the block being evaluated, before their turn comes. The ACL still takes the blocks' decisions in the blocks order:
+ * a speculative evaluation is joined when its block's turn comes, and the ones which are not needed anymore (because
+ * an earlier block matched) are cancelled.
+ */
+private[ror] final class SpeculativeBlockEvaluations[A](evaluate: Int => Task[A]) {
+
+  // `None` when the evaluations were cancelled - a fiber started later is cancelled right away
+  private val started = new AtomicReference(Option(Map.empty[Int, Fiber[A]]))
+
+  def start(blockIndices: List[Int]): Task[Unit] = Task.defer {
+    blockIndices
+      .filterNot(idx => started.get().exists(_.contains(idx)))
+      .traverse_ { blockIdx =>
+        // uncancelable, so a started fiber is always registered (and cancelled by `cancelAll` or right here)
+        evaluate(blockIdx).start.flatMap { fiber =>
+          started.getAndUpdate(_.map(_.updated(blockIdx, fiber))) match {
+            case Some(_) => Task.unit
+            case None    => fiber.cancel
+          }
+        }.uncancelable
+      }
+  }
+
+  def joinOrEvaluate(blockIdx: Int): Task[A] = Task.defer {
+    started.getAndUpdate(_.map(_.removed(blockIdx))).flatMap(_.get(blockIdx)) match {
+      case Some(fiber) => fiber.join.doOnCancel(fiber.cancel)
+      case None        => evaluate(blockIdx)
+    }
+  }
+
+  def cancelAll: Task[Unit] = Task.defer {
+    started.getAndSet(None).toList.flatMap(_.values).traverse_(_.cancel)
+  }
+
+}
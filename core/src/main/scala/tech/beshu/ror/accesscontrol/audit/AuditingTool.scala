@@ -86,6 +86,9 @@ final class AuditingTool private (private[ror] val sinks: List[AuditSink])(
 
   def close(): Task[Unit] = sinks.traverse(_.close()).void
 
+  def queuedSinksStats: Map[SinkName, QueuedAuditSink.Stats] =
+    sinks.collect { case sink: QueuedAuditSink => sink.name -> sink.stats }.toMap
+
   private def toAuditResponse[B <: BlockContext](
       responseContext: ResponseContext[B],
       auditEnvironmentContext: AuditEnvironmentContext
@@ -217,10 +220,31 @@ object AuditingTool extends RequestIdAwareLogging {
     sealed trait AuditSink
 
     object AuditSink {
-      final case class Enabled(name: SinkName, config: AuditSettings.AuditSink.Config) extends AuditSink
+      final case class Enabled(
+          name: SinkName,
+          config: AuditSettings.AuditSink.Config,
+          queue: Option[AuditSettings.AuditSink.Queue] = None
+      ) extends AuditSink
 
       case object Disabled extends AuditSink
 
+      final case class Queue(size: PosInt, overflowPolicy: Queue.OverflowPolicy)
+
+      object Queue {
+
+        sealed trait OverflowPolicy
+
+        object OverflowPolicy {
+          case object Block extends OverflowPolicy
+          case object DropOldest extends OverflowPolicy
+          case object DropNewest extends OverflowPolicy
+
+          // the events are never dropped unless it was explicitly requested
+          val default: OverflowPolicy = Block
+        }
+
+      }
+
       sealed trait Config
 
       object Config {
@@ -313,7 +337,7 @@ object AuditingTool extends RequestIdAwareLogging {
         } else {
           noRequestIdLogger.info(s"The audit is enabled with the given outputs: [${auditSinks.show}]")
         }
-        new AuditingTool(auditSinks)
+        new AuditingTool(auditSinks.map(withQueue(_, effectiveSinks)))
       }.toEither
         .leftMap { errors =>
           errors.map(error => CreationError(error.message))
@@ -333,6 +357,13 @@ object AuditingTool extends RequestIdAwareLogging {
     if (defaultAclLog) defaultAclSink :: sinks else sinks
   }
 
+  private def withQueue(sink: SupportedAuditSink, sinksSettings: List[AuditSettings.AuditSink]): AuditSink = {
+    sinksSettings
+      .collectFirst { case Enabled(name, _, Some(queue)) if name == sink.name => queue }
+      .map(queue => new QueuedAuditSink(sink, queue))
+      .getOrElse(sink)
+  }
+
   private def defaultAclSink = AuditSettings.AuditSink.Enabled(
     SinkName.defaultAclLog,
     AuditSettings.AuditSink.Config.LogBasedSink(AuditSerializer.Acl, AclAuditLogSerializer.defaultLoggerName)
@@ -348,13 +379,13 @@ object AuditingTool extends RequestIdAwareLogging {
   ): Task[ValidatedNel[CreationError, List[SupportedAuditSink]]] = {
     sinks
       .map[Task[Validated[CreationError, Option[SupportedAuditSink]]]] {
-        case Enabled(name, config: AuditSettings.AuditSink.Config.EsIndexBasedSink) =>
+        case Enabled(name, config: AuditSettings.AuditSink.Config.EsIndexBasedSink, _) =>
           val serviceCreator: IndexBasedAuditSinkServiceCreator = auditSinkServiceCreator match {
             case creator: DataStreamAndIndexBasedAuditSinkServiceCreator => creator
             case creator: IndexBasedAuditSinkServiceCreator              => creator
           }
           createIndexSink(name, config, serviceCreator).map(_.some.valid)
-        case Enabled(name, config: AuditSettings.AuditSink.Config.EsDataStreamBasedSink) =>
+        case Enabled(name, config: AuditSettings.AuditSink.Config.EsDataStreamBasedSink, _) =>
           auditSinkServiceCreator match {
             case creator: DataStreamAndIndexBasedAuditSinkServiceCreator =>
               createDataStreamSink(name, config, creator).map(_.map(_.some))
@@ -362,9 +393,9 @@ object AuditingTool extends RequestIdAwareLogging {
               // todo improvement - make this state impossible
               Task.raiseError(new IllegalStateException("Data stream audit sink is not supported in this version"))
           }
-        case Enabled(name, config: AuditSettings.AuditSink.Config.LogBasedSink) =>
+        case Enabled(name, config: AuditSettings.AuditSink.Config.LogBasedSink, _) =>
           Task.delay(new LogBasedAuditSink(name, config.serializer, config.loggerName).some.valid)
-        case Enabled(name, config: AuditSettings.AuditSink.Config.RollingFileBasedSink) =>
+        case Enabled(name, config: AuditSettings.AuditSink.Config.RollingFileBasedSink, _) =>
           RollingFileBasedAuditSink
             .create(name, config.serializer, config.loggerName, config.fileAppender)
             .map(_.map(_.some).leftMap(e => CreationError(e.message)).toValidated)
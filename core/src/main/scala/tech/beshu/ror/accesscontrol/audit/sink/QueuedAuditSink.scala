@@ -0,0 +1,171 @@
+/*
+ *    This file is part of ReadonlyREST.
+ *
+ *    ReadonlyREST is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    ReadonlyREST is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with ReadonlyREST.  If not, see http://www.gnu.org/licenses/
+ */
+package tech.beshu.ror.accesscontrol.audit.sink
+
+import monix.eval.Task
+import monix.execution.Scheduler
+import tech.beshu.ror.accesscontrol.audit.AuditingTool.AuditSettings.AuditSink.Queue
+import tech.beshu.ror.accesscontrol.audit.AuditingTool.AuditSettings.AuditSink.Queue.OverflowPolicy
+import tech.beshu.ror.accesscontrol.audit.sink.QueuedAuditSink.{QueuedEvent, Stats}
+import tech.beshu.ror.accesscontrol.domain.{RequestId, SinkName}
+import tech.beshu.ror.audit.AuditResponseContext
+import tech.beshu.ror.boot.RorSchedulers
+import tech.beshu.ror.utils.RequestIdAwareLogging
+
+import java.util.concurrent.ArrayBlockingQueue
+import java.util.concurrent.atomic.{AtomicBoolean, AtomicLong}
+import scala.concurrent.duration.*
+
+/**
+ * Decouples the audit sink from the request path. The submitted audit event (a snapshot of the request handling
+ * result) is only put into a bounded queue - the serialization and the submission to the underlying sink are done
+ * on the audit workers' scheduler. When the queue is full, the event is handled according to the overflow policy:
+ * the request waits for the room in the queue (`block`, the default one), the oldest queued event is dropped
+ * (`drop_oldest`) or the submitted one is dropped (`drop_newest`). When the sink is closed, the queued events which
+ * were not submitted within the close timeout are dropped. All the dropped events are counted in the sink's stats.
+ */
+private[ror] final class QueuedAuditSink(
+    underlying: AuditSink,
+    queue: Queue,
+    scheduler: Scheduler = RorSchedulers.auditScheduler,
+    closeTimeout: FiniteDuration = QueuedAuditSink.defaultCloseTimeout
+) extends AuditSink
+    with RequestIdAwareLogging {
+
+  override val name: SinkName = underlying.name
+
+  private val events = new ArrayBlockingQueue[QueuedEvent](queue.size.value)
+  private val draining = new AtomicBoolean(false)
+  private val closed = new AtomicBoolean(false)
+
+  private val queuedCount = new AtomicLong(0)
+  private val droppedCount = new AtomicLong(0)
+  private val flushedCount = new AtomicLong(0)
+
+  queue.overflowPolicy match {
+    case OverflowPolicy.Block                                  =>
+    case OverflowPolicy.DropOldest | OverflowPolicy.DropNewest =>
+      noRequestIdLogger.warn(
+        s"The audit output [${name.value}] drops the audit events when its queue is full " +
+          s"(size: ${queue.size.value}). Check the dropped events count in the ROR metrics."
+      )
+  }
+
+  override def submit(event: AuditResponseContext)(
+      implicit requestId: RequestId
+  ): Task[Unit] = Task.delay {
+    if (closed.get()) {
+      onDropped()
+    } else {
+      enqueue(QueuedEvent(event, requestId))
+      startDrainingIfIdle()
+    }
+  }
+
+  override def close(): Task[Unit] = {
+    awaitDrained(deadline = closeTimeout.fromNow)
+      .flatMap(_ => Task.delay(dropUndrained()))
+      .flatMap(_ => underlying.close())
+  }
+
+  def stats: Stats = Stats(
+    queued = queuedCount.get(),
+    dropped = droppedCount.get(),
+    flushed = flushedCount.get(),
+    pending = events.size()
+  )
+
+  private def enqueue(event: QueuedEvent): Unit = {
+    queue.overflowPolicy match {
+      case OverflowPolicy.Block =>
+        events.put(event)
+        queuedCount.incrementAndGet()
+      case OverflowPolicy.DropNewest =>
+        if (events.offer(event)) queuedCount.incrementAndGet()
+        else onDropped()
+      case OverflowPolicy.DropOldest =>
+        while (!events.offer(event)) {
+          if (events.poll() != null) onDropped()
+        }
+        queuedCount.incrementAndGet()
+    }
+  }
+
+  private def onDropped(): Unit = {
+    val dropped = droppedCount.incrementAndGet()
+    if (dropped % QueuedAuditSink.droppedEventsLoggingInterval == 1) {
+      noRequestIdLogger.warn(
+        s"The queue of the audit output [${name.value}] is full (size: ${queue.size.value}). " +
+          s"Audit events dropped so far: $dropped"
+      )
+    }
+  }
+
+  private def dropUndrained(): Unit = {
+    closed.set(true)
+    val undrained = new java.util.ArrayList[QueuedEvent]()
+    events.drainTo(undrained)
+    if (!undrained.isEmpty) {
+      val dropped = droppedCount.addAndGet(undrained.size().toLong)
+      noRequestIdLogger.warn(
+        s"The audit output [${name.value}] was closed before its queue was drained. " +
+          s"Audit events dropped on close: ${undrained.size()} (dropped in total: $dropped)"
+      )
+    }
+  }
+
+  private def startDrainingIfIdle(): Unit = {
+    if (draining.compareAndSet(false, true)) {
+      drain.executeAsync.runAsyncAndForget(using scheduler)
+    }
+  }
+
+  private def drain: Task[Unit] = Task.defer {
+    Option(if (closed.get()) null else events.poll()) match {
+      case Some(QueuedEvent(event, requestId)) =>
+        underlying
+          .submit(event)(requestId)
+          .map(_ => flushedCount.incrementAndGet())
+          .void
+          .onErrorHandle { ex =>
+            logger.warn(s"Cannot submit the audit event to the audit output [${name.value}]", ex)(requestId)
+          }
+          .flatMap(_ => drain)
+      case None =>
+        Task.delay {
+          draining.set(false)
+          // an event could have been enqueued after the last poll, but before the flag was cleared
+          if (!events.isEmpty) startDrainingIfIdle()
+        }
+    }
+  }
+
+  private def awaitDrained(deadline: Deadline): Task[Unit] = Task.defer {
+    if ((events.isEmpty && !draining.get()) || deadline.isOverdue()) Task.unit
+    else Task.sleep(10.millis).flatMap(_ => awaitDrained(deadline))
+  }
+}
+
+object QueuedAuditSink {
+
+  final case class Stats(queued: Long, dropped: Long, flushed: Long, pending: Int)
+
+  private final case class QueuedEvent(event: AuditResponseContext, requestId: RequestId)
+
+  private val defaultCloseTimeout: FiniteDuration = 5.seconds
+  private val droppedEventsLoggingInterval = 1000L
+}
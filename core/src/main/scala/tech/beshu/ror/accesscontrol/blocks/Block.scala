@@ -28,13 +28,25 @@ import tech.beshu.ror.accesscontrol.blocks.Block.Audit.Enabled.{EnabledAuditSink
 import tech.beshu.ror.accesscontrol.blocks.BlockContext.UserMetadataRequestBlockContext
 import tech.beshu.ror.accesscontrol.blocks.Decision.Denied.Cause
 import tech.beshu.ror.accesscontrol.blocks.ImpersonationWarning.ImpersonationWarningSupport
+import tech.beshu.ror.accesscontrol.blocks.definitions.ldap.LdapService
+import tech.beshu.ror.accesscontrol.blocks.definitions.{ExternalAuthenticationService, UserDef}
+import tech.beshu.ror.accesscontrol.blocks.definitions.UserDef.Mode.WithGroupsMapping.Auth
 import tech.beshu.ror.accesscontrol.blocks.rules.Rule
+import tech.beshu.ror.accesscontrol.blocks.rules.auth.{
+  ExternalAuthenticationRule,
+  ExternalAuthorizationRule,
+  LdapAuthRule,
+  LdapAuthenticationRule,
+  LdapAuthorizationRule
+}
+import tech.beshu.ror.accesscontrol.blocks.rules.auth.base.BaseGroupsRule
 import tech.beshu.ror.accesscontrol.blocks.variables.runtime.VariableContext.VariableUsage
 import tech.beshu.ror.accesscontrol.domain.SinkName
 import tech.beshu.ror.accesscontrol.factory.BlockValidator
 import tech.beshu.ror.accesscontrol.factory.BlockValidator.BlockValidationError
 import tech.beshu.ror.accesscontrol.factory.RawRorSettingsBasedCoreFactory.CoreCreationError.BlocksLevelCreationError
 import tech.beshu.ror.accesscontrol.factory.RawRorSettingsBasedCoreFactory.CoreCreationError.Reason.Message
+import tech.beshu.ror.accesscontrol.metrics.{BlockMetrics, LatencyHistogram}
 import tech.beshu.ror.accesscontrol.orders.*
 import tech.beshu.ror.accesscontrol.request.{RequestContext, UserMetadataRequestContext}
 import tech.beshu.ror.implicits.*
@@ -47,6 +59,7 @@ class Block(
     val policy: Block.Policy,
     val rules: NonEmptyList[Rule],
     val audit: Block.Audit,
+    val metrics: BlockMetrics = new BlockMetrics
 )(
     implicit val loggingContext: LoggingContext
 ) extends RequestIdAwareLogging {
@@ -64,13 +77,25 @@ class Block(
       case enabled @ Audit.Enabled(_, EnabledAuditSinks.AllExcept(off), _) =>
         enabled.copy(precomputedAuditSinks = Available(allSinks.filter(s => !off.contains(s.name))))
     }
-    new Block(name, policy, rules, newAudit)(loggingContext)
+    new Block(name, policy, rules, newAudit, metrics)(loggingContext)
   }
 
   def evaluateForRegularRequest[B <: BlockContext: BlockContextUpdater](
       requestContext: RequestContext.Aux[B]
   ): Task[(Decision[B], BlockHistory[B])] = {
-    evaluateRules(rules.toList, requestContext.initialBlockContext(this), Vector.empty[RuleHistory[B]])
+    evaluateForRegularRequestWithPendingMetrics(requestContext).map { case (result, evaluation) =>
+      evaluation.commit()
+      result
+    }
+  }
+
+  // the metrics of the evaluation are committed by the caller when it uses the result (see SpeculativeBlockEvaluations)
+  private[accesscontrol] def evaluateForRegularRequestWithPendingMetrics[B <: BlockContext: BlockContextUpdater](
+      requestContext: RequestContext.Aux[B]
+  ): Task[((Decision[B], BlockHistory[B]), BlockMetrics.Evaluation)] = Task.defer {
+    val evaluation = metrics.newEvaluation()
+    evaluateRules(timedRules, requestContext.initialBlockContext(this), Vector.empty[RuleHistory[B]], evaluation)
+      .map((_, evaluation))
   }
 
   /**
@@ -90,17 +115,25 @@ class Block(
       requestContext: UserMetadataRequestContext.Aux[UserMetadataRequestBlockContext]
   ): Task[NonEmptyList[(Decision[UserMetadataRequestBlockContext], BlockHistory[UserMetadataRequestBlockContext])]] = {
     if (containsAuthRule) {
-      evaluateRules(
-        authRules,
-        requestContext.initialBlockContext(this),
-        Vector.empty[RuleHistory[UserMetadataRequestBlockContext]]
-      )
-        .flatMap {
-          case deniedResult @ (Decision.Denied(_), _) =>
-            Task.now(NonEmptyList.one(deniedResult))
-          case (Decision.Permitted(authBlockContext), authBlockHistory) =>
-            evaluateRemainingRulesPerAvailableGroup(authBlockContext, authBlockHistory.history)
-        }
+      Task.defer {
+        val evaluation = metrics.newEvaluation()
+        evaluateRules(
+          authRules,
+          requestContext.initialBlockContext(this),
+          Vector.empty[RuleHistory[UserMetadataRequestBlockContext]],
+          evaluation
+        )
+          .flatMap {
+            case deniedResult @ (Decision.Denied(_), _) =>
+              Task.now(NonEmptyList.one(deniedResult))
+            case (Decision.Permitted(authBlockContext), authBlockHistory) =>
+              evaluateRemainingRulesPerAvailableGroup(authBlockContext, authBlockHistory.history, evaluation)
+          }
+          .map { results =>
+            evaluation.commit()
+            results
+          }
+      }
     } else {
       evaluateForRegularRequest(requestContext)
         .map { case (decision, history) => NonEmptyList.one((decision, history)) }
@@ -115,7 +148,8 @@ class Block(
    */
   private def evaluateRemainingRulesPerAvailableGroup(
       authBlockContext: UserMetadataRequestBlockContext,
-      authRulesHistory: Vector[RuleHistory[UserMetadataRequestBlockContext]]
+      authRulesHistory: Vector[RuleHistory[UserMetadataRequestBlockContext]],
+      evaluation: BlockMetrics.Evaluation
   ): Task[NonEmptyList[(Decision[UserMetadataRequestBlockContext], BlockHistory[UserMetadataRequestBlockContext])]] = {
     NonEmptyList.fromList(authBlockContext.blockMetadata.availableGroups.toList) match {
       case Some(groups) =>
@@ -125,30 +159,32 @@ class Block(
               evaluateRules(
                 rulesToCheck = regularRules,
                 initBlockContext = authBlockContext.withBlockMetadata(_.withCurrentGroupId(group.id)),
-                priorHistory = authRulesHistory
+                priorHistory = authRulesHistory,
+                evaluation = evaluation
               )
             }
           }
           .map(NonEmptyList.fromListUnsafe)
       case None =>
-        evaluateRules(regularRules, authBlockContext, priorHistory = authRulesHistory)
+        evaluateRules(regularRules, authBlockContext, priorHistory = authRulesHistory, evaluation = evaluation)
           .map(NonEmptyList.one)
     }
   }
 
   private def evaluateRules[B <: BlockContext: BlockContextUpdater](
-      rulesToCheck: List[Rule],
+      rulesToCheck: List[TimedRule],
       initBlockContext: B,
-      priorHistory: Vector[RuleHistory[B]]
+      priorHistory: Vector[RuleHistory[B]],
+      evaluation: BlockMetrics.Evaluation
   ): Task[(Decision[B], BlockHistory[B])] = {
     // Recursion instead of a fold: a Denied decision returns immediately, skipping the per-rule
     // wrapping of the remaining rules (which never run and add no history anyway).
-    def checkRules(rules: List[Rule], blockContext: B): WriterT[Task, Vector[RuleHistory[B]], Decision[B]] =
+    def checkRules(rules: List[TimedRule], blockContext: B): WriterT[Task, Vector[RuleHistory[B]], Decision[B]] =
       rules match {
         case Nil =>
           matched(Decision.Permitted(blockContext))
-        case rule :: remainingRules =>
-          checkRule(rule, blockContext).flatMap {
+        case TimedRule(rule, latency) :: remainingRules =>
+          checkRule(rule, latency, blockContext, evaluation).flatMap {
             case Decision.Permitted(newBlockContext) =>
               checkRules(remainingRules, newBlockContext)
             case denied @ Decision.Denied(_) =>
@@ -160,14 +196,32 @@ class Block(
       .map { case (history, result) =>
         val fullHistory = priorHistory ++ history
         val blockHistory = result match {
-          case d @ Decision.Permitted(_) => BlockHistory.Permitted(this, d, fullHistory)
-          case d @ Decision.Denied(_)    => BlockHistory.Denied(this, d, fullHistory)
+          case d @ Decision.Permitted(_) =>
+            evaluation.recordEvaluated(isMatched = true)
+            BlockHistory.Permitted(this, d, fullHistory)
+          case d @ Decision.Denied(_) =>
+            evaluation.recordEvaluated(isMatched = false)
+            BlockHistory.Denied(this, d, fullHistory)
         }
         result -> blockHistory
       }
   }
 
-  private lazy val (authRules, regularRules) = rules.toList.partition(isAuthRule)
+  /**
+   * Whether any of the block's rules calls an LDAP or an external service (directly or through the users definitions
+   * of a groups rule), so the block's evaluation is I/O-bound.
+   */
+  lazy val callsExternalServices: Boolean = rules.exists(callsExternalService)
+
+  /**
+   * The LDAP and external authentication services the block's rules send the request's credentials to (directly or
+   * through the users definitions of a groups rule).
+   */
+  lazy val credentialsReceivers: Set[CredentialsReceiver] = rules.toList.flatMap(credentialsReceiversOf).toSet
+
+  // the latency histograms are resolved once, so that checking a rule doesn't look its histogram up
+  private lazy val timedRules: List[TimedRule] = rules.toList.map(rule => TimedRule(rule, metrics.rule(rule.name)))
+  private lazy val (authRules, regularRules) = timedRules.partition(timedRule => isAuthRule(timedRule.rule))
   private lazy val containsAuthRule: Boolean = authRules.nonEmpty
 
   private def isAuthRule(rule: Rule): Boolean = rule match {
@@ -176,10 +230,20 @@ class Block(
     case _                          => false
   }
 
-  private def checkRule[B <: BlockContext: BlockContextUpdater](rule: Rule, blockContext: B) = {
+  private def checkRule[B <: BlockContext: BlockContextUpdater](
+      rule: Rule,
+      latency: LatencyHistogram,
+      blockContext: B,
+      evaluation: BlockMetrics.Evaluation
+  ) = {
     implicit val blockContextImpl: B = blockContext
-    val ruleDecision = rule
-      .check[B](blockContext)
+    val ruleDecision = Task
+      .defer {
+        val startedAt = System.nanoTime()
+        rule
+          .check[B](blockContext)
+          .guarantee(Task.delay(evaluation.recordRuleCheck(latency, System.nanoTime() - startedAt)))
+      }
       .recover { case e =>
         logger.error(s"${name.show}: ${rule.name.show} rule matching got an error ${e.getMessage}", e)
         val cause = rule match {
@@ -209,6 +273,37 @@ class Block(
 
 object Block {
 
+  private final case class TimedRule(rule: Rule, latency: LatencyHistogram)
+
+  private def callsExternalService(rule: Rule): Boolean = rule match {
+    case _: LdapAuthRule | _: LdapAuthenticationRule | _: LdapAuthorizationRule => true
+    case _: ExternalAuthenticationRule | _: ExternalAuthorizationRule           => true
+    case groupsRule: BaseGroupsRule[?]                                          =>
+      groupsRule.settings.usersDefinitions.exists(authRulesOf(_).exists(callsExternalService))
+    case _ => false
+  }
+
+  private def credentialsReceiversOf(rule: Rule): List[CredentialsReceiver] = rule match {
+    case rule: LdapAuthRule               => CredentialsReceiver.Ldap(rule.authentication.settings.ldap.id) :: Nil
+    case rule: LdapAuthenticationRule     => CredentialsReceiver.Ldap(rule.settings.ldap.id) :: Nil
+    case rule: ExternalAuthenticationRule => CredentialsReceiver.ExternalService(rule.settings.service.id) :: Nil
+    case groupsRule: BaseGroupsRule[?]    =>
+      groupsRule.settings.usersDefinitions.toList.flatMap(authRulesOf(_).flatMap(credentialsReceiversOf))
+    case _ => Nil
+  }
+
+  sealed trait CredentialsReceiver
+  object CredentialsReceiver {
+    final case class Ldap(name: LdapService.Name)                               extends CredentialsReceiver
+    final case class ExternalService(name: ExternalAuthenticationService.Name) extends CredentialsReceiver
+  }
+
+  private def authRulesOf(userDef: UserDef): List[Rule] = userDef.mode match {
+    case UserDef.Mode.WithoutGroupsMapping(rule, _)                          => rule :: Nil
+    case UserDef.Mode.WithGroupsMapping(Auth.SeparateRules(authn, authz), _) => authn :: authz :: Nil
+    case UserDef.Mode.WithGroupsMapping(Auth.SingleRule(rule), _)            => rule :: Nil
+  }
+
   final case class Name(value: String) extends AnyVal
 
   final case class RuleDefinition[T <: Rule](
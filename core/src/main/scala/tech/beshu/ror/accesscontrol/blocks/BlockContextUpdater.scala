@@ -21,6 +21,7 @@ import tech.beshu.ror.accesscontrol.blocks.BlockContext.MultiIndexRequestBlockCo
 import tech.beshu.ror.accesscontrol.blocks.metadata.BlockMetadata
 import tech.beshu.ror.accesscontrol.domain.*
 import tech.beshu.ror.accesscontrol.domain.ClusterIndexName.Remote.ClusterName
+import tech.beshu.ror.accesscontrol.request.RequestContext
 import tech.beshu.ror.syntax.*
 
 import scala.annotation.nowarn
@@ -29,6 +30,8 @@ sealed trait BlockContextUpdater[B <: BlockContext] {
 
   def emptyBlockContext(blockContext: B): B
 
+  def withRequestContext(blockContext: B, requestContext: RequestContext): B
+
   def withBlockMetadata(blockContext: B, blockMetadata: BlockMetadata): B
 
   def withAddedResponseHeader(blockContext: B, header: Header): B
@@ -53,6 +56,12 @@ object BlockContextUpdater {
         List.empty
       )
 
+    override def withRequestContext(
+        blockContext: UserMetadataRequestBlockContext,
+        requestContext: RequestContext
+    ): UserMetadataRequestBlockContext =
+      blockContext.copy(requestContext = requestContext)
+
     override def withBlockMetadata(
         blockContext: UserMetadataRequestBlockContext,
         blockMetadata: BlockMetadata
@@ -87,6 +96,12 @@ object BlockContextUpdater {
         List.empty
       )
 
+    override def withRequestContext(
+        blockContext: GeneralNonIndexRequestBlockContext,
+        requestContext: RequestContext
+    ): GeneralNonIndexRequestBlockContext =
+      blockContext.copy(requestContext = requestContext)
+
     override def withBlockMetadata(
         blockContext: GeneralNonIndexRequestBlockContext,
         blockMetadata: BlockMetadata
@@ -119,6 +134,12 @@ object BlockContextUpdater {
         Set.empty
       )
 
+    override def withRequestContext(
+        blockContext: RepositoryRequestBlockContext,
+        requestContext: RequestContext
+    ): RepositoryRequestBlockContext =
+      blockContext.copy(requestContext = requestContext)
+
     override def withBlockMetadata(
         blockContext: RepositoryRequestBlockContext,
         blockMetadata: BlockMetadata
@@ -160,6 +181,12 @@ object BlockContextUpdater {
         Set.empty
       )
 
+    override def withRequestContext(
+        blockContext: SnapshotRequestBlockContext,
+        requestContext: RequestContext
+    ): SnapshotRequestBlockContext =
+      blockContext.copy(requestContext = requestContext)
+
     override def withBlockMetadata(
         blockContext: SnapshotRequestBlockContext,
         blockMetadata: BlockMetadata
@@ -211,6 +238,12 @@ object BlockContextUpdater {
         DataStreamRequestBlockContext.BackingIndices.IndicesNotInvolved
       )
 
+    override def withRequestContext(
+        blockContext: DataStreamRequestBlockContext,
+        requestContext: RequestContext
+    ): DataStreamRequestBlockContext =
+      blockContext.copy(requestContext = requestContext)
+
     override def withBlockMetadata(
         blockContext: DataStreamRequestBlockContext,
         blockMetadata: BlockMetadata
@@ -252,6 +285,12 @@ object BlockContextUpdater {
         Set.empty
       )
 
+    override def withRequestContext(
+        blockContext: TemplateRequestBlockContext,
+        requestContext: RequestContext
+    ): TemplateRequestBlockContext =
+      blockContext.copy(requestContext = requestContext)
+
     override def withBlockMetadata(
         blockContext: TemplateRequestBlockContext,
         blockMetadata: BlockMetadata
@@ -303,6 +342,12 @@ object BlockContextUpdater {
         Set.empty
       )
 
+    override def withRequestContext(
+        blockContext: AliasRequestBlockContext,
+        requestContext: RequestContext
+    ): AliasRequestBlockContext =
+      blockContext.copy(requestContext = requestContext)
+
     override def withBlockMetadata(
         blockContext: AliasRequestBlockContext,
         blockMetadata: BlockMetadata
@@ -349,6 +394,12 @@ object BlockContextUpdater {
         Set.empty
       )
 
+    override def withRequestContext(
+        blockContext: GeneralIndexRequestBlockContext,
+        requestContext: RequestContext
+    ): GeneralIndexRequestBlockContext =
+      blockContext.copy(requestContext = requestContext)
+
     override def withBlockMetadata(
         blockContext: GeneralIndexRequestBlockContext,
         blockMetadata: BlockMetadata
@@ -381,6 +432,12 @@ object BlockContextUpdater {
         List.empty
       )
 
+    override def withRequestContext(
+        blockContext: MultiIndexRequestBlockContext,
+        requestContext: RequestContext
+    ): MultiIndexRequestBlockContext =
+      blockContext.copy(requestContext = requestContext)
+
     override def withBlockMetadata(
         blockContext: MultiIndexRequestBlockContext,
         blockMetadata: BlockMetadata
@@ -416,6 +473,12 @@ object BlockContextUpdater {
         None
       )
 
+    override def withRequestContext(
+        blockContext: FilterableRequestBlockContext,
+        requestContext: RequestContext
+    ): FilterableRequestBlockContext =
+      blockContext.copy(requestContext = requestContext)
+
     override def withBlockMetadata(
         blockContext: FilterableRequestBlockContext,
         blockMetadata: BlockMetadata
@@ -452,6 +515,12 @@ object BlockContextUpdater {
         None
       )
 
+    override def withRequestContext(
+        blockContext: FilterableMultiRequestBlockContext,
+        requestContext: RequestContext
+    ): FilterableMultiRequestBlockContext =
+      blockContext.copy(requestContext = requestContext)
+
     override def withBlockMetadata(
         blockContext: FilterableMultiRequestBlockContext,
         blockMetadata: BlockMetadata
@@ -483,6 +552,12 @@ object BlockContextUpdater {
         List.empty
       )
 
+    override def withRequestContext(
+        blockContext: RorApiRequestBlockContext,
+        requestContext: RequestContext
+    ): RorApiRequestBlockContext =
+      blockContext.copy(requestContext = requestContext)
+
     override def withBlockMetadata(
         blockContext: RorApiRequestBlockContext,
         blockMetadata: BlockMetadata
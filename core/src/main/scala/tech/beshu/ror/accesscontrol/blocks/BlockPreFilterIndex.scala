@@ -0,0 +1,243 @@
+/*
+ *    This file is part of ReadonlyREST.
+ *
+ *    ReadonlyREST is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    ReadonlyREST is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with ReadonlyREST.  If not, see http://www.gnu.org/licenses/
+ */
+package tech.beshu.ror.accesscontrol.blocks
+
+import cats.data.NonEmptyList
+import tech.beshu.ror.accesscontrol.blocks.BlockPreFilterIndex.*
+import tech.beshu.ror.accesscontrol.blocks.Decision.Denied.Cause
+import tech.beshu.ror.accesscontrol.blocks.rules.Rule
+import tech.beshu.ror.accesscontrol.blocks.rules.auth.base.BasicAuthenticationRule
+import tech.beshu.ror.accesscontrol.blocks.rules.auth.{ExternalAuthenticationRule, LdapAuthRule, LdapAuthenticationRule}
+import tech.beshu.ror.accesscontrol.blocks.rules.elasticsearch.ActionsRule
+import tech.beshu.ror.accesscontrol.blocks.rules.http.{HeadersAndRule, MethodsRule}
+import tech.beshu.ror.accesscontrol.domain.{AccessRequirement, Action}
+import tech.beshu.ror.accesscontrol.matchers.ActionsMatcher
+import tech.beshu.ror.accesscontrol.request.RequestContext
+import tech.beshu.ror.accesscontrol.request.RequestContext.Method
+
+import java.util.concurrent.atomic.AtomicReferenceArray
+import scala.collection.immutable.BitSet
+
+/**
+ * An index of the cheap, request-static requirements of the ACL blocks, built once when the ACL is created. For a given
+ * request it tells which blocks cannot match because one of their rules checks something that is known upfront (the
+ * presence of basic auth credentials, the HTTP method, the presence of the required headers or the action) and that
+ * something is not fulfilled. Such blocks don't have to be evaluated at all.
+ *
+ * The requirements mirror exactly what the related rules check, so a block reported as a mismatch would be denied by
+ * the rule anyway. Only the leading rules of a block (in the [[RuleOrdering]] order) are taken into account: a block is
+ * skipped only when its full evaluation would stop at the very same rule, so the rules ordered before it have to be the
+ * ones which the index decides fully (the methods and the actions rules). Thanks to that, the history of a skipped block
+ * is the same as the one of its full evaluation. Impersonation and audit event requests are not pre-filtered, because
+ * for them the rules behave differently than for the regular requests.
+ */
+final class BlockPreFilterIndex private (blocksRequirements: Vector[StaticRequirements]) {
+
+  private val requiringBasicAuth: BitSet = bitSetOf(_.basicAuth.isDefined)
+
+  private val withMethodsRule: BitSet = bitSetOf(_.methods.isDefined)
+
+  private val mismatchedByMethod: Map[Method, BitSet] =
+    blocksRequirements
+      .flatMap(_.methods.toList.flatMap(_.methods))
+      .distinct
+      .map { method =>
+        method -> (withMethodsRule -- bitSetOf(_.methods.exists(_.methods.contains(method))))
+      }
+      .toMap
+
+  private val withRequiredHeaders: Vector[(Int, RequiredHeaders)] =
+    blocksRequirements.zipWithIndex.flatMap { case (requirements, idx) => requirements.requiredHeaders.map((idx, _)) }
+
+  private val withActionsRule: Vector[(Int, ActionsRequirement)] =
+    blocksRequirements.zipWithIndex.flatMap { case (requirements, idx) => requirements.actions.map((idx, _)) }
+
+  // The actions namespace is finite, so the mismatched blocks of an interned action are computed just once.
+  private val mismatchedByInternedAction = new AtomicReferenceArray[BitSet](Action.Registry.capacity)
+
+  val isEmpty: Boolean =
+    requiringBasicAuth.isEmpty && withMethodsRule.isEmpty && withRequiredHeaders.isEmpty && withActionsRule.isEmpty
+
+  def preFilter(requestContext: RequestContext): PreFilter = {
+    if (isEmpty || requestContext.impersonateAs.isDefined || requestContext.restRequest.path.isAuditEventPath) {
+      PreFilter.NoneSkipped
+    } else {
+      new PreFilter.Computed(
+        blocksRequirements = blocksRequirements,
+        mismatchedByBasicAuth = if (requestContext.basicAuth.isDefined) BitSet.empty else requiringBasicAuth,
+        mismatchedByMethod = mismatchedByMethod.getOrElse(requestContext.restRequest.method, withMethodsRule),
+        mismatchedByHeaders = mismatchedByHeaders(requestContext),
+        mismatchedByAction = mismatchedByAction(requestContext.action)
+      )
+    }
+  }
+
+  private def mismatchedByHeaders(requestContext: RequestContext) = {
+    if (withRequiredHeaders.isEmpty) {
+      BitSet.empty
+    } else {
+      val requestHeaderNames = requestContext.restRequest.allHeaders.map(_.name.lowerCased)
+      BitSet.fromSpecific {
+        withRequiredHeaders.collect {
+          case (idx, requiredHeaders) if !requiredHeaders.lowerCasedNames.subsetOf(requestHeaderNames) => idx
+        }
+      }
+    }
+  }
+
+  private def mismatchedByAction(action: Action) = {
+    if (withActionsRule.isEmpty) {
+      BitSet.empty
+    } else {
+      val id = action.internedId
+      if (id == Action.Registry.notInterned) {
+        computeMismatchedByAction(action)
+      } else {
+        Option(mismatchedByInternedAction.get(id)) match {
+          case Some(mismatched) => mismatched
+          case None             =>
+            val mismatched = computeMismatchedByAction(action)
+            mismatchedByInternedAction.set(id, mismatched)
+            mismatched
+        }
+      }
+    }
+  }
+
+  private def computeMismatchedByAction(action: Action) = {
+    BitSet.fromSpecific {
+      withActionsRule.collect { case (idx, requirement) if !requirement.matcher.`match`(action) => idx }
+    }
+  }
+
+  private def bitSetOf(predicate: StaticRequirements => Boolean): BitSet =
+    BitSet.fromSpecific(blocksRequirements.indices.filter(idx => predicate(blocksRequirements(idx))))
+
+}
+
+object BlockPreFilterIndex {
+
+  def create(blocks: NonEmptyList[Block]): BlockPreFilterIndex =
+    new BlockPreFilterIndex(blocks.toList.map(staticRequirementsOf).toVector)
+
+  /**
+   * @param rule        the rule which would deny the block
+   * @param cause       the cause the rule would deny the block with
+   * @param passedRules the rules evaluated before the denying one, which would permit the request
+   */
+  final case class SkipReason(rule: Rule.Name, cause: Cause, passedRules: Vector[Rule.Name])
+
+  sealed trait PreFilter {
+    def skipReasonOf(blockIdx: Int): Option[SkipReason]
+  }
+
+  object PreFilter {
+
+    case object NoneSkipped extends PreFilter {
+      override def skipReasonOf(blockIdx: Int): Option[SkipReason] = None
+    }
+
+    private[blocks] final class Computed(
+        blocksRequirements: Vector[StaticRequirements],
+        mismatchedByBasicAuth: BitSet,
+        mismatchedByMethod: BitSet,
+        mismatchedByHeaders: BitSet,
+        mismatchedByAction: BitSet
+    ) extends PreFilter {
+
+      // The first mismatched requirement (in the rules order) is the one which would end the block evaluation. The ones
+      // before it are fully decided by the index, so the related rules would permit the request.
+      override def skipReasonOf(blockIdx: Int): Option[SkipReason] = {
+        val requirements = blocksRequirements(blockIdx).leadingRules
+        requirements.indexWhere(isMismatched(blockIdx, _)) match {
+          case -1  => None
+          case idx =>
+            val requirement = requirements(idx)
+            Some(SkipReason(requirement.rule, causeOf(requirement), requirements.take(idx).map(_.rule)))
+        }
+      }
+
+      private def isMismatched(blockIdx: Int, requirement: Requirement) = requirement match {
+        case _: BasicAuthRequirement => mismatchedByBasicAuth.contains(blockIdx)
+        case _: MethodsRequirement   => mismatchedByMethod.contains(blockIdx)
+        case _: RequiredHeaders      => mismatchedByHeaders.contains(blockIdx)
+        case _: ActionsRequirement   => mismatchedByAction.contains(blockIdx)
+      }
+
+      private def causeOf(requirement: Requirement) = requirement match {
+        case _: BasicAuthRequirement => noBasicAuthCredentialsCause
+        case _: MethodsRequirement   => Cause.NotAuthorized
+        case _: RequiredHeaders      => Cause.NotAuthorized
+        case _: ActionsRequirement   => Cause.NotAuthorized
+      }
+
+    }
+
+  }
+
+  private val noBasicAuthCredentialsCause = Cause.AuthenticationFailed("No basic auth credentials provided")
+
+  // The requirements of the leading rules of a block, in the rules order
+  private[blocks] final case class StaticRequirements(leadingRules: Vector[Requirement]) {
+    val basicAuth: Option[BasicAuthRequirement] = leadingRules.collectFirst { case r: BasicAuthRequirement => r }
+    val methods: Option[MethodsRequirement] = leadingRules.collectFirst { case r: MethodsRequirement => r }
+    val requiredHeaders: Option[RequiredHeaders] = leadingRules.collectFirst { case r: RequiredHeaders => r }
+    val actions: Option[ActionsRequirement] = leadingRules.collectFirst { case r: ActionsRequirement => r }
+  }
+
+  private[blocks] sealed trait Requirement {
+    def rule: Rule.Name
+  }
+
+  private[blocks] final case class BasicAuthRequirement(rule: Rule.Name) extends Requirement
+
+  private[blocks] final case class MethodsRequirement(rule: Rule.Name, methods: Set[Method]) extends Requirement
+
+  private[blocks] final case class RequiredHeaders(rule: Rule.Name, lowerCasedNames: Set[String]) extends Requirement
+
+  private[blocks] final case class ActionsRequirement(rule: Rule.Name, matcher: ActionsMatcher) extends Requirement
+
+  private def staticRequirementsOf(block: Block): StaticRequirements =
+    StaticRequirements(leadingRequirementsOf(block.rules.toList).toVector)
+
+  // The methods and the actions rules are decided by the index, so the requirements of the rules following them can be
+  // used too. A basic auth or a headers rule may still deny a request fulfilling its requirement (eg. because of wrong
+  // credentials or a header value), so it ends the leading rules.
+  private def leadingRequirementsOf(rules: List[Rule]): List[Requirement] = rules match {
+    case (rule: MethodsRule) :: rest =>
+      MethodsRequirement(rule.name, rule.settings.methods.toSortedSet.unsorted) :: leadingRequirementsOf(rest)
+    case (rule: ActionsRule) :: rest =>
+      ActionsRequirement(rule.name, rule.matcher) :: leadingRequirementsOf(rest)
+    case (rule: BasicAuthenticationRule[?]) :: _ =>
+      BasicAuthRequirement(rule.name) :: Nil
+    case (rule: LdapAuthenticationRule) :: _ =>
+      BasicAuthRequirement(rule.name) :: Nil
+    case (rule: ExternalAuthenticationRule) :: _ =>
+      BasicAuthRequirement(rule.name) :: Nil
+    case (rule: LdapAuthRule) :: _ =>
+      BasicAuthRequirement(rule.name) :: Nil
+    case (rule: HeadersAndRule) :: _ =>
+      val requiredHeaderNames = rule.settings.headerAccessRequirements.toList.collect {
+        case AccessRequirement.MustBePresent(header) => header.name.lowerCased
+      }.toSet
+      if (requiredHeaderNames.nonEmpty) RequiredHeaders(rule.name, requiredHeaderNames) :: Nil
+      else Nil
+    case _ =>
+      Nil
+  }
+
+}
@@ -28,6 +28,8 @@ import tech.beshu.ror.accesscontrol.domain.*
 import tech.beshu.ror.accesscontrol.domain.LoggedUser.DirectlyLoggedUser
 import tech.beshu.ror.accesscontrol.factory.HttpClientsFactory.HttpClient
 import tech.beshu.ror.accesscontrol.factory.decoders.definitions.Definitions.Item
+import tech.beshu.ror.accesscontrol.metrics.AclMetrics
+import tech.beshu.ror.accesscontrol.metrics.AclMetrics.ExternalCall
 import tech.beshu.ror.accesscontrol.utils.AsyncCacheableActionWithKeyMappingAndTimeout
 import tech.beshu.ror.implicits.*
 import tech.beshu.ror.utils.RefinedUtils.PositiveFiniteDuration
@@ -70,12 +72,15 @@ class BasicAuthHttpExternalAuthenticationService(
       implicit requestId: RequestId
   ): Task[AuthenticationResult] = {
     val basicAuthHeader = BasicAuth.fromCredentials(credentials).header
-    httpClient
-      .send(
-        HttpClient.Request(
-          method = HttpClient.Method.Get,
-          url = url,
-          headers = Map(basicAuthHeader.name.value.value -> basicAuthHeader.value.value)
+    AclMetrics
+      .externalCall(ExternalCall.externalAuthentication, id.value.value)
+      .timed(
+        httpClient.send(
+          HttpClient.Request(
+            method = HttpClient.Method.Get,
+            url = url,
+            headers = Map(basicAuthHeader.name.value.value -> basicAuthHeader.value.value)
+          )
         )
       )
       .map { response =>
@@ -102,12 +107,15 @@ class JwtExternalAuthenticationService(
   override def authenticate(credentials: Credentials)(
       implicit requestId: RequestId
   ): Task[AuthenticationResult] = {
-    httpClient
-      .send(
-        HttpClient.Request(
-          method = HttpClient.Method.Get,
-          url = url,
-          headers = Map(Header.Name.authorization.value.value -> s"Bearer ${credentials.secret.value}")
+    AclMetrics
+      .externalCall(ExternalCall.externalAuthentication, id.value.value)
+      .timed(
+        httpClient.send(
+          HttpClient.Request(
+            method = HttpClient.Method.Get,
+            url = url,
+            headers = Map(Header.Name.authorization.value.value -> s"Bearer ${credentials.secret.value}")
+          )
         )
       )
       .map { response =>
@@ -132,7 +140,8 @@ class CacheableExternalAuthenticationServiceDecorator(
     new AsyncCacheableActionWithKeyMappingAndTimeout[Credentials, HashedUserCredentials, AuthenticationResult](
       ttl,
       (credentials, requestId) => authenticateAction(credentials)(requestId),
-      hashCredential
+      hashCredential,
+      cacheName = s"external_authentication:${underlying.id.value.value}"
     )
 
   override val id: ExternalAuthenticationService#Id = underlying.id
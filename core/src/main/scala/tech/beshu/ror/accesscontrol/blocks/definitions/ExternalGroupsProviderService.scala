@@ -26,6 +26,8 @@ import tech.beshu.ror.accesscontrol.domain.*
 import tech.beshu.ror.accesscontrol.domain.GroupIdLike.GroupId
 import tech.beshu.ror.accesscontrol.factory.HttpClientsFactory.HttpClient
 import tech.beshu.ror.accesscontrol.factory.decoders.definitions.Definitions.Item
+import tech.beshu.ror.accesscontrol.metrics.AclMetrics
+import tech.beshu.ror.accesscontrol.metrics.AclMetrics.ExternalCall
 import tech.beshu.ror.accesscontrol.utils.AsyncCacheableActionWithTimeout
 import tech.beshu.ror.implicits.*
 import tech.beshu.ror.utils.RefinedUtils.PositiveFiniteDuration
@@ -69,8 +71,9 @@ final class HttpExternalGroupsProviderService(
   override def groupsFor(userId: User.Id)(
       implicit requestId: RequestId
   ): Task[UniqueList[Group]] = {
-    httpClient
-      .send(createRequest(userId))
+    AclMetrics
+      .externalCall(ExternalCall.externalGroupsProvider, id.value.value)
+      .timed(httpClient.send(createRequest(userId)))
       .map(response => groupsFromResponseBody(response.body))
   }
 
@@ -240,7 +243,8 @@ final class CacheableExternalGroupsProviderServiceDecorator(
 
   private val cacheableGrantsFor = new AsyncCacheableActionWithTimeout[User.Id, UniqueList[Group]](
     ttl,
-    (userId, requestId) => underlying.groupsFor(userId)(requestId)
+    (userId, requestId) => underlying.groupsFor(userId)(requestId),
+    cacheName = s"external_groups_provider:${underlying.id.value.value}"
   )
 
   override val id: ExternalGroupsProviderService#Id = underlying.id
@@ -17,12 +17,15 @@
 package tech.beshu.ror.accesscontrol.blocks.definitions
 
 import cats.{Eq, Show}
+import eu.timepit.refined.api.Refined
+import eu.timepit.refined.numeric.NonNegative
 import eu.timepit.refined.types.string.NonEmptyString
 import io.jsonwebtoken.security.Keys
 import io.jsonwebtoken.{JwtParser, Jwts}
 import tech.beshu.ror.accesscontrol.blocks.definitions.JwtDef.{GroupsConfig, Name, SignatureCheckMethod}
 import tech.beshu.ror.accesscontrol.domain.{AuthorizationTokenDef, Jwt}
 import tech.beshu.ror.accesscontrol.factory.decoders.definitions.Definitions.Item
+import tech.beshu.ror.accesscontrol.utils.VerifiedJwtCache
 
 import java.security.PublicKey
 
@@ -34,6 +37,7 @@ sealed trait JwtDef extends Item {
 
   def authorizationTokenDef: AuthorizationTokenDef
   def checkMethod: SignatureCheckMethod
+  def verifiedTokensCacheSize: Int Refined NonNegative
 
   // jjwt parsers are immutable and thread-safe, so build once per definition instead of per request.
   lazy val parser: JwtParser = checkMethod match {
@@ -43,6 +47,9 @@ sealed trait JwtDef extends Item {
     case SignatureCheckMethod.Ec(pubKey)   => Jwts.parser().verifyWith(pubKey).build()
   }
 
+  // signature verification is the costly part of the JWT rules, so the same token is verified once per definition
+  lazy val verifiedTokensCache: VerifiedJwtCache = new VerifiedJwtCache(verifiedTokensCacheSize)
+
 }
 
 object JwtDef {
@@ -76,14 +83,16 @@ final case class AuthenticationJwtDef(
     override val id: Name,
     authorizationTokenDef: AuthorizationTokenDef,
     checkMethod: SignatureCheckMethod,
-    userClaim: Jwt.ClaimName
+    userClaim: Jwt.ClaimName,
+    verifiedTokensCacheSize: Int Refined NonNegative = VerifiedJwtCache.defaultMaxSize
 ) extends JwtDefForAuthentication
 
 final case class AuthorizationJwtDef(
     override val id: Name,
     authorizationTokenDef: AuthorizationTokenDef,
     checkMethod: SignatureCheckMethod,
-    groupsConfig: GroupsConfig
+    groupsConfig: GroupsConfig,
+    verifiedTokensCacheSize: Int Refined NonNegative = VerifiedJwtCache.defaultMaxSize
 ) extends JwtDefForAuthorization
 
 final case class AuthJwtDef(
@@ -91,5 +100,6 @@ final case class AuthJwtDef(
     authorizationTokenDef: AuthorizationTokenDef,
     checkMethod: SignatureCheckMethod,
     userClaim: Jwt.ClaimName,
-    groupsConfig: GroupsConfig
+    groupsConfig: GroupsConfig,
+    verifiedTokensCacheSize: Int Refined NonNegative = VerifiedJwtCache.defaultMaxSize
 ) extends JwtDefForAuth
@@ -17,15 +17,22 @@
 package tech.beshu.ror.accesscontrol.blocks.definitions
 
 import cats.{Eq, Show}
+import eu.timepit.refined.api.Refined
+import eu.timepit.refined.numeric.NonNegative
 import eu.timepit.refined.types.string.NonEmptyString
 import io.jsonwebtoken.security.Keys
 import io.jsonwebtoken.{JwtParser, Jwts}
 import tech.beshu.ror.accesscontrol.blocks.definitions.RorKbnDef.{Name, SignatureCheckMethod}
 import tech.beshu.ror.accesscontrol.factory.decoders.definitions.Definitions.Item
+import tech.beshu.ror.accesscontrol.utils.VerifiedJwtCache
 
 import java.security.PublicKey
 
-final case class RorKbnDef(override val id: Name, checkMethod: SignatureCheckMethod) extends Item {
+final case class RorKbnDef(
+    override val id: Name,
+    checkMethod: SignatureCheckMethod,
+    verifiedTokensCacheSize: Int Refined NonNegative = VerifiedJwtCache.defaultMaxSize
+) extends Item {
 
   override type Id = Name
   override val idShow: Show[Name] = Show.show(_.value.value)
@@ -37,6 +44,9 @@ final case class RorKbnDef(override val id: Name, checkMethod: SignatureCheckMet
     case SignatureCheckMethod.Ec(pubKey)   => Jwts.parser().verifyWith(pubKey).build()
   }
 
+  // signature verification is the costly part of the ROR KBN rules, so the same token is verified once per definition
+  lazy val verifiedTokensCache: VerifiedJwtCache = new VerifiedJwtCache(verifiedTokensCacheSize)
+
 }
 
 object RorKbnDef {
@@ -46,7 +46,8 @@ class CacheableLdapAuthenticationServiceDecorator(
       action = { case ((userId, secret), requestId) =>
         authenticateAction((userId, secret))(requestId)
       },
-      keyMap = hashCredential
+      keyMap = hashCredential,
+      cacheName = s"ldap_authentication:${underlying.id.value.value}"
     )
 
   override val ldapUsersService: LdapUsersService = CacheableLdapUsersServiceDecorator.create(
@@ -152,7 +153,8 @@ object CacheableLdapAuthorizationService {
       ttl = ttl,
       action = { case (id, requestId) =>
         underlying.groupsOf(id)(requestId)
-      }
+      },
+      cacheName = s"ldap_groups:${underlying.id.value.value}"
     )
 
     override val ldapUsersService: LdapUsersService = CacheableLdapUsersServiceDecorator.create(
@@ -215,7 +217,8 @@ object CacheableLdapAuthorizationService {
       ttl = ttl,
       action = { case ((id, groupIds), requestId) =>
         underlying.groupsOf(id, groupIds)(requestId)
-      }
+      },
+      cacheName = s"ldap_groups:${underlying.id.value.value}"
     )
 
     override val ldapUsersService: LdapUsersService = CacheableLdapUsersServiceDecorator.create(
@@ -275,7 +278,8 @@ class CacheableLdapUsersServiceDecorator(val underlying: LdapUsersService, val t
 
   private val cacheableLdapUserById = new AsyncCacheableActionWithTimeout[User.Id, Option[LdapUser]](
     ttl = ttl,
-    action = (userId, requestId) => underlying.ldapUserBy(userId)(requestId)
+    action = (userId, requestId) => underlying.ldapUserBy(userId)(requestId),
+    cacheName = s"ldap_users:${underlying.id.value.value}"
   )
 
   override def id: LdapService.Name = underlying.id
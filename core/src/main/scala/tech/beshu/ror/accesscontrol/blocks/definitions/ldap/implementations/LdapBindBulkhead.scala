@@ -0,0 +1,102 @@
+/*
+ *    This file is part of ReadonlyREST.
+ *
+ *    ReadonlyREST is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    ReadonlyREST is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with ReadonlyREST.  If not, see http://www.gnu.org/licenses/
+ */
+package tech.beshu.ror.accesscontrol.blocks.definitions.ldap.implementations
+
+import cats.effect.Resource
+import monix.catnap.Semaphore
+import monix.eval.Task
+import monix.execution.Scheduler
+import tech.beshu.ror.accesscontrol.blocks.definitions.ldap.implementations.LdapBindBulkhead.BindBulkheadFullException
+import tech.beshu.ror.accesscontrol.metrics.AclMetrics.LdapBindPoolStats
+import tech.beshu.ror.utils.RefinedUtils.PositiveFiniteDuration
+
+import java.util.concurrent.atomic.{AtomicInteger, AtomicLong}
+
+/**
+ * Limits the number of concurrent (blocking) LDAP binds of a connection pool to the number of `permits` and runs them
+ * on the given scheduler. A bind waiting for a permit longer than `maxPermitWait` fails with
+ * [[BindBulkheadFullException]].
+ */
+final class LdapBindBulkhead(
+    poolName: String,
+    permits: Semaphore[Task],
+    maxPermitWait: PositiveFiniteDuration,
+    scheduler: Scheduler
+) {
+
+  private val inFlight = new AtomicInteger(0)
+  private val waiting = new AtomicInteger(0)
+  private val completed = new AtomicLong(0)
+  private val rejected = new AtomicLong(0)
+  private val totalWaitNanos = new AtomicLong(0)
+  private val maxWaitNanos = new AtomicLong(0)
+
+  def run[A](bind: => A): Task[A] = Task.defer {
+    val submittedAt = System.nanoTime()
+    permit.use { _ =>
+      // after the bind, the continuation returns to the caller's scheduler
+      Task {
+        recordWait(System.nanoTime() - submittedAt)
+        inFlight.incrementAndGet()
+        try bind
+        finally {
+          inFlight.decrementAndGet()
+          completed.incrementAndGet()
+        }
+      }.executeOn(scheduler)
+    }
+  }
+
+  def stats: LdapBindPoolStats = LdapBindPoolStats(
+    inFlight = inFlight.get(),
+    waiting = waiting.get(),
+    completed = completed.get(),
+    rejected = rejected.get(),
+    totalWaitNanos = totalWaitNanos.get(),
+    maxWaitNanos = maxWaitNanos.get()
+  )
+
+  private def permit: Resource[Task, Unit] = {
+    val acquire = Task
+      .delay(waiting.incrementAndGet())
+      .flatMap { _ =>
+        permits.acquire
+          .timeoutTo(
+            maxPermitWait.value,
+            Task.defer {
+              rejected.incrementAndGet()
+              Task.raiseError(new BindBulkheadFullException(poolName))
+            }
+          )
+          .guarantee(Task.delay(waiting.decrementAndGet()).void)
+      }
+    Resource.make(acquire)(_ => permits.release)
+  }
+
+  private def recordWait(waitNanos: Long): Unit = {
+    totalWaitNanos.addAndGet(waitNanos)
+    maxWaitNanos.accumulateAndGet(waitNanos, Math.max)
+  }
+
+}
+
+object LdapBindBulkhead {
+
+  final class BindBulkheadFullException(poolName: String)
+      extends Exception(s"LDAP bind rejected - all bind permits of the [$poolName] pool are in use")
+
+}
@@ -17,8 +17,12 @@
 package tech.beshu.ror.accesscontrol.blocks.definitions.ldap.implementations
 
 import com.unboundid.ldap.sdk.*
+import monix.catnap.Semaphore
 import monix.eval.Task
 import tech.beshu.ror.accesscontrol.blocks.definitions.ldap.implementations.UnboundidLdapConnectionPoolProvider.LdapConnectionConfig.BindRequestUser
+import tech.beshu.ror.accesscontrol.metrics.AclMetrics
+import tech.beshu.ror.accesscontrol.metrics.AclMetrics.{ExternalCall, LdapBindPoolStats}
+import tech.beshu.ror.boot.RorSchedulers
 import tech.beshu.ror.utils.RefinedUtils.PositiveFiniteDuration
 import tech.beshu.ror.utils.RequestIdAwareLogging
 
@@ -26,14 +30,39 @@ import java.util.concurrent.atomic.AtomicReference
 import scala.concurrent.Promise
 import scala.jdk.CollectionConverters.*
 
-class UnboundidLdapConnectionPool(connectionPool: LDAPConnectionPool, bindRequestUser: BindRequestUser)
-    extends RequestIdAwareLogging {
+/**
+ * The UnboundID SDK has no asynchronous bind, so the binds are run on the pool's own bind scheduler (not on the
+ * scheduler evaluating the ACL, and not on the one of the other pools, so a slow LDAP server cannot starve the binds
+ * to the other ones). The number of concurrent binds is limited by `bindPermits` (see [[LdapBindBulkhead]]). The bind
+ * scheduler is shut down when the pool is closed.
+ */
+class UnboundidLdapConnectionPool(
+    connectionPool: LDAPConnectionPool,
+    bindRequestUser: BindRequestUser,
+    bindPermits: Semaphore[Task],
+    maxBindPermitWait: PositiveFiniteDuration,
+    bindScheduler: RorSchedulers.ClosableScheduler
+) extends RequestIdAwareLogging {
 
-  def asyncBind(request: BindRequest): Task[BindResult] = {
-    bindRequestUser match {
-      case BindRequestUser.Anonymous        => Task(connectionPool.bind(request))
-      case BindRequestUser.CustomUser(_, _) => Task(connectionPool.bindAndRevertAuthentication(request))
-    }
+  val name: String = connectionPool.getConnectionPoolName
+
+  private val bindLatency = AclMetrics.externalCall(ExternalCall.ldapBind, name)
+  private val searchLatency = AclMetrics.externalCall(ExternalCall.ldapSearch, name)
+
+  private val bindBulkhead = new LdapBindBulkhead(name, bindPermits, maxBindPermitWait, bindScheduler.scheduler)
+  private val bindStats: () => LdapBindPoolStats = () => bindBulkhead.stats
+
+  AclMetrics.registerLdapBindPool(name, bindStats)
+
+  def asyncBind(request: BindRequest): Task[BindResult] = bindBulkhead.run {
+    val startedAt = System.nanoTime()
+    try blockingBind(request)
+    finally bindLatency.record(System.nanoTime() - startedAt)
+  }
+
+  private def blockingBind(request: BindRequest) = bindRequestUser match {
+    case BindRequestUser.Anonymous        => connectionPool.bind(request)
+    case BindRequestUser.CustomUser(_, _) => connectionPool.bindAndRevertAuthentication(request)
   }
 
   def process(
@@ -41,20 +70,26 @@ class UnboundidLdapConnectionPool(connectionPool: LDAPConnectionPool, bindReques
       timeout: PositiveFiniteDuration
   ): Task[Either[SearchResult, List[SearchResultEntry]]] = {
     val searchResultListener = new UnboundidLdapConnectionPool.UnboundidSearchResultListener
-    Task(requestCreator(searchResultListener))
-      .map(request => connectionPool.processRequestsAsync((request :: Nil).asJava, timeout.value.toMillis))
-      .flatMap { results =>
-        results.asScala.toList match {
-          case Nil            => throw new IllegalStateException("LDAP - expected at least one result")
-          case requestId :: _ =>
-            if (requestId.isCancelled) Task.now(Left(new SearchResult(requestId.get())))
-            else searchResultListener.result
+    searchLatency.timed {
+      Task(requestCreator(searchResultListener))
+        .map(request => connectionPool.processRequestsAsync((request :: Nil).asJava, timeout.value.toMillis))
+        .flatMap { results =>
+          results.asScala.toList match {
+            case Nil            => throw new IllegalStateException("LDAP - expected at least one result")
+            case requestId :: _ =>
+              if (requestId.isCancelled) Task.now(Left(new SearchResult(requestId.get())))
+              else searchResultListener.result
+          }
         }
-      }
+    }
   }
 
   def close(): Task[Unit] = {
-    Task.delay(connectionPool.close())
+    Task.delay {
+      AclMetrics.unregisterLdapBindPool(name, bindStats)
+      connectionPool.close()
+      bindScheduler.close()
+    }
   }
 
 }
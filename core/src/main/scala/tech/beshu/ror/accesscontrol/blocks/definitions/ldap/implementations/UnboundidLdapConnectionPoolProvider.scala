@@ -25,6 +25,7 @@ import com.unboundid.util.ssl.{SSLUtil, TrustAllTrustManager}
 import eu.timepit.refined.api.Refined
 import eu.timepit.refined.numeric.Positive
 import io.lemonlabs.uri.UrlWithAuthority
+import monix.catnap.Semaphore
 import monix.eval.Task
 import tech.beshu.ror.accesscontrol.blocks.definitions.CircuitBreakerConfig
 import tech.beshu.ror.accesscontrol.blocks.definitions.ldap.implementations.UnboundidLdapConnectionPoolProvider.ConnectionError.{
@@ -43,6 +44,7 @@ import tech.beshu.ror.accesscontrol.blocks.definitions.ldap.{Dn, LdapService}
 import tech.beshu.ror.accesscontrol.blocks.rules.tranport.HostnameResolver
 import tech.beshu.ror.accesscontrol.domain.{Address, PlainTextSecret}
 import tech.beshu.ror.accesscontrol.utils.ReleseablePool
+import tech.beshu.ror.boot.RorSchedulers
 import tech.beshu.ror.utils.Ip4sBasedHostnameResolver
 import tech.beshu.ror.utils.LoggerOps.toLoggerOps
 import tech.beshu.ror.utils.RefinedUtils.*
@@ -72,9 +74,17 @@ class UnboundidLdapConnectionPoolProvider {
   def close(): Task[Unit] = poolOfPools.close
 
   private def createConnectionPool(connectionConfig: LdapConnectionConfig): Task[UnboundidLdapConnectionPool] = retry {
-    Task
-      .delay(createLdapConnectionPoolFrom(connectionConfig))
-      .map(new UnboundidLdapConnectionPool(_, connectionConfig.bindRequestUser))
+    for {
+      ldapConnectionPool <- Task.delay(createLdapConnectionPoolFrom(connectionConfig))
+      bindPermits <- Semaphore[Task](connectionConfig.poolSize.value.toLong)
+    } yield new UnboundidLdapConnectionPool(
+      ldapConnectionPool,
+      connectionConfig.bindRequestUser,
+      bindPermits,
+      maxBindPermitWait = connectionConfig.requestTimeout,
+      bindScheduler =
+        RorSchedulers.ldapBindScheduler(connectionConfig.poolName.value.value, connectionConfig.poolSize.value)
+    )
   }
 
   private def createLdapConnectionPoolFrom(connectionConfig: LdapConnectionConfig) = {
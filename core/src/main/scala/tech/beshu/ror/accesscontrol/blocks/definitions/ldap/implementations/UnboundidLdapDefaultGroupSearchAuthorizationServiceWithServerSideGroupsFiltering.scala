@@ -56,6 +56,9 @@ class UnboundidLdapDefaultGroupSearchAuthorizationServiceWithServerSideGroupsFil
   private val nestedGroupsService = nestedGroupsConfig
     .map(new UnboundidLdapNestedGroupsService(connectionPool, _, serviceTimeout))
 
+  private def prewarmNestedGroupsCache(): Task[Unit] =
+    nestedGroupsService.map(_.prewarmCache()).getOrElse(Task.unit)
+
   override def groupsOf(id: User.Id, filteringGroupIds: Set[GroupIdLike])(
       implicit requestId: RequestId
   ): Task[UniqueList[Group]] = {
@@ -183,6 +186,10 @@ object UnboundidLdapDefaultGroupSearchAuthorizationServiceWithServerSideGroupsFi
           )
         )
       )
+      .flatMap {
+        case Right(service) => service.prewarmNestedGroupsCache().startAndForget.map(_ => Right(service))
+        case Left(error)    => Task.now(Left(error))
+      }
   }
 
 }
@@ -56,6 +56,9 @@ class UnboundidLdapGroupsFromUserEntryAuthorizationService private (
   private val nestedGroupsService = nestedGroupsConfig
     .map(new UnboundidLdapNestedGroupsService(connectionPool, _, serviceTimeout))
 
+  private def prewarmNestedGroupsCache(): Task[Unit] =
+    nestedGroupsService.map(_.prewarmCache()).getOrElse(Task.unit)
+
   override def groupsOf(id: User.Id)(
       implicit requestId: RequestId
   ): Task[UniqueList[Group]] = {
@@ -156,6 +159,10 @@ object UnboundidLdapGroupsFromUserEntryAuthorizationService {
           )
         )
       )
+      .flatMap {
+        case Right(service) => service.prewarmNestedGroupsCache().startAndForget.map(_ => Right(service))
+        case Left(error)    => Task.now(Left(error))
+      }
   }
 
 }
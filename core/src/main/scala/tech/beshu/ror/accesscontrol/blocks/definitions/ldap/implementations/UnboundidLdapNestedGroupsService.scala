@@ -23,21 +23,40 @@ import tech.beshu.ror.accesscontrol.blocks.definitions.ldap.implementations.User
 import tech.beshu.ror.accesscontrol.blocks.definitions.ldap.implementations.domain.LdapGroup
 import tech.beshu.ror.accesscontrol.blocks.definitions.ldap.implementations.ops.logs.*
 import tech.beshu.ror.accesscontrol.domain.RequestId
+import tech.beshu.ror.accesscontrol.utils.AsyncCacheableActionWithKeyMapping
 import tech.beshu.ror.implicits.*
 import tech.beshu.ror.utils.GraphNodeAncestorsExplorer
 import tech.beshu.ror.utils.LoggerOps.toLoggerOps
 import tech.beshu.ror.utils.RefinedUtils.PositiveFiniteDuration
 import tech.beshu.ror.utils.RequestIdAwareLogging
 
-private[implementations] class UnboundidLdapNestedGroupsService(
+import scala.util.Try
+
+private[ror] class UnboundidLdapNestedGroupsService(
     connectionPool: UnboundidLdapConnectionPool,
     config: NestedGroupsConfig,
     serviceTimeout: PositiveFiniteDuration
 ) extends RequestIdAwareLogging {
 
+  // the parent groups of a group depend only on its DN, so they can be shared by all users (a concurrent fetch of
+  // the same group's parents waits for the one in progress)
+  private val parentGroupsCache = config.cache.map { cacheConfig =>
+    new AsyncCacheableActionWithKeyMapping[LdapGroup, String, Set[LdapGroup]](
+      ttl = Some(cacheConfig.ttl),
+      action = { case (ldapGroup, requestId) => doFetchGroupsOf(ldapGroup)(requestId) },
+      keyMap = ldapGroup => normalizedDn(ldapGroup.dn.value.value),
+      cacheName = s"ldap_nested_groups:${connectionPool.name}"
+    )
+  }
+
   private val ldapGroupsExplorer = new GraphNodeAncestorsExplorer[LdapGroup](
     kinshipLevel = config.nestedLevels,
-    doFetchParentNodesOf = { case (ldapGroup, requestId) => doFetchGroupsOf(ldapGroup)(requestId) }
+    doFetchParentNodesOf = { case (ldapGroup, requestId) =>
+      parentGroupsCache match {
+        case Some(cache) => cache.call(ldapGroup)(requestId)
+        case None        => doFetchGroupsOf(ldapGroup)(requestId)
+      }
+    }
   )
 
   def fetchNestedGroupsOf(mainGroups: Iterable[LdapGroup])(
@@ -46,6 +65,43 @@ private[implementations] class UnboundidLdapNestedGroupsService(
     ldapGroupsExplorer.findAllAncestorsOf(mainGroups)
   }
 
+  /**
+   * Fills the parent groups cache with one search of all the groups under the search groups base DN (the parents of
+   * a group are the groups listing it as a member). It's a no-op when the prewarming is not configured.
+   */
+  def prewarmCache(): Task[Unit] = {
+    parentGroupsCache match {
+      case Some(cache) if config.cache.exists(_.prewarm) =>
+        connectionPool
+          .process(searchAllGroupsLdapRequest, serviceTimeout)
+          .flatMap {
+            case Right(results) =>
+              Task.delay {
+                val groupsWithMembers = results.flatMap { entry =>
+                  entry.toLdapGroup(config.groupAttribute).map((_, membersOf(entry)))
+                }
+                val parentsByMember = groupsWithMembers
+                  .flatMap { case (group, members) => members.map(_ -> group) }
+                  .groupMap(_._1)(_._2)
+                groupsWithMembers.foreach { case (group, _) =>
+                  cache.put(group, parentsByMember.getOrElse(normalizedDn(group.dn.value.value), Nil).toSet)
+                }
+                noRequestIdLogger.info(s"LDAP nested groups cache prewarmed with ${groupsWithMembers.size} groups")
+              }
+            case Left(errorResult) =>
+              Task.raiseError(LdapUnexpectedResult(errorResult.getResultCode, errorResult.getResultString))
+          }
+          .onErrorHandle { ex =>
+            noRequestIdLogger.warnEx(
+              "LDAP nested groups cache prewarming failed. The parent groups will be fetched on demand",
+              ex
+            )
+          }
+      case Some(_) | None =>
+        Task.unit
+    }
+  }
+
   private def doFetchGroupsOf(group: LdapGroup)(
       implicit requestId: RequestId
   ) = {
@@ -81,6 +137,25 @@ private[implementations] class UnboundidLdapNestedGroupsService(
     new SearchRequest(listener, baseDn, scope, searchFilter, groupAttributes.toSeq*)
   }
 
+  private def searchAllGroupsLdapRequest(listener: AsyncSearchResultListener): LDAPRequest = {
+    val attributes = attributesFrom(config.groupAttribute) + config.memberAttribute.value.value
+    new SearchRequest(
+      listener,
+      config.searchGroupBaseDN.value.value,
+      SearchScope.SUB,
+      config.groupSearchFilter.value.value,
+      attributes.toSeq*
+    )
+  }
+
+  private def membersOf(groupEntry: SearchResultEntry) = {
+    Option(groupEntry.getAttributeValues(config.memberAttribute.value.value)).toList
+      .flatMap(_.toList)
+      .map(normalizedDn)
+  }
+
+  private def normalizedDn(dn: String) = Try(new DN(dn).toNormalizedString).getOrElse(dn)
+
   private def searchFilterFrom(
       groupSearchFilter: GroupSearchFilter,
       memberAttribute: UniqueMemberAttribute,
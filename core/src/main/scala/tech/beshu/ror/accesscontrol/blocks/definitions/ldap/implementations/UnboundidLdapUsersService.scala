@@ -210,9 +210,14 @@ object UserGroupsSearchFilterConfig {
         searchGroupBaseDN: Dn,
         groupSearchFilter: GroupSearchFilter,
         memberAttribute: UniqueMemberAttribute,
-        groupAttribute: GroupAttribute
+        groupAttribute: GroupAttribute,
+        cache: Option[NestedGroupsCacheConfig] = None
     )
 
+    // the parent groups of a group are cached for `ttl` and shared by all users (when `prewarm`, all the groups under
+    // the search groups base DN are fetched when the service is created)
+    final case class NestedGroupsCacheConfig(ttl: PositiveFiniteDuration, prewarm: Boolean)
+
   }
 
 }
@@ -42,7 +42,8 @@ import tech.beshu.ror.utils.RequestIdAwareLogging
 sealed abstract class AuthKeyHashingRule(
     override val settings: BasicAuthenticationRule.Settings[HashedCredentials],
     override implicit val userIdCaseSensitivity: CaseSensitivity,
-    hasher: Hasher
+    hasher: Hasher,
+    verifiedCredentialsCache: VerifiedCredentialsCache
 ) extends BasicAuthenticationRule(settings)
     with RequestIdAwareLogging {
 
@@ -53,7 +54,9 @@ sealed abstract class AuthKeyHashingRule(
     configuredCredentials match {
       case secret: HashedUserAndPassword =>
         Either.cond(
-          secret == HashedUserAndPassword.from(credentials, hasher),
+          verifiedCredentialsCache.verified(name, secret, credentials) {
+            secret == HashedUserAndPassword.from(credentials, hasher)
+          },
           DirectlyLoggedUser(credentials.user),
           AuthenticationFailed("Invalid username or/and password")
         )
@@ -65,7 +68,9 @@ sealed abstract class AuthKeyHashingRule(
             AuthenticationFailed("Username mismatch")
           )
           _ <- Either.cond(
-            secret == HashedOnlyPassword.from(credentials, hasher),
+            verifiedCredentialsCache.verified(name, secret, credentials) {
+              secret == HashedOnlyPassword.from(credentials, hasher)
+            },
             (),
             AuthenticationFailed("Invalid password")
           )
@@ -130,8 +135,9 @@ object AuthKeyHashingRule {
 final class AuthKeySha1Rule(
     override val settings: BasicAuthenticationRule.Settings[HashedCredentials],
     override val userIdCaseSensitivity: CaseSensitivity,
-    override val impersonation: Impersonation
-) extends AuthKeyHashingRule(settings, userIdCaseSensitivity, Hasher.Sha1) {
+    override val impersonation: Impersonation,
+    verifiedCredentialsCache: VerifiedCredentialsCache = VerifiedCredentialsCache.Disabled
+) extends AuthKeyHashingRule(settings, userIdCaseSensitivity, Hasher.Sha1, verifiedCredentialsCache) {
 
   override val name: Rule.Name = AuthKeySha1Rule.Name.name
 }
@@ -147,8 +153,9 @@ object AuthKeySha1Rule {
 final class AuthKeySha256Rule(
     override val settings: BasicAuthenticationRule.Settings[HashedCredentials],
     override val userIdCaseSensitivity: CaseSensitivity,
-    override val impersonation: Impersonation
-) extends AuthKeyHashingRule(settings, userIdCaseSensitivity, Hasher.Sha256) {
+    override val impersonation: Impersonation,
+    verifiedCredentialsCache: VerifiedCredentialsCache = VerifiedCredentialsCache.Disabled
+) extends AuthKeyHashingRule(settings, userIdCaseSensitivity, Hasher.Sha256, verifiedCredentialsCache) {
 
   override val name: Rule.Name = AuthKeySha256Rule.Name.name
 }
@@ -164,8 +171,9 @@ object AuthKeySha256Rule {
 final class AuthKeySha512Rule(
     override val settings: BasicAuthenticationRule.Settings[HashedCredentials],
     override val userIdCaseSensitivity: CaseSensitivity,
-    override val impersonation: Impersonation
-) extends AuthKeyHashingRule(settings, userIdCaseSensitivity, Hasher.Sha512) {
+    override val impersonation: Impersonation,
+    verifiedCredentialsCache: VerifiedCredentialsCache = VerifiedCredentialsCache.Disabled
+) extends AuthKeyHashingRule(settings, userIdCaseSensitivity, Hasher.Sha512, verifiedCredentialsCache) {
 
   override val name: Rule.Name = AuthKeySha512Rule.Name.name
 }
@@ -181,8 +189,9 @@ object AuthKeySha512Rule {
 final class AuthKeyPBKDF2WithHmacSHA512Rule(
     override val settings: BasicAuthenticationRule.Settings[HashedCredentials],
     override val userIdCaseSensitivity: CaseSensitivity,
-    override val impersonation: Impersonation
-) extends AuthKeyHashingRule(settings, userIdCaseSensitivity, Hasher.PBKDF2WithHmacSHA512) {
+    override val impersonation: Impersonation,
+    verifiedCredentialsCache: VerifiedCredentialsCache = VerifiedCredentialsCache.Disabled
+) extends AuthKeyHashingRule(settings, userIdCaseSensitivity, Hasher.PBKDF2WithHmacSHA512, verifiedCredentialsCache) {
 
   override val name: Rule.Name = AuthKeyPBKDF2WithHmacSHA512Rule.Name.name
 }
@@ -26,7 +26,7 @@ import tech.beshu.ror.accesscontrol.blocks.rules.auth.UsersRule.Settings
 import tech.beshu.ror.accesscontrol.blocks.variables.runtime.RuntimeMultiResolvableVariable
 import tech.beshu.ror.accesscontrol.blocks.{BlockContext, BlockContextUpdater, Decision}
 import tech.beshu.ror.accesscontrol.domain.{CaseSensitivity, LoggedUser, User}
-import tech.beshu.ror.accesscontrol.matchers.PatternsMatcher
+import tech.beshu.ror.accesscontrol.matchers.{CompiledMatchersCache, PatternsMatcher}
 import tech.beshu.ror.accesscontrol.utils.RuntimeMultiResolvableVariableOps.{resolveAll, resolveAllIfPreResolved}
 
 class UsersRule(val settings: Settings, implicit val userIdCaseSensitivity: CaseSensitivity) extends RegularRule {
@@ -38,6 +38,9 @@ class UsersRule(val settings: Settings, implicit val userIdCaseSensitivity: Case
     resolveAllIfPreResolved(settings.userIds.toNonEmptyList)
       .map(userIds => PatternsMatcher.create(userIds.toList.toSet))
 
+  private lazy val resolvedUserIdsMatchers =
+    new CompiledMatchersCache[Set[User.Id], PatternsMatcher[User.Id]](PatternsMatcher.create(_))
+
   override def regularCheck[B <: BlockContext: BlockContextUpdater](blockContext: B): Task[Decision[B]] = Task {
     blockContext.blockMetadata.loggedUser match {
       case Some(user) => matchUser(user, blockContext)
@@ -47,7 +50,7 @@ class UsersRule(val settings: Settings, implicit val userIdCaseSensitivity: Case
 
   private def matchUser[B <: BlockContext](user: LoggedUser, blockContext: B): Decision[B] = {
     val matcher = staticUserIdsMatcher.getOrElse {
-      PatternsMatcher.create(resolveAll(settings.userIds.toNonEmptyList, blockContext).toSet)
+      resolvedUserIdsMatchers.get(resolveAll(settings.userIds.toNonEmptyList, blockContext).toSet)
     }
     Decision.permit(`with` = blockContext)(
       when = matcher.`match`(user.id)
@@ -0,0 +1,134 @@
+/*
+ *    This file is part of ReadonlyREST.
+ *
+ *    ReadonlyREST is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    ReadonlyREST is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with ReadonlyREST.  If not, see http://www.gnu.org/licenses/
+ */
+package tech.beshu.ror.accesscontrol.blocks.rules.auth
+
+import com.github.benmanes.caffeine.cache.{Cache, Caffeine}
+import com.google.common.hash.{HashCode, HashFunction, Hashing}
+import eu.timepit.refined.api.Refined
+import eu.timepit.refined.numeric.Positive
+import tech.beshu.ror.accesscontrol.blocks.rules.Rule
+import tech.beshu.ror.accesscontrol.blocks.rules.auth.AuthKeyHashingRule.HashedCredentials
+import tech.beshu.ror.accesscontrol.blocks.rules.auth.AuthKeyHashingRule.HashedCredentials.{
+  HashedOnlyPassword,
+  HashedUserAndPassword
+}
+import tech.beshu.ror.accesscontrol.domain.Credentials
+import tech.beshu.ror.accesscontrol.metrics.AclMetrics
+import tech.beshu.ror.utils.AccessControllerHelper.doPrivileged
+import tech.beshu.ror.utils.RefinedUtils.{PositiveFiniteDuration, positiveInt}
+
+import java.nio.charset.StandardCharsets
+import java.security.SecureRandom
+import java.util.concurrent.TimeUnit
+import scala.concurrent.ExecutionContext.global
+
+/**
+ * Remembers the credentials which were successfully verified by the hashing auth rules (`auth_key_sha*`,
+ * `auth_key_pbkdf2`), so the costly hash doesn't have to be computed for each request of the same user. One instance
+ * is shared by all the hashing rules of the ACL.
+ *
+ * The presented credentials are never stored - the cache key is an HMAC (with a random, per-instance key) of the rule
+ * name, the configured hash and the presented credentials. Only positive verifications are cached. The hits and misses
+ * are counted in [[AclMetrics]] under the `cacheName`.
+ */
+sealed trait VerifiedCredentialsCache {
+
+  def verified(rule: Rule.Name, configuredCredentials: HashedCredentials, credentials: Credentials)(
+      verify: => Boolean
+  ): Boolean
+
+  def invalidateAll(): Unit
+}
+
+object VerifiedCredentialsCache {
+
+  final case class Settings(ttl: PositiveFiniteDuration, maxSize: Int Refined Positive)
+
+  object Settings {
+    val defaultMaxSize: Int Refined Positive = positiveInt(10000)
+  }
+
+  val cacheName = "verified_credentials"
+
+  def create(settings: Option[Settings]): VerifiedCredentialsCache = settings match {
+    case Some(s) => new Enabled(s)
+    case None    => Disabled
+  }
+
+  case object Disabled extends VerifiedCredentialsCache {
+
+    override def verified(rule: Rule.Name, configuredCredentials: HashedCredentials, credentials: Credentials)(
+        verify: => Boolean
+    ): Boolean = verify
+
+    override def invalidateAll(): Unit = ()
+  }
+
+  final class Enabled(val settings: Settings) extends VerifiedCredentialsCache {
+
+    private val hmac: HashFunction = {
+      val key = new Array[Byte](32)
+      new SecureRandom().nextBytes(key)
+      Hashing.hmacSha256(key)
+    }
+
+    private val cache: Cache[HashCode, java.lang.Boolean] =
+      doPrivileged {
+        Caffeine
+          .newBuilder()
+          .executor(global)
+          .maximumSize(settings.maxSize.value.toLong)
+          .expireAfterWrite(settings.ttl.value.toMillis, TimeUnit.MILLISECONDS)
+          .build[HashCode, java.lang.Boolean]()
+      }
+
+    private val metrics = AclMetrics.cache(cacheName)
+
+    override def verified(rule: Rule.Name, configuredCredentials: HashedCredentials, credentials: Credentials)(
+        verify: => Boolean
+    ): Boolean = {
+      val key = keyOf(rule, configuredCredentials, credentials)
+      Option(cache.getIfPresent(key)) match {
+        case Some(_) =>
+          metrics.recordHit()
+          true
+        case None =>
+          metrics.recordMiss()
+          val result = verify
+          if (result) cache.put(key, java.lang.Boolean.TRUE)
+          result
+      }
+    }
+
+    override def invalidateAll(): Unit = cache.invalidateAll()
+
+    private def keyOf(rule: Rule.Name, configuredCredentials: HashedCredentials, credentials: Credentials) = {
+      val configured = configuredCredentials match {
+        case HashedUserAndPassword(hash)      => hash.value
+        case HashedOnlyPassword(userId, hash) => s"${userId.value.value}:${hash.value}"
+      }
+      // each part is prefixed with its length, so the digest input is unambiguous
+      List(rule.value, configured, credentials.user.value.value, credentials.secret.value.value)
+        .foldLeft(hmac.newHasher()) { (hasher, part) =>
+          hasher.putInt(part.length).putString(part, StandardCharsets.UTF_8)
+        }
+        .hash()
+    }
+
+  }
+
+}
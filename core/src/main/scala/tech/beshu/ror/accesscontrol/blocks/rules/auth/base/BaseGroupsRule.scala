@@ -53,9 +53,7 @@ abstract class BaseGroupsRule[+GL <: GroupsLogic](override val name: Rule.Name,
       .map(_.authenticationRule.localUsers)
       .combineAll
 
-  private val matchers = settings.usersDefinitions.toList.map { userDef =>
-    userDef -> new GenericPatternMatcher(userDef.usernames.patterns.toList)
-  }.toMap
+  private val userDefinitionsIndex = new UserDefinitionsIndex(settings.usersDefinitions)
 
   override protected def authenticate[B <: BlockContext: BlockContextUpdater](blockContext: B): Task[Decision[B]] = {
     Task.defer {
@@ -91,7 +89,7 @@ abstract class BaseGroupsRule[+GL <: GroupsLogic](override val name: Rule.Name,
   }
 
   private def userDefinitionsMatching(userId: User.Id) = {
-    settings.usersDefinitions.filter(ud => matchers(ud).`match`(userId))
+    userDefinitionsIndex.matching(userId)
   }
 
   private def tryToAuthorizeAndAuthenticateUsing[B <: BlockContext: BlockContextUpdater](
@@ -131,7 +129,7 @@ abstract class BaseGroupsRule[+GL <: GroupsLogic](override val name: Rule.Name,
   )(userDef: UserDef): Task[Either[Cause, B]] = {
     permittedGroupsLogic.availableGroupsFrom(userDef.localGroups) match {
       case Some(availableGroups) if blockContext.isCurrentGroupEligible(GroupIds.from(availableGroups)) =>
-        val allowedUserMatcher = matchers(userDef)
+        val allowedUserMatcher = userDefinitionsIndex.matcherOf(userDef)
         userDef.mode match {
           case Mode.WithoutGroupsMapping(auth, _) =>
             authenticate(
@@ -124,9 +124,11 @@ trait BaseJwtRule extends RequestIdAwareLogging {
             Left(failedJwtCauseCreator("Malformed JWT token structure"))
         }
       case Hmac(_) | Rsa(_) | Ec(_) =>
-        Try(parser.parseSignedClaims(token.value.value).getPayload).toEither
-          .map(Jwt.Payload.apply)
-          .fold(ex => Left(causeFrom(ex)), Right(_))
+        jwt.verifiedTokensCache.payloadOf(token) {
+          Try(parser.parseSignedClaims(token.value.value).getPayload).toEither
+            .map(Jwt.Payload.apply)
+            .fold(ex => Left(causeFrom(ex)), Right(_))
+        }
     }
   }
 
@@ -81,10 +81,12 @@ trait BaseRorKbnRule extends RequestIdAwareLogging {
   private def claimsFrom(token: Jwt.Token, rorKbn: RorKbnDef)(
       implicit requestId: RequestId
   ) = {
-    Try(rorKbn.parser.parseSignedClaims(token.value.value).getPayload).toEither
-      .map(Jwt.Payload.apply)
-      .left
-      .map { ex => logger.debug(s"JWT token '${token.show}' parsing error " + ex.getClass.getSimpleName) }
+    rorKbn.verifiedTokensCache.payloadOf(token) {
+      Try(rorKbn.parser.parseSignedClaims(token.value.value).getPayload).toEither
+        .map(Jwt.Payload.apply)
+        .left
+        .map { ex => logger.debug(s"JWT token '${token.show}' parsing error " + ex.getClass.getSimpleName) }
+    }
   }
 
 }
@@ -0,0 +1,86 @@
+/*
+ *    This file is part of ReadonlyREST.
+ *
+ *    ReadonlyREST is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    ReadonlyREST is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with ReadonlyREST.  If not, see http://www.gnu.org/licenses/
+ */
+package tech.beshu.ror.accesscontrol.blocks.rules.auth.base
+
+import cats.data.NonEmptyList
+import tech.beshu.ror.accesscontrol.blocks.definitions.UserDef
+import tech.beshu.ror.accesscontrol.domain.{CaseSensitivity, User}
+import tech.beshu.ror.accesscontrol.matchers.GenericPatternMatcher
+
+import scala.collection.immutable.BitSet
+
+/**
+ * The user definitions of a groups rule indexed by their username patterns, so not all of them have to be matched
+ * against the logged user ID. The candidate definitions are found with a hash lookup of the exact usernames and of the
+ * literal prefixes of the wildcard patterns (one lookup per distinct prefix length). The patterns without a literal
+ * prefix (e.g. `*_admin`) make their definitions candidates of every user. The candidates are confirmed with their
+ * patterns matchers and are returned in the definitions order.
+ */
+private[ror] final class UserDefinitionsIndex(userDefs: NonEmptyList[UserDef])(
+    implicit caseSensitivity: CaseSensitivity
+) {
+
+  private val definitions: Vector[UserDef] = userDefs.toList.toVector
+
+  private val matchers: Map[UserDef, GenericPatternMatcher[User.Id]] =
+    definitions.map(userDef => userDef -> new GenericPatternMatcher(userDef.usernames.patterns.toList)).toMap
+
+  private val indexedPatterns: Vector[(Int, String)] =
+    definitions.zipWithIndex.flatMap { case (userDef, idx) =>
+      userDef.usernames.patterns.toList.map(pattern => idx -> normalized(pattern.value.value.value))
+    }
+
+  private val byExactUsername: Map[String, BitSet] =
+    groupedPositions(indexedPatterns.filterNot { case (_, pattern) => hasWildcard(pattern) })
+
+  private val byLiteralPrefix: Map[String, BitSet] =
+    groupedPositions {
+      indexedPatterns.collect { case (idx, pattern) if hasWildcard(pattern) => idx -> literalPrefixOf(pattern) }
+    }
+
+  private val alwaysCandidates: BitSet = byLiteralPrefix.getOrElse("", BitSet.empty)
+
+  private val literalPrefixLengths: Vector[Int] =
+    byLiteralPrefix.keys.map(_.length).filter(_ > 0).toVector.distinct.sorted
+
+  def matching(userId: User.Id): List[UserDef] = {
+    val id = normalized(userId.value.value)
+    val candidates = literalPrefixLengths
+      .takeWhile(_ <= id.length)
+      .foldLeft(alwaysCandidates ++ byExactUsername.getOrElse(id, BitSet.empty)) { (candidates, prefixLength) =>
+        candidates ++ byLiteralPrefix.getOrElse(id.substring(0, prefixLength), BitSet.empty)
+      }
+    candidates.iterator
+      .map(definitions(_))
+      .filter(userDef => matchers(userDef).`match`(userId))
+      .toList
+  }
+
+  def matcherOf(userDef: UserDef): GenericPatternMatcher[User.Id] = matchers(userDef)
+
+  private def groupedPositions(patterns: Vector[(Int, String)]): Map[String, BitSet] =
+    patterns.groupMap(_._2)(_._1).view.mapValues(positions => BitSet.fromSpecific(positions)).toMap
+
+  private def normalized(value: String) = caseSensitivity match {
+    case CaseSensitivity.Enabled  => value
+    case CaseSensitivity.Disabled => value.toLowerCase
+  }
+
+  private def hasWildcard(pattern: String) = pattern.exists(c => c == '*' || c == '?')
+
+  private def literalPrefixOf(pattern: String) = pattern.takeWhile(c => c != '*' && c != '?')
+}
@@ -24,7 +24,7 @@ import tech.beshu.ror.accesscontrol.blocks.rules.Rule.{RegularRule, RuleName}
 import tech.beshu.ror.accesscontrol.blocks.rules.elasticsearch.ActionsRule.Settings
 import tech.beshu.ror.accesscontrol.blocks.{BlockContext, BlockContextUpdater, Decision}
 import tech.beshu.ror.accesscontrol.domain.{Action, RequestId}
-import tech.beshu.ror.accesscontrol.matchers.PatternsMatcher
+import tech.beshu.ror.accesscontrol.matchers.ActionsMatcher
 import tech.beshu.ror.implicits.*
 import tech.beshu.ror.utils.RequestIdAwareLogging
 
@@ -32,7 +32,7 @@ class ActionsRule(val settings: Settings) extends RegularRule with RequestIdAwar
 
   override val name: Rule.Name = ActionsRule.Name.name
 
-  private val matcher: PatternsMatcher[Action] = PatternsMatcher.create(settings.actions.toSortedSet)
+  private[blocks] val matcher: ActionsMatcher = ActionsMatcher.create(settings.actions.toSortedSet)
 
   override def regularCheck[B <: BlockContext: BlockContextUpdater](blockContext: B): Task[Decision[B]] = Task {
     val requestContext = blockContext.requestContext
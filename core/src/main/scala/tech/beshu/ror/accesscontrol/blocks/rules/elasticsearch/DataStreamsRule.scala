@@ -28,7 +28,11 @@ import tech.beshu.ror.accesscontrol.blocks.variables.runtime.RuntimeMultiResolva
 import tech.beshu.ror.accesscontrol.blocks.{BlockContext, BlockContextUpdater, Decision}
 import tech.beshu.ror.accesscontrol.domain.DataStreamName
 import tech.beshu.ror.accesscontrol.matchers.ZeroKnowledgeDataStreamsFilterScalaAdapter.CheckResult
-import tech.beshu.ror.accesscontrol.matchers.{PatternsMatcher, ZeroKnowledgeDataStreamsFilterScalaAdapter}
+import tech.beshu.ror.accesscontrol.matchers.{
+  CompiledMatchersCache,
+  PatternsMatcher,
+  ZeroKnowledgeDataStreamsFilterScalaAdapter
+}
 import tech.beshu.ror.accesscontrol.request.RequestContext
 import tech.beshu.ror.accesscontrol.utils.RuntimeMultiResolvableVariableOps.{resolveAll, resolveAllIfPreResolved}
 import tech.beshu.ror.implicits.*
@@ -49,6 +53,9 @@ class DataStreamsRule(val settings: Settings) extends RegularRule with RequestId
     resolveAllIfPreResolved(settings.allowedDataStreams.toNonEmptyList)
       .map(dataStreams => AllowedDataStreams.from(dataStreams.toList.toCovariantSet))
 
+  private lazy val resolvedAllowedDataStreams =
+    new CompiledMatchersCache[Set[DataStreamName], AllowedDataStreams](AllowedDataStreams.from)
+
   override def regularCheck[B <: BlockContext: BlockContextUpdater](blockContext: B): Task[Decision[B]] = Task {
     BlockContextUpdater[B] match {
       case BlockContextUpdater.DataStreamRequestBlockContextUpdater =>
@@ -62,7 +69,9 @@ class DataStreamsRule(val settings: Settings) extends RegularRule with RequestId
       implicit ev: DataStreamRequestBlockContext <:< B
   ): Decision[B] = {
     val allowedDataStreams = staticAllowedDataStreams.getOrElse {
-      AllowedDataStreams.from(resolveAll(settings.allowedDataStreams.toNonEmptyList, blockContext).toCovariantSet)
+      resolvedAllowedDataStreams.get(
+        resolveAll(settings.allowedDataStreams.toNonEmptyList, blockContext).toCovariantSet
+      )
     }
     checkAllowedDataStreams(
       allowedDataStreams,
@@ -186,7 +186,7 @@ class FieldsRule(val settings: Settings) extends RegularRule with RequestIdAware
       usedFields: List[SpecificField],
       fieldsRestrictions: FieldsRestrictions
   ) = {
-    val fieldsPolicy = new FieldsPolicy(fieldsRestrictions)
+    val fieldsPolicy = FieldsPolicy(fieldsRestrictions)
     usedFields
       .filterNot(field => fieldsPolicy.canKeep(field.value))
       .toNel
@@ -28,7 +28,11 @@ import tech.beshu.ror.accesscontrol.blocks.variables.runtime.RuntimeMultiResolva
 import tech.beshu.ror.accesscontrol.blocks.{BlockContext, BlockContextUpdater, Decision}
 import tech.beshu.ror.accesscontrol.domain.RepositoryName
 import tech.beshu.ror.accesscontrol.matchers.ZeroKnowledgeRepositoryFilterScalaAdapter.CheckResult
-import tech.beshu.ror.accesscontrol.matchers.{PatternsMatcher, ZeroKnowledgeRepositoryFilterScalaAdapter}
+import tech.beshu.ror.accesscontrol.matchers.{
+  CompiledMatchersCache,
+  PatternsMatcher,
+  ZeroKnowledgeRepositoryFilterScalaAdapter
+}
 import tech.beshu.ror.accesscontrol.request.RequestContext
 import tech.beshu.ror.accesscontrol.utils.RuntimeMultiResolvableVariableOps.{resolveAll, resolveAllIfPreResolved}
 import tech.beshu.ror.implicits.*
@@ -49,6 +53,9 @@ class RepositoriesRule(val settings: Settings) extends RegularRule with RequestI
     resolveAllIfPreResolved(settings.allowedRepositories.toNonEmptyList)
       .map(repositories => AllowedRepositories.from(repositories.toList.toCovariantSet))
 
+  private lazy val resolvedAllowedRepositories =
+    new CompiledMatchersCache[Set[RepositoryName], AllowedRepositories](AllowedRepositories.from)
+
   override def regularCheck[B <: BlockContext: BlockContextUpdater](blockContext: B): Task[Decision[B]] = Task {
     BlockContextUpdater[B] match {
       case BlockContextUpdater.RepositoryRequestBlockContextUpdater =>
@@ -88,7 +95,9 @@ class RepositoriesRule(val settings: Settings) extends RegularRule with RequestI
 
   private def allowedRepositoriesFor(blockContext: BlockContext): AllowedRepositories =
     staticAllowedRepositories.getOrElse {
-      AllowedRepositories.from(resolveAll(settings.allowedRepositories.toNonEmptyList, blockContext).toCovariantSet)
+      resolvedAllowedRepositories.get(
+        resolveAll(settings.allowedRepositories.toNonEmptyList, blockContext).toCovariantSet
+      )
     }
 
   private def checkAllowedRepositories(
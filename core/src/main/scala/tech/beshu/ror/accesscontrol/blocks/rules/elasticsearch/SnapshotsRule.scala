@@ -28,7 +28,11 @@ import tech.beshu.ror.accesscontrol.blocks.variables.runtime.RuntimeMultiResolva
 import tech.beshu.ror.accesscontrol.blocks.{BlockContext, BlockContextUpdater, Decision}
 import tech.beshu.ror.accesscontrol.domain.SnapshotName
 import tech.beshu.ror.accesscontrol.matchers.ZeroKnowledgeMatchFilterScalaAdapter.AlterResult.{Altered, NotAltered}
-import tech.beshu.ror.accesscontrol.matchers.{PatternsMatcher, ZeroKnowledgeMatchFilterScalaAdapter}
+import tech.beshu.ror.accesscontrol.matchers.{
+  CompiledMatchersCache,
+  PatternsMatcher,
+  ZeroKnowledgeMatchFilterScalaAdapter
+}
 import tech.beshu.ror.accesscontrol.utils.RuntimeMultiResolvableVariableOps.{resolveAll, resolveAllIfPreResolved}
 import tech.beshu.ror.syntax.*
 
@@ -44,13 +48,18 @@ class SnapshotsRule(val settings: Settings) extends RegularRule {
     resolveAllIfPreResolved(settings.allowedSnapshots.toNonEmptyList)
       .map(snapshots => AllowedSnapshots.from(snapshots.toList.toCovariantSet))
 
+  private lazy val resolvedAllowedSnapshots =
+    new CompiledMatchersCache[Set[SnapshotName], AllowedSnapshots](AllowedSnapshots.from)
+
   override def regularCheck[B <: BlockContext: BlockContextUpdater](blockContext: B): Task[Decision[B]] = Task {
     BlockContextUpdater[B] match {
       case BlockContextUpdater.UserMetadataRequestBlockContextUpdater =>
         Permitted(blockContext)
       case BlockContextUpdater.SnapshotRequestBlockContextUpdater =>
         val allowedSnapshots = staticAllowedSnapshots.getOrElse {
-          AllowedSnapshots.from(resolveAll(settings.allowedSnapshots.toNonEmptyList, blockContext).toCovariantSet)
+          resolvedAllowedSnapshots.get(
+            resolveAll(settings.allowedSnapshots.toNonEmptyList, blockContext).toCovariantSet
+          )
         }
         checkAllowedSnapshots(allowedSnapshots, blockContext)
       case _ =>
@@ -41,19 +41,25 @@ import tech.beshu.ror.accesscontrol.blocks.Decision.{Denied, Permitted}
 import tech.beshu.ror.accesscontrol.blocks.rules.Rule
 import tech.beshu.ror.accesscontrol.blocks.rules.Rule.{RegularRule, RuleName}
 import tech.beshu.ror.accesscontrol.blocks.rules.elasticsearch.indices.IndicesRule.*
-import tech.beshu.ror.accesscontrol.blocks.rules.elasticsearch.indices.clusterindices.AllClusterIndices
+import tech.beshu.ror.accesscontrol.blocks.rules.elasticsearch.indices.clusterindices.{
+  AllClusterIndices,
+  RemoteIndicesCache
+}
 import tech.beshu.ror.accesscontrol.blocks.rules.elasticsearch.indices.templates.AllTemplateIndices
 import tech.beshu.ror.accesscontrol.blocks.variables.runtime.RuntimeMultiResolvableVariable
 import tech.beshu.ror.accesscontrol.blocks.variables.runtime.RuntimeMultiResolvableVariable.AlreadyResolved
 import tech.beshu.ror.accesscontrol.domain.ClusterIndexName.Remote.ClusterName
 import tech.beshu.ror.accesscontrol.domain.{ClusterIndexName, RequestId, RequestedIndex}
-import tech.beshu.ror.accesscontrol.matchers.{PatternsMatcher, UniqueIdentifierGenerator}
+import tech.beshu.ror.accesscontrol.matchers.{CompiledMatchersCache, PatternsMatcher, UniqueIdentifierGenerator}
 import tech.beshu.ror.accesscontrol.request.RequestContext
 import tech.beshu.ror.accesscontrol.utils.RuntimeMultiResolvableVariableOps.{resolveAll, resolveAllIfPreResolved}
 import tech.beshu.ror.syntax.*
 
-class IndicesRule(override val settings: Settings, override val identifierGenerator: UniqueIdentifierGenerator)
-    extends RegularRule
+class IndicesRule(
+    override val settings: Settings,
+    override val identifierGenerator: UniqueIdentifierGenerator,
+    override val remoteIndicesCache: RemoteIndicesCache = RemoteIndicesCache.Disabled
+) extends RegularRule
     with AllClusterIndices
     with AllTemplateIndices {
 
@@ -67,6 +73,9 @@ class IndicesRule(override val settings: Settings, override val identifierGenera
     resolveAllIfPreResolved(settings.allowedIndices.toNonEmptyList)
       .map(indices => new AllowedClusterIndices(indices.toList.toCovariantSet))
 
+  private lazy val resolvedAllowedIndices =
+    new CompiledMatchersCache[Set[ClusterIndexName], AllowedClusterIndices](new AllowedClusterIndices(_))
+
   override def regularCheck[B <: BlockContext: BlockContextUpdater](blockContext: B): Task[Decision[B]] = {
     BlockContextUpdater[B] match {
       case UserMetadataRequestBlockContextUpdater    => processRequestWithoutIndices(blockContext)
@@ -120,37 +129,47 @@ class IndicesRule(override val settings: Settings, override val identifierGenera
       def atLeastOneFound(indices: List[Indices]) = indices.exists(_.isInstanceOf[Indices.Found])
 
       val allowedIndices = allowedIndicesFor(blockContext)
-      blockContext.indexPacks
-        .foldLeft(Task.now(List.empty[Indices].asRight[Unit])) { case (acc, pack) =>
-          acc.flatMap {
-            case Right(currentList) =>
-              pack match {
-                case Indices.Found(indices) =>
-                  processIndices(
-                    blockContext.requestContext,
-                    allowedIndices,
-                    indices,
-                    kibanaIndexFrom(blockContext)
-                  ) map {
-                    case ProcessResult.Ok(narrowedIndices)  => Right(Indices.Found(narrowedIndices) :: currentList)
-                    case ProcessResult.Failed.IndexNotFound => Right(Indices.NotFound :: currentList)
-                    case ProcessResult.Failed.Other         => Left(())
-                  }
-                case Indices.NotFound =>
-                  Task.now(Right(Indices.NotFound :: currentList))
-              }
-            case result @ Left(_) =>
-              Task.now(result)
-          }
+      val indexPacks = blockContext.indexPacks
+      // the packs of a bulk request mostly repeat the same few indices, so each distinct pack is processed once
+      indexPacks
+        .collect { case Indices.Found(indices) => indices }
+        .distinct
+        .foldLeft(Task.now(Map.empty[Set[RequestedIndex[ClusterIndexName]], Indices].asRight[Unit])) {
+          case (acc, requestedIndices) =>
+            acc.flatMap {
+              case Right(processedPacks) =>
+                processIndices(
+                  blockContext.requestContext,
+                  allowedIndices,
+                  requestedIndices,
+                  kibanaIndexFrom(blockContext)
+                ) map {
+                  case ProcessResult.Ok(narrowedIndices) =>
+                    Right(processedPacks + (requestedIndices -> Indices.Found(narrowedIndices)))
+                  case ProcessResult.Failed.IndexNotFound =>
+                    Right(processedPacks + (requestedIndices -> Indices.NotFound))
+                  case ProcessResult.Failed.Other =>
+                    Left(())
+                }
+              case result @ Left(_) =>
+                Task.now(result)
+            }
         }
         .map {
-          case Right(indices) if atLeastOneFound(indices) => Permitted(blockContext.withIndicesPacks(indices.reverse))
-          case Right(_)                                   =>
-            Denied(
-              Cause.IndexNotFound(
-                getAllowedClusterNames(blockContext.requestContext, allowedIndices)
+          case Right(processedPacks) =>
+            val indices = indexPacks.map {
+              case Indices.Found(requestedIndices) => processedPacks(requestedIndices)
+              case Indices.NotFound                => Indices.NotFound
+            }
+            if (atLeastOneFound(indices)) {
+              Permitted(blockContext.withIndicesPacks(indices))
+            } else {
+              Denied(
+                Cause.IndexNotFound(
+                  getAllowedClusterNames(blockContext.requestContext, allowedIndices)
+                )
               )
-            )
+            }
           case Left(_) => reject()
         }
     }
@@ -214,7 +233,7 @@ class IndicesRule(override val settings: Settings, override val identifierGenera
 
   private def allowedIndicesFor(blockContext: BlockContext): AllowedClusterIndices =
     staticAllowedIndices.getOrElse {
-      new AllowedClusterIndices(resolveAll(settings.allowedIndices.toNonEmptyList, blockContext).toCovariantSet)
+      resolvedAllowedIndices.get(resolveAll(settings.allowedIndices.toNonEmptyList, blockContext).toCovariantSet)
     }
 
   private def getAllowedClusterNames(
@@ -251,7 +270,7 @@ object IndicesRule {
   )
 
   // Allowed indices pre-split into local/remote with lazily compiled matchers: built once at rule
-  // construction for a static config, or per request when runtime variables are involved.
+  // construction for a static config, or once per distinct resolution when runtime variables are involved.
   private[indices] final class AllowedClusterIndices(val all: Set[ClusterIndexName]) {
 
     val (remote, local) = {
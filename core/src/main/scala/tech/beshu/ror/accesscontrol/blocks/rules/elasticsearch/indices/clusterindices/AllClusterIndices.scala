@@ -34,6 +34,8 @@ import tech.beshu.ror.utils.uniquelist.UniqueNonEmptyList
 trait AllClusterIndices extends BaseIndicesProcessor {
   this: IndicesRule =>
 
+  protected def remoteIndicesCache: RemoteIndicesCache
+
   protected def processIndices(
       requestContext: RequestContext,
       allowedIndices: AllowedClusterIndices,
@@ -111,7 +113,8 @@ trait AllClusterIndices extends BaseIndicesProcessor {
   ): Task[ProcessResult] = {
     implicit val indicesManager: RemoteIndicesManager = new RemoteIndicesManager(
       requestContext,
-      allowedIndices.remoteMatcher
+      allowedIndices.remoteMatcher,
+      remoteIndicesCache
     )
     implicit val requestContextImpl: RequestContext = requestContext
     logger.debug(
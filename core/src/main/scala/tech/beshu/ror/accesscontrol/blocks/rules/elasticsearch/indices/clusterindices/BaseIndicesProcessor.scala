@@ -109,14 +109,18 @@ trait BaseIndicesProcessor {
     Task
       .delay(logger.debug(s"Checking - none or all indices ..."))
       .flatMap { case () =>
+        val allowedIndicesMatcher = allowedIndicesManager.allowedIndicesMatcher
         for {
           indicesAndAliases <- allowedIndicesManager.allIndicesAndAliases
           dataStreamsAndAliases <- allowedIndicesManager.allDataStreamsAndDataStreamAliases
+          matchableIndicesAndAliases <- allowedIndicesManager.indicesAndAliasesMatchableBy(allowedIndicesMatcher)
+          matchableDataStreamsAndAliases <-
+            allowedIndicesManager.dataStreamsAndDataStreamAliasesMatchableBy(allowedIndicesMatcher)
         } yield {
           logger.debug(s"... indices, aliases and data streams: [${(indicesAndAliases ++ dataStreamsAndAliases).show}]")
           if (requestedIndices.exists(_.name.allIndicesRequested)) {
-            val allowedIndices = allowedIndicesManager.allowedIndicesMatcher
-              .filter(indicesAndAliases.view ++ dataStreamsAndAliases.view)
+            val allowedIndices =
+              allowedIndicesMatcher.filter(matchableIndicesAndAliases.view ++ matchableDataStreamsAndAliases.view)
             stop(
               if (allowedIndices.nonEmpty) {
                 logger.debug(s"... matched [indices: ${requestedIndices.show}]. Stop")
@@ -198,11 +202,12 @@ trait BaseIndicesProcessor {
     val excludedMatcher = Option.when(excl.nonEmpty)(PatternsMatcher.create(excl.map(_.name)))
     val includedMatcher = Option.when(incl.nonEmpty)(PatternsMatcher.create(incl.map(_.name)))
     val requestedNamesMatcher = PatternsMatcher.create(requestedIndices.map(_.name))
+    // all names matched by the excluded or the included matcher are matched by the requested names matcher too
     for {
-      allIndices <- allowedIndicesManager.allIndices
-      allAliases <- allowedIndicesManager.allAliases
-      allDataStreams <- allowedIndicesManager.allDataStreams
-      allDataStreamAliases <- allowedIndicesManager.allDataStreamAliases
+      allIndices <- allowedIndicesManager.indicesMatchableBy(requestedNamesMatcher)
+      allAliases <- allowedIndicesManager.aliasesMatchableBy(requestedNamesMatcher)
+      allDataStreams <- allowedIndicesManager.dataStreamsMatchableBy(requestedNamesMatcher)
+      allDataStreamAliases <- allowedIndicesManager.dataStreamAliasesMatchableBy(requestedNamesMatcher)
       backingIndicesPerDataStream <- allowedIndicesManager.backingIndicesPerDataStreamMap
     } yield ResolvedRequestedNames(
       indices = allIndices.filterBy(excludedMatcher, includedMatcher),
@@ -507,6 +512,32 @@ object BaseIndicesProcessor {
     ): Task[Map[T, Set[T]]]
 
     def allowedIndicesMatcher: PatternsMatcher[T]
+
+    // names which can be matched by the given matcher (a superset of the matched ones) - managers keeping the names
+    // in a sorted index can narrow them down, so the matcher doesn't have to be applied to all of them
+    def indicesAndAliasesMatchableBy(matcher: PatternsMatcher[T])(
+        implicit id: RequestId
+    ): Task[Iterable[T]]
+
+    def indicesMatchableBy(matcher: PatternsMatcher[T])(
+        implicit id: RequestId
+    ): Task[Iterable[T]]
+
+    def aliasesMatchableBy(matcher: PatternsMatcher[T])(
+        implicit id: RequestId
+    ): Task[Iterable[T]]
+
+    def dataStreamsAndDataStreamAliasesMatchableBy(matcher: PatternsMatcher[T])(
+        implicit id: RequestId
+    ): Task[Iterable[T]]
+
+    def dataStreamsMatchableBy(matcher: PatternsMatcher[T])(
+        implicit id: RequestId
+    ): Task[Iterable[T]]
+
+    def dataStreamAliasesMatchableBy(matcher: PatternsMatcher[T])(
+        implicit id: RequestId
+    ): Task[Iterable[T]]
   }
 
 }
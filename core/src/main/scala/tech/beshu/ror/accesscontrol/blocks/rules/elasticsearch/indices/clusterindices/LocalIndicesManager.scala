@@ -98,6 +98,36 @@ class LocalIndicesManager(
   ): Task[Map[LocalIndexName, Set[LocalIndexName]]] =
     Task.delay(cachedDataStreamsPerAliasMap)
 
+  override def indicesAndAliasesMatchableBy(matcher: PatternsMatcher[LocalIndexName])(
+      implicit requestId: RequestId
+  ): Task[Iterable[LocalIndexName]] =
+    Task.delay(indicesSnapshot.sortedIndicesAndAliasesFor(indexAttributesFromRequest).candidatesFor(matcher))
+
+  override def indicesMatchableBy(matcher: PatternsMatcher[LocalIndexName])(
+      implicit requestId: RequestId
+  ): Task[Iterable[LocalIndexName]] =
+    Task.delay(indicesSnapshot.sortedIndicesFor(indexAttributesFromRequest).candidatesFor(matcher))
+
+  override def aliasesMatchableBy(matcher: PatternsMatcher[LocalIndexName])(
+      implicit requestId: RequestId
+  ): Task[Iterable[LocalIndexName]] =
+    Task.delay(indicesSnapshot.sortedAliasesFor(indexAttributesFromRequest).candidatesFor(matcher))
+
+  override def dataStreamsAndDataStreamAliasesMatchableBy(matcher: PatternsMatcher[LocalIndexName])(
+      implicit requestId: RequestId
+  ): Task[Iterable[LocalIndexName]] =
+    Task.delay(dataStreamsSnapshot.sortedDataStreamsAndAliasesFor(indexAttributesFromRequest).candidatesFor(matcher))
+
+  override def dataStreamsMatchableBy(matcher: PatternsMatcher[LocalIndexName])(
+      implicit requestId: RequestId
+  ): Task[Iterable[LocalIndexName]] =
+    Task.delay(dataStreamsSnapshot.sortedDataStreamsFor(indexAttributesFromRequest).candidatesFor(matcher))
+
+  override def dataStreamAliasesMatchableBy(matcher: PatternsMatcher[LocalIndexName])(
+      implicit requestId: RequestId
+  ): Task[Iterable[LocalIndexName]] =
+    Task.delay(dataStreamsSnapshot.sortedDataStreamAliasesFor(indexAttributesFromRequest).candidatesFor(matcher))
+
   override def backingIndicesPerDataStreamMap(
       implicit requestId: RequestId
   ): Task[Map[LocalIndexName, Set[LocalIndexName]]] =
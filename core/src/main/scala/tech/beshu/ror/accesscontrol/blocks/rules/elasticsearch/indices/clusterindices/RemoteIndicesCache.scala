@@ -0,0 +1,126 @@
+/*
+ *    This file is part of ReadonlyREST.
+ *
+ *    ReadonlyREST is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    ReadonlyREST is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with ReadonlyREST.  If not, see http://www.gnu.org/licenses/
+ */
+package tech.beshu.ror.accesscontrol.blocks.rules.elasticsearch.indices.clusterindices
+
+import monix.eval.Task
+import tech.beshu.ror.accesscontrol.domain.DataStreamName.FullRemoteDataStreamWithAliases
+import tech.beshu.ror.accesscontrol.domain.{FullRemoteIndexWithAliases, RequestId}
+import tech.beshu.ror.utils.RefinedUtils.PositiveFiniteDuration
+import tech.beshu.ror.utils.RequestIdAwareLogging
+
+import java.time.Clock
+import java.util.concurrent.atomic.AtomicReference
+import scala.concurrent.duration.*
+
+/**
+ * Remote clusters' indices, aliases and data streams, kept across requests, so not each cross-cluster request has to
+ * resolve them with a round-trip to every remote cluster. One instance is shared by all `indices` rules of the ACL.
+ *
+ * A snapshot younger than `ttl` is served as is. An older one is still served (stale-while-revalidate) while it's
+ * being refreshed in the background - also when the refresh fails (e.g. a remote cluster is briefly unreachable).
+ * When the snapshot is older than `ttl` + `maxStale`, the request waits for the fresh one.
+ */
+sealed trait RemoteIndicesCache {
+
+  def indices(fetch: Task[Set[FullRemoteIndexWithAliases]])(
+      implicit requestId: RequestId
+  ): Task[Set[FullRemoteIndexWithAliases]]
+
+  def dataStreams(fetch: Task[Set[FullRemoteDataStreamWithAliases]])(
+      implicit requestId: RequestId
+  ): Task[Set[FullRemoteDataStreamWithAliases]]
+}
+
+object RemoteIndicesCache {
+
+  final case class Settings(ttl: PositiveFiniteDuration, maxStale: FiniteDuration)
+
+  object Settings {
+    val defaultMaxStale: FiniteDuration = 5.minutes
+  }
+
+  def create(settings: Option[Settings]): RemoteIndicesCache = settings match {
+    case Some(s) => new Enabled(s)
+    case None    => Disabled
+  }
+
+  case object Disabled extends RemoteIndicesCache {
+
+    override def indices(fetch: Task[Set[FullRemoteIndexWithAliases]])(
+        implicit requestId: RequestId
+    ): Task[Set[FullRemoteIndexWithAliases]] = fetch
+
+    override def dataStreams(fetch: Task[Set[FullRemoteDataStreamWithAliases]])(
+        implicit requestId: RequestId
+    ): Task[Set[FullRemoteDataStreamWithAliases]] = fetch
+  }
+
+  final class Enabled(val settings: Settings, clock: Clock = Clock.systemUTC()) extends RemoteIndicesCache {
+
+    private val indicesSlot = new Slot[Set[FullRemoteIndexWithAliases]]("indices", settings, clock)
+    private val dataStreamsSlot = new Slot[Set[FullRemoteDataStreamWithAliases]]("data streams", settings, clock)
+
+    override def indices(fetch: Task[Set[FullRemoteIndexWithAliases]])(
+        implicit requestId: RequestId
+    ): Task[Set[FullRemoteIndexWithAliases]] = indicesSlot.get(fetch)
+
+    override def dataStreams(fetch: Task[Set[FullRemoteDataStreamWithAliases]])(
+        implicit requestId: RequestId
+    ): Task[Set[FullRemoteDataStreamWithAliases]] = dataStreamsSlot.get(fetch)
+  }
+
+  private final class Slot[A](kind: String, settings: Settings, clock: Clock) extends RequestIdAwareLogging {
+
+    private val ttlMillis = settings.ttl.value.toMillis
+    private val maxAgeMillis = ttlMillis + settings.maxStale.toMillis
+
+    private val loaded = new AtomicReference[Option[Loaded[A]]](None)
+    // the fetch in progress, so the concurrent requests don't resolve the remote clusters on their own
+    private val inFlight = new AtomicReference[Option[Task[A]]](None)
+
+    def get(fetch: Task[A])(
+        implicit requestId: RequestId
+    ): Task[A] = Task.defer {
+      val now = clock.millis()
+      loaded.get() match {
+        case Some(snapshot) if now - snapshot.fetchedAt < ttlMillis =>
+          Task.now(snapshot.value)
+        case Some(snapshot) if now - snapshot.fetchedAt < maxAgeMillis =>
+          refresh(fetch)
+            .onErrorHandle { ex =>
+              logger.warn(s"Cannot refresh remote clusters $kind. The ones fetched before are still used", ex)
+            }
+            .startAndForget
+            .map(_ => snapshot.value)
+        case Some(_) | None =>
+          refresh(fetch)
+      }
+    }
+
+    private def refresh(fetch: Task[A]): Task[A] = Task.defer {
+      val newFetch = fetch
+        .flatMap(value => Task.delay(loaded.set(Some(Loaded(value, clock.millis())))).map(_ => value))
+        .guarantee(Task.delay(inFlight.set(None)))
+        .memoize
+      if (inFlight.compareAndSet(None, Some(newFetch))) newFetch
+      else inFlight.get().getOrElse(newFetch)
+    }
+  }
+
+  private final case class Loaded[A](value: A, fetchedAt: Long)
+
+}
@@ -30,15 +30,22 @@ import scala.collection.mutable
 
 class RemoteIndicesManager(
     requestContext: RequestContext,
-    override val allowedIndicesMatcher: PatternsMatcher[RemoteIndexName]
+    override val allowedIndicesMatcher: PatternsMatcher[RemoteIndexName],
+    remoteIndicesCache: RemoteIndicesCache = RemoteIndicesCache.Disabled
 ) extends IndicesManager[RemoteIndexName] {
 
   private implicit val implicitRequestId: RequestId = requestContext.id.toRequestId
   private val clusterService = requestContext.esServices.clusterService
   private val indexAttributesFromRequest = requestContext.indexAttributes
 
+  private lazy val allRemoteIndicesAndAliases =
+    remoteIndicesCache.indices(clusterService.allRemoteIndicesAndAliases).memoize
+
+  private lazy val allRemoteDataStreamsAndAliases =
+    remoteIndicesCache.dataStreams(clusterService.allRemoteDataStreamsAndAliases).memoize
+
   private lazy val cachedRemoteIndices =
-    clusterService.allRemoteIndicesAndAliases.map { all =>
+    allRemoteIndicesAndAliases.map { all =>
       indexAttributesFromRequest match {
         case IndexAttributeFilter.All    => all
         case IndexAttributeFilter.Opened => all.filter(_.attribute == IndexAttribute.Opened)
@@ -53,7 +60,7 @@ class RemoteIndicesManager(
     cachedRemoteIndices.map(_.map(_.index)).memoize
 
   private lazy val cachedAllAliases: Task[Set[RemoteIndexName]] =
-    clusterService.allRemoteIndicesAndAliases
+    allRemoteIndicesAndAliases
       .map(_.flatMap(_.aliases))
       .memoize
 
@@ -61,7 +68,7 @@ class RemoteIndicesManager(
     cachedRemoteIndices.map(indicesPerAliasMapFrom).memoize
 
   private lazy val cachedRemoteDataStreams =
-    clusterService.allRemoteDataStreamsAndAliases.map { all =>
+    allRemoteDataStreamsAndAliases.map { all =>
       indexAttributesFromRequest match {
         case IndexAttributeFilter.Closed => Set.empty[FullRemoteDataStreamWithAliases]
         case IndexAttributeFilter.Opened => all
@@ -76,7 +83,7 @@ class RemoteIndicesManager(
     cachedRemoteDataStreams.map(_.map(_.dataStream)).memoize
 
   private lazy val cachedAllDataStreamAliases: Task[Set[RemoteIndexName]] =
-    clusterService.allRemoteDataStreamsAndAliases
+    allRemoteDataStreamsAndAliases
       .map(_.flatMap(_.aliases))
       .memoize
 
@@ -131,6 +138,36 @@ class RemoteIndicesManager(
   ): Task[Map[RemoteIndexName, Set[RemoteIndexName]]] =
     cachedBackingIndicesPerDataStreamMap
 
+  override def indicesAndAliasesMatchableBy(matcher: PatternsMatcher[RemoteIndexName])(
+      implicit id: RequestId
+  ): Task[Iterable[RemoteIndexName]] =
+    cachedAllIndicesAndAliases
+
+  override def indicesMatchableBy(matcher: PatternsMatcher[RemoteIndexName])(
+      implicit id: RequestId
+  ): Task[Iterable[RemoteIndexName]] =
+    cachedAllIndices
+
+  override def aliasesMatchableBy(matcher: PatternsMatcher[RemoteIndexName])(
+      implicit id: RequestId
+  ): Task[Iterable[RemoteIndexName]] =
+    cachedAllAliases
+
+  override def dataStreamsAndDataStreamAliasesMatchableBy(matcher: PatternsMatcher[RemoteIndexName])(
+      implicit id: RequestId
+  ): Task[Iterable[RemoteIndexName]] =
+    cachedAllDataStreamsAndAliases
+
+  override def dataStreamsMatchableBy(matcher: PatternsMatcher[RemoteIndexName])(
+      implicit id: RequestId
+  ): Task[Iterable[RemoteIndexName]] =
+    cachedAllDataStreams
+
+  override def dataStreamAliasesMatchableBy(matcher: PatternsMatcher[RemoteIndexName])(
+      implicit id: RequestId
+  ): Task[Iterable[RemoteIndexName]] =
+    cachedAllDataStreamAliases
+
   private def indicesPerAliasMapFrom(
       indices: Iterable[FullRemoteIndexWithAliases]
   ): Map[RemoteIndexName, Set[RemoteIndexName]] = {
@@ -27,17 +27,16 @@ import tech.beshu.ror.accesscontrol.blocks.variables.runtime.RuntimeMultiResolva
 import tech.beshu.ror.accesscontrol.blocks.{BlockContext, BlockContextUpdater, Decision}
 import tech.beshu.ror.accesscontrol.domain.Address
 
-class XForwardedForRule(val settings: Settings, resolver: HostnameResolver) extends BaseHostsRule(resolver) {
+class XForwardedForRule(val settings: Settings, resolver: HostnameResolver)
+    extends BaseHostsRule(settings.allowedAddresses, resolver) {
 
   override val name: Rule.Name = XForwardedForRule.Name.name
 
   override def regularCheck[B <: BlockContext: BlockContextUpdater](blockContext: B): Task[Decision[B]] = {
     blockContext.requestContext.xForwardedForHeaderValue match {
       case Some(xForwardedForAddress) =>
-        checkAllowedAddresses(blockContext)(
-          allowedAddresses = settings.allowedAddresses,
-          addressToCheck = xForwardedForAddress
-        ).map(condition => Decision.permit(`with` = blockContext)(when = condition))
+        checkAllowedAddresses(blockContext)(addressToCheck = xForwardedForAddress)
+          .map(condition => Decision.permit(`with` = blockContext)(when = condition))
       case None =>
         Task.now(Decision.Denied(Cause.NotAuthorized))
     }
@@ -17,28 +17,62 @@
 package tech.beshu.ror.accesscontrol.blocks.rules.tranport
 
 import cats.Show
-import cats.data.{NonEmptyList, NonEmptySet, OptionT}
+import cats.data.{NonEmptyList, NonEmptySet}
 import com.comcast.ip4s.Host
 import com.comcast.ip4s.Host.*
 import monix.eval.Task
 import tech.beshu.ror.accesscontrol.blocks.BlockContext
 import tech.beshu.ror.accesscontrol.blocks.rules.Rule.RegularRule
 import tech.beshu.ror.accesscontrol.blocks.variables.runtime.RuntimeMultiResolvableVariable
+import tech.beshu.ror.accesscontrol.blocks.variables.runtime.RuntimeMultiResolvableVariable.AlreadyResolved
 import tech.beshu.ror.accesscontrol.domain.Address.{Ip, Name}
 import tech.beshu.ror.accesscontrol.domain.{Address, RequestId}
+import tech.beshu.ror.accesscontrol.matchers.CidrIndex
 import tech.beshu.ror.implicits.*
 import tech.beshu.ror.utils.RequestIdAwareLogging
 import tech.beshu.ror.utils.TaskOps.*
 
 import scala.util.Success
 
-private[rules] abstract class BaseHostsRule(resolver: HostnameResolver) extends RegularRule with RequestIdAwareLogging {
+private[rules] abstract class BaseHostsRule(
+    allowedAddresses: NonEmptySet[RuntimeMultiResolvableVariable[Address]],
+    resolver: HostnameResolver
+) extends RegularRule
+    with RequestIdAwareLogging {
 
-  protected def checkAllowedAddresses(
-      blockContext: BlockContext
-  )(allowedAddresses: NonEmptySet[RuntimeMultiResolvableVariable[Address]], addressToCheck: Address): Task[Boolean] = {
+  // the IPs and CIDRs known at the rule creation are compiled once, the hostnames and the runtime variables have to be
+  // resolved for each request
+  private val (staticallyAllowedIps, remainingAllowedAddresses) = {
+    val variables = allowedAddresses.toSortedSet.toList
+    val alreadyResolved = variables.collect { case AlreadyResolved(addresses) => addresses.toList }.flatten
+    val allowedIps = alreadyResolved.collect { case ip: Ip => ip }
+    val allowedNames = alreadyResolved.collect { case name: Name => name: Address }
+    val notResolved = variables.filter {
+      case AlreadyResolved(_) => false
+      case _                  => true
+    }
+    (CidrIndex.from(allowedIps), NonEmptyList.fromList(allowedNames).map(AlreadyResolved(_)).toList ++ notResolved)
+  }
+
+  protected def checkAllowedAddresses(blockContext: BlockContext)(addressToCheck: Address): Task[Boolean] = {
     implicit val requestId: RequestId = blockContext.requestContext.id.toRequestId
-    allowedAddresses
+    resolveToIps(addressToCheck).flatMap {
+      case Some(addressIps) if addressIps.exists(staticallyAllowedIps.contains) =>
+        logger.debug(s"address IPs [${addressToCheck.show}] resolved to [${addressIps.show}] are statically allowed")
+        Task.now(true)
+      case Some(addressIps) =>
+        checkRemainingAllowedAddresses(blockContext)(addressToCheck, addressIps)
+      case None =>
+        Task.now(false)
+    }
+  }
+
+  private def checkRemainingAllowedAddresses(
+      blockContext: BlockContext
+  )(address: Address, addressIps: NonEmptyList[Ip])(
+      implicit requestId: RequestId
+  ): Task[Boolean] = {
+    remainingAllowedAddresses
       .foldLeft(Task.now(false)) { case (result, host) =>
         result
           .flatMap {
@@ -48,31 +82,26 @@ private[rules] abstract class BaseHostsRule(resolver: HostnameResolver) extends
               host
                 .resolve(blockContext)
                 .toOption
-                .existsM(addresses => addresses.existsM(ipMatchesAddress(_, addressToCheck)))
+                .existsM(addresses => addresses.existsM(ipsMatchAllowedHost(_, address, addressIps)))
           }
       }
   }
 
-  private def ipMatchesAddress(allowedHost: Address, address: Address)(
+  private def ipsMatchAllowedHost(allowedHost: Address, address: Address, addressIps: NonEmptyList[Ip])(
       implicit requestId: RequestId
   ) = {
-    val parallelyResolved = Task.parMap2(resolveToIps(allowedHost), resolveToIps(address))(ParallellyResolvedIps.apply)
-    val result = for {
-      allowedHostIps <- OptionT(parallelyResolved.map(_.allowedHost))
-      addressIps <- OptionT(parallelyResolved.map(_.address))
-      isMatching = addressIps.exists(ip => allowedHostIps.exists(_.contains(ip)))
-      _ = logger.debug(
-        s"address IPs [${address.show}] resolved to [${addressIps.show}], allowed addresses [${allowedHost.show}] resolved to [${allowedHostIps.show}], isMatching=${isMatching.show}"
-      )
-    } yield isMatching
-    result.value.map(_.getOrElse(false))
+    resolveToIps(allowedHost).map {
+      case Some(allowedHostIps) =>
+        val isMatching = addressIps.exists(ip => allowedHostIps.exists(_.contains(ip)))
+        logger.debug(
+          s"address IPs [${address.show}] resolved to [${addressIps.show}], allowed addresses [${allowedHost.show}] resolved to [${allowedHostIps.show}], isMatching=${isMatching.show}"
+        )
+        isMatching
+      case None =>
+        false
+    }
   }
 
-  private sealed case class ParallellyResolvedIps(
-      allowedHost: Option[NonEmptyList[Ip]],
-      address: Option[NonEmptyList[Ip]]
-  )
-
   private def resolveToIps(address: Address)(
       implicit requestId: RequestId
   ) =
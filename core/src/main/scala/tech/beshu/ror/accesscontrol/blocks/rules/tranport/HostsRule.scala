@@ -27,7 +27,8 @@ import tech.beshu.ror.accesscontrol.blocks.variables.runtime.RuntimeMultiResolva
 import tech.beshu.ror.accesscontrol.blocks.{BlockContext, BlockContextUpdater, Decision}
 import tech.beshu.ror.accesscontrol.domain.Address
 
-class HostsRule(val settings: Settings, resolver: HostnameResolver) extends BaseHostsRule(resolver) {
+class HostsRule(val settings: Settings, resolver: HostnameResolver)
+    extends BaseHostsRule(settings.allowedHosts, resolver) {
 
   override val name: Rule.Name = HostsRule.Name.name
 
@@ -35,10 +36,7 @@ class HostsRule(val settings: Settings, resolver: HostnameResolver) extends Base
     val requestContext = blockContext.requestContext
     requestContext.xForwardedForHeaderValue match {
       case Some(xForwardedHeaderValue) if settings.acceptXForwardedForHeader =>
-        checkAllowedAddresses(blockContext)(
-          allowedAddresses = settings.allowedHosts,
-          addressToCheck = xForwardedHeaderValue
-        ).flatMap {
+        checkAllowedAddresses(blockContext)(addressToCheck = xForwardedHeaderValue).flatMap {
           case true =>
             Task.now(Decision.Permitted(blockContext))
           case false =>
@@ -53,10 +51,8 @@ class HostsRule(val settings: Settings, resolver: HostnameResolver) extends Base
     implicit val blockContextImpl: B = blockContext
     blockContext.requestContext.restRequest.remoteAddress match {
       case Some(remoteAddress) =>
-        checkAllowedAddresses(blockContext)(
-          allowedAddresses = settings.allowedHosts,
-          addressToCheck = remoteAddress
-        ).map(condition => Decision.permit(`with` = blockContext)(when = condition))
+        checkAllowedAddresses(blockContext)(addressToCheck = remoteAddress)
+          .map(condition => Decision.permit(`with` = blockContext)(when = condition))
       case None =>
         logger.warn(s"Remote address is unavailable!")
         Task.now(Denied(Cause.NotAuthorized))
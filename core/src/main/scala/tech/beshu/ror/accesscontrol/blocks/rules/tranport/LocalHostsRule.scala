@@ -25,15 +25,14 @@ import tech.beshu.ror.accesscontrol.blocks.variables.runtime.RuntimeMultiResolva
 import tech.beshu.ror.accesscontrol.blocks.{BlockContext, BlockContextUpdater, Decision}
 import tech.beshu.ror.accesscontrol.domain.Address
 
-class LocalHostsRule(val settings: Settings, resolver: HostnameResolver) extends BaseHostsRule(resolver) {
+class LocalHostsRule(val settings: Settings, resolver: HostnameResolver)
+    extends BaseHostsRule(settings.allowedAddresses, resolver) {
 
   override val name: Rule.Name = LocalHostsRule.Name.name
 
   override def regularCheck[B <: BlockContext: BlockContextUpdater](blockContext: B): Task[Decision[B]] = {
-    checkAllowedAddresses(blockContext)(
-      allowedAddresses = settings.allowedAddresses,
-      addressToCheck = blockContext.requestContext.restRequest.localAddress
-    ).map(condition => Decision.permit(`with` = blockContext)(when = condition))
+    checkAllowedAddresses(blockContext)(addressToCheck = blockContext.requestContext.restRequest.localAddress)
+      .map(condition => Decision.permit(`with` = blockContext)(when = condition))
   }
 
 }
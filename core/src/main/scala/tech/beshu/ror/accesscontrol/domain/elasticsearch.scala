@@ -31,10 +31,15 @@ import tech.beshu.ror.accesscontrol.matchers.PatternsMatcher.Matchable
 import tech.beshu.ror.syntax.*
 import tech.beshu.ror.utils.uniquelist.UniqueNonEmptyList
 
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicReferenceArray
 import scala.util.Random
 
 sealed trait Action {
   def value: String
+
+  // resolved once per action instance (e.g. once per request), so the following lookups of its decisions are cheap
+  private[ror] lazy val internedId: Int = Action.Registry.lookupOrIntern(this)
 }
 
 object Action {
@@ -157,11 +162,65 @@ object Action {
 
   implicit val eqAction: Eq[Action] = Eq.fromUniversalEquals
   implicit val matchableAction: Matchable[Action] = Matchable.matchable(_.value)
+
+  /**
+   * The actions seen by the node, interned with dense ids. The ES actions namespace is finite, so the decisions about
+   * an action can be computed once and kept in bitsets indexed by its id (see
+   * [[tech.beshu.ror.accesscontrol.matchers.ActionsMatcher]]). When the capacity is exhausted, the new actions are not
+   * interned anymore (and their id is `notInterned`). The node-wide registry is the `Registry` object; a separate one
+   * can be created e.g. in tests.
+   */
+  private[ror] class Registry(val capacity: Int) {
+
+    private val ids = new ConcurrentHashMap[String, Integer]()
+    private val actionsById = new AtomicReferenceArray[Action](capacity)
+    @volatile private var internedCount = 0
+
+    def idOf(action: Action): Int = lookupOrIntern(action)
+
+    def internedActions: Iterator[(Int, Action)] =
+      Iterator.range(0, internedCount).map(id => id -> actionsById.get(id))
+
+    private[domain] final def lookupOrIntern(action: Action): Int = {
+      Option(ids.get(action.value)) match {
+        case Some(id) => id.intValue()
+        case None     => intern(action)
+      }
+    }
+
+    private def intern(action: Action): Int = synchronized {
+      Option(ids.get(action.value)) match {
+        case Some(id)                          => id.intValue()
+        case None if internedCount >= capacity => Registry.notInterned
+        case None                              =>
+          val id = internedCount
+          actionsById.set(id, action)
+          ids.put(action.value, id)
+          internedCount = id + 1
+          id
+      }
+    }
+  }
+
+  private[ror] object Registry extends Registry(capacity = 4096) {
+
+    val notInterned: Int = -1
+
+    // the id of an action in the node-wide registry is resolved once per action instance
+    override def idOf(action: Action): Int = action.internedId
+  }
 }
 
 final case class DocumentId(value: String) extends AnyVal
 
-final case class DocumentWithIndex(index: ClusterIndexName, documentId: DocumentId)
+// the sequence number and the primary term of the document's version, which was read (e.g. returned by GET)
+final case class DocumentVersion(seqNo: Long, primaryTerm: Long)
+
+final case class DocumentWithIndex(
+    index: ClusterIndexName,
+    documentId: DocumentId,
+    version: Option[DocumentVersion] = None
+)
 
 sealed trait RepositoryName
 
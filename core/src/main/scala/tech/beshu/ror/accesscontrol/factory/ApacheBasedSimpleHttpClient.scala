@@ -19,7 +19,7 @@ package tech.beshu.ror.accesscontrol.factory
 import cats.effect.{Async, ContextShift}
 import cats.implicits.{catsSyntaxApplicativeError, toFunctorOps}
 import org.apache.hc.client5.http.async.methods.{SimpleHttpRequest, SimpleHttpResponse}
-import org.apache.hc.client5.http.config.{ConnectionConfig, RequestConfig}
+import org.apache.hc.client5.http.config.{ConnectionConfig, RequestConfig, TlsConfig}
 import org.apache.hc.client5.http.impl.async.{CloseableHttpAsyncClient, HttpAsyncClients}
 import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder
 import org.apache.hc.client5.http.ssl.{
@@ -29,6 +29,7 @@ import org.apache.hc.client5.http.ssl.{
   TrustAllStrategy
 }
 import org.apache.hc.core5.concurrent.FutureCallback
+import org.apache.hc.core5.http2.HttpVersionPolicy
 import org.apache.hc.core5.reactor.IOReactorConfig
 import org.apache.hc.core5.ssl.SSLContextBuilder
 import org.apache.hc.core5.util.{TimeValue, Timeout}
@@ -115,9 +116,16 @@ private class ApacheBasedSimpleHttpClientCreator[F[_]: Async: ContextShift]
           .setValidateAfterInactivity(TimeValue.ofSeconds(2))
           .build()
 
+      // HTTP/2 (negotiated with ALPN, so TLS endpoints only) multiplexes the concurrent requests over one connection
+      val tlsConfig = TlsConfig
+        .custom()
+        .setVersionPolicy(HttpVersionPolicy.NEGOTIATE)
+        .build()
+
       val connManagerBuilder = PoolingAsyncClientConnectionManagerBuilder
         .create()
         .setDefaultConnectionConfig(connectionConfig)
+        .setDefaultTlsConfig(tlsConfig)
         .setMaxConnTotal(config.connectionPoolSize.value)
         .setMaxConnPerRoute(config.connectionPoolSize.value)
 
@@ -139,9 +147,9 @@ private class ApacheBasedSimpleHttpClientCreator[F[_]: Async: ContextShift]
 
       val requestConfig = RequestConfig
         .custom()
-        .setConnectionRequestTimeout(
-          Timeout.ONE_MILLISECOND
-        ) // fail fast when pool is exhausted (1ms, because 0ms means infinite wait)
+        // fail fast when pool is exhausted (1ms, because 0ms means infinite wait) - the requests waiting for a free
+        // connection are queued before they get here (see BoundedSimpleHttpClient)
+        .setConnectionRequestTimeout(Timeout.ONE_MILLISECOND)
         .setResponseTimeout(Timeout.ofMilliseconds(config.requestTimeout.value.toMillis))
         .build()
 
@@ -70,7 +70,8 @@ trait CoreFactory {
       rorSettingsIndex: RorSettingsIndex,
       httpClientFactory: HttpClientsFactory,
       ldapConnectionPoolProvider: UnboundidLdapConnectionPoolProvider,
-      mocksProvider: MocksProvider
+      mocksProvider: MocksProvider,
+      reusableDefinitions: ReusableDefinitions[?] = ReusableDefinitions.none
   ): Task[Either[NonEmptyList[CoreCreationError], Core]]
 
 }
@@ -85,7 +86,8 @@ class RawRorSettingsBasedCoreFactory(esEnv: EsEnv)(
       rorSettingsIndex: RorSettingsIndex,
       httpClientFactory: HttpClientsFactory,
       ldapConnectionPoolProvider: UnboundidLdapConnectionPoolProvider,
-      mocksProvider: MocksProvider
+      mocksProvider: MocksProvider,
+      reusableDefinitions: ReusableDefinitions[?]
   ): Task[Either[NonEmptyList[CoreCreationError], Core]] = {
     rorSettings.settingsJson \\ Attributes.rorSectionName match {
       case Nil =>
@@ -95,6 +97,7 @@ class RawRorSettingsBasedCoreFactory(esEnv: EsEnv)(
           httpClientFactory,
           ldapConnectionPoolProvider,
           mocksProvider,
+          reusableDefinitions,
         )
       case rorSection :: Nil =>
         createCoreFromRorSection(
@@ -103,6 +106,7 @@ class RawRorSettingsBasedCoreFactory(esEnv: EsEnv)(
           httpClientFactory,
           ldapConnectionPoolProvider,
           mocksProvider,
+          reusableDefinitions,
         )
       case _ => Task.now(Left(NonEmptyList.one(GeneralReadonlyrestSettingsError(Message(s"Malformed settings")))))
     }
@@ -113,7 +117,8 @@ class RawRorSettingsBasedCoreFactory(esEnv: EsEnv)(
       rorSettingsIndex: RorSettingsIndex,
       httpClientFactory: HttpClientsFactory,
       ldapConnectionPoolProvider: UnboundidLdapConnectionPoolProvider,
-      mocksProvider: MocksProvider
+      mocksProvider: MocksProvider,
+      reusableDefinitions: ReusableDefinitions[?]
   ) = {
     val resolver = new JsonStaticVariablesResolver(
       systemContext.envVarsProvider,
@@ -121,7 +126,14 @@ class RawRorSettingsBasedCoreFactory(esEnv: EsEnv)(
     )
     resolver.resolve(rorSection) match {
       case Right(resolvedRorSection) =>
-        createFrom(resolvedRorSection, rorSettingsIndex, httpClientFactory, ldapConnectionPoolProvider, mocksProvider)
+        createFrom(
+          resolvedRorSection,
+          rorSettingsIndex,
+          httpClientFactory,
+          ldapConnectionPoolProvider,
+          mocksProvider,
+          reusableDefinitions
+        )
           .map {
             case Right(settings) =>
               Right(settings)
@@ -142,7 +154,8 @@ class RawRorSettingsBasedCoreFactory(esEnv: EsEnv)(
       settingsIndex: RorSettingsIndex,
       httpClientFactory: HttpClientsFactory,
       ldapConnectionPoolProvider: UnboundidLdapConnectionPoolProvider,
-      mocksProvider: MocksProvider
+      mocksProvider: MocksProvider,
+      reusableDefinitions: ReusableDefinitions[?]
   ) = {
     val decoder = for {
       enabled <- AsyncDecoderCreator.from(coreEnabilityDecoder)
@@ -160,7 +173,13 @@ class RawRorSettingsBasedCoreFactory(esEnv: EsEnv)(
         } else {
           for {
             globalSettings <- AsyncDecoderCreator.from(GlobalStaticSettingsDecoder.instance(settingsIndex))
-            core <- coreDecoder(httpClientFactory, ldapConnectionPoolProvider, globalSettings, mocksProvider)
+            core <- coreDecoder(
+              httpClientFactory,
+              ldapConnectionPoolProvider,
+              globalSettings,
+              mocksProvider,
+              reusableDefinitions
+            )
           } yield core
         }
     } yield core
@@ -181,6 +200,7 @@ class RawRorSettingsBasedCoreFactory(esEnv: EsEnv)(
   private def rulesNelDecoder(
       definitions: DefinitionsPack,
       globalSettings: GlobalSettings,
+      ruleCaches: RuleCaches,
       mocksProvider: MocksProvider,
       esEnv: EsEnv
   ): Decoder[NonEmptyList[RuleDefinition[Rule]]] = Decoder.instance { c =>
@@ -192,7 +212,14 @@ class RawRorSettingsBasedCoreFactory(esEnv: EsEnv)(
       .foldLeft(init) { case (collectedRuleResults, currentRuleName) =>
         for {
           last <- collectedRuleResults
-          current <- decodeRuleInCursorContext(currentRuleName, definitions, globalSettings, mocksProvider, esEnv).map {
+          current <- decodeRuleInCursorContext(
+            currentRuleName,
+            definitions,
+            globalSettings,
+            ruleCaches,
+            mocksProvider,
+            esEnv
+          ).map {
             case RuleDecodingResult.Result(value) => Validated.Valid(value.map(_ :: Nil))
             case RuleDecodingResult.UnknownRule   => Validated.Invalid(currentRuleName :: Nil)
             case RuleDecodingResult.Skipped       => Validated.Valid(Right(List.empty))
@@ -221,6 +248,7 @@ class RawRorSettingsBasedCoreFactory(esEnv: EsEnv)(
       name: String,
       definitions: DefinitionsPack,
       globalSettings: GlobalSettings,
+      ruleCaches: RuleCaches,
       mocksProvider: MocksProvider,
       esEnv: EsEnv
   ): State[ACursor, RuleDecodingResult] = {
@@ -228,7 +256,7 @@ class RawRorSettingsBasedCoreFactory(esEnv: EsEnv)(
       if (!cursor.keys.toList.flatten.contains(name)) {
         (cursor, RuleDecodingResult.Skipped)
       } else {
-        ruleDecoderBy(Rule.Name(name), definitions, globalSettings, mocksProvider, esEnv) match {
+        ruleDecoderBy(Rule.Name(name), definitions, globalSettings, ruleCaches, mocksProvider, esEnv) match {
           case Some(decoder) =>
             decoder.tryDecode(cursor) match {
               case Right(RuleDecoder.Result(rule, unconsumedCursor)) =>
@@ -246,6 +274,7 @@ class RawRorSettingsBasedCoreFactory(esEnv: EsEnv)(
   private def blockDecoder(
       definitions: DefinitionsPack,
       globalSettings: GlobalSettings,
+      ruleCaches: RuleCaches,
       mocksProvider: MocksProvider,
       esEnv: EsEnv
   )(
@@ -265,7 +294,7 @@ class RawRorSettingsBasedCoreFactory(esEnv: EsEnv)(
           legacyVerbosityAudit <- c.as[Option[Block.Audit]](legacyVerbosityAuditDecoder)
           auditFromConfig <- c.downField(Attributes.Block.audit).as[Option[Block.Audit]]
           audit <- resolveBlockAudit(auditFromConfig, legacyVerbosityAudit)
-          rules <- rulesNelDecoder(definitions, globalSettings, mocksProvider, esEnv).toSyncDecoder.decoder
+          rules <- rulesNelDecoder(definitions, globalSettings, ruleCaches, mocksProvider, esEnv).toSyncDecoder.decoder
             .tryDecode(
               c.withFocus(
                 _.mapObject(
@@ -379,7 +408,7 @@ class RawRorSettingsBasedCoreFactory(esEnv: EsEnv)(
       Task.now {
         val configuredSinkNames: scala.collection.Set[SinkName] = auditingConfig.outputsConfig match {
           case Some(AuditOutputsConfig.WithOutputs(sinks)) =>
-            sinks.toList.collect { case AuditSink.Enabled(name, _) => name }.toSet
+            sinks.toList.collect { case AuditSink.Enabled(name, _, _) => name }.toSet
           case _ => scala.collection.Set.empty
         }
         val globalSinkNames: scala.collection.Set[SinkName] =
@@ -473,9 +502,12 @@ class RawRorSettingsBasedCoreFactory(esEnv: EsEnv)(
       httpClientFactory: HttpClientsFactory,
       ldapConnectionPoolProvider: UnboundidLdapConnectionPoolProvider,
       globalSettings: GlobalSettings,
-      mocksProvider: MocksProvider
+      mocksProvider: MocksProvider,
+      reusableDefinitions: ReusableDefinitions[?]
   ): AsyncDecoder[Core] = {
     AsyncDecoderCreator.instance[Core] { c =>
+      // created once per settings, so they are shared by all rules of the ACL and forgotten on the engine reload
+      val ruleCaches = RuleCaches.create(globalSettings)
       val decoder = for {
         obfuscatedHeaders <- AsyncDecoderCreator.from(obfuscatedHeadersAsyncDecoder)
         loggingContext = LoggingContext(obfuscatedHeaders)
@@ -492,23 +524,35 @@ class RawRorSettingsBasedCoreFactory(esEnv: EsEnv)(
         auditingConfig <- AsyncDecoderCreator.from(AuditingSettingsDecoder.instance(esEnv))
         authProxies <- AsyncDecoderCreator.from(ProxyAuthDefinitionsDecoder.instance)
         authenticationServices <- AsyncDecoderCreator.from(
-          ExternalAuthenticationServicesDecoder.instance(httpClientFactory)
+          ExternalAuthenticationServicesDecoder.instance(httpClientFactory, reusableDefinitions)
         )
         externalGroupsProviderServices <- AsyncDecoderCreator.from(
-          ExternalGroupsProviderServicesDecoder.instance(httpClientFactory)
+          ExternalGroupsProviderServicesDecoder.instance(httpClientFactory, reusableDefinitions)
+        )
+        // JWT and ROR KBN definitions use variables, so they can be reused only when the aliases didn't change too
+        variableTransformationAliasesSettings = VariableTransformationAliasesDefinitionsDecoder.settingsFrom(c)
+        jwtDefs <- AsyncDecoderCreator.from(
+          JwtDefinitionsDecoder.instance(
+            httpClientFactory,
+            variableCreator,
+            reusableDefinitions,
+            variableTransformationAliasesSettings
+          )
         )
-        jwtDefs <- AsyncDecoderCreator.from(JwtDefinitionsDecoder.instance(httpClientFactory, variableCreator))
-        ldapServices <- LdapServicesDecoder.ldapServicesDefinitionsDecoder(
+        ldapServices <- LdapServicesDecoder.ldapServicesDefinitionsDecoder(reusableDefinitions)(
           using ldapConnectionPoolProvider,
           systemContext.clock
         )
-        rorKbnDefs <- AsyncDecoderCreator.from(RorKbnDefinitionsDecoder.instance(variableCreator))
+        rorKbnDefs <- AsyncDecoderCreator.from(
+          RorKbnDefinitionsDecoder.instance(variableCreator, reusableDefinitions, variableTransformationAliasesSettings)
+        )
         impersonationDefinitionsDecoderCreator = new ImpersonationDefinitionsDecoderCreator(
           globalSettings,
           authenticationServices,
           authProxies,
           ldapServices,
           mocksProvider,
+          ruleCaches,
           esEnv
         )
         impersonationDefs <- AsyncDecoderCreator.from(impersonationDefinitionsDecoderCreator.create)
@@ -523,6 +567,7 @@ class RawRorSettingsBasedCoreFactory(esEnv: EsEnv)(
             Some(impersonationDefs),
             mocksProvider,
             globalSettings,
+            ruleCaches,
             esEnv
           )
         )
@@ -542,6 +587,7 @@ class RawRorSettingsBasedCoreFactory(esEnv: EsEnv)(
                 variableTransformationAliases = dynamicVariableTransformationAliases,
               ),
               globalSettings,
+              ruleCaches,
               mocksProvider,
               esEnv
             )
@@ -568,6 +614,8 @@ class RawRorSettingsBasedCoreFactory(esEnv: EsEnv)(
         }
 
         val localUsers: LocalUsers = blocksNel.map(_.localUsers).toList.combineAll
+        // it's created once per settings, so the shared decisions are forgotten on the engine reload
+        val decisionsCache = DecisionsCache.create(globalSettings.decisionsCacheSettings, c.value)
 
         val rorDependencies = RorDependencies(
           services = RorDependencies.Services(
@@ -578,6 +626,8 @@ class RawRorSettingsBasedCoreFactory(esEnv: EsEnv)(
           localUsers = localUsers,
           impersonationWarningsReader =
             new ImpersonationWarningsCombinedReader(blocksNel.map(_.impersonationWarnings).toList: _*),
+          verifiedCredentialsCache = ruleCaches.verifiedCredentialsCache,
+          decisionsCache = decisionsCache
         )
         import systemContext.scheduler
         val accessControl = new EnabledAccessControlList(
@@ -585,7 +635,8 @@ class RawRorSettingsBasedCoreFactory(esEnv: EsEnv)(
           new AccessControlListStaticContext(
             blocks,
             globalSettings,
-            obfuscatedHeaders
+            obfuscatedHeaders,
+            decisionsCache
           )
         ): AccessControlList
         Core(accessControl, rorDependencies, auditingConfig)
@@ -16,6 +16,11 @@
  */
 package tech.beshu.ror.accesscontrol.factory
 
+import eu.timepit.refined.api.Refined
+import eu.timepit.refined.numeric.Positive
+import tech.beshu.ror.accesscontrol.DecisionsCache
+import tech.beshu.ror.accesscontrol.blocks.rules.auth.VerifiedCredentialsCache
+import tech.beshu.ror.accesscontrol.blocks.rules.elasticsearch.indices.clusterindices.RemoteIndicesCache
 import tech.beshu.ror.accesscontrol.domain.{CaseSensitivity, RorSettingsIndex}
 
 final case class GlobalSettings(
@@ -24,7 +29,13 @@ final case class GlobalSettings(
     flsEngine: GlobalSettings.FlsEngine,
     settingsIndex: RorSettingsIndex,
     userIdCaseSensitivity: CaseSensitivity,
-    usersDefinitionDuplicateUsernamesValidationEnabled: Boolean
+    usersDefinitionDuplicateUsernamesValidationEnabled: Boolean,
+    verifiedCredentialsCacheSettings: Option[VerifiedCredentialsCache.Settings] = None,
+    remoteIndicesCacheSettings: Option[RemoteIndicesCache.Settings] = None,
+    // how many of the next blocks calling LDAP or external services are evaluated in parallel with the current one
+    // (a block is speculated only when it sends the credentials to no other service than the current block does)
+    speculativeBlocksEvaluationDepth: Option[Int Refined Positive] = None,
+    decisionsCacheSettings: Option[DecisionsCache.Settings] = None
 )
 
 object GlobalSettings {
@@ -19,15 +19,19 @@ package tech.beshu.ror.accesscontrol.factory
 import cats.effect.Async
 import cats.implicits.{catsSyntaxApplicativeError, toFunctorOps}
 import io.lemonlabs.uri.Url
+import monix.catnap.Semaphore
 import monix.eval.Task
 import monix.execution.atomic.AtomicBoolean
 import tech.beshu.ror.accesscontrol.domain.RequestId
 import tech.beshu.ror.accesscontrol.factory.HttpClientsFactory.HttpClient
 import tech.beshu.ror.accesscontrol.factory.SimpleHttpClient.Config
+import tech.beshu.ror.accesscontrol.metrics.AclMetrics
+import tech.beshu.ror.accesscontrol.metrics.AclMetrics.ExternalCall
 import tech.beshu.ror.implicits.*
+import tech.beshu.ror.utils.RefinedUtils.PositiveFiniteDuration
 import tech.beshu.ror.utils.RequestIdAwareLogging
 
-import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.{ConcurrentHashMap, CopyOnWriteArrayList}
 import scala.jdk.CollectionConverters.IteratorHasAsScala
 import scala.language.postfixOps
 
@@ -45,6 +49,9 @@ object HttpClientsFactory {
     final case class Request(method: Method, url: Url, headers: Map[String, String])
 
     final case class Response(status: Int, body: String)
+
+    final class TooManyConcurrentRequestsException(endpoint: String, maxWait: PositiveFiniteDuration)
+        extends Exception(s"No free HTTP connection to $endpoint within ${maxWait.value.toMillis} ms")
   }
 
   def default() = new HttpClientsFactory(new ApacheBasedSimpleHttpClientCreator[Task])
@@ -61,7 +68,11 @@ class HttpClientsFactory(httpClientCreator: SimpleHttpClientCreator[Task, HttpCl
     if (isWorking.get()) {
       val client = httpClientCreator.create(config)
       existingClients.add(client)
-      new LoggingSimpleHttpClient[Task](client)
+      new LoggingSimpleHttpClient[Task](
+        new CoalescingSimpleHttpClient(
+          new BoundedSimpleHttpClient(client, config.connectionPoolSize.value, config.requestTimeout)
+        )
+      )
     } else {
       throw new IllegalStateException("Cannot create http client - factory was closed")
     }
@@ -105,3 +116,60 @@ private class LoggingSimpleHttpClient[F[_]: Async](delegate: SimpleHttpClient[F]
 
   override def close(): F[Unit] = delegate.close()
 }
+
+/**
+ * Identical requests sent concurrently (e.g. by a login storm of a user with a cold cache) are sent once - the later
+ * ones share the response of the one in flight.
+ */
+private[ror] class CoalescingSimpleHttpClient(delegate: SimpleHttpClient[Task]) extends SimpleHttpClient[Task] {
+
+  private val inFlight = new ConcurrentHashMap[HttpClient.Request, Task[HttpClient.Response]]()
+
+  override def send(request: HttpClient.Request)(
+      implicit requestId: RequestId
+  ): Task[HttpClient.Response] = Task.defer {
+    lazy val call: Task[HttpClient.Response] =
+      delegate
+        .send(request)
+        .guarantee(Task.delay(inFlight.remove(request, call)).void)
+        .uncancelable
+        .memoize
+    Option(inFlight.putIfAbsent(request, call)).getOrElse(call)
+  }
+
+  override def close(): Task[Unit] = delegate.close()
+}
+
+/**
+ * At most `maxConcurrentRequests` requests (the size of the connection pool) are sent at once. The others wait for
+ * their turn (at most `maxWait`), instead of failing on the exhausted pool or opening new connections. The waiting
+ * times are recorded in [[AclMetrics]] per endpoint.
+ */
+private[ror] class BoundedSimpleHttpClient(
+    delegate: SimpleHttpClient[Task],
+    maxConcurrentRequests: Int,
+    maxWait: PositiveFiniteDuration
+) extends SimpleHttpClient[Task] {
+
+  private val permits = Semaphore.unsafe[Task](maxConcurrentRequests.toLong)
+
+  override def send(request: HttpClient.Request)(
+      implicit requestId: RequestId
+  ): Task[HttpClient.Response] = Task.defer {
+    val endpoint = endpointOf(request.url)
+    val queuedAt = System.nanoTime()
+    val acquire = permits.acquire
+      .timeoutTo(maxWait.value, Task.raiseError(new HttpClient.TooManyConcurrentRequestsException(endpoint, maxWait)))
+      .guarantee(Task.delay {
+        AclMetrics.externalCall(ExternalCall.httpQueueTime, endpoint).record(System.nanoTime() - queuedAt)
+      })
+    acquire.bracket(_ => delegate.send(request))(_ => permits.release)
+  }
+
+  override def close(): Task[Unit] = delegate.close()
+
+  private def endpointOf(url: Url) = {
+    val host = url.hostOption.map(_.value).getOrElse("unknown")
+    url.port.fold(host)(port => s"$host:$port")
+  }
+}
@@ -16,9 +16,11 @@
  */
 package tech.beshu.ror.accesscontrol.factory
 
+import tech.beshu.ror.accesscontrol.DecisionsCache
 import tech.beshu.ror.accesscontrol.blocks.ImpersonationWarning
 import tech.beshu.ror.accesscontrol.blocks.definitions.ldap.LdapService
 import tech.beshu.ror.accesscontrol.blocks.definitions.{ExternalAuthenticationService, ExternalGroupsProviderService}
+import tech.beshu.ror.accesscontrol.blocks.rules.auth.VerifiedCredentialsCache
 import tech.beshu.ror.accesscontrol.domain.{LocalUsers, RequestId}
 import tech.beshu.ror.accesscontrol.factory.RorDependencies.ImpersonationWarningsReader
 
@@ -27,12 +29,20 @@ import scala.annotation.unused
 final case class RorDependencies(
     services: RorDependencies.Services,
     localUsers: LocalUsers,
-    impersonationWarningsReader: ImpersonationWarningsReader
+    impersonationWarningsReader: ImpersonationWarningsReader,
+    verifiedCredentialsCache: VerifiedCredentialsCache,
+    decisionsCache: DecisionsCache
 )
 
 object RorDependencies {
   def noOp: RorDependencies =
-    RorDependencies(RorDependencies.Services.empty, LocalUsers.NotAvailable, NoOpImpersonationWarningsReader)
+    RorDependencies(
+      RorDependencies.Services.empty,
+      LocalUsers.NotAvailable,
+      NoOpImpersonationWarningsReader,
+      VerifiedCredentialsCache.Disabled,
+      DecisionsCache.Disabled
+    )
 
   final case class Services(
       authenticationServices: Seq[ExternalAuthenticationService#Id],
@@ -0,0 +1,40 @@
+/*
+ *    This file is part of ReadonlyREST.
+ *
+ *    ReadonlyREST is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    ReadonlyREST is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with ReadonlyREST.  If not, see http://www.gnu.org/licenses/
+ */
+package tech.beshu.ror.accesscontrol.factory
+
+import tech.beshu.ror.accesscontrol.blocks.rules.auth.VerifiedCredentialsCache
+import tech.beshu.ror.accesscontrol.blocks.rules.elasticsearch.indices.clusterindices.RemoteIndicesCache
+
+/**
+ * The runtime caches shared by the rules of the ACL (and of the users and impersonation definitions). They are created
+ * once per settings by the core factory, so they are forgotten on the engine reload.
+ */
+final case class RuleCaches(
+    verifiedCredentialsCache: VerifiedCredentialsCache,
+    remoteIndicesCache: RemoteIndicesCache
+)
+
+object RuleCaches {
+
+  val disabled: RuleCaches = RuleCaches(VerifiedCredentialsCache.Disabled, RemoteIndicesCache.Disabled)
+
+  def create(globalSettings: GlobalSettings): RuleCaches = RuleCaches(
+    verifiedCredentialsCache = VerifiedCredentialsCache.create(globalSettings.verifiedCredentialsCacheSettings),
+    remoteIndicesCache = RemoteIndicesCache.create(globalSettings.remoteIndicesCacheSettings)
+  )
+
+}
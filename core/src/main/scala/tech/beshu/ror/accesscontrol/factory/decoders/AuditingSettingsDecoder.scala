@@ -285,16 +285,50 @@ object AuditingSettingsDecoder extends RequestIdAwareLogging {
           }
           isSinkEnabledOpt <- c.downFieldAs[Option[Boolean]]("enabled")
           sinkNameOpt <- c.downField("name").as[Option[SinkName]]
+          queue <- c.downField("queue").as[Option[AuditSink.Queue]]
         } yield {
           val isSinkEnabled = isSinkEnabledOpt.getOrElse(true)
           lazy val sinkName = sinkNameOpt.getOrElse(SinkName.random())
-          if (isSinkEnabled) AuditSink.Enabled(sinkName, sinkConfig) else AuditSink.Disabled
+          if (isSinkEnabled) AuditSink.Enabled(sinkName, sinkConfig, queue) else AuditSink.Disabled
         }
       }
   }
 
   private given Decoder[SinkName] = Decoder.decodeString.map(SinkName.apply)
 
+  private given Decoder[AuditSink.Queue] = {
+    given Decoder[AuditSink.Queue.OverflowPolicy] =
+      SyncDecoderCreator
+        .from(Decoder.decodeString)
+        .emapE[AuditSink.Queue.OverflowPolicy] {
+          case "block"       => Right(AuditSink.Queue.OverflowPolicy.Block)
+          case "drop_oldest" => Right(AuditSink.Queue.OverflowPolicy.DropOldest)
+          case "drop_newest" => Right(AuditSink.Queue.OverflowPolicy.DropNewest)
+          case other         =>
+            Left(
+              auditSettingsError(
+                s"Unknown audit queue 'overflow_policy': [$other]. Supported ones: block, drop_oldest, drop_newest"
+              )
+            )
+        }
+        .decoder
+    Decoder.instance { c =>
+      for {
+        size <- c.downField("size").as[Int].flatMap { n =>
+          refineV[Positive](n).leftMap(_ =>
+            DecodingFailure(
+              AclCreationErrorCoders.stringify(
+                auditSettingsError(s"Audit queue 'size' must be a positive integer, got: $n")
+              ),
+              Nil
+            )
+          )
+        }
+        overflowPolicy <- c.downField("overflow_policy").as[Option[AuditSink.Queue.OverflowPolicy]]
+      } yield AuditSink.Queue(size, overflowPolicy.getOrElse(AuditSink.Queue.OverflowPolicy.default))
+    }
+  }
+
   private given Decoder[RorAuditDataStream] =
     SyncDecoderCreator
       .from(common.nonEmptyStringDecoder)
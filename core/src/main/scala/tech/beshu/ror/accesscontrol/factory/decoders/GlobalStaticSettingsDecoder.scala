@@ -16,14 +16,21 @@
  */
 package tech.beshu.ror.accesscontrol.factory.decoders
 
+import eu.timepit.refined.api.Refined
+import eu.timepit.refined.numeric.Positive
 import io.circe.Decoder
+import tech.beshu.ror.accesscontrol.DecisionsCache
+import tech.beshu.ror.accesscontrol.blocks.rules.auth.VerifiedCredentialsCache
+import tech.beshu.ror.accesscontrol.blocks.rules.elasticsearch.indices.clusterindices.RemoteIndicesCache
 import tech.beshu.ror.accesscontrol.domain.{CaseSensitivity, RorSettingsIndex}
 import tech.beshu.ror.accesscontrol.factory.GlobalSettings
 import tech.beshu.ror.accesscontrol.factory.GlobalSettings.FlsEngine
 import tech.beshu.ror.accesscontrol.factory.RawRorSettingsBasedCoreFactory.CoreCreationError
 import tech.beshu.ror.accesscontrol.factory.RawRorSettingsBasedCoreFactory.CoreCreationError.Reason.Message
+import tech.beshu.ror.accesscontrol.factory.decoders.common.{positiveFiniteDurationDecoder, positiveIntDecoder}
 import tech.beshu.ror.accesscontrol.utils.CirceOps.*
 import tech.beshu.ror.accesscontrol.utils.CirceOps.DecoderHelpers.optionalDecoder
+import tech.beshu.ror.utils.RefinedUtils.PositiveFiniteDuration
 
 object GlobalStaticSettingsDecoder {
 
@@ -38,16 +45,57 @@ object GlobalStaticSettingsDecoder {
       usersDefinitionDuplicateUsernamesValidationEnabled <- decoderFor[Boolean](
         "users_section_duplicate_usernames_detection"
       )
+      verifiedCredentialsCacheSettings <- decoderFor[VerifiedCredentialsCache.Settings]("auth_key_hashing_cache")
+      remoteIndicesCacheSettings <- decoderFor[RemoteIndicesCache.Settings]("remote_indices_cache")
+      speculativeBlocksEvaluationDepth <- decoderFor[Int Refined Positive]("speculative_blocks_evaluation_depth")
+      decisionsCacheSettings <- decoderFor[DecisionsCache.Settings]("decisions_cache")
     } yield GlobalSettings(
       showBasicAuthPrompt.getOrElse(false),
       forbiddenRequestMessage.getOrElse(GlobalSettings.defaultForbiddenRequestMessage),
       flsEngine.getOrElse(GlobalSettings.FlsEngine.ESWithLucene),
       settingsIndex,
       userIdCaseSensitivity.getOrElse(CaseSensitivity.Enabled),
-      usersDefinitionDuplicateUsernamesValidationEnabled.getOrElse(true)
+      usersDefinitionDuplicateUsernamesValidationEnabled.getOrElse(true),
+      verifiedCredentialsCacheSettings,
+      remoteIndicesCacheSettings,
+      speculativeBlocksEvaluationDepth,
+      decisionsCacheSettings
     )
   }
 
+  private implicit val verifiedCredentialsCacheSettingsDecoder: Decoder[VerifiedCredentialsCache.Settings] =
+    Decoder.instance { c =>
+      for {
+        ttl <- c.downFieldAlternatives("ttl_in_sec", "ttl").as[PositiveFiniteDuration]
+        maxSize <- c.downField("max_size").as[Option[Int Refined Positive]]
+      } yield VerifiedCredentialsCache.Settings(
+        ttl,
+        maxSize.getOrElse(VerifiedCredentialsCache.Settings.defaultMaxSize)
+      )
+    }
+
+  private implicit val decisionsCacheSettingsDecoder: Decoder[DecisionsCache.Settings] =
+    Decoder.instance { c =>
+      for {
+        ttl <- c.downFieldAlternatives("ttl_in_sec", "ttl").as[PositiveFiniteDuration]
+        maxSize <- c.downField("max_size").as[Option[Int Refined Positive]]
+      } yield DecisionsCache.Settings(
+        ttl,
+        maxSize.getOrElse(DecisionsCache.Settings.defaultMaxSize)
+      )
+    }
+
+  private implicit val remoteIndicesCacheSettingsDecoder: Decoder[RemoteIndicesCache.Settings] =
+    Decoder.instance { c =>
+      for {
+        ttl <- c.downFieldAlternatives("ttl_in_sec", "ttl").as[PositiveFiniteDuration]
+        maxStale <- c.downFieldAlternatives("max_stale_in_sec", "max_stale").as[Option[PositiveFiniteDuration]]
+      } yield RemoteIndicesCache.Settings(
+        ttl,
+        maxStale.map(_.value).getOrElse(RemoteIndicesCache.Settings.defaultMaxStale)
+      )
+    }
+
   private implicit val flsEngineDecoder: Decoder[FlsEngine] = {
     Decoder.decodeString.toSyncDecoder
       .emapE[FlsEngine] {
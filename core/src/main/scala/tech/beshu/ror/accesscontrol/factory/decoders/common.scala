@@ -18,7 +18,7 @@ package tech.beshu.ror.accesscontrol.factory.decoders
 
 import com.comcast.ip4s.{IpAddress, Port, SocketAddress}
 import eu.timepit.refined.api.Refined
-import eu.timepit.refined.numeric.Positive
+import eu.timepit.refined.numeric.{NonNegative, Positive}
 import eu.timepit.refined.types.string.NonEmptyString
 import io.circe.Decoder
 import io.lemonlabs.uri.Uri
@@ -255,6 +255,10 @@ object common extends RequestIdAwareLogging {
     positiveDecoder[Int](_.toLong)
   }
 
+  implicit val nonNegativeIntDecoder: Decoder[Int Refined NonNegative] = {
+    nonNegativeDecoder[Int](_.toLong)
+  }
+
   implicit val httpClientConfigDecoder: Decoder[SimpleHttpClient.Config] =
     Decoder.instance { c =>
       for {
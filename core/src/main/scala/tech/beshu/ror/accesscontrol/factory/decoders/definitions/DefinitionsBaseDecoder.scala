@@ -17,6 +17,7 @@
 package tech.beshu.ror.accesscontrol.factory.decoders.definitions
 
 import cats.Applicative
+import io.circe.Json
 import tech.beshu.ror.accesscontrol.factory.RawRorSettingsBasedCoreFactory.CoreCreationError.DefinitionsLevelCreationError
 import tech.beshu.ror.accesscontrol.factory.RawRorSettingsBasedCoreFactory.CoreCreationError.Reason.Message
 import tech.beshu.ror.accesscontrol.factory.decoders.definitions.Definitions.Item
@@ -26,11 +27,41 @@ import tech.beshu.ror.accesscontrol.utils.CirceOps.DecoderHelpers.FieldListResul
 import tech.beshu.ror.implicits.*
 import tech.beshu.ror.utils.ScalaOps.*
 
+import java.nio.file.Path
+import scala.reflect.ClassTag
+
 object DefinitionsBaseDecoder {
 
   def instance[F[_]: Applicative, A <: Item](definitionsSectionName: String)(
       implicit decoder: ADecoder[F, A]
   ): ADecoder[F, Definitions[A]] = {
+    definitionsDecoder(definitionsSectionName, decoder)
+  }
+
+  /**
+   * Definitions, which don't change between settings reloads, are taken over from the previous core - see
+   * [[ReusableDefinitions]]. `dependencies` are the settings (other than the definition itself) the decoded definition
+   * depends on, and `referencedFiles` are the files it depends on.
+   */
+  def reusableInstance[F[_]: Applicative, A <: Item: ClassTag](
+      definitionsSectionName: String,
+      reusableDefinitions: ReusableDefinitions[?],
+      dependencies: Json = Json.Null,
+      referencedFiles: List[Path] = List.empty
+  )(
+      implicit decoder: ADecoder[F, A]
+  ): ADecoder[F, Definitions[A]] = {
+    definitionsDecoder(
+      definitionsSectionName,
+      reusableDefinitions.decoder[F, A](definitionsSectionName, dependencies, referencedFiles)(decoder)
+    )
+  }
+
+  private def definitionsDecoder[F[_]: Applicative, A <: Item](
+      definitionsSectionName: String,
+      itemDecoder: ADecoder[F, A]
+  ): ADecoder[F, Definitions[A]] = {
+    implicit val decoder: ADecoder[F, A] = itemDecoder
     DecoderHelpers
       .decodeFieldList[A, F](definitionsSectionName, DefinitionsLevelCreationError.apply)
       .emapE {
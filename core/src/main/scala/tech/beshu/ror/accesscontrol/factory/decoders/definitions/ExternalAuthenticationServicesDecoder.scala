@@ -33,12 +33,19 @@ import tech.beshu.ror.utils.RefinedUtils.PositiveFiniteDuration
 
 object ExternalAuthenticationServicesDecoder {
 
-  def instance(httpClientFactory: HttpClientsFactory): ADecoder[Id, Definitions[ExternalAuthenticationService]] = {
+  def instance(
+      httpClientFactory: HttpClientsFactory,
+      reusableDefinitions: ReusableDefinitions[?]
+  ): ADecoder[Id, Definitions[ExternalAuthenticationService]] = {
     implicit val serviceDecoder: SyncDecoder[ExternalAuthenticationService] =
       SyncDecoderCreator.from(
         ExternalAuthenticationServicesDecoder.basicAuthExternalAuthenticationServiceDecoder(httpClientFactory)
       )
-    DefinitionsBaseDecoder.instance[Id, ExternalAuthenticationService]("external_authentication_service_configs")
+    DefinitionsBaseDecoder.reusableInstance[Id, ExternalAuthenticationService](
+      "external_authentication_service_configs",
+      reusableDefinitions,
+      referencedFiles = ReusableDefinitions.jvmTrustStoreFiles
+    )
   }
 
   implicit val serviceNameDecoder: Decoder[ExternalAuthenticationService.Name] =
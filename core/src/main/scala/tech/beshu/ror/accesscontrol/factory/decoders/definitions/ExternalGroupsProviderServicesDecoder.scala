@@ -37,10 +37,17 @@ import tech.beshu.ror.utils.json.JsonPath
 
 object ExternalGroupsProviderServicesDecoder {
 
-  def instance(httpClientFactory: HttpClientsFactory): ADecoder[Id, Definitions[ExternalGroupsProviderService]] = {
+  def instance(
+      httpClientFactory: HttpClientsFactory,
+      reusableDefinitions: ReusableDefinitions[?]
+  ): ADecoder[Id, Definitions[ExternalGroupsProviderService]] = {
     implicit val serviceDecoder: SyncDecoder[ExternalGroupsProviderService] = SyncDecoderCreator
       .from(ExternalGroupsProviderServicesDecoder.externalGroupsProviderServiceDecoder(httpClientFactory))
-    DefinitionsBaseDecoder.instance[Id, ExternalGroupsProviderService]("user_groups_providers")
+    DefinitionsBaseDecoder.reusableInstance[Id, ExternalGroupsProviderService](
+      "user_groups_providers",
+      reusableDefinitions,
+      referencedFiles = ReusableDefinitions.jvmTrustStoreFiles
+    )
   }
 
   implicit val serviceNameDecoder: Decoder[ExternalGroupsProviderService.Name] =
@@ -25,7 +25,7 @@ import tech.beshu.ror.accesscontrol.blocks.mocks.MocksProvider
 import tech.beshu.ror.accesscontrol.blocks.rules.Rule
 import tech.beshu.ror.accesscontrol.domain.User.UserIdPattern
 import tech.beshu.ror.accesscontrol.domain.UserIdPatterns
-import tech.beshu.ror.accesscontrol.factory.GlobalSettings
+import tech.beshu.ror.accesscontrol.factory.{GlobalSettings, RuleCaches}
 import tech.beshu.ror.accesscontrol.factory.RawRorSettingsBasedCoreFactory.CoreCreationError.DefinitionsLevelCreationError
 import tech.beshu.ror.accesscontrol.factory.RawRorSettingsBasedCoreFactory.CoreCreationError.Reason.Message
 import tech.beshu.ror.accesscontrol.factory.decoders.common.*
@@ -43,6 +43,7 @@ class ImpersonationDefinitionsDecoderCreator(
     authProxyDefinitions: Definitions[ProxyAuth],
     ldapDefinitions: Definitions[LdapService],
     mocksProvider: MocksProvider,
+    ruleCaches: RuleCaches,
     esEnv: EsEnv
 ) {
 
@@ -109,6 +110,7 @@ class ImpersonationDefinitionsDecoderCreator(
             impersonatorsDefinitions = None,
             mocksProvider,
             globalSettings,
+            ruleCaches,
             esEnv
           ) match {
           case Some(decoder) =>
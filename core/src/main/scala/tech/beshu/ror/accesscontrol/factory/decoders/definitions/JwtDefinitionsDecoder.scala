@@ -17,6 +17,8 @@
 package tech.beshu.ror.accesscontrol.factory.decoders.definitions
 
 import cats.Id
+import eu.timepit.refined.api.Refined
+import eu.timepit.refined.numeric.NonNegative
 import eu.timepit.refined.types.string.NonEmptyString
 import io.circe.{Decoder, HCursor, Json}
 import tech.beshu.ror.accesscontrol.blocks.definitions.*
@@ -33,18 +35,26 @@ import tech.beshu.ror.accesscontrol.factory.decoders.definitions.ExternalAuthent
 import tech.beshu.ror.accesscontrol.utils.CirceOps.*
 import tech.beshu.ror.accesscontrol.utils.CirceOps.DecodingFailureUtils.decodingFailureFrom
 import tech.beshu.ror.accesscontrol.utils.CryptoOps.keyStringToPublicKey
-import tech.beshu.ror.accesscontrol.utils.{ADecoder, SyncDecoder, SyncDecoderCreator}
+import tech.beshu.ror.accesscontrol.utils.{ADecoder, SyncDecoder, SyncDecoderCreator, VerifiedJwtCache}
 import tech.beshu.ror.implicits.*
 
 object JwtDefinitionsDecoder {
 
   def instance(
       httpClientFactory: HttpClientsFactory,
-      variableCreator: RuntimeResolvableVariableCreator
+      variableCreator: RuntimeResolvableVariableCreator,
+      reusableDefinitions: ReusableDefinitions[?],
+      variableTransformationAliases: Json
   ): ADecoder[Id, Definitions[JwtDef]] = {
     implicit val decoder: SyncDecoder[JwtDef] =
       SyncDecoderCreator.from(jwtDefDecoder(httpClientFactory, variableCreator))
-    DefinitionsBaseDecoder.instance[Id, JwtDef]("jwt")
+    // the trust store is used by the external validator
+    DefinitionsBaseDecoder.reusableInstance[Id, JwtDef](
+      "jwt",
+      reusableDefinitions,
+      variableTransformationAliases,
+      referencedFiles = ReusableDefinitions.jvmTrustStoreFiles
+    )
   }
 
   implicit val jwtDefNameDecoder: Decoder[Name] = DecoderHelpers.decodeStringLikeNonEmpty.map(Name.apply)
@@ -65,6 +75,8 @@ object JwtDefinitionsDecoder {
           authorizationTokenDef = AuthorizationTokenDef(headerName, allowedPrefix = StrictlyDefined(authTokenPrefix))
           userClaimOpt <- c.downField("user_claim").as[Option[Jwt.ClaimName]]
           groupsConfigOpt <- c.as[Option[GroupsConfig]](groupsConfigOptDecoder)
+          verifiedTokensCacheSizeOpt <- c.downField("verified_tokens_cache_size").as[Option[Int Refined NonNegative]]
+          verifiedTokensCacheSize = verifiedTokensCacheSizeOpt.getOrElse(VerifiedJwtCache.defaultMaxSize)
           jwtDef <- (userClaimOpt, groupsConfigOpt) match {
             case (Some(userClaim), Some(groupsConfig)) =>
               Right(
@@ -74,6 +86,7 @@ object JwtDefinitionsDecoder {
                   checkMethod = checkMethod,
                   userClaim = userClaim,
                   groupsConfig = groupsConfig,
+                  verifiedTokensCacheSize = verifiedTokensCacheSize,
                 ): JwtDef
               )
             case (Some(userClaim), None) =>
@@ -83,6 +96,7 @@ object JwtDefinitionsDecoder {
                   authorizationTokenDef = authorizationTokenDef,
                   checkMethod = checkMethod,
                   userClaim = userClaim,
+                  verifiedTokensCacheSize = verifiedTokensCacheSize,
                 ): JwtDef
               )
             case (None, Some(groupsConfig)) =>
@@ -92,6 +106,7 @@ object JwtDefinitionsDecoder {
                   authorizationTokenDef = authorizationTokenDef,
                   checkMethod = checkMethod,
                   groupsConfig = groupsConfig,
+                  verifiedTokensCacheSize = verifiedTokensCacheSize,
                 ): JwtDef
               )
             case (None, None) =>
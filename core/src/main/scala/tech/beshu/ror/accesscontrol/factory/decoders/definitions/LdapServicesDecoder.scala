@@ -61,12 +61,18 @@ object LdapServicesDecoder extends RequestIdAwareLogging {
 
   given nameDecoder: Decoder[LdapService.Name] = DecoderHelpers.decodeNonEmptyStringField.map(LdapService.Name.apply)
 
-  def ldapServicesDefinitionsDecoder(
+  def ldapServicesDefinitionsDecoder(reusableDefinitions: ReusableDefinitions[?])(
       using UnboundidLdapConnectionPoolProvider,
       Clock
   ): AsyncDecoder[Definitions[LdapService]] = {
     AsyncDecoderCreator.instance { c =>
-      DefinitionsBaseDecoder.instance[Task, LdapService]("ldaps").apply(c)
+      DefinitionsBaseDecoder
+        .reusableInstance[Task, LdapService](
+          "ldaps",
+          reusableDefinitions,
+          referencedFiles = ReusableDefinitions.jvmTrustStoreFiles
+        )
+        .apply(c)
     }
   }
 
@@ -712,6 +718,7 @@ object LdapServicesDecoder extends RequestIdAwareLogging {
         Decoder.instance { c =>
           for {
             nestedGroupsDepthOpt <- c.downFieldAs[Option[Int Refined Positive]]("nested_groups_depth")
+            nestedGroupsCache <- nestedGroupsCacheConfigDecoder(c)
           } yield {
             nestedGroupsDepthOpt.map(nestedGroupsDepth =>
               NestedGroupsConfig(
@@ -719,7 +726,8 @@ object LdapServicesDecoder extends RequestIdAwareLogging {
                 searchGroupBaseDN,
                 groupSearchFilter,
                 uniqueMemberAttribute,
-                groupAttribute
+                groupAttribute,
+                nestedGroupsCache
               )
             )
           }
@@ -729,6 +737,7 @@ object LdapServicesDecoder extends RequestIdAwareLogging {
           for {
             nestedGroupsDepthOpt <- c.downFieldAs[Option[Int Refined Positive]]("nested_groups_depth")
             uniqueMemberAttribute <- c.downFieldAs[Option[UniqueMemberAttribute]]("unique_member_attribute")
+            nestedGroupsCache <- nestedGroupsCacheConfigDecoder(c)
           } yield {
             nestedGroupsDepthOpt.map(nestedGroupsDepth =>
               NestedGroupsConfig(
@@ -736,7 +745,8 @@ object LdapServicesDecoder extends RequestIdAwareLogging {
                 searchGroupBaseDN,
                 groupSearchFilter,
                 uniqueMemberAttribute.getOrElse(UniqueMemberAttribute.default),
-                GroupAttribute(groupIdAttribute, GroupNameAttribute.from(groupIdAttribute))
+                GroupAttribute(groupIdAttribute, GroupNameAttribute.from(groupIdAttribute)),
+                nestedGroupsCache
               )
             )
           }
@@ -744,6 +754,27 @@ object LdapServicesDecoder extends RequestIdAwareLogging {
     }
   }
 
+  private val nestedGroupsCacheConfigDecoder: Decoder[Option[NestedGroupsCacheConfig]] =
+    Decoder
+      .instance { c =>
+        for {
+          ttl <- c.downFieldAs[Option[PositiveFiniteDuration]]("nested_groups_cache_ttl")
+          prewarm <- c.downFieldAs[Option[Boolean]]("nested_groups_cache_prewarm")
+        } yield (ttl, prewarm)
+      }
+      .toSyncDecoder
+      .emapE[Option[NestedGroupsCacheConfig]] {
+        case (Some(ttl), prewarm)               => Right(Some(NestedGroupsCacheConfig(ttl, prewarm.getOrElse(false))))
+        case (None, None) | (None, Some(false)) => Right(None)
+        case (None, Some(true))                 =>
+          Left(
+            DefinitionsLevelCreationError(
+              Message("'nested_groups_cache_prewarm' requires the 'nested_groups_cache_ttl' to be configured")
+            )
+          )
+      }
+      .decoder
+
   private given Decoder[BindRequestUser] = {
     Decoder
       .instance { c =>
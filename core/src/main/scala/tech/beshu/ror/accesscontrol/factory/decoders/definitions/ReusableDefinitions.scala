@@ -0,0 +1,133 @@
+/*
+ *    This file is part of ReadonlyREST.
+ *
+ *    ReadonlyREST is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    ReadonlyREST is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with ReadonlyREST.  If not, see http://www.gnu.org/licenses/
+ */
+package tech.beshu.ror.accesscontrol.factory.decoders.definitions
+
+import cats.Applicative
+import cats.implicits.*
+import io.circe.Json
+import tech.beshu.ror.accesscontrol.factory.decoders.definitions.Definitions.Item
+import tech.beshu.ror.accesscontrol.factory.decoders.definitions.ReusableDefinitions.{Entry, FileState, Key}
+import tech.beshu.ror.accesscontrol.utils.ADecoder
+import tech.beshu.ror.utils.AccessControllerHelper.doPrivileged
+
+import java.nio.file.attribute.FileTime
+import java.nio.file.{Files, Path, Paths}
+import java.util.concurrent.ConcurrentHashMap
+import scala.jdk.CollectionConverters.*
+import scala.reflect.ClassTag
+import scala.util.Try
+
+/**
+ * Definitions (LDAP services, external services, JWT and ROR KBN definitions) decoded while creating a core. When
+ * the settings are reloaded, the new core takes over the definitions whose settings didn't change (together with
+ * their caches, LDAP connection pools and HTTP clients) instead of creating them from scratch.
+ *
+ * A definition depending on files (e.g. on the JVM trust store, when it connects over TLS) is taken over only when
+ * the files didn't change either - their modification times and sizes are a part of the definition's key.
+ *
+ * Each definition is remembered with its `OWNER` - the resources it was created with. These resources have to stay
+ * open as long as any core uses the definition (see [[reusedOwners]]).
+ */
+private[ror] final class ReusableDefinitions[OWNER] private (owner: OWNER, previous: Map[Key, Entry[OWNER]]) {
+
+  private val decoded = new ConcurrentHashMap[Key, Entry[OWNER]]()
+
+  def decoder[F[_]: Applicative, A <: Item: ClassTag](
+      definitionsSectionName: String,
+      dependencies: Json,
+      referencedFiles: List[Path]
+  )(
+      itemDecoder: ADecoder[F, A]
+  ): ADecoder[F, A] = {
+    itemDecoder.creator.instance { c =>
+      val key = Key(definitionsSectionName, c.value, dependencies, referencedFiles.traverse(FileState.of))
+      // when the state of the files is unknown, they might have changed
+      val previousEntry = if (key.referencedFiles.isDefined) previous.get(key) else None
+      previousEntry.collect { case entry @ Entry(item: A, _) => (entry, item) } match {
+        case Some((entry, item)) =>
+          decoded.put(key, entry)
+          Applicative[F].pure(Right(item))
+        case None =>
+          itemDecoder(c).map { result =>
+            result.foreach(item => decoded.put(key, Entry(item, owner)))
+            result
+          }
+      }
+    }
+  }
+
+  def owners: Set[OWNER] = entries.map(_.owner).toSet
+
+  def reusedOwners: Set[OWNER] = owners - owner
+
+  def reusedCount: Int = entries.count(_.owner != owner)
+
+  def count: Int = decoded.size()
+
+  def basedOn(newOwner: OWNER, reusableOwners: Set[OWNER]): ReusableDefinitions[OWNER] = {
+    new ReusableDefinitions(
+      newOwner,
+      decoded.asScala.toMap.filter { case (_, entry) => reusableOwners.contains(entry.owner) }
+    )
+  }
+
+  private def entries = decoded.values().asScala.toList
+}
+
+private[ror] object ReusableDefinitions {
+
+  def empty[OWNER](owner: OWNER): ReusableDefinitions[OWNER] = new ReusableDefinitions(owner, Map.empty)
+
+  def none: ReusableDefinitions[Unit] = empty(())
+
+  /**
+   * The trust store files used by the TLS connections of the definitions (the JDK uses `jssecacerts` when it exists,
+   * `cacerts` otherwise).
+   */
+  def jvmTrustStoreFiles: List[Path] = {
+    Option(System.getProperty("javax.net.ssl.trustStore")).filter(path => path.nonEmpty && path != "NONE") match {
+      case Some(trustStore) =>
+        Paths.get(trustStore) :: Nil
+      case None =>
+        val securityDir = Paths.get(System.getProperty("java.home"), "lib", "security")
+        securityDir.resolve("jssecacerts") :: securityDir.resolve("cacerts") :: Nil
+    }
+  }
+
+  private[definitions] final case class Key(
+      definitionsSectionName: String,
+      definition: Json,
+      dependencies: Json,
+      referencedFiles: Option[List[FileState]]
+  )
+
+  // `modification` is empty when the file doesn't exist
+  private[definitions] final case class FileState(path: Path, modification: Option[(FileTime, Long)])
+
+  private[definitions] object FileState {
+
+    // empty when the state of the file cannot be read
+    def of(path: Path): Option[FileState] = Try {
+      doPrivileged {
+        if (Files.exists(path)) FileState(path, Some((Files.getLastModifiedTime(path), Files.size(path))))
+        else FileState(path, None)
+      }
+    }.toOption
+  }
+
+  private[definitions] final case class Entry[OWNER](item: Item, owner: OWNER)
+}
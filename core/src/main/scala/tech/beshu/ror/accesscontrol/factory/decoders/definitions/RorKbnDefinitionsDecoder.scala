@@ -17,24 +17,32 @@
 package tech.beshu.ror.accesscontrol.factory.decoders.definitions
 
 import cats.Id
-import io.circe.{Decoder, HCursor}
+import eu.timepit.refined.api.Refined
+import eu.timepit.refined.numeric.NonNegative
+import io.circe.{Decoder, HCursor, Json}
 import tech.beshu.ror.accesscontrol.blocks.definitions.RorKbnDef
 import tech.beshu.ror.accesscontrol.blocks.definitions.RorKbnDef.{Name, SignatureCheckMethod}
 import tech.beshu.ror.accesscontrol.blocks.variables.runtime.RuntimeResolvableVariableCreator
 import tech.beshu.ror.accesscontrol.factory.RawRorSettingsBasedCoreFactory.CoreCreationError
 import tech.beshu.ror.accesscontrol.factory.RawRorSettingsBasedCoreFactory.CoreCreationError.DefinitionsLevelCreationError
 import tech.beshu.ror.accesscontrol.factory.RawRorSettingsBasedCoreFactory.CoreCreationError.Reason.Message
+import tech.beshu.ror.accesscontrol.factory.decoders.common.nonNegativeIntDecoder
 import tech.beshu.ror.accesscontrol.utils.CirceOps.DecoderHelpers
 import tech.beshu.ror.accesscontrol.utils.CirceOps.DecodingFailureUtils.decodingFailureFrom
 import tech.beshu.ror.accesscontrol.utils.CryptoOps.keyStringToPublicKey
-import tech.beshu.ror.accesscontrol.utils.{ADecoder, SyncDecoder, SyncDecoderCreator}
+import tech.beshu.ror.accesscontrol.utils.{ADecoder, SyncDecoder, SyncDecoderCreator, VerifiedJwtCache}
 import tech.beshu.ror.implicits.*
 
 object RorKbnDefinitionsDecoder {
 
-  def instance(variableCreator: RuntimeResolvableVariableCreator): ADecoder[Id, Definitions[RorKbnDef]] = {
+  def instance(
+      variableCreator: RuntimeResolvableVariableCreator,
+      reusableDefinitions: ReusableDefinitions[?],
+      variableTransformationAliases: Json
+  ): ADecoder[Id, Definitions[RorKbnDef]] = {
     implicit val decoder: SyncDecoder[RorKbnDef] = SyncDecoderCreator.from(rorKbnDefDecoder(variableCreator))
-    DefinitionsBaseDecoder.instance[Id, RorKbnDef]("ror_kbn")
+    DefinitionsBaseDecoder
+      .reusableInstance[Id, RorKbnDef]("ror_kbn", reusableDefinitions, variableTransformationAliases)
   }
 
   implicit val rorKbnDefNameDecoder: Decoder[RorKbnDef.Name] = DecoderHelpers.decodeStringLikeNonEmpty.map(Name.apply)
@@ -47,7 +55,8 @@ object RorKbnDefinitionsDecoder {
         for {
           name <- c.downField("name").as[Name]
           checkMethod <- signatureCheckMethod(c)
-        } yield RorKbnDef(name, checkMethod)
+          verifiedTokensCacheSize <- c.downField("verified_tokens_cache_size").as[Option[Int Refined NonNegative]]
+        } yield RorKbnDef(name, checkMethod, verifiedTokensCacheSize.getOrElse(VerifiedJwtCache.defaultMaxSize))
       }
       .mapError(DefinitionsLevelCreationError.apply)
       .decoder
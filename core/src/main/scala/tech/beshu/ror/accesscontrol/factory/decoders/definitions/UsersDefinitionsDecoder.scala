@@ -33,7 +33,7 @@ import tech.beshu.ror.accesscontrol.blocks.rules.auth.base.BaseGroupsRule
 import tech.beshu.ror.accesscontrol.domain.GroupIdLike.GroupId
 import tech.beshu.ror.accesscontrol.domain.User.UserIdPattern
 import tech.beshu.ror.accesscontrol.domain.{Group, GroupIdLike, GroupName, UserIdPatterns}
-import tech.beshu.ror.accesscontrol.factory.GlobalSettings
+import tech.beshu.ror.accesscontrol.factory.{GlobalSettings, RuleCaches}
 import tech.beshu.ror.accesscontrol.factory.RawRorSettingsBasedCoreFactory.CoreCreationError
 import tech.beshu.ror.accesscontrol.factory.RawRorSettingsBasedCoreFactory.CoreCreationError.Reason.Message
 import tech.beshu.ror.accesscontrol.factory.RawRorSettingsBasedCoreFactory.CoreCreationError.{
@@ -71,6 +71,7 @@ object UsersDefinitionsDecoder {
       impersonatorsDefinitions: Option[Definitions[ImpersonatorDef]],
       mocksProvider: MocksProvider,
       globalSettings: GlobalSettings,
+      ruleCaches: RuleCaches,
       esEnv: EsEnv
   ): ADecoder[Id, Definitions[UserDef]] = {
     implicit val userDefDecoder: SyncDecoder[UserDef] =
@@ -92,6 +93,7 @@ object UsersDefinitionsDecoder {
                 impersonatorsDefinitions,
                 mocksProvider,
                 globalSettings,
+                ruleCaches,
                 esEnv
               )
               rulesDecoder.tryDecode(c.withoutKeys(Set(usernameKey, groupsKey)))
@@ -122,6 +124,7 @@ object UsersDefinitionsDecoder {
       impersonatorsDefinitions: Option[Definitions[ImpersonatorDef]],
       mocksProvider: MocksProvider,
       globalSettings: GlobalSettings,
+      ruleCaches: RuleCaches,
       esEnv: EsEnv
   ): Decoder[List[Rule]] = Decoder.instance { c =>
     type RuleDecoders = List[RuleDecoder[Rule]]
@@ -140,6 +143,7 @@ object UsersDefinitionsDecoder {
           impersonatorsDefinitions,
           mocksProvider,
           globalSettings,
+          ruleCaches,
           esEnv
         ) match {
           case Some(ruleDecoder) => Right(ruleDecoder :: decoders)
@@ -19,7 +19,7 @@ package tech.beshu.ror.accesscontrol.factory.decoders.definitions
 import cats.Id
 import cats.data.NonEmptyMap
 import eu.timepit.refined.types.string.NonEmptyString
-import io.circe.Decoder
+import io.circe.{Decoder, HCursor, Json}
 import tech.beshu.ror.accesscontrol.blocks.definitions.VariableTransformationAliasDef
 import tech.beshu.ror.accesscontrol.blocks.variables.transformation.TransformationCompiler.CompilationError
 import tech.beshu.ror.accesscontrol.blocks.variables.transformation.domain.{FunctionAlias, FunctionName}
@@ -49,6 +49,8 @@ object VariableTransformationAliasesDefinitionsDecoder {
       .instance[Id, VariableTransformationAliasDef](definitionsSectionName)
   }
 
+  def settingsFrom(c: HCursor): Json = c.downField(definitionsSectionName).focus.getOrElse(Json.Null)
+
   private def aliasesDefinitionsDecoder(
       transformationCompiler: TransformationCompiler
   ): Decoder[VariableTransformationAliasDef] = {
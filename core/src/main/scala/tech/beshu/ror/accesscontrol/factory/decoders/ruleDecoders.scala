@@ -34,7 +34,7 @@ import tech.beshu.ror.accesscontrol.blocks.variables.runtime.RuntimeResolvableVa
 import tech.beshu.ror.accesscontrol.blocks.variables.transformation.TransformationCompiler
 import tech.beshu.ror.accesscontrol.domain.AvailableLocalUsers.*
 import tech.beshu.ror.accesscontrol.domain.{CaseSensitivity, GroupsLogic, LocalUsers, UserIdPatterns}
-import tech.beshu.ror.accesscontrol.factory.GlobalSettings
+import tech.beshu.ror.accesscontrol.factory.{GlobalSettings, RuleCaches}
 import tech.beshu.ror.accesscontrol.factory.RawRorSettingsBasedCoreFactory.CoreCreationError.Reason.Message
 import tech.beshu.ror.accesscontrol.factory.decoders.definitions.{Definitions, DefinitionsPack}
 import tech.beshu.ror.accesscontrol.factory.decoders.rules.RuleDecoder
@@ -54,6 +54,7 @@ object ruleDecoders {
       name: Rule.Name,
       definitions: DefinitionsPack,
       globalSettings: GlobalSettings,
+      ruleCaches: RuleCaches,
       mocksProvider: MocksProvider,
       esEnv: EsEnv
   )(
@@ -88,7 +89,13 @@ object ruleDecoders {
       case HeadersOrRule.Name.name            => Some(HeadersOrRuleDecoder)
       case HostsRule.Name.name                => Some(new HostsRuleDecoder(variableCreator))
       case IndicesRule.Name.name              =>
-        Some(new IndicesRuleDecoders(variableCreator, systemContext.uniqueIdentifierGenerator))
+        Some(
+          new IndicesRuleDecoders(
+            variableCreator,
+            systemContext.uniqueIdentifierGenerator,
+            ruleCaches.remoteIndicesCache
+          )
+        )
       case KibanaUserDataRule.Name.name =>
         Some(new KibanaUserDataRuleDecoder(globalSettings.settingsIndex, variableCreator)(systemContext.jsCompiler))
       case KibanaAccessRule.Name.name        => Some(new KibanaAccessRuleDecoder(globalSettings.settingsIndex))
@@ -117,6 +124,7 @@ object ruleDecoders {
           Some(definitions.impersonators),
           mocksProvider,
           globalSettings,
+          ruleCaches,
           esEnv
         )
     }
@@ -134,6 +142,7 @@ object ruleDecoders {
       impersonatorsDefinitions: Option[Definitions[ImpersonatorDef]],
       mocksProvider: MocksProvider,
       globalSettings: GlobalSettings,
+      ruleCaches: RuleCaches,
       esEnv: EsEnv
   ): Option[RuleDecoder[Rule]] = {
     val optionalRuleDecoder = name match {
@@ -187,6 +196,7 @@ object ruleDecoders {
           impersonatorsDefinitions,
           mocksProvider,
           globalSettings,
+          ruleCaches,
           esEnv
         )
     }
@@ -201,19 +211,48 @@ object ruleDecoders {
       impersonatorsDefinitions: Option[Definitions[ImpersonatorDef]],
       mocksProvider: MocksProvider,
       globalSettings: GlobalSettings,
+      ruleCaches: RuleCaches,
       esEnv: EsEnv
   ): Option[RuleDecoder[AuthenticationRule]] = {
     val optionalRuleDecoder = name match {
       case AuthKeyRule.Name.name =>
         Some(new AuthKeyRuleDecoder(impersonatorsDefinitions, mocksProvider, globalSettings))
       case AuthKeySha1Rule.Name.name =>
-        Some(new AuthKeySha1RuleDecoder(impersonatorsDefinitions, mocksProvider, globalSettings))
+        Some(
+          new AuthKeySha1RuleDecoder(
+            impersonatorsDefinitions,
+            mocksProvider,
+            globalSettings,
+            ruleCaches.verifiedCredentialsCache
+          )
+        )
       case AuthKeySha256Rule.Name.name =>
-        Some(new AuthKeySha256RuleDecoder(impersonatorsDefinitions, mocksProvider, globalSettings))
+        Some(
+          new AuthKeySha256RuleDecoder(
+            impersonatorsDefinitions,
+            mocksProvider,
+            globalSettings,
+            ruleCaches.verifiedCredentialsCache
+          )
+        )
       case AuthKeySha512Rule.Name.name =>
-        Some(new AuthKeySha512RuleDecoder(impersonatorsDefinitions, mocksProvider, globalSettings))
+        Some(
+          new AuthKeySha512RuleDecoder(
+            impersonatorsDefinitions,
+            mocksProvider,
+            globalSettings,
+            ruleCaches.verifiedCredentialsCache
+          )
+        )
       case AuthKeyPBKDF2WithHmacSHA512Rule.Name.name =>
-        Some(new AuthKeyPBKDF2WithHmacSHA512RuleDecoder(impersonatorsDefinitions, mocksProvider, globalSettings))
+        Some(
+          new AuthKeyPBKDF2WithHmacSHA512RuleDecoder(
+            impersonatorsDefinitions,
+            mocksProvider,
+            globalSettings,
+            ruleCaches.verifiedCredentialsCache
+          )
+        )
       case AuthKeyUnixRule.Name.name =>
         Some(new AuthKeyUnixRuleDecoder(impersonatorsDefinitions, mocksProvider, globalSettings))
       case ExternalAuthenticationRule.Name.name =>
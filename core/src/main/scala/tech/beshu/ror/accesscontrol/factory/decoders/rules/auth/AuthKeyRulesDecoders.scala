@@ -60,7 +60,8 @@ class AuthKeyRuleDecoder(
 class AuthKeySha1RuleDecoder(
     impersonatorsDef: Option[Definitions[ImpersonatorDef]],
     mocksProvider: MocksProvider,
-    globalSettings: GlobalSettings
+    globalSettings: GlobalSettings,
+    verifiedCredentialsCache: VerifiedCredentialsCache
 ) extends RuleBaseDecoderWithoutAssociatedFields[AuthKeySha1Rule] {
 
   override protected def decoder: Decoder[RuleDefinition[AuthKeySha1Rule]] = {
@@ -71,6 +72,7 @@ class AuthKeySha1RuleDecoder(
             settings,
             globalSettings.userIdCaseSensitivity,
             impersonatorsDef.toImpersonation(mocksProvider),
+            verifiedCredentialsCache
           )
         )
       )
@@ -81,7 +83,8 @@ class AuthKeySha1RuleDecoder(
 class AuthKeySha256RuleDecoder(
     impersonatorsDef: Option[Definitions[ImpersonatorDef]],
     mocksProvider: MocksProvider,
-    globalSettings: GlobalSettings
+    globalSettings: GlobalSettings,
+    verifiedCredentialsCache: VerifiedCredentialsCache
 ) extends RuleBaseDecoderWithoutAssociatedFields[AuthKeySha256Rule] {
 
   override protected def decoder: Decoder[RuleDefinition[AuthKeySha256Rule]] = {
@@ -92,6 +95,7 @@ class AuthKeySha256RuleDecoder(
             settings,
             globalSettings.userIdCaseSensitivity,
             impersonatorsDef.toImpersonation(mocksProvider),
+            verifiedCredentialsCache
           )
         )
       )
@@ -102,7 +106,8 @@ class AuthKeySha256RuleDecoder(
 class AuthKeySha512RuleDecoder(
     impersonatorsDef: Option[Definitions[ImpersonatorDef]],
     mocksProvider: MocksProvider,
-    globalSettings: GlobalSettings
+    globalSettings: GlobalSettings,
+    verifiedCredentialsCache: VerifiedCredentialsCache
 ) extends RuleBaseDecoderWithoutAssociatedFields[AuthKeySha512Rule] {
 
   override protected def decoder: Decoder[RuleDefinition[AuthKeySha512Rule]] = {
@@ -113,6 +118,7 @@ class AuthKeySha512RuleDecoder(
             settings,
             globalSettings.userIdCaseSensitivity,
             impersonatorsDef.toImpersonation(mocksProvider),
+            verifiedCredentialsCache
           )
         )
       )
@@ -123,7 +129,8 @@ class AuthKeySha512RuleDecoder(
 class AuthKeyPBKDF2WithHmacSHA512RuleDecoder(
     impersonatorsDef: Option[Definitions[ImpersonatorDef]],
     mocksProvider: MocksProvider,
-    globalSettings: GlobalSettings
+    globalSettings: GlobalSettings,
+    verifiedCredentialsCache: VerifiedCredentialsCache
 ) extends RuleBaseDecoderWithoutAssociatedFields[AuthKeyPBKDF2WithHmacSHA512Rule] {
 
   override protected def decoder: Decoder[RuleDefinition[AuthKeyPBKDF2WithHmacSHA512Rule]] = {
@@ -134,6 +141,7 @@ class AuthKeyPBKDF2WithHmacSHA512RuleDecoder(
             settings,
             globalSettings.userIdCaseSensitivity,
             impersonatorsDef.toImpersonation(mocksProvider),
+            verifiedCredentialsCache
           )
         )
       )
@@ -21,6 +21,7 @@ import cats.implicits.*
 import io.circe.Decoder
 import tech.beshu.ror.accesscontrol.blocks.Block.RuleDefinition
 import tech.beshu.ror.accesscontrol.blocks.rules.elasticsearch.indices.IndicesRule
+import tech.beshu.ror.accesscontrol.blocks.rules.elasticsearch.indices.clusterindices.RemoteIndicesCache
 import tech.beshu.ror.accesscontrol.blocks.variables.runtime.RuntimeMultiResolvableVariable.{
   AlreadyResolved,
   ToBeResolved
@@ -42,7 +43,8 @@ import tech.beshu.ror.implicits.*
 
 class IndicesRuleDecoders(
     variableCreator: RuntimeResolvableVariableCreator,
-    uniqueIdentifierGenerator: UniqueIdentifierGenerator
+    uniqueIdentifierGenerator: UniqueIdentifierGenerator,
+    remoteIndicesCache: RemoteIndicesCache
 ) extends RuleBaseDecoderWithoutAssociatedFields[IndicesRule] {
 
   private implicit val variableCreatorImplicit: RuntimeResolvableVariableCreator = variableCreator
@@ -61,7 +63,8 @@ class IndicesRuleDecoders(
         RuleDefinition.create(
           new IndicesRule(
             settings = IndicesRule.Settings(indices, mustInvolveIndices = defaultMustInvolveIndicesValue),
-            identifierGenerator = uniqueIdentifierGenerator
+            identifierGenerator = uniqueIdentifierGenerator,
+            remoteIndicesCache = remoteIndicesCache
           )
         )
       )
@@ -75,7 +78,8 @@ class IndicesRuleDecoders(
         RuleDefinition.create(
           new IndicesRule(
             settings = IndicesRule.Settings(indices, mustInvolveIndices.getOrElse(defaultMustInvolveIndicesValue)),
-            identifierGenerator = uniqueIdentifierGenerator
+            identifierGenerator = uniqueIdentifierGenerator,
+            remoteIndicesCache = remoteIndicesCache
           )
         )
       }
@@ -28,7 +28,7 @@ import tech.beshu.ror.accesscontrol.factory.decoders.common.*
 import tech.beshu.ror.accesscontrol.factory.decoders.rules.RuleBaseDecoder.RuleBaseDecoderWithoutAssociatedFields
 import tech.beshu.ror.accesscontrol.orders.addressOrder
 import tech.beshu.ror.accesscontrol.utils.CirceOps.DecoderHelpers
-import tech.beshu.ror.utils.Ip4sBasedHostnameResolver
+import tech.beshu.ror.utils.CachingHostnameResolver
 
 class XForwardedForRuleDecoder(variableCreator: RuntimeResolvableVariableCreator)
     extends RuleBaseDecoderWithoutAssociatedFields[XForwardedForRule] {
@@ -40,7 +40,7 @@ class XForwardedForRuleDecoder(variableCreator: RuntimeResolvableVariableCreator
       .decodeStringLikeOrNonEmptySet[RuntimeMultiResolvableVariable[Address]]
       .map(addresses =>
         RuleDefinition.create(
-          new XForwardedForRule(XForwardedForRule.Settings(addresses), new Ip4sBasedHostnameResolver)
+          new XForwardedForRule(XForwardedForRule.Settings(addresses), CachingHostnameResolver.default)
         )
       )
   }
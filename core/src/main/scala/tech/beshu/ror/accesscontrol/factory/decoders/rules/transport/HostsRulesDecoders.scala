@@ -33,7 +33,7 @@ import tech.beshu.ror.accesscontrol.factory.decoders.rules.transport.HostRulesDe
 import tech.beshu.ror.accesscontrol.orders.*
 import tech.beshu.ror.accesscontrol.utils.CirceOps.DecoderHelpers
 import tech.beshu.ror.syntax.*
-import tech.beshu.ror.utils.Ip4sBasedHostnameResolver
+import tech.beshu.ror.utils.CachingHostnameResolver
 
 class HostsRuleDecoder(variableCreator: RuntimeResolvableVariableCreator)
     extends RuleBaseDecoderWithAssociatedFields[HostsRule, Boolean] {
@@ -46,7 +46,7 @@ class HostsRuleDecoder(variableCreator: RuntimeResolvableVariableCreator)
         .decodeStringLikeOrNonEmptySet[RuntimeMultiResolvableVariable[Address]]
         .map(nes =>
           RuleDefinition.create(
-            new HostsRule(HostsRule.Settings(nes, acceptXForwardedFor), new Ip4sBasedHostnameResolver)
+            new HostsRule(HostsRule.Settings(nes, acceptXForwardedFor), CachingHostnameResolver.default)
           )
         )
 
@@ -69,7 +69,7 @@ class LocalHostsRuleDecoder(variableCreator: RuntimeResolvableVariableCreator)
       .decodeStringLikeOrNonEmptySet[RuntimeMultiResolvableVariable[Address]]
       .map(addresses =>
         RuleDefinition.create(
-          new LocalHostsRule(LocalHostsRule.Settings(addresses), new Ip4sBasedHostnameResolver)
+          new LocalHostsRule(LocalHostsRule.Settings(addresses), CachingHostnameResolver.default)
         )
       )
   }
@@ -0,0 +1,70 @@
+/*
+ *    This file is part of ReadonlyREST.
+ *
+ *    ReadonlyREST is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    ReadonlyREST is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with ReadonlyREST.  If not, see http://www.gnu.org/licenses/
+ */
+package tech.beshu.ror.accesscontrol.matchers
+
+import tech.beshu.ror.accesscontrol.domain.Action
+
+import java.util.concurrent.atomic.AtomicLongArray
+
+/**
+ * Matches actions against the glob patterns, but the decision about an interned action (see [[Action.Registry]]) is
+ * made once and then it's a bit test. The decisions about the actions interned so far are precomputed when the matcher
+ * is created (so, when the ACL is created), the ones about the actions seen for the first time are added lazily. An
+ * action which is not interned is always matched against the patterns.
+ */
+final class ActionsMatcher private (val patternsMatcher: PatternsMatcher[Action], registry: Action.Registry) {
+
+  private val words = (registry.capacity + 63) / 64
+  private val decided = new AtomicLongArray(words)
+  private val matched = new AtomicLongArray(words)
+
+  registry.internedActions.foreach { case (id, action) => decide(id, action) }
+
+  def `match`(action: Action): Boolean = {
+    val id = registry.idOf(action)
+    if (id == Action.Registry.notInterned) patternsMatcher.`match`(action)
+    else if (isSet(decided, id)) isSet(matched, id)
+    else decide(id, action)
+  }
+
+  private[ror] def isDecided(action: Action): Boolean = {
+    val id = registry.idOf(action)
+    id != Action.Registry.notInterned && isSet(decided, id)
+  }
+
+  private def decide(id: Int, action: Action): Boolean = {
+    val isMatched = patternsMatcher.`match`(action)
+    // the `matched` bit is set first, so whoever sees the `decided` bit, sees the decision too
+    if (isMatched) set(matched, id)
+    set(decided, id)
+    isMatched
+  }
+
+  private def isSet(bits: AtomicLongArray, id: Int): Boolean =
+    (bits.get(id >>> 6) & (1L << id)) != 0L
+
+  private def set(bits: AtomicLongArray, id: Int): Unit = {
+    val mask = 1L << id
+    bits.getAndAccumulate(id >>> 6, mask, _ | _)
+  }
+}
+
+object ActionsMatcher {
+
+  def create(actions: Iterable[Action], registry: Action.Registry = Action.Registry): ActionsMatcher =
+    new ActionsMatcher(PatternsMatcher.create(actions), registry)
+}
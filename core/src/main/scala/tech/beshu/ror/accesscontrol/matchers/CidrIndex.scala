@@ -0,0 +1,100 @@
+/*
+ *    This file is part of ReadonlyREST.
+ *
+ *    ReadonlyREST is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    ReadonlyREST is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with ReadonlyREST.  If not, see http://www.gnu.org/licenses/
+ */
+package tech.beshu.ror.accesscontrol.matchers
+
+import com.comcast.ip4s.{Cidr, IpAddress, Ipv4Address, Ipv6Address}
+import tech.beshu.ror.accesscontrol.domain.Address
+
+/**
+ * CIDR ranges compiled into a binary trie of their prefix bits (one trie for IPv4 and one for IPv6), so checking if an
+ * address belongs to any of the ranges costs at most 32 (or 128) steps, no matter how many ranges there are.
+ *
+ * An address of one family is never matched by the trie of the other one. Such a (rare) check falls back to matching
+ * the address against the ranges of the other family one by one, so the result is the same as for
+ * [[Address.Ip.contains]].
+ */
+final class CidrIndex private (ranges: Vector[Cidr[IpAddress]]) {
+
+  private val (ipv4Ranges, ipv6Ranges) = ranges.partition(_.address.isInstanceOf[Ipv4Address])
+
+  private val ipv4Root = CidrIndex.trieOf(ipv4Ranges)
+  private val ipv6Root = CidrIndex.trieOf(ipv6Ranges)
+
+  def contains(ip: Address.Ip): Boolean = {
+    val address = ip.value.address
+    address match {
+      case _: Ipv4Address =>
+        CidrIndex.trieContains(ipv4Root, address) || ipv6Ranges.exists(_.contains(address))
+      case _: Ipv6Address =>
+        CidrIndex.trieContains(ipv6Root, address) || ipv4Ranges.exists(_.contains(address))
+    }
+  }
+
+}
+
+object CidrIndex {
+
+  def from(ips: Iterable[Address.Ip]): CidrIndex = new CidrIndex(ips.iterator.map(_.value).toVector)
+
+  private final class Node {
+    // a range ends at this node, so all the addresses below it are contained
+    var terminal: Boolean = false
+    var zero: Node = null
+    var one: Node = null
+  }
+
+  private def trieOf(ranges: Vector[Cidr[IpAddress]]): Node = {
+    val root = new Node
+    ranges.foreach(insert(root, _))
+    root
+  }
+
+  private def insert(root: Node, range: Cidr[IpAddress]): Unit = {
+    val bytes = range.address.toBytes
+    var node = root
+    var bit = 0
+    // no need to go deeper than a range which already covers this one
+    while (!node.terminal && bit < range.prefixBits) {
+      node =
+        if (bitAt(bytes, bit)) {
+          if (node.one == null) node.one = new Node
+          node.one
+        } else {
+          if (node.zero == null) node.zero = new Node
+          node.zero
+        }
+      bit += 1
+    }
+    node.terminal = true
+  }
+
+  private def trieContains(root: Node, address: IpAddress): Boolean = {
+    val bytes = address.toBytes
+    val bitsCount = bytes.length * 8
+    var node = root
+    var bit = 0
+    while (node != null && !node.terminal && bit < bitsCount) {
+      node = if (bitAt(bytes, bit)) node.one else node.zero
+      bit += 1
+    }
+    node != null && node.terminal
+  }
+
+  private def bitAt(bytes: Array[Byte], bit: Int): Boolean =
+    ((bytes(bit >>> 3) >>> (7 - (bit & 7))) & 1) == 1
+
+}
@@ -0,0 +1,48 @@
+/*
+ *    This file is part of ReadonlyREST.
+ *
+ *    ReadonlyREST is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    ReadonlyREST is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with ReadonlyREST.  If not, see http://www.gnu.org/licenses/
+ */
+package tech.beshu.ror.accesscontrol.matchers
+
+import com.github.benmanes.caffeine.cache.{Cache, Caffeine}
+import tech.beshu.ror.utils.AccessControllerHelper.doPrivileged
+
+import scala.concurrent.ExecutionContext.global
+
+/**
+ * Matchers compiled for the values resolved from the runtime variables of a rule (e.g. `@{user}_*`), kept by the rule
+ * instance, so the subsequent requests resolving to the same values (e.g. of the same user) reuse them instead of
+ * compiling them again. It's bounded - the least recently (and frequently) used matchers are evicted.
+ */
+private[ror] final class CompiledMatchersCache[K, V](
+    compile: K => V,
+    maxSize: Long = CompiledMatchersCache.defaultMaxSize
+) {
+
+  private val compiled: Cache[K, V] = doPrivileged {
+    Caffeine
+      .newBuilder()
+      .executor(global)
+      .maximumSize(maxSize)
+      .build[K, V]()
+  }
+
+  def get(resolved: K): V = compiled.get(resolved, compile(_))
+
+}
+
+object CompiledMatchersCache {
+  val defaultMaxSize: Long = 1000L
+}
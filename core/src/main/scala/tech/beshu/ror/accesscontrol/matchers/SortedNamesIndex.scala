@@ -0,0 +1,99 @@
+/*
+ *    This file is part of ReadonlyREST.
+ *
+ *    ReadonlyREST is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    ReadonlyREST is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with ReadonlyREST.  If not, see http://www.gnu.org/licenses/
+ */
+package tech.beshu.ror.accesscontrol.matchers
+
+import tech.beshu.ror.accesscontrol.domain.CaseSensitivity
+import tech.beshu.ror.accesscontrol.matchers.PatternsMatcher.Matchable
+
+import scala.collection.mutable.ArrayBuffer
+
+/**
+ * Names sorted lexicographically, so the names which can be matched by a set of glob patterns can be found by
+ * binary-searched range lookups instead of a full scan. E.g. for the `logs-2024*` pattern only the names in the
+ * [`logs-2024`, `logs-2025`) range are candidates.
+ *
+ * [[candidatesFor]] returns a superset of the names the matcher matches (the matcher still has to be applied to them).
+ * When one of the patterns has no literal prefix (e.g. `*-2024`) or the matching is case-insensitive, all the names
+ * are returned. Only the patterns of the matcher are used, so it can be a matcher of a wider type (e.g. a matcher of
+ * [[tech.beshu.ror.accesscontrol.domain.ClusterIndexName]] for the local index names).
+ */
+final class SortedNamesIndex[T: Matchable] private (val all: Set[T]) {
+
+  private val (sortedNames, sortedValues) = {
+    val sorted = all.toVector.map(value => (Matchable[T].show(value), value)).sortBy(_._1)
+    (sorted.map(_._1).toArray, sorted.map(_._2))
+  }
+
+  def candidatesFor(matcher: PatternsMatcher[?]): Iterable[T] = {
+    literalPrefixesOf(matcher) match {
+      case Some(prefixes) => valuesStartingWithAnyOf(prefixes)
+      case None           => all
+    }
+  }
+
+  private def literalPrefixesOf(matcher: PatternsMatcher[?]): Option[Vector[String]] = {
+    if (matcher.caseSensitivity == CaseSensitivity.Disabled) {
+      None
+    } else {
+      val prefixes = matcher.patterns.iterator.map(SortedNamesIndex.literalPrefixOf).toVector
+      Option.when(prefixes.forall(_.nonEmpty))(prefixes)
+    }
+  }
+
+  private def valuesStartingWithAnyOf(prefixes: Vector[String]): Iterable[T] = {
+    val result = ArrayBuffer.empty[T]
+    // when the sorted prefixes share the beginning, the shortest of them covers the range of the longer ones,
+    // so the ranges of the remaining prefixes are disjoint
+    prefixes.sorted
+      .foldLeft(List.empty[String]) {
+        case (acc @ previous :: _, prefix) if prefix.startsWith(previous) => acc
+        case (acc, prefix)                                                 => prefix :: acc
+      }
+      .reverseIterator
+      .foreach { prefix =>
+        var i = lowerBound(prefix)
+        while (i < sortedNames.length && sortedNames(i).startsWith(prefix)) {
+          result += sortedValues(i)
+          i += 1
+        }
+      }
+    result
+  }
+
+  private def lowerBound(prefix: String): Int = {
+    var low = 0
+    var high = sortedNames.length
+    while (low < high) {
+      val mid = (low + high) >>> 1
+      if (sortedNames(mid).compareTo(prefix) < 0) low = mid + 1
+      else high = mid
+    }
+    low
+  }
+
+}
+
+object SortedNamesIndex {
+
+  def from[T: Matchable](values: Set[T]): SortedNamesIndex[T] = new SortedNamesIndex(values)
+
+  private[matchers] def literalPrefixOf(pattern: String): String = {
+    val wildcardIndex = pattern.indexWhere(c => c == '*' || c == '?')
+    if (wildcardIndex < 0) pattern else pattern.substring(0, wildcardIndex)
+  }
+
+}
@@ -0,0 +1,110 @@
+/*
+ *    This file is part of ReadonlyREST.
+ *
+ *    ReadonlyREST is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    ReadonlyREST is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with ReadonlyREST.  If not, see http://www.gnu.org/licenses/
+ */
+package tech.beshu.ror.accesscontrol.metrics
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.LongAdder
+import scala.jdk.CollectionConverters.*
+
+/**
+ * The node-wide counters and latency histograms of the services used by the ACL: how effective the caches of the auth
+ * services are and how long the calls to the LDAP and external services take (and how busy the LDAP bind pools are).
+ * The services (and their connections) are shared by the engines and kept across the settings reloads, so are their
+ * metrics. They are exposed by the admin metrics endpoint, together with the metrics of the blocks of the current
+ * engines (see [[BlockMetrics]]).
+ */
+object AclMetrics {
+
+  private val caches = new ConcurrentHashMap[String, CacheCounters]()
+  private val externalCalls = new ConcurrentHashMap[ExternalCall, LatencyHistogram]()
+  private val ldapBindPools = new ConcurrentHashMap[String, () => LdapBindPoolStats]()
+
+  def cache(name: String): CacheCounters = getOrCreate(caches, name, new CacheCounters)
+
+  def externalCall(kind: String, service: String): LatencyHistogram =
+    getOrCreate(externalCalls, ExternalCall(kind, service), new LatencyHistogram)
+
+  // the stats are read when the snapshot is taken; a pool unregisters its own stats only, so a pool of the same name
+  // created by a newer engine is not affected when the old one is closed
+  def registerLdapBindPool(name: String, stats: () => LdapBindPoolStats): Unit = {
+    ldapBindPools.put(name, stats)
+  }
+
+  def unregisterLdapBindPool(name: String, stats: () => LdapBindPoolStats): Unit = {
+    ldapBindPools.remove(name, stats)
+  }
+
+  def snapshot: Snapshot = Snapshot(
+    caches = caches.asScala.view.mapValues(_.snapshot).toMap,
+    externalCalls = externalCalls.asScala.view.mapValues(_.snapshot).toMap,
+    ldapBindPools = ldapBindPools.asScala.view.mapValues(_.apply()).toMap
+  )
+
+  private[ror] def reset(): Unit = {
+    caches.clear()
+    externalCalls.clear()
+    ldapBindPools.clear()
+  }
+
+  // `get` first, because `computeIfAbsent` locks the bin even when the value is already there
+  private def getOrCreate[K, V](map: ConcurrentHashMap[K, V], key: K, create: => V): V = {
+    Option(map.get(key)).getOrElse(map.computeIfAbsent(key, _ => create))
+  }
+
+  final class CacheCounters {
+    private val hits = new LongAdder
+    private val misses = new LongAdder
+
+    def recordHit(): Unit = hits.increment()
+
+    def recordMiss(): Unit = misses.increment()
+
+    def snapshot: CacheCounters.Snapshot = CacheCounters.Snapshot(hits.sum(), misses.sum())
+  }
+
+  object CacheCounters {
+    final case class Snapshot(hits: Long, misses: Long) {
+      def hitRatio: Double = if (hits + misses == 0) 0.0 else hits.toDouble / (hits + misses)
+    }
+  }
+
+  final case class ExternalCall(kind: String, service: String)
+
+  object ExternalCall {
+    val ldapBind = "ldap_bind"
+    val ldapSearch = "ldap_search"
+    val externalAuthentication = "external_authentication"
+    val externalGroupsProvider = "external_groups_provider"
+    val httpQueueTime = "http_queue_time"
+  }
+
+  final case class LdapBindPoolStats(
+      inFlight: Int,
+      waiting: Int,
+      completed: Long,
+      rejected: Long,
+      totalWaitNanos: Long,
+      maxWaitNanos: Long
+  )
+
+  final case class Snapshot(
+      caches: Map[String, CacheCounters.Snapshot],
+      externalCalls: Map[ExternalCall, LatencyHistogram.Snapshot],
+      ldapBindPools: Map[String, LdapBindPoolStats]
+  )
+
+}
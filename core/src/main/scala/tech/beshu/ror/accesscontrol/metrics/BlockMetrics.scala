@@ -0,0 +1,87 @@
+/*
+ *    This file is part of ReadonlyREST.
+ *
+ *    ReadonlyREST is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    ReadonlyREST is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with ReadonlyREST.  If not, see http://www.gnu.org/licenses/
+ */
+package tech.beshu.ror.accesscontrol.metrics
+
+import tech.beshu.ror.accesscontrol.blocks.rules.Rule
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.LongAdder
+import scala.jdk.CollectionConverters.*
+
+/**
+ * How often a block is evaluated (and matched) or skipped, and how long the checks of its rules take. The metrics
+ * belong to the block, so to the ACL of one engine: the blocks of the main and the test settings engines never share
+ * them, and they are gone together with the engine (the admin metrics endpoint reads them from the current engines).
+ */
+final class BlockMetrics {
+
+  private val evaluated = new LongAdder
+  private val matched = new LongAdder
+  private val skipped = new LongAdder
+  private val rules = new ConcurrentHashMap[Rule.Name, LatencyHistogram]()
+
+  def recordEvaluated(isMatched: Boolean): Unit = {
+    evaluated.increment()
+    if (isMatched) matched.increment()
+  }
+
+  def recordSkipped(): Unit = skipped.increment()
+
+  def rule(name: Rule.Name): LatencyHistogram = rules.computeIfAbsent(name, _ => new LatencyHistogram)
+
+  // the metrics of one evaluation of the block are recorded only when its result is used (a speculative evaluation
+  // of the block may be thrown away)
+  def newEvaluation(): BlockMetrics.Evaluation = new BlockMetrics.Evaluation(this)
+
+  def snapshot: BlockMetrics.Snapshot = BlockMetrics.Snapshot(
+    evaluated = evaluated.sum(),
+    matched = matched.sum(),
+    skipped = skipped.sum(),
+    rules = rules.asScala.view.mapValues(_.snapshot).toMap
+  )
+}
+
+object BlockMetrics {
+
+  final class Evaluation private[BlockMetrics] (metrics: BlockMetrics) {
+
+    private var ruleChecks = List.empty[(LatencyHistogram, Long)]
+    private var outcomes = List.empty[Boolean]
+
+    def recordRuleCheck(latency: LatencyHistogram, nanos: Long): Unit = synchronized {
+      ruleChecks = (latency, nanos) :: ruleChecks
+    }
+
+    def recordEvaluated(isMatched: Boolean): Unit = synchronized {
+      outcomes = isMatched :: outcomes
+    }
+
+    def commit(): Unit = synchronized {
+      ruleChecks.foreach { case (latency, nanos) => latency.record(nanos) }
+      outcomes.foreach(metrics.recordEvaluated)
+      ruleChecks = Nil
+      outcomes = Nil
+    }
+  }
+
+  final case class Snapshot(
+      evaluated: Long,
+      matched: Long,
+      skipped: Long,
+      rules: Map[Rule.Name, LatencyHistogram.Snapshot]
+  )
+}
@@ -0,0 +1,117 @@
+/*
+ *    This file is part of ReadonlyREST.
+ *
+ *    ReadonlyREST is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    ReadonlyREST is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with ReadonlyREST.  If not, see http://www.gnu.org/licenses/
+ */
+package tech.beshu.ror.accesscontrol.metrics
+
+import monix.eval.Task
+
+import java.util.concurrent.atomic.{AtomicLong, AtomicLongArray}
+
+/**
+ * A lock-free, fixed-size histogram of latencies (in nanoseconds). The values are counted in log-linear buckets: each
+ * power of two is split into [[LatencyHistogram.subBuckets]] equal buckets, so a reported percentile is at most 12.5%
+ * above the recorded value. Recording is a few atomic increments, so it can be done for every rule check.
+ */
+final class LatencyHistogram {
+
+  import LatencyHistogram.*
+
+  private val counts = new AtomicLongArray(bucketsCount)
+  private val totalCount = new AtomicLong(0)
+  private val totalNanos = new AtomicLong(0)
+  private val maxNanos = new AtomicLong(0)
+
+  def record(nanos: Long): Unit = {
+    val value = Math.max(nanos, 0L)
+    counts.incrementAndGet(bucketOf(value))
+    totalCount.incrementAndGet()
+    totalNanos.addAndGet(value)
+    maxNanos.accumulateAndGet(value, Math.max)
+  }
+
+  def timed[T](task: Task[T]): Task[T] = Task.defer {
+    val startedAt = System.nanoTime()
+    task.guarantee(Task.delay(record(System.nanoTime() - startedAt)))
+  }
+
+  def snapshot: Snapshot = {
+    val bucketCounts = Array.tabulate(bucketsCount)(counts.get)
+    val count = bucketCounts.sum
+    val max = maxNanos.get()
+    def percentile(p: Double): Long = {
+      val rank = Math.max(1L, Math.ceil(count * p).toLong)
+      var seen = 0L
+      var bucket = 0
+      while (bucket < bucketsCount - 1 && seen + bucketCounts(bucket) < rank) {
+        seen += bucketCounts(bucket)
+        bucket += 1
+      }
+      Math.min(upperBoundOf(bucket), max)
+    }
+    if (count == 0) Snapshot.empty
+    else
+      Snapshot(
+        count = count,
+        meanNanos = totalNanos.get() / Math.max(totalCount.get(), 1L),
+        p50Nanos = percentile(0.5),
+        p90Nanos = percentile(0.9),
+        p99Nanos = percentile(0.99),
+        maxNanos = max
+      )
+  }
+
+}
+
+object LatencyHistogram {
+
+  final case class Snapshot(
+      count: Long,
+      meanNanos: Long,
+      p50Nanos: Long,
+      p90Nanos: Long,
+      p99Nanos: Long,
+      maxNanos: Long
+  )
+
+  object Snapshot {
+    val empty: Snapshot = Snapshot(0, 0, 0, 0, 0, 0)
+  }
+
+  private val subBucketBits = 3
+  private[metrics] val subBuckets = 1 << subBucketBits
+  // values below `subBuckets` get a bucket each, then `subBuckets` buckets for each of the remaining powers of two
+  private val bucketsCount = subBuckets + (63 - subBucketBits) * subBuckets
+
+  private[metrics] def bucketOf(value: Long): Int = {
+    if (value < subBuckets) value.toInt
+    else {
+      val exponent = 63 - java.lang.Long.numberOfLeadingZeros(value)
+      val subBucket = (value >>> (exponent - subBucketBits)).toInt - subBuckets
+      subBuckets + (exponent - subBucketBits) * subBuckets + subBucket
+    }
+  }
+
+  private[metrics] def upperBoundOf(bucket: Int): Long = {
+    if (bucket < subBuckets) bucket.toLong
+    else {
+      val shift = (bucket - subBuckets) / subBuckets
+      val subBucket = (bucket - subBuckets) % subBuckets
+      val lowerBound = (subBuckets + subBucket).toLong << shift
+      lowerBound + (1L << shift) - 1
+    }
+  }
+
+}
@@ -26,7 +26,7 @@ import tech.beshu.ror.accesscontrol.domain.AuthorizationTokenDef.AllowedPrefix
 import tech.beshu.ror.accesscontrol.domain.AuthorizationTokenDef.AllowedPrefix.StrictlyDefined
 import tech.beshu.ror.accesscontrol.domain.AuthorizationTokenPrefix.bearer
 import tech.beshu.ror.accesscontrol.domain.GroupIdLike.GroupId
-import tech.beshu.ror.accesscontrol.matchers.PatternsMatcher
+import tech.beshu.ror.accesscontrol.matchers.ActionsMatcher
 import tech.beshu.ror.accesscontrol.request.RequestContext.AuthorizationTokenRetrievingError.{
   InvalidValue,
   MissingHeader
@@ -74,7 +74,7 @@ trait RequestContext {
   def esServices: EsServices
 
   lazy val isReadOnlyRequest: Boolean =
-    RequestContext.readActionPatternsMatcher.`match`(action)
+    RequestContext.readActionsMatcher.`match`(action)
 
   // Computed once per request: Base64-decoding the credentials per block would be redundant.
   lazy val basicAuth: Option[BasicAuth] = {
@@ -147,7 +147,7 @@ object RequestContext extends RequestIdAwareLogging {
 
   }
 
-  private val readActionPatternsMatcher: PatternsMatcher[Action] = PatternsMatcher.create {
+  private val readActionsMatcher: ActionsMatcher = ActionsMatcher.create {
     Set(
       RorAction.RorUserMetadataAction.value,
       "cluster:monitor/*",
@@ -20,6 +20,8 @@ import com.github.benmanes.caffeine.cache.{Cache, Caffeine, RemovalCause}
 import monix.catnap.Semaphore
 import monix.eval.Task
 import tech.beshu.ror.accesscontrol.domain.RequestId
+import tech.beshu.ror.accesscontrol.metrics.AclMetrics
+import tech.beshu.ror.accesscontrol.utils.AsyncCacheableActionWithKeyMapping.unnamedCache
 import tech.beshu.ror.utils.AccessControllerHelper.doPrivileged
 import tech.beshu.ror.utils.RefinedUtils.PositiveFiniteDuration
 
@@ -35,10 +37,14 @@ class AsyncCacheableAction[K, V](ttl: Option[PositiveFiniteDuration], action: (K
   def this(ttl: PositiveFiniteDuration, action: (K, RequestId) => Task[V]) = this(Some(ttl), action)
 }
 
+/**
+ * The hits and misses (the `action` calls) are counted in [[AclMetrics]] under the `cacheName`.
+ */
 class AsyncCacheableActionWithKeyMapping[K, K1, V](
     ttl: Option[PositiveFiniteDuration],
     action: (K, RequestId) => Task[V],
-    keyMap: K => K1
+    keyMap: K => K1,
+    cacheName: String = unnamedCache
 ) {
 
   def this(action: (K, RequestId) => Task[V], keyMap: K => K1) = this(None, action, keyMap)
@@ -49,6 +55,7 @@ class AsyncCacheableActionWithKeyMapping[K, K1, V](
   import CacheableActionCaffeineOps.*
 
   private val keySemaphoresMap = new ConcurrentHashMap[K1, Semaphore[Task]]()
+  private val metrics = AclMetrics.cache(cacheName)
 
   private val cache: Cache[K1, V] =
     doPrivileged {
@@ -65,8 +72,10 @@ class AsyncCacheableActionWithKeyMapping[K, K1, V](
   ): Task[V] = Task.defer {
     val mappedKey = keyMap(key)
     Option(cache.getIfPresent(mappedKey)) match {
-      case Some(value) => Task.now(value)
-      case None        =>
+      case Some(value) =>
+        metrics.recordHit()
+        Task.now(value)
+      case None =>
         semaphoreOf(mappedKey).flatMap { semaphore =>
           semaphore.withPermit {
             getFromCacheOrRunAction(key, mappedKey).uncancelable.asyncBoundary
@@ -80,8 +89,10 @@ class AsyncCacheableActionWithKeyMapping[K, K1, V](
   ): Task[V] = Task.defer {
     Option(cache.getIfPresent(mappedKey)) match {
       case Some(value) =>
+        metrics.recordHit()
         Task.now(value)
       case None =>
+        metrics.recordMiss()
         action(key, requestId).map { value =>
           cache.put(mappedKey, value)
           value
@@ -89,6 +100,10 @@ class AsyncCacheableActionWithKeyMapping[K, K1, V](
     }
   }
 
+  def put(key: K, value: V): Unit = {
+    cache.put(keyMap(key), value)
+  }
+
   def invalidateAll(): Unit = {
     cache.invalidateAll()
     keySemaphoresMap.clear()
@@ -110,14 +125,22 @@ class AsyncCacheableActionWithKeyMapping[K, K1, V](
 
 }
 
-class AsyncCacheableActionWithTimeout[K, V](ttl: PositiveFiniteDuration, action: (K, RequestId) => Task[V])
-    extends AsyncCacheableActionWithKeyMappingAndTimeout[K, K, V](ttl, action, identity[K])
+object AsyncCacheableActionWithKeyMapping {
+  val unnamedCache = "unnamed"
+}
+
+class AsyncCacheableActionWithTimeout[K, V](
+    ttl: PositiveFiniteDuration,
+    action: (K, RequestId) => Task[V],
+    cacheName: String = unnamedCache
+) extends AsyncCacheableActionWithKeyMappingAndTimeout[K, K, V](ttl, action, identity[K], cacheName)
 
 class AsyncCacheableActionWithKeyMappingAndTimeout[K, K1, V](
     ttl: PositiveFiniteDuration,
     action: (K, RequestId) => Task[V],
-    keyMap: K => K1
-) extends AsyncCacheableActionWithKeyMapping[K, K1, V](Some(ttl), action, keyMap) {
+    keyMap: K => K1,
+    cacheName: String = unnamedCache
+) extends AsyncCacheableActionWithKeyMapping[K, K1, V](Some(ttl), action, keyMap, cacheName) {
 
   def call(key: K, requestTimeout: PositiveFiniteDuration)(
       implicit requestId: RequestId
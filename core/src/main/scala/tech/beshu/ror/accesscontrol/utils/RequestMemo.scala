@@ -0,0 +1,91 @@
+/*
+ *    This file is part of ReadonlyREST.
+ *
+ *    ReadonlyREST is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    ReadonlyREST is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with ReadonlyREST.  If not, see http://www.gnu.org/licenses/
+ */
+package tech.beshu.ror.accesscontrol.utils
+
+import monix.eval.Task
+
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Memo slots of the services decorated for a single request only (see `EsServices.withCaching`). Unlike the
+ * [[SyncCacheableAction]] and [[AsyncCacheableAction]], there is no Caffeine cache (no TTL and no eviction is needed
+ * for a request lifetime) - a slot is a field holding the first computed value and the keyed slots allocate their map
+ * on the first call only. So a request which never calls a decorated method pays only for its empty slot.
+ *
+ * As in the cacheable actions, the async results are kept only when the computation succeeds (a failed one is computed
+ * again on the next call).
+ */
+object RequestMemo {
+
+  final class SyncSlot[V] {
+
+    @volatile private var memoized: Option[V] = None
+
+    def getOrCompute(compute: => V): V = memoized match {
+      case Some(value) => value
+      case None        =>
+        synchronized {
+          memoized match {
+            case Some(value) => value
+            case None        =>
+              val value = compute
+              memoized = Some(value)
+              value
+          }
+        }
+    }
+  }
+
+  final class SyncKeyedSlot[K, V] {
+
+    private lazy val memoized = new ConcurrentHashMap[K, V]()
+
+    def getOrCompute(key: K)(compute: K => V): V =
+      memoized.computeIfAbsent(key, k => compute(k))
+  }
+
+  final class AsyncSlot[V] {
+
+    @volatile private var memoized: Option[Task[V]] = None
+
+    def getOrCompute(compute: => Task[V]): Task[V] = Task.defer {
+      memoized match {
+        case Some(task) => task
+        case None       =>
+          synchronized {
+            memoized match {
+              case Some(task) => task
+              case None       =>
+                val task = Task.defer(compute).memoizeOnSuccess
+                memoized = Some(task)
+                task
+            }
+          }
+      }
+    }
+  }
+
+  final class AsyncKeyedSlot[K, V] {
+
+    private lazy val memoized = new ConcurrentHashMap[K, Task[V]]()
+
+    def getOrCompute(key: K)(compute: K => Task[V]): Task[V] = Task.defer {
+      memoized.computeIfAbsent(key, k => Task.defer(compute(k)).memoizeOnSuccess)
+    }
+  }
+
+}
@@ -0,0 +1,107 @@
+/*
+ *    This file is part of ReadonlyREST.
+ *
+ *    ReadonlyREST is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    ReadonlyREST is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with ReadonlyREST.  If not, see http://www.gnu.org/licenses/
+ */
+package tech.beshu.ror.accesscontrol.utils
+
+import com.github.benmanes.caffeine.cache.{Cache, Caffeine, Expiry}
+import com.google.common.hash.{HashCode, Hashing}
+import eu.timepit.refined.api.Refined
+import eu.timepit.refined.numeric.NonNegative
+import tech.beshu.ror.accesscontrol.domain.Jwt
+import tech.beshu.ror.utils.AccessControllerHelper.doPrivileged
+import tech.beshu.ror.utils.RefinedUtils.nonNegativeInt
+
+import java.nio.charset.StandardCharsets
+import java.time.Clock
+import java.util.concurrent.TimeUnit
+import scala.concurrent.ExecutionContext.global
+
+/**
+ * Payloads of the JWT tokens which signature has already been verified, keyed by the SHA-256 digest of the token. An
+ * entry expires no later than the token's `exp` claim, so an expired token is always verified (and rejected) by the
+ * parser again. It's meant to be used per JWT definition, because the verification result depends on the definition's
+ * signature key.
+ */
+final class VerifiedJwtCache(maxSize: Int Refined NonNegative, clock: Clock = Clock.systemUTC()) {
+
+  private val cache: Option[Cache[HashCode, Jwt.Payload]] =
+    if (maxSize.value > 0) {
+      Some {
+        doPrivileged {
+          Caffeine
+            .newBuilder()
+            .executor(global)
+            .maximumSize(maxSize.value.toLong)
+            .expireAfter(new TokenExpiry(clock))
+            .build[HashCode, Jwt.Payload]()
+        }
+      }
+    } else {
+      None
+    }
+
+  def payloadOf[E](token: Jwt.Token)(verify: => Either[E, Jwt.Payload]): Either[E, Jwt.Payload] = {
+    cache match {
+      case None           => verify
+      case Some(payloads) =>
+        val key = Hashing.sha256().hashString(token.value.value, StandardCharsets.UTF_8)
+        Option(payloads.getIfPresent(key)) match {
+          case Some(payload) => Right(payload)
+          case None          =>
+            verify.map { payload =>
+              payloads.put(key, payload)
+              payload
+            }
+        }
+    }
+  }
+
+  def invalidateAll(): Unit = cache.foreach(_.invalidateAll())
+
+}
+
+object VerifiedJwtCache {
+
+  val defaultMaxSize: Int Refined NonNegative = nonNegativeInt(1000)
+
+  private class TokenExpiry(clock: Clock) extends Expiry[HashCode, Jwt.Payload] {
+
+    override def expireAfterCreate(key: HashCode, payload: Jwt.Payload, currentTime: Long): Long = {
+      Option(payload.claims.getExpiration) match {
+        case Some(expiration) =>
+          TimeUnit.MILLISECONDS.toNanos(Math.max(0L, expiration.getTime - clock.millis()))
+        case None =>
+          Long.MaxValue
+      }
+    }
+
+    override def expireAfterUpdate(
+        key: HashCode,
+        payload: Jwt.Payload,
+        currentTime: Long,
+        currentDuration: Long
+    ): Long = currentDuration
+
+    override def expireAfterRead(
+        key: HashCode,
+        payload: Jwt.Payload,
+        currentTime: Long,
+        currentDuration: Long
+    ): Long = currentDuration
+
+  }
+
+}
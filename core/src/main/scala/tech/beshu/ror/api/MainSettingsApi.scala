@@ -26,7 +26,10 @@ import tech.beshu.ror.accesscontrol.audit.AuditIndexSchema
 import tech.beshu.ror.accesscontrol.audit.AuditingTool.AuditOutputsConfig
 import tech.beshu.ror.accesscontrol.audit.AuditingTool.AuditSettings.AuditSink
 import tech.beshu.ror.accesscontrol.audit.AuditingTool.AuditSettings.AuditSink.Config
-import tech.beshu.ror.accesscontrol.domain.{AuditCluster, DataStreamName, IndexPattern, RequestId}
+import tech.beshu.ror.accesscontrol.audit.sink.QueuedAuditSink
+import tech.beshu.ror.accesscontrol.blocks.Block
+import tech.beshu.ror.accesscontrol.domain.{AuditCluster, DataStreamName, IndexPattern, RequestId, SinkName}
+import tech.beshu.ror.accesscontrol.metrics.{AclMetrics, BlockMetrics, LatencyHistogram}
 import tech.beshu.ror.accesscontrol.request.RequestContext.Method
 import tech.beshu.ror.api.MainSettingsApi.*
 import tech.beshu.ror.api.MainSettingsApi.MainSettingsRequest.Type
@@ -66,6 +69,7 @@ class MainSettingsApi(
       case Type.ProvideIndexSettings           => provideRorIndexSettings()
       case Type.ProvideFileSettings            => provideRorFileSettings()
       case Type.UpdateIndexSettings            => updateRorIndexSettings(request.body)
+      case Type.ProvideMetrics                 => provideMetrics()
     }
     settingsResponse
       .executeOn(RorSchedulers.restApiScheduler)
@@ -78,7 +82,7 @@ class MainSettingsApi(
       case None                                             => List.empty
     }
     val auditOutputs = sinks.flatMap {
-      case AuditSink.Enabled(_, config) =>
+      case AuditSink.Enabled(_, config, _) =>
         config match {
           case Config.EsIndexBasedSink(logSerializer, rorAuditIndexTemplate, AuditCluster.LocalAuditCluster) =>
             Some(LocalAuditIndex(rorAuditIndexTemplate.rorAuditIndexPattern, AuditIndexSchema.from(logSerializer)))
@@ -100,6 +104,15 @@ class MainSettingsApi(
     ProvideAuditSettings.AuditSettings(auditOutputs)
   }
 
+  private def provideMetrics(): Task[ProvideMetrics] = Task.delay {
+    ProvideMetrics.Metrics(
+      snapshot = AclMetrics.snapshot,
+      blocks = rorInstance.mainEngineBlocksMetrics,
+      testSettingsBlocks = rorInstance.testEngineBlocksMetrics,
+      auditSinks = rorInstance.auditSinksStats
+    )
+  }
+
   private def forceReloadRor()(
       implicit requestId: RequestId
   ): Task[MainSettingsResponse] = {
@@ -215,6 +228,7 @@ object MainSettingsApi {
       case object ProvideFileSettings extends Type
       case object UpdateIndexSettings extends Type
       case object FetchCurrentAuditConfiguration extends Type
+      case object ProvideMetrics extends Type
     }
 
     def from(uri: String, method: Method): MainSettingsRequest.Type = {
@@ -229,6 +243,8 @@ object MainSettingsApi {
           MainSettingsApi.MainSettingsRequest.Type.FetchCurrentAuditConfiguration
         case (constants.UPDATE_INDEX_SETTINGS_PATH, Method.POST) =>
           MainSettingsApi.MainSettingsRequest.Type.UpdateIndexSettings
+        case (constants.PROVIDE_METRICS_PATH, Method.GET) =>
+          MainSettingsApi.MainSettingsRequest.Type.ProvideMetrics
         case (unknownUri, unknownMethod) =>
           throw new IllegalStateException(s"Unknown request: $unknownMethod $unknownUri")
       }
@@ -276,6 +292,17 @@ object MainSettingsApi {
       final case class Failure(message: String) extends ProvideFileMainSettings
     }
 
+    sealed trait ProvideMetrics extends MainSettingsResponse
+
+    object ProvideMetrics {
+      final case class Metrics(
+          snapshot: AclMetrics.Snapshot,
+          blocks: Map[Block.Name, BlockMetrics.Snapshot],
+          testSettingsBlocks: Map[Block.Name, BlockMetrics.Snapshot],
+          auditSinks: Map[SinkName, QueuedAuditSink.Stats]
+      ) extends ProvideMetrics
+    }
+
     sealed trait UpdateIndexMainSettings extends MainSettingsResponse
 
     object UpdateIndexMainSettings {
@@ -305,6 +332,7 @@ object MainSettingsApi {
       case _: ProvideFileMainSettings.Failure               => "ko"
       case _: UpdateIndexMainSettings.Success               => "ok"
       case _: UpdateIndexMainSettings.Failure               => "ko"
+      case _: ProvideMetrics.Metrics                        => "ok"
       case failure: MainSettingsResponse.Failure            =>
         failure match {
           case Failure.BadRequest(_) => "ko"
@@ -352,6 +380,10 @@ object MainSettingsApi {
               addResponseJson(builder, response.status, auditOutputs)
             case ProvideAuditSettings.Failure(message) => addResponseJson(builder, response.status, message)
           }
+        case provideMetrics: MainSettingsResponse.ProvideMetrics =>
+          provideMetrics match {
+            case metrics: ProvideMetrics.Metrics => addResponseJson(builder, response.status, metrics)
+          }
         case updateIndexSettings: MainSettingsResponse.UpdateIndexMainSettings =>
           updateIndexSettings match {
             case UpdateIndexMainSettings.Success(message) => addResponseJson(builder, response.status, message)
@@ -370,6 +402,7 @@ object MainSettingsApi {
         case _: ProvideIndexMainSettings => MainSettingsApiResponseStatus.Ok
         case _: ProvideFileMainSettings  => MainSettingsApiResponseStatus.Ok
         case _: ProvideAuditSettings     => MainSettingsApiResponseStatus.Ok
+        case _: ProvideMetrics           => MainSettingsApiResponseStatus.Ok
         case _: UpdateIndexMainSettings  => MainSettingsApiResponseStatus.Ok
         case failure: Failure            =>
           failure match {
@@ -423,6 +456,80 @@ object MainSettingsApi {
     )
   }
 
+  private def addResponseJson(
+      builder: EsXContentBuilder,
+      status: String,
+      response: MainSettingsResponse.ProvideMetrics.Metrics
+  ): Unit = {
+    val metrics = response.snapshot
+    builder.build(
+      Json
+        .obj(
+          "status" -> status.asJson,
+          "blocks" -> blocksJson(response.blocks),
+          "test_settings_blocks" -> blocksJson(response.testSettingsBlocks),
+          "caches" -> Json.obj(metrics.caches.toList.sortBy(_._1).map { case (name, counters) =>
+            name -> Json.obj(
+              "hits" -> counters.hits.asJson,
+              "misses" -> counters.misses.asJson,
+              "hit_ratio" -> counters.hitRatio.asJson,
+            )
+          }*),
+          "external_calls" -> Json.obj(metrics.externalCalls.toList.groupBy(_._1.kind).toList.sortBy(_._1).map {
+            case (kind, calls) =>
+              kind -> Json.obj(calls.sortBy(_._1.service).map { case (call, latency) =>
+                call.service -> latencyJson(latency)
+              }*)
+          }*),
+          "ldap_bind_pools" -> Json.obj(metrics.ldapBindPools.toList.sortBy(_._1).map { case (name, stats) =>
+            name -> Json.obj(
+              "in_flight" -> stats.inFlight.asJson,
+              "waiting" -> stats.waiting.asJson,
+              "completed" -> stats.completed.asJson,
+              "rejected" -> stats.rejected.asJson,
+              "total_wait_us" -> (stats.totalWaitNanos / 1000).asJson,
+              "max_wait_us" -> (stats.maxWaitNanos / 1000).asJson,
+            )
+          }*),
+          "audit_sinks" -> Json.obj(response.auditSinks.toList.sortBy(_._1.value).map { case (name, stats) =>
+            name.value -> Json.obj(
+              "queued" -> stats.queued.asJson,
+              "dropped" -> stats.dropped.asJson,
+              "flushed" -> stats.flushed.asJson,
+              "pending" -> stats.pending.asJson,
+            )
+          }*),
+        )
+        .toJava
+        .asInstanceOf[java.util.Map[String, Any]]
+    )
+  }
+
+  private def blocksJson(blocks: Map[Block.Name, BlockMetrics.Snapshot]): Json = {
+    Json.obj(blocks.toList.sortBy(_._1.value).map { case (name, metrics) =>
+      name.value -> Json.obj(
+        "evaluated" -> metrics.evaluated.asJson,
+        "matched" -> metrics.matched.asJson,
+        "skipped" -> metrics.skipped.asJson,
+        "rules" -> Json.obj(metrics.rules.toList.sortBy(_._1.value).map { case (ruleName, latency) =>
+          ruleName.value -> latencyJson(latency)
+        }*),
+      )
+    }*)
+  }
+
+  private def latencyJson(latency: LatencyHistogram.Snapshot): Json = {
+    def micros(nanos: Long) = (nanos / 1000).asJson
+    Json.obj(
+      "count" -> latency.count.asJson,
+      "mean_us" -> micros(latency.meanNanos),
+      "p50_us" -> micros(latency.p50Nanos),
+      "p90_us" -> micros(latency.p90Nanos),
+      "p99_us" -> micros(latency.p99Nanos),
+      "max_us" -> micros(latency.maxNanos),
+    )
+  }
+
   private implicit val schemaEncoder: Encoder[AuditIndexSchema] = {
     Encoder.encodeString.contramap {
       case AuditIndexSchema.RorDefault => "rorDefault"
@@ -19,20 +19,23 @@ package tech.beshu.ror.boot
 import cats.data.{EitherT, NonEmptyList}
 import monix.eval.Task
 import monix.execution.Scheduler
-import monix.execution.atomic.AtomicBoolean
+import monix.execution.atomic.{AtomicBoolean, AtomicInt}
 import tech.beshu.ror.SystemContext
 import tech.beshu.ror.accesscontrol.audit.AuditingTool.AuditingConfig
-import tech.beshu.ror.accesscontrol.audit.sink.AuditSinkServiceCreator
+import tech.beshu.ror.accesscontrol.audit.sink.{AuditSinkServiceCreator, QueuedAuditSink}
 import tech.beshu.ror.accesscontrol.audit.{AuditingTool, LoggingContext}
+import tech.beshu.ror.accesscontrol.blocks.Block
 import tech.beshu.ror.accesscontrol.blocks.definitions.ldap.implementations.UnboundidLdapConnectionPoolProvider
 import tech.beshu.ror.accesscontrol.blocks.mocks.{AuthServicesMocks, MutableMocksProviderWithCachePerRequest}
-import tech.beshu.ror.accesscontrol.domain.{RequestId, RorSettingsIndex}
+import tech.beshu.ror.accesscontrol.domain.{RequestId, RorSettingsIndex, SinkName}
 import tech.beshu.ror.accesscontrol.factory.GlobalSettings.FlsEngine
 import tech.beshu.ror.accesscontrol.factory.RawRorSettingsBasedCoreFactory.CoreCreationError
 import tech.beshu.ror.accesscontrol.factory.RawRorSettingsBasedCoreFactory.CoreCreationError.Reason
 import tech.beshu.ror.accesscontrol.factory.RawRorSettingsBasedCoreFactory.CoreCreationError.Reason.Message
+import tech.beshu.ror.accesscontrol.factory.decoders.definitions.ReusableDefinitions
 import tech.beshu.ror.accesscontrol.factory.{Core, CoreFactory, HttpClientsFactory, RawRorSettingsBasedCoreFactory}
 import tech.beshu.ror.accesscontrol.logging.AccessControlListLoggingDecorator
+import tech.beshu.ror.accesscontrol.metrics.BlockMetrics
 import tech.beshu.ror.boot.ReadonlyRest.*
 import tech.beshu.ror.es.EsEnv
 import tech.beshu.ror.es.services.IndexDocumentManager
@@ -193,10 +196,22 @@ class ReadonlyRest(
     }
   }
 
-  private[ror] def loadRorEngine(settings: RawRorSettings, settingsIndex: RorSettingsIndex)(
+  private[ror] def loadRorEngine(
+      settings: RawRorSettings,
+      settingsIndex: RorSettingsIndex,
+      previousEngine: Option[Engine] = None
+  )(
       implicit requestId: RequestId
-  ): Task[Either[StartingFailure, Engine]] = {
+  ): Task[Either[StartingFailure, Engine]] = Task.defer {
     val engineResources = EngineResources.create()
+    // the resources of the previous engine's definitions are retained, so they are not released when the previous
+    // engine is stopped in the meantime. The ones which are not used by the new engine are released after its creation
+    val reusableOwners = previousEngine.toList.flatMap(_.definitions.owners).filter(_.retain()).toSet
+    val reusableDefinitions = previousEngine match {
+      case Some(engine) => engine.definitions.basedOn(engineResources, reusableOwners)
+      case None         => ReusableDefinitions.empty(engineResources)
+    }
+    val releaseAllResources = releaseResources(reusableOwners + engineResources)
 
     EitherT(
       coreFactory
@@ -205,10 +220,11 @@ class ReadonlyRest(
           settingsIndex,
           engineResources.httpClientsFactory,
           engineResources.ldapConnectionPoolProvider,
-          authServicesMocksProvider
+          authServicesMocksProvider,
+          reusableDefinitions
         )
     )
-      .flatMap(core => createEngine(engineResources, core))
+      .flatMap(core => createEngine(engineResources, reusableDefinitions, core))
       .semiflatTap { engine =>
         Task(inspectFlsEngine(engine))
       }
@@ -217,25 +233,51 @@ class ReadonlyRest(
       // when no engine is created, nobody takes over the ownership of the resources, so they have to be released here -
       // otherwise each starting attempt would leak an HTTP client and an LDAP connection pool
       .flatMap {
-        case result @ Right(_) => Task.now(result)
-        case result @ Left(_)  => engineResources.release().map(_ => result)
+        case result @ Right(_) =>
+          logReusedDefinitions(reusableDefinitions, previousEngine)
+          releaseResources(reusableOwners -- reusableDefinitions.reusedOwners).attempt.uncancelable.map(_ => result)
+        case result @ Left(_) =>
+          releaseAllResources.map(_ => result)
       }
       .onErrorHandleWith { ex =>
-        engineResources.release().flatMap(_ => Task.raiseError(ex))
+        releaseAllResources.flatMap(_ => Task.raiseError(ex))
       }
-      .doOnCancel(engineResources.release())
+      .doOnCancel(releaseAllResources)
+  }
+
+  private def releaseResources(resources: Set[EngineResources]) = {
+    Task.parSequenceUnordered(resources.toList.map(_.release())).void
+  }
+
+  private def logReusedDefinitions(
+      definitions: ReusableDefinitions[EngineResources],
+      previousEngine: Option[Engine]
+  )(
+      implicit requestId: RequestId
+  ): Unit = {
+    if (previousEngine.isDefined) {
+      logger.info(
+        s"Definitions taken over from the previous engine: ${definitions.reusedCount.show} of ${definitions.count.show}"
+      )
+    }
   }
 
   private def createEngine(
       engineResources: EngineResources,
+      definitions: ReusableDefinitions[EngineResources],
       core: Core
   ): EitherT[Task, NonEmptyList[CoreCreationError], Engine] = {
     implicit val loggingContext: LoggingContext = LoggingContext(core.accessControl.staticContext.obfuscatedHeaders)
     EitherT(createAuditingTool(core.auditingConfig))
       .map { auditingTool =>
+        val blocks = List.newBuilder[Block]
         val decoratedCore = Core(
           accessControl = new AccessControlListLoggingDecorator(
-            underlying = core.accessControl.withBlockTransformation(_.withResolvedAuditSinks(auditingTool.sinks)),
+            underlying = core.accessControl.withBlockTransformation { block =>
+              val blockWithAuditSinks = block.withResolvedAuditSinks(auditingTool.sinks)
+              blocks += blockWithAuditSinks
+              blockWithAuditSinks
+            },
             auditingTool = auditingTool
           ),
           dependencies = core.dependencies,
@@ -244,7 +286,9 @@ class ReadonlyRest(
         new Engine(
           core = decoratedCore,
           engineResources = engineResources,
-          auditingTool = auditingTool
+          definitions = definitions,
+          auditingTool = auditingTool,
+          blocks = blocks.result()
         )
       }
   }
@@ -313,15 +357,25 @@ object ReadonlyRest {
     final case class Expiration(ttl: PositiveFiniteDuration, validTo: Instant)
   }
 
-  private[boot] final class EngineResources private (
+  private[ror] final class EngineResources private (
       val httpClientsFactory: HttpClientsFactory,
       val ldapConnectionPoolProvider: UnboundidLdapConnectionPoolProvider
   ) {
 
-    private val released = AtomicBoolean(false)
+    // the engine which created the resources and the engines which took over definitions created with them
+    private val holders = AtomicInt(1)
+
+    def retain(): Boolean = holders.transformAndExtract {
+      case 0       => (false, 0)
+      case current => (true, current + 1)
+    }
 
     def release(): Task[Unit] = Task.defer {
-      if (released.compareAndSet(expect = false, update = true)) {
+      val isLastHolder = holders.transformAndExtract {
+        case 0       => (false, 0)
+        case current => (current == 1, current - 1)
+      }
+      if (isLastHolder) {
         httpClientsFactory
           .shutdown()
           .flatMap(_ => ldapConnectionPoolProvider.close())
@@ -332,26 +386,42 @@ object ReadonlyRest {
 
   }
 
-  private[boot] object EngineResources {
+  private[ror] object EngineResources {
 
-    def create(): EngineResources = new EngineResources(
+    def create(): EngineResources = create(
       httpClientsFactory = HttpClientsFactory.default(),
       ldapConnectionPoolProvider = new UnboundidLdapConnectionPoolProvider
     )
 
+    def create(
+        httpClientsFactory: HttpClientsFactory,
+        ldapConnectionPoolProvider: UnboundidLdapConnectionPoolProvider
+    ): EngineResources = new EngineResources(httpClientsFactory, ldapConnectionPoolProvider)
+
   }
 
   final class Engine private[boot] (
       val core: Core,
       engineResources: EngineResources,
-      auditingTool: AuditingTool
+      private[boot] val definitions: ReusableDefinitions[EngineResources],
+      auditingTool: AuditingTool,
+      blocks: List[Block]
   )(
       implicit scheduler: Scheduler
   ) {
 
+    private val isShutDown = AtomicBoolean(false)
+
+    private[ror] def blocksMetrics: Map[Block.Name, BlockMetrics.Snapshot] =
+      blocks.map(block => block.name -> block.metrics.snapshot).toMap
+
+    private[ror] def auditSinksStats: Map[SinkName, QueuedAuditSink.Stats] = auditingTool.queuedSinksStats
+
     private[ror] def shutdown(): Unit = {
-      engineResources.release().runAsyncAndForget
-      auditingTool.close().runAsyncAndForget
+      if (isShutDown.compareAndSet(expect = false, update = true)) {
+        (definitions.reusedOwners + engineResources).foreach(_.release().runAsyncAndForget)
+        auditingTool.close().runAsyncAndForget
+      }
     }
 
   }
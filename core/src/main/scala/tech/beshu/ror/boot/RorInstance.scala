@@ -22,15 +22,20 @@ import monix.catnap.Semaphore
 import monix.eval.Task
 import tech.beshu.ror.SystemContext
 import tech.beshu.ror.accesscontrol.audit.AuditingTool
+import tech.beshu.ror.accesscontrol.audit.sink.QueuedAuditSink
+import tech.beshu.ror.accesscontrol.blocks.Block
 import tech.beshu.ror.accesscontrol.blocks.mocks.{AuthServicesMocks, MocksProvider}
-import tech.beshu.ror.accesscontrol.domain.RequestId
+import tech.beshu.ror.accesscontrol.domain.{RequestId, SinkName}
 import tech.beshu.ror.accesscontrol.factory.RorDependencies
+import tech.beshu.ror.accesscontrol.metrics.BlockMetrics
 import tech.beshu.ror.api.{AuthMockApi, MainSettingsApi, TestSettingsApi}
 import tech.beshu.ror.boot.ReadonlyRest.StartingFailure
 import tech.beshu.ror.boot.engines.Engines
+import tech.beshu.ror.es.services.IndexDocumentManager.DocumentVersion
 import tech.beshu.ror.settings.es.RorCoreSettingsLoadingStrategy.CoreRefreshSettings
 import tech.beshu.ror.settings.es.{EsConfigBasedRorSettings, RorCoreSettingsLoadingStrategy}
 import tech.beshu.ror.settings.ror.source.IndexSettingsSource
+import tech.beshu.ror.settings.ror.source.IndexSettingsSource.IndexSettingsLoadingError
 import tech.beshu.ror.settings.ror.source.ReadOnlySettingsSource.SettingsLoadingError
 import tech.beshu.ror.settings.ror.source.ReadWriteSettingsSource.SettingsSavingError
 import tech.beshu.ror.settings.ror.{MainRorSettings, RawRorSettings}
@@ -57,8 +62,10 @@ class RorInstance private (
   import creators.*
 
   private val settingsAutoReloader = mode match {
-    case Mode.WithPeriodicIndexCheck(interval) => new EnabledRorSettingsAutoReloader(interval, this)
-    case Mode.NoPeriodicIndexCheck             => DisabledRorSettingsAutoReloader
+    case Mode.WithPeriodicIndexCheck(interval, versionCheck) =>
+      new EnabledRorSettingsAutoReloader(interval, versionCheck, this)
+    case Mode.NoPeriodicIndexCheck =>
+      DisabledRorSettingsAutoReloader
   }
 
   private val theMainSettingsEngine = mainSettingsBasedReloadableEngineCreator.create(
@@ -130,6 +137,18 @@ class RorInstance private (
     theMainSettingsEngine.engine.flatMap(_.core.auditingConfig.outputsConfig)
   }
 
+  def mainEngineBlocksMetrics: Map[Block.Name, BlockMetrics.Snapshot] = {
+    theMainSettingsEngine.engine.map(_.blocksMetrics).getOrElse(Map.empty)
+  }
+
+  def testEngineBlocksMetrics: Map[Block.Name, BlockMetrics.Snapshot] = {
+    theTestSettingsEngine.engine.map(_.blocksMetrics).getOrElse(Map.empty)
+  }
+
+  def auditSinksStats: Map[SinkName, QueuedAuditSink.Stats] = {
+    theMainSettingsEngine.engine.map(_.auditSinksStats).getOrElse(Map.empty)
+  }
+
   def stop(): Task[Unit] = {
     implicit val requestId: RequestId = RequestId("ES sigterm")
     for {
@@ -158,6 +177,16 @@ class RorInstance private (
     }
   }
 
+  private[boot] def mainSettingsDocumentVersion(
+      requestId: RequestId
+  ): Task[Either[IndexSettingsLoadingError, DocumentVersion]] =
+    theMainSettingsEngine.settingsDocumentVersion()(requestId)
+
+  private[boot] def testSettingsDocumentVersion(
+      requestId: RequestId
+  ): Task[Either[IndexSettingsLoadingError, DocumentVersion]] =
+    theTestSettingsEngine.settingsDocumentVersion()(requestId)
+
   private def withGuard(semaphore: Semaphore[Task])(action: => Task[Either[ScheduledReloadError, Unit]]) = {
     val criticalSection = Resource.make(semaphore.tryAcquire) {
       case true =>
@@ -207,9 +236,9 @@ object RorInstance {
         Mode.NoPeriodicIndexCheck
       case RorCoreSettingsLoadingStrategy.LoadFromIndexWithFileFallback(
             _,
-            CoreRefreshSettings.Enabled(refreshInterval)
+            CoreRefreshSettings.Enabled(refreshInterval, versionCheck)
           ) =>
-        Mode.WithPeriodicIndexCheck(refreshInterval)
+        Mode.WithPeriodicIndexCheck(refreshInterval, versionCheck)
     }
   }
 
@@ -278,7 +307,8 @@ object RorInstance {
   private sealed trait Mode
 
   private object Mode {
-    final case class WithPeriodicIndexCheck(reloadInterval: PositiveFiniteDuration) extends Mode
+    final case class WithPeriodicIndexCheck(reloadInterval: PositiveFiniteDuration, versionCheck: Boolean)
+        extends Mode
     case object NoPeriodicIndexCheck extends Mode
   }
 
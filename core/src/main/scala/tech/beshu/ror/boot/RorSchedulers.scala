@@ -18,7 +18,7 @@ package tech.beshu.ror.boot
 
 import monix.execution.Scheduler
 import monix.execution.Scheduler.global
-import monix.execution.schedulers.TracingScheduler
+import monix.execution.schedulers.{SchedulerService, TracingScheduler}
 import tech.beshu.ror.boot.SchedulerContextRestore.ContextRestoringScheduler
 
 object RorSchedulers {
@@ -50,6 +50,29 @@ object RorSchedulers {
     TracingScheduler(Scheduler.fixedPool("ror-rest-api-executor", 10))
   )
 
+  // serializes the audit events and submits them to the queued audit outputs, off the request path
+  val auditScheduler: Scheduler = new ContextRestoringScheduler(
+    TracingScheduler(Scheduler.fixedPool("ror-audit-worker", 2))
+  )
+
+  // runs the LDAP binds of a single LDAP connection pool (the UnboundID SDK has no asynchronous bind), so a slow LDAP
+  // server blocks neither the threads of the main scheduler, which evaluate the ACL for all requests, nor the binds to
+  // the other LDAP servers. It has to be closed together with the connection pool.
+  def ldapBindScheduler(poolName: String, threads: Int): ClosableScheduler =
+    new ClosableScheduler(Scheduler.fixedPool(s"ror-ldap-bind-$poolName", threads))
+
+  final class ClosableScheduler private[RorSchedulers] (underlying: SchedulerService) {
+    val scheduler: Scheduler = new ContextRestoringScheduler(TracingScheduler(underlying))
+
+    def close(): Unit = underlying.shutdown()
+  }
+
+  // resolves the hostnames of the `hosts`-like rules (the JVM resolver is blocking), so a slow DNS server doesn't block
+  // the threads of the main scheduler
+  val dnsResolvingScheduler: Scheduler = new ContextRestoringScheduler(
+    TracingScheduler(Scheduler.fixedPool("ror-dns-resolver", 8))
+  )
+
   private def getInt(name: String, default: String) = (try System.getProperty(name, default)
   catch {
     case _: SecurityException => default
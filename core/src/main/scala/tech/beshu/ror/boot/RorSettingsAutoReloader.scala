@@ -24,7 +24,9 @@ import tech.beshu.ror.SystemContext
 import tech.beshu.ror.accesscontrol.domain.RequestId
 import tech.beshu.ror.boot.RorInstance.ScheduledReloadError.{EngineReloadError, ReloadingInProgress}
 import tech.beshu.ror.boot.RorInstance.{IndexSettingsReloadError, RawSettingsReloadError, ScheduledReloadError}
+import tech.beshu.ror.es.services.IndexDocumentManager.DocumentVersion
 import tech.beshu.ror.implicits.*
+import tech.beshu.ror.settings.ror.source.IndexSettingsSource.IndexSettingsLoadingError
 import tech.beshu.ror.utils.RefinedUtils.PositiveFiniteDuration
 import tech.beshu.ror.utils.RequestIdAwareLogging
 
@@ -35,12 +37,23 @@ trait RorSettingsAutoReloader {
   def stop(): Task[Unit]
 }
 
-class EnabledRorSettingsAutoReloader(reloadInterval: PositiveFiniteDuration, instance: RorInstance)(
+/**
+ * With `versionCheck`, each poll fetches only the version of the settings document (no `_source`) and the engine is
+ * reloaded (so the whole document is fetched and decoded) only when the version differs from the one of the last
+ * successful reload (or the up-to-date check).
+ */
+class EnabledRorSettingsAutoReloader(
+    reloadInterval: PositiveFiniteDuration,
+    versionCheck: Boolean,
+    instance: RorInstance
+)(
     implicit systemContext: SystemContext
 ) extends RorSettingsAutoReloader
     with RequestIdAwareLogging {
 
   private val reloadTaskState: AtomicReference[ReloadTaskState] = new AtomicReference(ReloadTaskState.NotInitiated)
+  private val reloadedDocumentVersions: AtomicReference[Map[SettingsType, DocumentVersion]] =
+    new AtomicReference(Map.empty)
 
   override def start(): Unit = {
     noRequestIdLogger.info(s"[CLUSTERWIDE SETTINGS] Auto reloading of ReadonlyREST in-index settings enabled")
@@ -62,14 +75,63 @@ class EnabledRorSettingsAutoReloader(reloadInterval: PositiveFiniteDuration, ins
     val reloadTask = { (requestId: RequestId) =>
       Task.sequence {
         Seq(
-          instance.tryMainEngineReload(requestId).map(result => (SettingsType.Main, result)),
-          instance.tryTestEngineReload(requestId).map(result => (SettingsType.Test, result))
+          reloadIfChanged(
+            SettingsType.Main,
+            instance.mainSettingsDocumentVersion(requestId),
+            instance.tryMainEngineReload(requestId)
+          )(requestId).map(result => (SettingsType.Main, result)),
+          reloadIfChanged(
+            SettingsType.Test,
+            instance.testSettingsDocumentVersion(requestId),
+            instance.tryTestEngineReload(requestId)
+          )(requestId).map(result => (SettingsType.Test, result))
         )
       }
     }
     scheduleNextIfNotStopping(interval, reloadTask)
   }
 
+  private def reloadIfChanged(
+      settingsType: SettingsType,
+      documentVersion: Task[Either[IndexSettingsLoadingError, DocumentVersion]],
+      reload: Task[Either[ScheduledReloadError, Unit]]
+  )(
+      implicit requestId: RequestId
+  ): Task[Either[ScheduledReloadError, Unit]] = {
+    if (!versionCheck) {
+      reload
+    } else {
+      documentVersion.flatMap {
+        case Right(version) if reloadedDocumentVersions.get().get(settingsType).contains(version) =>
+          Task.delay {
+            logger.debug(
+              s"[CLUSTERWIDE SETTINGS][${requestId.show}] ${settingsType.show} settings document version unchanged. Nothing to reload."
+            )
+            Right(())
+          }
+        case Right(version) =>
+          reload.map { result =>
+            if (isSettled(result)) reloadedDocumentVersions.updateAndGet(_ + (settingsType -> version))
+            result
+          }
+        case Left(_) =>
+          // the reload loads the document once again and reports the problem (or handles the missing document)
+          Task
+            .delay(reloadedDocumentVersions.updateAndGet(_ - settingsType))
+            .flatMap(_ => reload)
+      }
+    }
+  }
+
+  private def isSettled(result: Either[ScheduledReloadError, Unit]) = result match {
+    case Right(()) =>
+      true
+    case Left(EngineReloadError(IndexSettingsReloadError.ReloadError(RawSettingsReloadError.SettingsUpToDate(_)))) =>
+      true
+    case Left(_) =>
+      false
+  }
+
   private def scheduleNextIfNotStopping(
       interval: PositiveFiniteDuration,
       reloadTask: RequestId => Task[Seq[(SettingsType, Either[ScheduledReloadError, Unit])]]
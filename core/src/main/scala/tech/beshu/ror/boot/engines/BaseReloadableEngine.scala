@@ -278,7 +278,8 @@ private[engines] abstract class BaseReloadableEngine(
   private def reloadWith(rorSettings: RawRorSettings, expiration: Option[UpdatedExpiration])(
       implicit requestId: RequestId
   ): EitherT[Task, RawSettingsReloadError, EngineWithSettings] = {
-    EitherT(boot.loadRorEngine(rorSettings, esConfigBasedRorSettings.settingsSource.settingsIndex))
+    // the definitions which didn't change (with their caches and connections) are taken over from the current engine
+    EitherT(boot.loadRorEngine(rorSettings, esConfigBasedRorSettings.settingsSource.settingsIndex, engine))
       .map { engine =>
         EngineWithSettings(
           engine = engine,
@@ -431,6 +432,8 @@ private[engines] abstract class BaseReloadableEngine(
       implicit requestId: RequestId
   ): Unit = {
     engineState.scheduledShutdownJob.foreach(_.cancel())
+    // the old engine is still able to handle in-flight requests, but there is no point in keeping its caches warm
+    invalidateCaches(engineState.engineWithSetting)
     systemContext.scheduler.scheduleOnce(delayOfOldEngineShutdown) {
       logger.info(
         s"ROR ${name.show} engine (id=${engineState.engineWithSetting.settings.hashString().show}) is being stopped early ..."
@@ -452,10 +455,16 @@ private[engines] abstract class BaseReloadableEngine(
   private def stop(engineWithSetting: EngineWithSettings)(
       implicit requestId: RequestId
   ): Unit = {
+    invalidateCaches(engineWithSetting)
     engineWithSetting.engine.shutdown()
     logger.info(s"ROR ${name.show} engine (id=${engineWithSetting.settings.hashString().show}) stopped!")
   }
 
+  private def invalidateCaches(engineWithSetting: EngineWithSettings): Unit = {
+    engineWithSetting.engine.core.dependencies.verifiedCredentialsCache.invalidateAll()
+    engineWithSetting.engine.core.dependencies.decisionsCache.invalidateAll()
+  }
+
   private def isStillValid(validTo: Instant) = {
     validTo
       .minusMillis(systemContext.clock.instant().toEpochMilli)
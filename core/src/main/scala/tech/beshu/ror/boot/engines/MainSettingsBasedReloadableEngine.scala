@@ -28,9 +28,11 @@ import tech.beshu.ror.boot.RorInstance.IndexSettingsReloadWithUpdateError.{Index
 import tech.beshu.ror.boot.RorInstance.RawSettingsReloadError.{ReloadingFailed, RorInstanceStopped, SettingsUpToDate}
 import tech.beshu.ror.boot.engines.BaseReloadableEngine.InitialEngine
 import tech.beshu.ror.boot.engines.SettingsHash.toSettingsHash
+import tech.beshu.ror.es.services.IndexDocumentManager.DocumentVersion
 import tech.beshu.ror.implicits.*
 import tech.beshu.ror.settings.es.EsConfigBasedRorSettings
 import tech.beshu.ror.settings.ror.MainRorSettings
+import tech.beshu.ror.settings.ror.source.IndexSettingsSource.IndexSettingsLoadingError
 import tech.beshu.ror.settings.ror.source.IndexSettingsSource.SavingError.CannotSaveSettings
 import tech.beshu.ror.settings.ror.source.ReadWriteSettingsSource.SettingsSavingError.SourceSpecificError
 import tech.beshu.ror.settings.ror.source.{IndexSettingsSource, MainSettingsIndexSource}
@@ -140,6 +142,11 @@ private[boot] class MainSettingsBasedReloadableEngine private (
     result.value
   }
 
+  private[boot] def settingsDocumentVersion()(
+      implicit requestId: RequestId
+  ): Task[Either[IndexSettingsLoadingError, DocumentVersion]] =
+    settingsSource.documentVersion()
+
   private def loadRorSettingFromIndex()(
       implicit requestId: RequestId
   ) = {
@@ -28,11 +28,12 @@ import tech.beshu.ror.boot.RorInstance.*
 import tech.beshu.ror.boot.RorInstance.IndexSettingsReloadWithUpdateError.{IndexSettingsSavingError, ReloadError}
 import tech.beshu.ror.boot.engines.BaseReloadableEngine.{EngineExpiration, EngineState, InitialEngine}
 import tech.beshu.ror.boot.engines.SettingsHash.*
+import tech.beshu.ror.es.services.IndexDocumentManager.DocumentVersion
 import tech.beshu.ror.implicits.*
 import tech.beshu.ror.settings.es.EsConfigBasedRorSettings
 import tech.beshu.ror.settings.ror.TestRorSettings.Expiration
 import tech.beshu.ror.settings.ror.source.IndexSettingsSource.SavingError.CannotSaveSettings
-import tech.beshu.ror.settings.ror.source.IndexSettingsSource.{LoadingError, SavingError}
+import tech.beshu.ror.settings.ror.source.IndexSettingsSource.{IndexSettingsLoadingError, LoadingError, SavingError}
 import tech.beshu.ror.settings.ror.source.ReadOnlySettingsSource.SettingsLoadingError
 import tech.beshu.ror.settings.ror.source.ReadWriteSettingsSource.SettingsSavingError
 import tech.beshu.ror.settings.ror.source.ReadWriteSettingsSource.SettingsSavingError.SourceSpecificError
@@ -236,6 +237,11 @@ private[boot] class TestSettingsBasedReloadableEngine private (
     }
   }
 
+  private[boot] def settingsDocumentVersion()(
+      implicit requestId: RequestId
+  ): Task[Either[IndexSettingsLoadingError, DocumentVersion]] =
+    testSettingsSource.documentVersion()
+
   private def loadTestSettings()(
       implicit requestId: RequestId
   ): EitherT[Task, IndexSettingsReloadError, Option[TestRorSettings]] = {
@@ -47,6 +47,7 @@ object constants {
   val PROVIDE_INDEX_SETTINGS_PATH = "/_readonlyrest/admin/config"
   val PROVIDE_FILE_SETTINGS_PATH = "/_readonlyrest/admin/config/file"
   val FETCH_CURRENT_AUDIT_CONFIGURATION_PATH = "/_readonlyrest/admin/config/audit"
+  val PROVIDE_METRICS_PATH = "/_readonlyrest/admin/metrics"
 
   val FIELDS_TRANSIENT = "_fields"
 
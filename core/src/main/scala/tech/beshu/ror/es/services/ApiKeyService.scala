@@ -18,7 +18,7 @@ package tech.beshu.ror.es.services
 
 import monix.eval.Task
 import tech.beshu.ror.accesscontrol.domain.{AuthorizationToken, RequestId}
-import tech.beshu.ror.accesscontrol.utils.AsyncCacheableAction
+import tech.beshu.ror.accesscontrol.utils.RequestMemo.AsyncKeyedSlot
 
 trait ApiKeyService {
 
@@ -30,13 +30,11 @@ trait ApiKeyService {
 
 class CacheableApiKeyServiceDecorator(underlying: ApiKeyService) extends ApiKeyService {
 
-  private lazy val cacheableValidateToken = new AsyncCacheableAction[AuthorizationToken, Boolean](
-    action = (token, requestId) => underlying.validateToken(token)(requestId)
-  )
+  private val validateTokenSlot = new AsyncKeyedSlot[AuthorizationToken, Boolean]
 
   override def validateToken(token: AuthorizationToken)(
       implicit requestId: RequestId
   ): Task[Boolean] =
-    cacheableValidateToken.call(token)
+    validateTokenSlot.getOrCompute(token)(underlying.validateToken(_))
 
 }
@@ -0,0 +1,196 @@
+/*
+ *    This file is part of ReadonlyREST.
+ *
+ *    ReadonlyREST is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    ReadonlyREST is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with ReadonlyREST.  If not, see http://www.gnu.org/licenses/
+ */
+package tech.beshu.ror.es.services
+
+import cats.data.NonEmptyList
+import com.github.benmanes.caffeine.cache.{Cache, Caffeine}
+import monix.eval.Task
+import tech.beshu.ror.accesscontrol.domain.DocumentAccessibility.{Accessible, Inaccessible}
+import tech.beshu.ror.accesscontrol.domain.{
+  ClusterIndexName,
+  DocumentAccessibility,
+  DocumentId,
+  DocumentVersion,
+  Filter,
+  RequestId
+}
+import tech.beshu.ror.es.services.DocumentAccessibilityVerifier.*
+import tech.beshu.ror.es.services.EsClusterService.{Document, DocumentsAccessibility, IndexUuid}
+import tech.beshu.ror.utils.AccessControllerHelper.doPrivileged
+
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.{ConcurrentHashMap, TimeUnit}
+import scala.collection.mutable
+import scala.concurrent.ExecutionContext.global
+import scala.concurrent.Promise
+import scala.concurrent.duration.*
+import scala.util.Try
+
+/**
+ * Verifies (for all requests of the node) if the documents returned by GET/MGET are matched by the DLS filter:
+ *  - the accessible documents are cached for a short time. Only the results of the documents with a known version
+ *    are cached - the key is the index UUID, the document ID, its sequence number and primary term, and the filter.
+ *    So, a modified document, or a document of a re-created index, is verified again. The inaccessible documents are
+ *    not cached - a document returned by the realtime GET before the refresh is not searchable yet (so it's not
+ *    matched by the filter), and it has to become visible as soon as it's refreshed.
+ *  - the single documents verified concurrently with the same filter (e.g. Kibana's saved objects reads) are
+ *    coalesced (within `batchWindow`) into one batch, verified with one multi-search. When no other document is
+ *    being verified, the batch is verified at once.
+ *
+ * `verifyBatch` returns accessibilities of the documents it was able to verify - the missing ones are treated as
+ * inaccessible.
+ */
+final class DocumentAccessibilityVerifier(
+    verifyBatch: (NonEmptyList[Document], Filter, RequestId) => Task[DocumentsAccessibility],
+    indexUuidOf: (ClusterIndexName, RequestId) => Option[IndexUuid],
+    batchWindow: FiniteDuration = defaultBatchWindow
+) {
+
+  private val cache: Cache[CacheKey, DocumentAccessibility] = doPrivileged {
+    Caffeine
+      .newBuilder()
+      .executor(global)
+      .expireAfterWrite(cacheTtl.toMillis, TimeUnit.MILLISECONDS)
+      .maximumSize(maxCachedResults)
+      .build[CacheKey, DocumentAccessibility]()
+  }
+
+  private val pendingBatches = new ConcurrentHashMap[Filter, Batch]()
+  private val verificationsInProgress = new AtomicInteger(0)
+
+  def verify(document: Document, filter: Filter)(
+      implicit requestId: RequestId
+  ): Task[DocumentAccessibility] = Task.defer {
+    cachedAccessibilityOf(document, filter) match {
+      case Some(accessibility) => Task.now(accessibility)
+      case None                =>
+        Task.delay(verificationsInProgress.incrementAndGet()) >>
+          verifyInBatch(document, filter)
+            .map(_.getOrElse(document, Inaccessible))
+            .guarantee(Task.delay(verificationsInProgress.decrementAndGet()).void)
+    }
+  }
+
+  def verifyAll(documents: NonEmptyList[Document], filter: Filter)(
+      implicit requestId: RequestId
+  ): Task[DocumentsAccessibility] = Task.defer {
+    val cached = documents.toList.flatMap(document => cachedAccessibilityOf(document, filter).map(document -> _)).toMap
+    NonEmptyList.fromList(documents.filterNot(cached.contains)) match {
+      case None           =>
+        Task.now(cached)
+      case Some(toVerify) =>
+        verifyBatch(toVerify, filter, requestId).map { verified =>
+          verified.foreach {
+            case (document, Accessible) => cacheKeyOf(document, filter).foreach(cache.put(_, Accessible))
+            case (_, Inaccessible)      => ()
+          }
+          cached ++ toVerify.toList.map(document => document -> verified.getOrElse(document, Inaccessible))
+        }
+    }
+  }
+
+  private def verifyInBatch(document: Document, filter: Filter)(
+      implicit requestId: RequestId
+  ): Task[DocumentsAccessibility] = Task.defer {
+    val batch = pendingBatches.computeIfAbsent(filter, _ => new Batch)
+    batch.add(document) match {
+      case Some(joined) =>
+        if (joined.batchSize >= maxBatchSize) pendingBatches.remove(filter, batch)
+        // the flush is started as a separate fiber, so it's done even if the leader's request is cancelled
+        val flushing =
+          if (joined.asLeader) flushAfterBatchWindow(batch, filter).startAndForget
+          else Task.unit
+        flushing.flatMap(_ => batch.result)
+      case None =>
+        // the batch is being flushed, so it's not pending anymore - the document goes to a new one
+        verifyInBatch(document, filter)
+    }
+  }
+
+  // there is nothing to wait for when no other document is being verified
+  private def flushAfterBatchWindow(batch: Batch, filter: Filter)(
+      implicit requestId: RequestId
+  ): Task[Unit] = Task.defer {
+    if (verificationsInProgress.get() > 1) Task.sleep(batchWindow).flatMap(_ => flush(batch, filter))
+    else flush(batch, filter)
+  }
+
+  private def flush(batch: Batch, filter: Filter)(
+      implicit requestId: RequestId
+  ): Task[Unit] = Task.defer {
+    pendingBatches.remove(filter, batch)
+    NonEmptyList.fromList(batch.close()) match {
+      case Some(documents) => verifyAll(documents, filter).materialize.map(batch.complete)
+      case None            => Task.unit
+    }
+  }
+
+  private def cachedAccessibilityOf(document: Document, filter: Filter)(
+      implicit requestId: RequestId
+  ): Option[DocumentAccessibility] =
+    cacheKeyOf(document, filter).flatMap(key => Option(cache.getIfPresent(key)))
+
+  private def cacheKeyOf(document: Document, filter: Filter)(
+      implicit requestId: RequestId
+  ): Option[CacheKey] =
+    for {
+      version <- document.version
+      indexUuid <- indexUuidOf(document.index, requestId)
+    } yield CacheKey(indexUuid, document.documentId, version, filter)
+}
+
+object DocumentAccessibilityVerifier {
+
+  private val defaultBatchWindow: FiniteDuration = 2.millis
+  private val maxBatchSize = 100
+  private val cacheTtl: FiniteDuration = 10.seconds
+  private val maxCachedResults = 100000L
+
+  private final case class CacheKey(
+      indexUuid: IndexUuid,
+      documentId: DocumentId,
+      version: DocumentVersion,
+      filter: Filter
+  )
+
+  private final class Batch {
+
+    private val documents = mutable.LinkedHashSet.empty[Document]
+    private var closed = false
+    private val promise = Promise[DocumentsAccessibility]()
+
+    val result: Task[DocumentsAccessibility] = Task.fromFuture(promise.future)
+
+    def add(document: Document): Option[Joined] = synchronized {
+      if (closed) None
+      else {
+        val asLeader = documents.isEmpty
+        documents += document
+        Some(Joined(asLeader, documents.size))
+      }
+    }
+
+    def close(): List[Document] = synchronized {
+      closed = true
+      documents.toList
+    }
+
+    def complete(accessibilities: Try[DocumentsAccessibility]): Unit = promise.complete(accessibilities)
+  }
+
+  private final case class Joined(asLeader: Boolean, batchSize: Int)
+}
@@ -25,8 +25,8 @@ import tech.beshu.ror.accesscontrol.domain.DataStreamName.{
   FullLocalDataStreamWithAliases,
   FullRemoteDataStreamWithAliases
 }
-import tech.beshu.ror.accesscontrol.matchers.PatternsMatcher
-import tech.beshu.ror.accesscontrol.utils.{AsyncCacheableAction, SyncCacheableAction}
+import tech.beshu.ror.accesscontrol.matchers.{PatternsMatcher, SortedNamesIndex}
+import tech.beshu.ror.accesscontrol.utils.RequestMemo.{AsyncKeyedSlot, AsyncSlot, SyncKeyedSlot, SyncSlot}
 import tech.beshu.ror.es.services.EsClusterService.*
 import tech.beshu.ror.syntax.*
 import tech.beshu.ror.utils.ScalaOps.drainToMap
@@ -63,6 +63,11 @@ trait EsClusterService {
       implicit id: RequestId
   ): LocalDataStreamsSnapshot = new LocalDataStreamsSnapshot(allDataStreamsAndAliases)
 
+  // version of the local cluster metadata (indices, aliases, data streams). None when it's not tracked
+  def localMetadataVersion(
+      implicit id: RequestId
+  ): Option[Long] = None
+
   def legacyTemplates(
       implicit id: RequestId
   ): Set[Template.LegacyTemplate]
@@ -94,7 +99,8 @@ trait EsClusterService {
   def expandLocalIndices(indices: Set[ClusterIndexName])(
       implicit id: RequestId
   ): Set[ClusterIndexName] = {
-    PatternsMatcher.create(indices).filter(localIndicesSnapshot.indicesAndAliases)
+    val matcher = PatternsMatcher.create(indices)
+    matcher.filter(localIndicesSnapshot.sortedIndicesAndAliasesFor(IndexAttributeFilter.All).candidatesFor(matcher))
   }
 
   protected[services] def allIndicesAndAliases(
@@ -139,6 +145,19 @@ object EsClusterService {
     private lazy val openedAliases = opened.flatMap(_.aliases)
     private lazy val closedAliases = closed.flatMap(_.aliases)
 
+    // sorted indexes are built lazily, only for the attribute filters the requests actually use
+    private lazy val sortedIndicesAndAliases = SortedNamesIndex.from(indicesAndAliases)
+    private lazy val sortedOpenedIndicesAndAliases = SortedNamesIndex.from(openedIndicesAndAliases)
+    private lazy val sortedClosedIndicesAndAliases = SortedNamesIndex.from(closedIndicesAndAliases)
+
+    private lazy val sortedIndices = SortedNamesIndex.from(indices)
+    private lazy val sortedOpenedIndices = SortedNamesIndex.from(openedIndices)
+    private lazy val sortedClosedIndices = SortedNamesIndex.from(closedIndices)
+
+    private lazy val sortedAliases = SortedNamesIndex.from(aliases)
+    private lazy val sortedOpenedAliases = SortedNamesIndex.from(openedAliases)
+    private lazy val sortedClosedAliases = SortedNamesIndex.from(closedAliases)
+
     private lazy val fullIndicesPerAliasMap = indicesPerAliasMapFrom(raw)
     private lazy val openedIndicesPerAliasMap = indicesPerAliasMapFrom(opened)
     private lazy val closedIndicesPerAliasMap = indicesPerAliasMapFrom(closed)
@@ -161,6 +180,25 @@ object EsClusterService {
       case IndexAttributeFilter.Closed => closedAliases
     }
 
+    def sortedIndicesAndAliasesFor(filteredBy: IndexAttributeFilter): SortedNamesIndex[LocalIndexName] =
+      filteredBy match {
+        case IndexAttributeFilter.All    => sortedIndicesAndAliases
+        case IndexAttributeFilter.Opened => sortedOpenedIndicesAndAliases
+        case IndexAttributeFilter.Closed => sortedClosedIndicesAndAliases
+      }
+
+    def sortedIndicesFor(filteredBy: IndexAttributeFilter): SortedNamesIndex[LocalIndexName] = filteredBy match {
+      case IndexAttributeFilter.All    => sortedIndices
+      case IndexAttributeFilter.Opened => sortedOpenedIndices
+      case IndexAttributeFilter.Closed => sortedClosedIndices
+    }
+
+    def sortedAliasesFor(filteredBy: IndexAttributeFilter): SortedNamesIndex[LocalIndexName] = filteredBy match {
+      case IndexAttributeFilter.All    => sortedAliases
+      case IndexAttributeFilter.Opened => sortedOpenedAliases
+      case IndexAttributeFilter.Closed => sortedClosedAliases
+    }
+
     def indicesPerAliasMapFor(filteredBy: IndexAttributeFilter): Map[LocalIndexName, Set[LocalIndexName]] =
       filteredBy match {
         case IndexAttributeFilter.All    => fullIndicesPerAliasMap
@@ -187,6 +225,11 @@ object EsClusterService {
     lazy val dataStreams: Set[LocalIndexName] = raw.map(_.dataStream)
     lazy val dataStreamAliases: Set[LocalIndexName] = raw.flatMap(_.aliases)
 
+    private lazy val sortedDataStreamsAndAliases = SortedNamesIndex.from(dataStreamsAndAliases)
+    private lazy val sortedDataStreams = SortedNamesIndex.from(dataStreams)
+    private lazy val sortedDataStreamAliases = SortedNamesIndex.from(dataStreamAliases)
+    private lazy val sortedNone = SortedNamesIndex.from(Set.empty[LocalIndexName])
+
     private lazy val fullDataStreamsPerAliasMap = dataStreamsPerAliasMapFrom(raw)
     private lazy val fullBackingIndicesPerDataStreamMap = backingIndicesPerDataStreamMapFrom(raw)
 
@@ -205,6 +248,23 @@ object EsClusterService {
       case _                           => dataStreamAliases
     }
 
+    def sortedDataStreamsAndAliasesFor(filteredBy: IndexAttributeFilter): SortedNamesIndex[LocalIndexName] =
+      filteredBy match {
+        case IndexAttributeFilter.Closed => sortedNone
+        case _                           => sortedDataStreamsAndAliases
+      }
+
+    def sortedDataStreamsFor(filteredBy: IndexAttributeFilter): SortedNamesIndex[LocalIndexName] = filteredBy match {
+      case IndexAttributeFilter.Closed => sortedNone
+      case _                           => sortedDataStreams
+    }
+
+    def sortedDataStreamAliasesFor(filteredBy: IndexAttributeFilter): SortedNamesIndex[LocalIndexName] =
+      filteredBy match {
+        case IndexAttributeFilter.Closed => sortedNone
+        case _                           => sortedDataStreamAliases
+      }
+
     def dataStreamsPerAliasMapFor(filteredBy: IndexAttributeFilter): Map[LocalIndexName, Set[LocalIndexName]] =
       filteredBy match {
         case IndexAttributeFilter.Closed => Map.empty
@@ -245,163 +305,121 @@ object EsClusterService {
 
 }
 
+/**
+ * Computes each of the underlying service results once per request (it's created for each request - see
+ * `EsServices.withCaching`).
+ */
 class CacheableEsClusterServiceDecorator(underlying: EsClusterService) extends EsClusterService {
 
-  private lazy val cacheableRemoteClustersConfigured = new SyncCacheableAction[Unit, Boolean](
-    action = (_, id) => underlying.remoteClustersConfigured(id)
-  )
-
-  private lazy val cacheableAllRemoteClusterNames = new SyncCacheableAction[Unit, Set[ClusterName.Full]](
-    action = (_, id) => underlying.allRemoteClusterNames(id)
-  )
-
-  private lazy val cacheableAllIndicesAndAliases = new SyncCacheableAction[Unit, Set[FullLocalIndexWithAliases]](
-    action = (_, id) => underlying.allIndicesAndAliases(id)
-  )
-
-  private lazy val cacheableAllDataStreamsAndAliases =
-    new SyncCacheableAction[Unit, Set[FullLocalDataStreamWithAliases]](
-      action = (_, id) => underlying.allDataStreamsAndAliases(id)
-    )
-
-  private lazy val cacheableLegacyTemplates = new SyncCacheableAction[Unit, Set[Template.LegacyTemplate]](
-    action = (_, id) => underlying.legacyTemplates(id)
-  )
-
-  private lazy val cacheableIndexTemplates = new SyncCacheableAction[Unit, Set[Template.IndexTemplate]](
-    action = (_, id) => underlying.indexTemplates(id)
-  )
-
-  private lazy val cacheableComponentTemplates = new SyncCacheableAction[Unit, Set[Template.ComponentTemplate]](
-    action = (_, id) => underlying.componentTemplates(id)
-  )
-
-  private lazy val cacheableIndexOrAliasUuids = new SyncCacheableAction[IndexOrAlias, Set[IndexUuid]](
-    action = (indexOrAlias, id) => underlying.indexOrAliasUuids(indexOrAlias)(id)
-  )
-
-  private lazy val cacheableLocalIndicesSnapshot = new SyncCacheableAction[Unit, LocalIndicesSnapshot](
-    action = (_, id) => underlying.localIndicesSnapshot(id)
-  )
-
-  private lazy val cacheableLocalDataStreamsSnapshot = new SyncCacheableAction[Unit, LocalDataStreamsSnapshot](
-    action = (_, id) => underlying.localDataStreamsSnapshot(id)
-  )
-
-  private lazy val cacheableAllSnapshots =
-    new SyncCacheableAction[Unit, Map[RepositoryName.Full, Task[Set[SnapshotName.Full]]]](
-      action = (_, id) => underlying.allSnapshots(id)
-    )
-
-  private lazy val cacheableAllRemoteIndicesAndAliases =
-    new AsyncCacheableAction[Unit, Set[FullRemoteIndexWithAliases]](
-      action = (_, requestId) => underlying.allRemoteIndicesAndAliases(requestId)
-    )
-
-  private lazy val cacheableAllRemoteDataStreamsAndAliases =
-    new AsyncCacheableAction[Unit, Set[FullRemoteDataStreamWithAliases]](
-      action = (_, requestId) => underlying.allRemoteDataStreamsAndAliases(requestId)
-    )
-
-  private lazy val cacheableSnapshotIndices =
-    new AsyncCacheableAction[(RepositoryName.Full, SnapshotName.Full), Set[ClusterIndexName]](
-      action = { case ((repoName, snapName), requestId) =>
-        underlying.snapshotIndices(repoName, snapName)(requestId)
-      }
-    )
-
-  private lazy val cacheableVerifyDocumentAccessibility =
-    new AsyncCacheableAction[(Document, Filter), DocumentAccessibility](
-      action = { case ((document, filter), requestId) =>
-        underlying.verifyDocumentAccessibility(document, filter)(requestId)
-      }
-    )
-
-  private lazy val cacheableVerifyDocumentsAccessibility =
-    new AsyncCacheableAction[(NonEmptyList[Document], Filter), DocumentsAccessibility](
-      action = { case ((documents, filter), requestId) =>
-        underlying.verifyDocumentsAccessibility(documents, filter)(requestId)
-      }
-    )
+  // lazy, because a request uses just a few of the slots
+  private lazy val remoteClustersConfiguredSlot = new SyncSlot[Boolean]
+  private lazy val allRemoteClusterNamesSlot = new SyncSlot[Set[ClusterName.Full]]
+  private lazy val allIndicesAndAliasesSlot = new SyncSlot[Set[FullLocalIndexWithAliases]]
+  private lazy val allDataStreamsAndAliasesSlot = new SyncSlot[Set[FullLocalDataStreamWithAliases]]
+  private lazy val legacyTemplatesSlot = new SyncSlot[Set[Template.LegacyTemplate]]
+  private lazy val indexTemplatesSlot = new SyncSlot[Set[Template.IndexTemplate]]
+  private lazy val componentTemplatesSlot = new SyncSlot[Set[Template.ComponentTemplate]]
+  private lazy val indexOrAliasUuidsSlot = new SyncKeyedSlot[IndexOrAlias, Set[IndexUuid]]
+  private lazy val localIndicesSnapshotSlot = new SyncSlot[LocalIndicesSnapshot]
+  private lazy val localDataStreamsSnapshotSlot = new SyncSlot[LocalDataStreamsSnapshot]
+  private lazy val allSnapshotsSlot = new SyncSlot[Map[RepositoryName.Full, Task[Set[SnapshotName.Full]]]]
+  private lazy val allRemoteIndicesAndAliasesSlot = new AsyncSlot[Set[FullRemoteIndexWithAliases]]
+  private lazy val allRemoteDataStreamsAndAliasesSlot = new AsyncSlot[Set[FullRemoteDataStreamWithAliases]]
+  private lazy val snapshotIndicesSlot =
+    new AsyncKeyedSlot[(RepositoryName.Full, SnapshotName.Full), Set[ClusterIndexName]]
+  private lazy val documentAccessibilitySlot = new AsyncKeyedSlot[(Document, Filter), DocumentAccessibility]
+  private lazy val documentsAccessibilitySlot =
+    new AsyncKeyedSlot[(NonEmptyList[Document], Filter), DocumentsAccessibility]
 
   override def remoteClustersConfigured(
       implicit id: RequestId
   ): Boolean =
-    cacheableRemoteClustersConfigured.call(())
+    remoteClustersConfiguredSlot.getOrCompute(underlying.remoteClustersConfigured)
 
   override def allRemoteClusterNames(
       implicit id: RequestId
   ): Set[ClusterName.Full] =
-    cacheableAllRemoteClusterNames.call(())
+    allRemoteClusterNamesSlot.getOrCompute(underlying.allRemoteClusterNames)
 
   override def indexOrAliasUuids(indexOrAlias: IndexOrAlias)(
       implicit id: RequestId
   ): Set[IndexUuid] =
-    cacheableIndexOrAliasUuids.call(indexOrAlias)
+    indexOrAliasUuidsSlot.getOrCompute(indexOrAlias)(underlying.indexOrAliasUuids(_))
 
   override def allRemoteIndicesAndAliases(
       implicit id: RequestId
   ): Task[Set[FullRemoteIndexWithAliases]] =
-    cacheableAllRemoteIndicesAndAliases.call(())
+    allRemoteIndicesAndAliasesSlot.getOrCompute(underlying.allRemoteIndicesAndAliases)
 
   override def localIndicesSnapshot(
       implicit id: RequestId
   ): LocalIndicesSnapshot =
-    cacheableLocalIndicesSnapshot.call(())
+    localIndicesSnapshotSlot.getOrCompute(underlying.localIndicesSnapshot)
 
   override def localDataStreamsSnapshot(
       implicit id: RequestId
   ): LocalDataStreamsSnapshot =
-    cacheableLocalDataStreamsSnapshot.call(())
+    localDataStreamsSnapshotSlot.getOrCompute(underlying.localDataStreamsSnapshot)
+
+  override def localMetadataVersion(
+      implicit id: RequestId
+  ): Option[Long] =
+    underlying.localMetadataVersion
 
   override def allRemoteDataStreamsAndAliases(
       implicit id: RequestId
   ): Task[Set[FullRemoteDataStreamWithAliases]] =
-    cacheableAllRemoteDataStreamsAndAliases.call(())
+    allRemoteDataStreamsAndAliasesSlot.getOrCompute(underlying.allRemoteDataStreamsAndAliases)
 
   override def legacyTemplates(
       implicit id: RequestId
   ): Set[Template.LegacyTemplate] =
-    cacheableLegacyTemplates.call(())
+    legacyTemplatesSlot.getOrCompute(underlying.legacyTemplates)
 
   override def indexTemplates(
       implicit id: RequestId
   ): Set[Template.IndexTemplate] =
-    cacheableIndexTemplates.call(())
+    indexTemplatesSlot.getOrCompute(underlying.indexTemplates)
 
   override def componentTemplates(
       implicit id: RequestId
   ): Set[Template.ComponentTemplate] =
-    cacheableComponentTemplates.call(())
+    componentTemplatesSlot.getOrCompute(underlying.componentTemplates)
 
   override def allSnapshots(
       implicit id: RequestId
   ): Map[RepositoryName.Full, Task[Set[SnapshotName.Full]]] =
-    cacheableAllSnapshots.call(())
+    allSnapshotsSlot.getOrCompute(underlying.allSnapshots)
 
   override def snapshotIndices(repositoryName: RepositoryName.Full, snapshotName: SnapshotName.Full)(
       implicit id: RequestId
   ): Task[Set[ClusterIndexName]] =
-    cacheableSnapshotIndices.call((repositoryName, snapshotName))
+    snapshotIndicesSlot.getOrCompute((repositoryName, snapshotName)) { case (repoName, snapName) =>
+      underlying.snapshotIndices(repoName, snapName)
+    }
 
   override def verifyDocumentAccessibility(document: Document, filter: Filter)(
       implicit id: RequestId
   ): Task[DocumentAccessibility] =
-    cacheableVerifyDocumentAccessibility.call((document, filter))
+    documentAccessibilitySlot.getOrCompute((document, filter)) { case (doc, f) =>
+      underlying.verifyDocumentAccessibility(doc, f)
+    }
 
   override def verifyDocumentsAccessibility(documents: NonEmptyList[Document], filter: Filter)(
       implicit id: RequestId
   ): Task[DocumentsAccessibility] =
-    cacheableVerifyDocumentsAccessibility.call((documents, filter))
+    documentsAccessibilitySlot.getOrCompute((documents, filter)) { case (docs, f) =>
+      underlying.verifyDocumentsAccessibility(docs, f)
+    }
 
   override protected[services] def allIndicesAndAliases(
       implicit id: RequestId
   ): Set[FullLocalIndexWithAliases] =
-    cacheableAllIndicesAndAliases.call(())
+    allIndicesAndAliasesSlot.getOrCompute(underlying.allIndicesAndAliases)
 
   override protected[services] def allDataStreamsAndAliases(
       implicit id: RequestId
   ): Set[FullLocalDataStreamWithAliases] =
-    cacheableAllDataStreamsAndAliases.call(())
+    allDataStreamsAndAliasesSlot.getOrCompute(underlying.allDataStreamsAndAliases)
 
 }
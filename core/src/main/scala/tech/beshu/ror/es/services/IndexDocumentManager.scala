@@ -19,7 +19,7 @@ package tech.beshu.ror.es.services
 import io.circe.Json
 import monix.eval.Task
 import tech.beshu.ror.accesscontrol.domain.{IndexName, RequestId}
-import tech.beshu.ror.es.services.IndexDocumentManager.{ReadError, WriteError}
+import tech.beshu.ror.es.services.IndexDocumentManager.{DocumentVersion, ReadError, WriteError}
 
 trait IndexDocumentManager {
 
@@ -27,6 +27,11 @@ trait IndexDocumentManager {
       implicit requestId: RequestId
   ): Task[Either[ReadError, Json]]
 
+  // cheap (the document's source is not fetched), so it can be used to check if the document changed
+  def documentVersion(index: IndexName.Full, id: String)(
+      implicit requestId: RequestId
+  ): Task[Either[ReadError, DocumentVersion]]
+
   def saveDocumentJson(index: IndexName.Full, id: String, document: Json)(
       implicit requestId: RequestId
   ): Task[Either[WriteError, Unit]]
@@ -35,6 +40,8 @@ trait IndexDocumentManager {
 
 object IndexDocumentManager {
 
+  final case class DocumentVersion(version: Long, seqNo: Long, primaryTerm: Long)
+
   sealed trait ReadError
   case object IndexNotFound extends ReadError
   case object DocumentNotFound extends ReadError
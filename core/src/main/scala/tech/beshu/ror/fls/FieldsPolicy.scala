@@ -16,73 +16,162 @@
  */
 package tech.beshu.ror.fls
 
+import com.github.benmanes.caffeine.cache.{Cache, Caffeine}
 import tech.beshu.ror.accesscontrol.domain.FieldLevelSecurity.FieldsRestrictions
-import tech.beshu.ror.accesscontrol.domain.FieldLevelSecurity.FieldsRestrictions.{AccessMode, DocumentField}
+import tech.beshu.ror.accesscontrol.domain.FieldLevelSecurity.FieldsRestrictions.AccessMode
 import tech.beshu.ror.constants
+import tech.beshu.ror.utils.AccessControllerHelper.doPrivileged
 
 import java.util.regex.Pattern
+import scala.concurrent.ExecutionContext.global
 
-class FieldsPolicy(fieldsRestrictions: FieldsRestrictions) {
-
-  private val enhancedFields = fieldsRestrictions.documentFields.toList.map(new FieldsPolicy.EnhancedDocumentField(_))
+/**
+ * Get it with [[FieldsPolicy.apply]] - the restrictions are compiled once (see [[FieldsPolicy.Compiled]]) and the
+ * policy is shared by all the users of the same restrictions (e.g. by the FLS readers of all segments of a search).
+ */
+final class FieldsPolicy private (compiled: FieldsPolicy.Compiled) {
 
   def canKeep(field: String): Boolean = {
-    constants.FIELDS_ALWAYS_ALLOW.contains(field) || {
+    constants.FIELDS_ALWAYS_ALLOW.contains(field) || compiled.canKeep(field)
+  }
+
+  private def weight: Int = compiled.weight
+
+}
+
+object FieldsPolicy {
+
+  // the policies are shared node-wide (by the readers of all engines), so they are bounded by their total weight -
+  // the number of their trie nodes plus the maximum number of their memoized decisions
+  private val maxPoliciesWeight = 1000000L
+  private val maxDecisionsPerPolicy = 2000
+
+  private val policies: Cache[FieldsRestrictions, FieldsPolicy] = doPrivileged {
+    Caffeine
+      .newBuilder()
+      .executor(global)
+      .maximumWeight(maxPoliciesWeight)
+      .weigher[FieldsRestrictions, FieldsPolicy]((_, policy) => policy.weight)
+      .build[FieldsRestrictions, FieldsPolicy]()
+  }
+
+  def apply(fieldsRestrictions: FieldsRestrictions): FieldsPolicy =
+    policies.get(fieldsRestrictions, restrictions => FieldsPolicy(new Compiled(restrictions)))
+
+  /**
+   * The restricted fields' patterns compiled into a trie of their dot-separated parts, with the decisions memoized
+   * per field name, so the same field (of subsequent documents) is matched only once.
+   *
+   * A pattern part (a `*` wildcarded one) matches the whole field part. In the whitelist mode, a field is kept when
+   * all its parts are matched by the leading parts of a pattern (so the parent objects of the allowed fields are kept
+   * too). In the blacklist mode, a field is removed when its leading parts are matched by all parts of a pattern (so
+   * the children of the forbidden objects are removed too).
+   */
+  private[fls] final class Compiled(fieldsRestrictions: FieldsRestrictions) {
+
+    private val root: Node = {
+      val root = new Node
+      fieldsRestrictions.documentFields.iterator.foreach { field =>
+        field.value.value
+          .split("\\.")
+          .foldLeft(root)((node, part) => node.childFor(part))
+          .terminal = true
+      }
+      root
+    }
+
+    private val decisions: Cache[String, java.lang.Boolean] = doPrivileged {
+      Caffeine
+        .newBuilder()
+        .executor(global)
+        .maximumSize(maxDecisionsPerPolicy.toLong)
+        .build[String, java.lang.Boolean]()
+    }
+
+    val weight: Int = root.nodesCount + maxDecisionsPerPolicy
+
+    def canKeep(field: String): Boolean = {
+      Option(decisions.getIfPresent(field)) match {
+        case Some(decision) => decision.booleanValue()
+        case None           =>
+          val decision = decide(field)
+          decisions.put(field, java.lang.Boolean.valueOf(decision))
+          decision
+      }
+    }
+
+    private def decide(field: String): Boolean = {
+      val fieldParts = field.split("\\.")
       fieldsRestrictions.mode match {
-        case AccessMode.Whitelist =>
-          enhancedFields.exists(f => whitelistMatch(f, field))
-        case AccessMode.Blacklist =>
-          !enhancedFields.exists(f => blacklistMatch(f, field))
+        case AccessMode.Whitelist => matchesLeadingPartsOfPattern(fieldParts)
+        case AccessMode.Blacklist => !matchedByWholePattern(fieldParts)
       }
     }
-  }
 
-  private def whitelistMatch(enhancedField: FieldsPolicy.EnhancedDocumentField, field: String): Boolean = {
-    val fieldParts = field.split("\\.").toList
-    if (enhancedField.fieldPartPatterns.length < fieldParts.length) false
-    else {
-      val foundMismatch = fieldParts
-        .zip(enhancedField.fieldPartPatterns)
-        .exists { case (fieldPart, patternPart) =>
-          if (fieldPart == patternPart.pattern()) false
-          else !wildcardedPatternMatch(patternPart, fieldPart)
-        }
-      !foundMismatch
+    private def matchesLeadingPartsOfPattern(fieldParts: Array[String]): Boolean = {
+      // each node is a part of at least one pattern, so reaching any node at the depth of the last field part means
+      // that there is a pattern which is at least as long as the field
+      fieldParts
+        .foldLeft(List(root)) { (nodes, fieldPart) => nodes.flatMap(_.childrenMatching(fieldPart)) }
+        .nonEmpty
+    }
+
+    private def matchedByWholePattern(fieldParts: Array[String]): Boolean = {
+      var nodes = List(root)
+      var matched = root.terminal
+      var i = 0
+      while (!matched && nodes.nonEmpty && i < fieldParts.length) {
+        val fieldPart = fieldParts(i)
+        nodes = nodes.flatMap(_.childrenMatching(fieldPart))
+        matched = nodes.exists(_.terminal)
+        i += 1
+      }
+      matched
     }
   }
 
-  private def blacklistMatch(enhancedField: FieldsPolicy.EnhancedDocumentField, field: String): Boolean = {
-    val fieldParts = field.split("\\.").toList
-    if (enhancedField.fieldPartPatterns.length > fieldParts.length) false
-    else {
-      val foundMismatch = enhancedField.fieldPartPatterns
-        .zip(fieldParts)
-        .forall { case (patternPart, fieldPart) =>
-          if (patternPart.pattern() == fieldPart) true
-          else wildcardedPatternMatch(patternPart, fieldPart)
-        }
-      foundMismatch
+  private final class Node {
+
+    var terminal: Boolean = false
+    private var childrenByPart: Vector[(String, PartMatcher, Node)] = Vector.empty
+
+    def childFor(part: String): Node = {
+      childrenByPart.find(_._1 == part) match {
+        case Some((_, _, node)) =>
+          node
+        case None =>
+          val node = new Node
+          childrenByPart = childrenByPart :+ ((part, PartMatcher.from(part), node))
+          node
+      }
     }
+
+    def childrenMatching(fieldPart: String): Vector[Node] =
+      childrenByPart.collect { case (_, matcher, node) if matcher.matches(fieldPart) => node }
+
+    def nodesCount: Int = 1 + childrenByPart.map(_._3.nodesCount).sum
   }
 
-  private def wildcardedPatternMatch(pattern: Pattern, value: String): Boolean = {
-    pattern.matcher(value).find()
+  private sealed trait PartMatcher {
+    def matches(fieldPart: String): Boolean
   }
 
-}
+  private object PartMatcher {
 
-object FieldsPolicy {
+    private val regexSpecialChars = "\\^$.|?*+()[]{}"
 
-  private class EnhancedDocumentField(field: DocumentField) {
+    def from(part: String): PartMatcher = {
+      if (part.exists(regexSpecialChars.contains(_))) Wildcarded(Pattern.compile(s"^${part.replace("*", ".*")}$$"))
+      else Literal(part)
+    }
 
-    val fieldPartPatterns: List[Pattern] =
-      field.value.value
-        .split("\\.")
-        .toList
-        .map { part =>
-          Pattern.compile(s"^${part.replace("*", ".*")}$$")
-        }
+    final case class Literal(part: String) extends PartMatcher {
+      override def matches(fieldPart: String): Boolean = part == fieldPart
+    }
 
+    final case class Wildcarded(pattern: Pattern) extends PartMatcher {
+      override def matches(fieldPart: String): Boolean = pattern.matcher(fieldPart).find()
+    }
   }
 
 }
@@ -0,0 +1,61 @@
+/*
+ *    This file is part of ReadonlyREST.
+ *
+ *    ReadonlyREST is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    ReadonlyREST is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with ReadonlyREST.  If not, see http://www.gnu.org/licenses/
+ */
+package tech.beshu.ror.fls
+
+import com.github.benmanes.caffeine.cache.{Cache, Caffeine}
+import tech.beshu.ror.utils.AccessControllerHelper.doPrivileged
+
+import java.util.concurrent.ConcurrentHashMap
+import scala.concurrent.ExecutionContext.global
+
+/**
+ * Values computed per an index segment (identified by its cache key) and kept as long as the segment is open. Only the
+ * `maxEntriesPerSegment` recently used values of a segment are kept, and all of them are dropped when the segment is
+ * closed.
+ */
+private[ror] final class PerSegmentCache[SEGMENT <: AnyRef, K <: AnyRef, V <: AnyRef](maxEntriesPerSegment: Long) {
+
+  private val segments = new ConcurrentHashMap[SEGMENT, Cache[K, V]]
+
+  /**
+   * @param addClosedListener registers the given callback to be called with the segment when the segment is closed
+   */
+  def cacheOf(segment: SEGMENT, addClosedListener: (SEGMENT => Unit) => Unit): Cache[K, V] = {
+    Option(segments.get(segment)).getOrElse {
+      // the closed listener is registered before the segment's cache is published, so a segment closed right after
+      // its cache has been created cannot leave the cache behind
+      segments.computeIfAbsent(
+        segment,
+        _ => {
+          addClosedListener(closedSegment => segments.remove(closedSegment))
+          newSegmentCache()
+        }
+      )
+    }
+  }
+
+  private[ror] def cachedSegmentsCount: Int = segments.size()
+
+  private def newSegmentCache(): Cache[K, V] = doPrivileged {
+    Caffeine
+      .newBuilder()
+      .executor(global)
+      .maximumSize(maxEntriesPerSegment)
+      .build[K, V]()
+  }
+
+}
@@ -598,8 +598,9 @@ trait LogsShowInstances extends cats.instances.AllInstances {
   }
 
   implicit val coreRefreshSettingsShow: Show[CoreRefreshSettings] = Show.show {
-    case CoreRefreshSettings.Disabled          => "0 sec"
-    case CoreRefreshSettings.Enabled(interval) => interval.value.toString()
+    case CoreRefreshSettings.Disabled                => "0 sec"
+    case CoreRefreshSettings.Enabled(interval, false) => interval.value.toString()
+    case CoreRefreshSettings.Enabled(interval, true)  => s"${interval.value.toString()} (with version check)"
   }
 
   implicit val esConfigFileShow: Show[EsConfigFile] = Show.show(_.file.show)
@@ -91,7 +91,10 @@ object RorCoreSettingsLoadingStrategy extends ElasticsearchConfigLoaderSupport {
 
   object CoreRefreshSettings {
     case object Disabled extends CoreRefreshSettings
-    final case class Enabled(pollInterval: PositiveFiniteDuration) extends CoreRefreshSettings
+    // with `versionCheck`, each poll fetches only the version of the settings document, and the whole document is
+    // fetched only when it changed
+    final case class Enabled(pollInterval: PositiveFiniteDuration, versionCheck: Boolean = false)
+        extends CoreRefreshSettings
   }
 
   def load(esEnv: EsEnv)(
@@ -125,6 +128,7 @@ object RorCoreSettingsLoadingStrategy extends ElasticsearchConfigLoaderSupport {
       val loadFromIndexSection: NonEmptyString = nes("load_from_index")
       val retryStrategySection: NonEmptyString = nes("initial_loading_retry_strategy")
       val pollIntervalSection: NonEmptyString = nes("poll_interval")
+      val versionCheckKey: NonEmptyString = nes("version_check")
       val attemptsIntervalKey: NonEmptyString = nes("attempts_interval")
       val attemptsCountKey: NonEmptyString = nes("attempts_count")
       val initialDelayKey: NonEmptyString = nes("initial_delay")
@@ -158,9 +162,13 @@ object RorCoreSettingsLoadingStrategy extends ElasticsearchConfigLoaderSupport {
       for {
         loadingRetryStrategySettings <- loadingRetryStrategySettingsDecoder(systemContext)
         coreRefreshSettings <- coreRefreshSettingsDecoder(systemContext)
+        versionCheck <- versionCheckDecoder(systemContext)
       } yield LoadFromIndexWithFileFallback(
         loadingRetryStrategySettings,
-        coreRefreshSettings.getOrElse(defaults.coreRefreshSettings)
+        coreRefreshSettings.getOrElse(defaults.coreRefreshSettings) match {
+          case enabled: CoreRefreshSettings.Enabled => enabled.copy(versionCheck = versionCheck.getOrElse(false))
+          case CoreRefreshSettings.Disabled         => CoreRefreshSettings.Disabled
+        }
       )
     }
 
@@ -253,6 +261,15 @@ object RorCoreSettingsLoadingStrategy extends ElasticsearchConfigLoaderSupport {
         )
     }
 
+    private def versionCheckDecoder(systemContext: SystemContext) = {
+      implicit val propertiesProvider: PropertiesProvider = systemContext.propertiesProvider
+      implicit val envVarsProvider: EnvVarsProvider = systemContext.envVarsProvider
+      YamlLeafOrPropertyOrEnvDecoder.createOptionalValueDecoder(
+        path = NonEmptyList.of(consts.rorSection, consts.loadFromIndexSection, consts.versionCheckKey),
+        decoder = FromString.boolean
+      )
+    }
+
     private def legacyNonNeg[T](ctor: NonNegativeFiniteDuration => T): FromString[T] =
       FromString.instance { str =>
         parseLegacyDuration(str) match {
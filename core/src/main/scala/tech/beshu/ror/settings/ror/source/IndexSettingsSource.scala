@@ -21,7 +21,7 @@ import io.circe.{Decoder, Encoder}
 import monix.eval.Task
 import tech.beshu.ror.accesscontrol.domain.{IndexName, RequestId}
 import tech.beshu.ror.es.services.IndexDocumentManager
-import tech.beshu.ror.es.services.IndexDocumentManager.CannotWriteToIndex
+import tech.beshu.ror.es.services.IndexDocumentManager.{CannotWriteToIndex, DocumentVersion}
 import tech.beshu.ror.settings.ror.source.IndexSettingsSource.LoadingError.{
   DocumentNotFound,
   DocumentUnreachable,
@@ -62,6 +62,19 @@ class IndexSettingsSource[SETTINGS: Encoder: Decoder](
       }
   }
 
+  def documentVersion()(
+      implicit requestId: RequestId
+  ): Task[Either[IndexSettingsLoadingError, DocumentVersion]] = {
+    indexDocumentManager
+      .documentVersion(settingsIndex, documentId)
+      .map {
+        case Right(version)                                 => Right(version)
+        case Left(IndexDocumentManager.IndexNotFound)       => settingsLoaderError(IndexNotFound)
+        case Left(IndexDocumentManager.DocumentNotFound)    => settingsLoaderError(DocumentNotFound)
+        case Left(IndexDocumentManager.DocumentUnreachable) => settingsLoaderError(DocumentUnreachable)
+      }
+  }
+
   override def save(settings: SETTINGS)(
       implicit requestId: RequestId
   ): Task[Either[IndexSettingsSavingError, Unit]] = {
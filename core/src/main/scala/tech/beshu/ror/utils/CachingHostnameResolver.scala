@@ -0,0 +1,126 @@
+/*
+ *    This file is part of ReadonlyREST.
+ *
+ *    ReadonlyREST is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    ReadonlyREST is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with ReadonlyREST.  If not, see http://www.gnu.org/licenses/
+ */
+package tech.beshu.ror.utils
+
+import cats.data.NonEmptyList
+import com.github.benmanes.caffeine.cache.{Cache, Caffeine}
+import monix.eval.Task
+import tech.beshu.ror.accesscontrol.blocks.rules.tranport.HostnameResolver
+import tech.beshu.ror.accesscontrol.domain.Address.{Ip, Name}
+import tech.beshu.ror.accesscontrol.metrics.AclMetrics
+import tech.beshu.ror.utils.AccessControllerHelper.doPrivileged
+import tech.beshu.ror.utils.CachingHostnameResolver.{Resolution, Settings}
+
+import java.security.Security
+import java.time.Clock
+import java.util.concurrent.ConcurrentHashMap
+import scala.concurrent.ExecutionContext.global
+import scala.concurrent.duration.*
+import scala.util.Try
+
+/**
+ * Keeps the hostnames' resolutions across requests, so the `hosts`-like rules don't hit the DNS for each request.
+ * The resolved IPs are kept for `ttl` and the unresolvable hostnames for `negativeTtl`. The concurrent resolutions of
+ * the same hostname are coalesced into one.
+ */
+final class CachingHostnameResolver(underlying: HostnameResolver, settings: Settings, clock: Clock = Clock.systemUTC())
+    extends HostnameResolver {
+
+  private val ttlMillis = settings.ttl.toMillis
+  private val negativeTtlMillis = settings.negativeTtl.toMillis
+
+  private val resolutions: Cache[Name, Resolution] = doPrivileged {
+    Caffeine
+      .newBuilder()
+      .executor(global)
+      .maximumSize(settings.maxEntries)
+      .build[Name, Resolution]()
+  }
+
+  private val inFlight = new ConcurrentHashMap[Name, Task[Option[NonEmptyList[Ip]]]]()
+
+  private val metrics = AclMetrics.cache(CachingHostnameResolver.cacheName)
+
+  override def resolve(hostname: Name): Task[Option[NonEmptyList[Ip]]] = Task.defer {
+    Option(resolutions.getIfPresent(hostname)).filter(isFresh) match {
+      case Some(resolution) =>
+        metrics.recordHit()
+        Task.now(resolution.ips)
+      case None =>
+        metrics.recordMiss()
+        resolveOnce(hostname)
+    }
+  }
+
+  private def isFresh(resolution: Resolution) = {
+    val age = clock.millis() - resolution.resolvedAt
+    resolution.ips match {
+      case Some(_) => age < ttlMillis
+      case None    => age < negativeTtlMillis
+    }
+  }
+
+  private def resolveOnce(hostname: Name): Task[Option[NonEmptyList[Ip]]] = Task.defer {
+    // the resolution is shared, so it's not cancelled when one of the requests waiting for it is
+    lazy val resolution: Task[Option[NonEmptyList[Ip]]] = underlying
+      .resolve(hostname)
+      .flatMap(ips => Task.delay(resolutions.put(hostname, Resolution(ips, clock.millis()))).map(_ => ips))
+      .guarantee(Task.delay(inFlight.remove(hostname, resolution)).void)
+      .uncancelable
+      .memoize
+    Option(inFlight.putIfAbsent(hostname, resolution)).getOrElse(resolution)
+  }
+
+}
+
+object CachingHostnameResolver {
+
+  private val cacheName = "dns"
+
+  /**
+   * The JVM resolver doesn't expose the records' TTLs, so the JVM DNS cache policy (`networkaddress.cache.ttl` and
+   * `networkaddress.cache.negative.ttl` security properties) is followed. The "cache forever" policy (a negative
+   * value) is replaced with the JVM defaults, so a changed DNS record is picked up eventually.
+   */
+  final case class Settings(ttl: FiniteDuration, negativeTtl: FiniteDuration, maxEntries: Long)
+
+  object Settings {
+    val defaultTtl: FiniteDuration = 30.seconds
+    val defaultNegativeTtl: FiniteDuration = 10.seconds
+    val defaultMaxEntries: Long = 10000L
+
+    def fromJvmDnsCachePolicy: Settings = Settings(
+      ttl = securityPropertyInSeconds("networkaddress.cache.ttl").getOrElse(defaultTtl),
+      negativeTtl = securityPropertyInSeconds("networkaddress.cache.negative.ttl").getOrElse(defaultNegativeTtl),
+      maxEntries = defaultMaxEntries
+    )
+
+    private def securityPropertyInSeconds(name: String) =
+      Try(doPrivileged(Security.getProperty(name))).toOption
+        .flatMap(Option(_))
+        .flatMap(_.trim.toIntOption)
+        .filter(_ >= 0)
+        .map(_.seconds)
+  }
+
+  // shared by the rules of all the blocks (and kept across the settings reloads)
+  lazy val default: HostnameResolver =
+    new CachingHostnameResolver(new Ip4sBasedHostnameResolver, Settings.fromJvmDnsCachePolicy)
+
+  private final case class Resolution(ips: Option[NonEmptyList[Ip]], resolvedAt: Long)
+
+}
@@ -22,17 +22,23 @@ import com.comcast.ip4s.{Cidr, Dns}
 import monix.eval.Task
 import tech.beshu.ror.accesscontrol.blocks.rules.tranport.HostnameResolver
 import tech.beshu.ror.accesscontrol.domain.Address.{Ip, Name}
+import tech.beshu.ror.boot.RorSchedulers
 
 class Ip4sBasedHostnameResolver extends HostnameResolver {
 
-  // todo: (improvements) blocking resolving (shift to another EC)
+  import Ip4sBasedHostnameResolver.dns
+
   def resolve(hostname: Name): Task[Option[NonEmptyList[Ip]]] = {
-    Blocker[Task].use { implicit blocker =>
-      implicit val dns: Dns[Task] = Dns.forSync[Task]
-      hostname.value
-        .resolveAll[Task]
-        .map(NonEmptyList.fromList(_).map(_.map(ip => Ip(Cidr(ip, 32)))))
-    }
+    hostname.value
+      .resolveAll[Task]
+      .map(NonEmptyList.fromList(_).map(_.map(ip => Ip(Cidr(ip, 32)))))
   }
 
 }
+
+object Ip4sBasedHostnameResolver {
+
+  // the resolving is blocking, so it's shifted to the dedicated pool (shared by all the resolvers)
+  private implicit val blocker: Blocker = Blocker.liftExecutionContext(RorSchedulers.dnsResolvingScheduler)
+  private implicit val dns: Dns[Task] = Dns.forSync[Task]
+}
@@ -67,6 +67,18 @@ object RefinedUtils {
       }
       .decoder
 
+  def nonNegativeDecoder[T: Decoder: Show](valueToLong: T => Long): Decoder[T Refined NonNegative] =
+    SyncDecoderCreator
+      .from(Decoder[T])
+      .emapE { value =>
+        if (valueToLong(value) >= 0) {
+          Right(Refined.unsafeApply(value))
+        } else {
+          Left(ValueLevelCreationError(Message(s"Only non-negative values allowed. Found: ${Show[T].show(value)}")))
+        }
+      }
+      .decoder
+
   extension (duration: Duration) {
 
     def toRefinedPositive: Either[String, PositiveFiniteDuration] = duration match {
@@ -0,0 +1,66 @@
+/*
+ *    This file is part of ReadonlyREST.
+ *
+ *    ReadonlyREST is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    ReadonlyREST is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with ReadonlyREST.  If not, see http://www.gnu.org/licenses/
+ */
+package tech.beshu.ror.integration
+
+import monix.execution.Scheduler.Implicits.global
+import org.scalatest.Inside
+import org.scalatest.matchers.should.Matchers.*
+import org.scalatest.wordspec.AnyWordSpec
+import tech.beshu.ror.accesscontrol.AccessControlList.RegularRequestResult.{Allowed, ForbiddenByMismatched}
+import tech.beshu.ror.mocks.MockEsServices.MockEsClusterService
+import tech.beshu.ror.mocks.{MockEsServices, MockRequestContext}
+import tech.beshu.ror.utils.TestsUtils.{basicAuthHeader, header}
+
+class DecisionsCacheYamlLoadedAccessControlTests
+    extends AnyWordSpec
+    with BaseYamlLoadedAccessControlTest
+    with Inside {
+
+  override protected def settingsYaml: String =
+    """
+      |readonlyrest:
+      |  global_settings:
+      |    decisions_cache:
+      |      ttl: 1 min
+      |
+      |  access_control_rules:
+      |
+      |  - name: "Kibana requests of user1"
+      |    type: "allow"
+      |    auth_key: "user1:pass"
+      |    headers_and: ["X-Opaque-Id:kibana*"]
+    """.stripMargin
+
+  "An ACL with the decisions cache" should {
+    "not share the decision between requests with different values of a request-specific header used in the ACL" in {
+      val kibanaRequest = request(opaqueId = "kibana-1")
+      val otherRequest = request(opaqueId = "other")
+
+      inside(acl.handleRegularRequest(kibanaRequest).runSyncUnsafe()._1) { case Allowed(blockContext) =>
+        blockContext.requestContext should be theSameInstanceAs kibanaRequest
+      }
+      inside(acl.handleRegularRequest(otherRequest).runSyncUnsafe()._1) { case ForbiddenByMismatched(_) => }
+      inside(acl.handleRegularRequest(request(opaqueId = "kibana-1")).runSyncUnsafe()._1) { case Allowed(_) => }
+    }
+  }
+
+  private def request(opaqueId: String) =
+    MockRequestContext.indices
+      .withHeaders(basicAuthHeader("user1:pass"), header("X-Opaque-Id", opaqueId))
+      .withEsServices(MockEsServices.`with`(MockEsClusterService(metadataVersion = Some(1))))
+
+}
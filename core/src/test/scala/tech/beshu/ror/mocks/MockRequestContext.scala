@@ -458,7 +458,8 @@ object MockEsServices {
         legacyTemplates: Set[Template.LegacyTemplate] = Set.empty,
         indexTemplates: Set[Template.IndexTemplate] = Set.empty,
         componentTemplates: Set[Template.ComponentTemplate] = Set.empty,
-        allRemoteClusterNames: Set[ClusterName.Full] = Set.empty
+        allRemoteClusterNames: Set[ClusterName.Full] = Set.empty,
+        metadataVersion: Option[Long] = None
     ): MockEsClusterService =
       new MockEsClusterService(
         allIndicesAndAliases = allIndicesAndAliases,
@@ -468,7 +469,8 @@ object MockEsServices {
         legacyTemplates = legacyTemplates,
         indexTemplates = indexTemplates,
         componentTemplates = componentTemplates,
-        allRemoteClusterNames = allRemoteClusterNames
+        allRemoteClusterNames = allRemoteClusterNames,
+        metadataVersion = metadataVersion
       )
 
   }
@@ -481,7 +483,8 @@ object MockEsServices {
       private val legacyTemplates: Set[Template.LegacyTemplate] = Set.empty,
       private val indexTemplates: Set[Template.IndexTemplate] = Set.empty,
       private val componentTemplates: Set[Template.ComponentTemplate] = Set.empty,
-      private val allRemoteClusterNames: Set[ClusterName.Full] = Set.empty
+      private val allRemoteClusterNames: Set[ClusterName.Full] = Set.empty,
+      private val metadataVersion: Option[Long] = None
   ) extends EsClusterService {
 
     override def remoteClustersConfigured(
@@ -512,6 +515,10 @@ object MockEsServices {
         implicit id: RequestId
     ): Set[ClusterName.Full] = allRemoteClusterNames
 
+    override def localMetadataVersion(
+        implicit id: RequestId
+    ): Option[Long] = metadataVersion
+
     override def indexOrAliasUuids(indexOrAlias: IndexOrAlias)(
         implicit id: RequestId
     ): Set[IndexUuid] = Set.empty
@@ -0,0 +1,416 @@
+/*
+ *    This file is part of ReadonlyREST.
+ *
+ *    ReadonlyREST is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    ReadonlyREST is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with ReadonlyREST.  If not, see http://www.gnu.org/licenses/
+ */
+package tech.beshu.ror.unit.acl
+
+import cats.data.NonEmptyList
+import io.circe.Json
+import monix.eval.Task
+import monix.execution.Scheduler.Implicits.global
+import org.scalatest.Inside
+import org.scalatest.matchers.should.Matchers.*
+import org.scalatest.wordspec.AnyWordSpec
+import squants.information.{Bytes, Information, Kilobytes}
+import tech.beshu.ror.accesscontrol.AccessControlList.RegularRequestResult
+import tech.beshu.ror.accesscontrol.EnabledAccessControlList.AccessControlListStaticContext
+import tech.beshu.ror.accesscontrol.History.BlockHistory
+import tech.beshu.ror.accesscontrol.blocks.BlockContext.GeneralNonIndexRequestBlockContext
+import tech.beshu.ror.accesscontrol.blocks.rules.Rule
+import tech.beshu.ror.accesscontrol.blocks.rules.Rule.RegularRule
+import tech.beshu.ror.accesscontrol.blocks.rules.auth.AuthKeyRule
+import tech.beshu.ror.accesscontrol.blocks.rules.auth.base.BasicAuthenticationRule
+import tech.beshu.ror.accesscontrol.blocks.rules.auth.base.impersonation.Impersonation
+import tech.beshu.ror.accesscontrol.blocks.{Block, BlockContext, BlockContextUpdater, Decision}
+import tech.beshu.ror.accesscontrol.domain.*
+import tech.beshu.ror.accesscontrol.factory.GlobalSettings
+import tech.beshu.ror.accesscontrol.factory.GlobalSettings.FlsEngine
+import tech.beshu.ror.accesscontrol.request.RequestContext
+import tech.beshu.ror.accesscontrol.{AccessControlList, DecisionsCache, EnabledAccessControlList, History}
+import tech.beshu.ror.mocks.*
+import tech.beshu.ror.mocks.MockEsServices.MockEsClusterService
+import tech.beshu.ror.syntax.*
+import tech.beshu.ror.utils.RefinedUtils.{positiveFiniteDuration, positiveInt}
+import tech.beshu.ror.utils.TestsUtils.{*, given}
+
+import java.time.Instant
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import scala.concurrent.duration.*
+
+class DecisionsCacheTests extends AnyWordSpec with Inside with MockRuleFactory {
+
+  private val block = new Block(
+    name = Block.Name("b1"),
+    policy = Block.Policy.Allow,
+    rules = NonEmptyList.of(passingRule("r1")),
+    audit = Block.Audit.Enabled()
+  )
+
+  "A decisions cache" should {
+    "evaluate identical concurrent requests once and share the decision" in {
+      val cache = enabledCache()
+      val evaluations = new AtomicInteger(0)
+      val request1 = requestContext(id = "r1", headers = Set(header("X-Opaque-Id", "1")))
+      val request2 = requestContext(id = "r2", headers = Set(header("X-Opaque-Id", "2")))
+
+      val (result1, result2) = Task
+        .parZip2(
+          decision(cache, request1, evaluations, delay = 200 millis),
+          decision(cache, request2, evaluations, delay = 200 millis)
+        )
+        .runSyncUnsafe()
+
+      evaluations.get() should be(1)
+      inside(result1) { case RegularRequestResult.Allowed(blockContext) =>
+        blockContext.requestContext should be theSameInstanceAs request1
+      }
+      inside(result2) { case RegularRequestResult.Allowed(blockContext) =>
+        blockContext.requestContext should be theSameInstanceAs request2
+      }
+    }
+    "reuse the decision for the following identical request" in {
+      val cache = enabledCache()
+      val evaluations = new AtomicInteger(0)
+
+      decision(cache, requestContext(id = "r1"), evaluations).runSyncUnsafe()
+      decision(cache, requestContext(id = "r2"), evaluations).runSyncUnsafe()
+
+      evaluations.get() should be(1)
+    }
+    "not share the decision between requests with different credentials" in {
+      val cache = enabledCache()
+      val evaluations = new AtomicInteger(0)
+
+      decision(cache, requestContext(headers = Set(basicAuthHeader("user1:pass"))), evaluations).runSyncUnsafe()
+      decision(cache, requestContext(headers = Set(basicAuthHeader("user2:pass"))), evaluations).runSyncUnsafe()
+
+      evaluations.get() should be(2)
+    }
+    "not share the decision between requests with different bodies of the same length" in {
+      val cache = enabledCache()
+      val evaluations = new AtomicInteger(0)
+      val allowedBody = """{"index":"logs"}"""
+      val forbiddenBody = """{"index":"hr_1"}"""
+      def bodyRequest(body: String) =
+        requestContext(path = "_msearch", content = body, contentLength = Bytes(body.length))
+      def decisionByBody(request: MockGeneralNonIndexRequestContext) =
+        cache
+          .decisionFor[GeneralNonIndexRequestBlockContext](request, block) {
+            Task.delay {
+              evaluations.incrementAndGet()
+              val blockContext = request.initialBlockContext(block)
+              val result: RegularRequestResult[GeneralNonIndexRequestBlockContext] =
+                if (request.restRequest.content == allowedBody) RegularRequestResult.Allowed(blockContext)
+                else RegularRequestResult.Forbidden(blockContext)
+              result -> History.empty[GeneralNonIndexRequestBlockContext]
+            }
+          }
+          .map(_._1)
+
+      val allowedResult = decisionByBody(bodyRequest(allowedBody)).runSyncUnsafe()
+      val forbiddenResult = decisionByBody(bodyRequest(forbiddenBody)).runSyncUnsafe()
+      val allowedAgainResult = decisionByBody(bodyRequest(allowedBody)).runSyncUnsafe()
+
+      evaluations.get() should be(2)
+      inside(allowedResult) { case RegularRequestResult.Allowed(_) => }
+      inside(forbiddenResult) { case RegularRequestResult.Forbidden(_) => }
+      inside(allowedAgainResult) { case RegularRequestResult.Allowed(_) => }
+    }
+    "not share the decision of not read-only requests" in {
+      val cache = enabledCache()
+      val evaluations = new AtomicInteger(0)
+      val writeAction = Action("cluster:admin/settings/update")
+
+      decision(cache, requestContext(action = writeAction), evaluations).runSyncUnsafe()
+      decision(cache, requestContext(action = writeAction), evaluations).runSyncUnsafe()
+
+      evaluations.get() should be(2)
+    }
+    "not share the decision when the cluster metadata version is unknown" in {
+      val cache = enabledCache()
+      val evaluations = new AtomicInteger(0)
+
+      decision(cache, requestContext(metadataVersion = None), evaluations).runSyncUnsafe()
+      decision(cache, requestContext(metadataVersion = None), evaluations).runSyncUnsafe()
+
+      evaluations.get() should be(2)
+    }
+    "evaluate the request again when the cluster metadata has changed" in {
+      val cache = enabledCache()
+      val evaluations = new AtomicInteger(0)
+
+      decision(cache, requestContext(metadataVersion = Some(1)), evaluations).runSyncUnsafe()
+      decision(cache, requestContext(metadataVersion = Some(2)), evaluations).runSyncUnsafe()
+      decision(cache, requestContext(metadataVersion = Some(1)), evaluations).runSyncUnsafe()
+
+      evaluations.get() should be(3)
+    }
+    "evaluate the request again after invalidation" in {
+      val cache = enabledCache()
+      val evaluations = new AtomicInteger(0)
+
+      decision(cache, requestContext(), evaluations).runSyncUnsafe()
+      cache.invalidateAll()
+      decision(cache, requestContext(), evaluations).runSyncUnsafe()
+
+      evaluations.get() should be(2)
+    }
+    "not cache failed evaluations" in {
+      val cache = enabledCache()
+      val evaluations = new AtomicInteger(0)
+
+      decision(cache, requestContext(), evaluations, failed = true).runSyncUnsafe()
+      decision(cache, requestContext(), evaluations, failed = true).runSyncUnsafe()
+
+      evaluations.get() should be(2)
+    }
+    "keep a request-specific header in the key when the settings refer to it" in {
+      val rorSettings = Json.obj(
+        "access_control_rules" -> Json.arr(Json.obj("headers_and" -> Json.arr(Json.fromString("X-Opaque-Id:kibana*"))))
+      )
+      val cache = enabledCache(rorSettings)
+      val evaluations = new AtomicInteger(0)
+
+      decision(cache, requestContext(headers = Set(header("X-Opaque-Id", "kibana-1"))), evaluations).runSyncUnsafe()
+      decision(cache, requestContext(headers = Set(header("X-Opaque-Id", "other"))), evaluations).runSyncUnsafe()
+      decision(cache, requestContext(headers = Set(header("traceparent", "1"))), evaluations).runSyncUnsafe()
+      decision(cache, requestContext(headers = Set(header("traceparent", "2"))), evaluations).runSyncUnsafe()
+
+      evaluations.get() should be(3)
+    }
+    "not cache a decision heavier than the max size" in {
+      val cache = DecisionsCache.create(
+        Some(DecisionsCache.Settings(positiveFiniteDuration(1, TimeUnit.MINUTES), positiveInt(10))),
+        Json.Null
+      )
+      val evaluations = new AtomicInteger(0)
+      val bigRequest = requestContext(path = "_msearch", contentLength = Kilobytes(100))
+
+      decision(cache, bigRequest, evaluations).runSyncUnsafe()
+      decision(cache, bigRequest, evaluations).runSyncUnsafe()
+
+      evaluations.get() should be(2)
+    }
+  }
+
+  "An ACL with the decisions cache" should {
+    "never give a user the decision taken for another user" in {
+      val user1Evaluations = new AtomicInteger(0)
+      val user2Evaluations = new AtomicInteger(0)
+      val acl = aclWith(
+        userBlock("b1", "user1", user1Evaluations),
+        userBlock("b2", "user2", user2Evaluations)
+      )
+      val users = List("user1", "user2", "user1", "user2")
+      val requests = users.zipWithIndex.map { case (user, idx) =>
+        requestContext(id = s"r$idx", headers = Set(basicAuthHeader(s"$user:pass")))
+      }
+
+      val concurrentResults = Task.parSequence(requests.map(acl.handleRegularRequest(_))).runSyncUnsafe()
+      val sequentialResults = requests.map(acl.handleRegularRequest(_).runSyncUnsafe())
+
+      (concurrentResults ++ sequentialResults).map(_._1).zip(requests ++ requests).zip(users ++ users).foreach {
+        case ((result, request), user) =>
+          inside(result) { case RegularRequestResult.Allowed(blockContext) =>
+            blockContext.requestContext should be theSameInstanceAs request
+            blockContext.blockMetadata.loggedUser.map(_.id) should be(Some(User.Id(user)))
+            blockContext.block.name should be(Block.Name(if (user == "user1") "b1" else "b2"))
+          }
+      }
+      user1Evaluations.get() should be(1)
+      user2Evaluations.get() should be(1)
+    }
+    "share the decision of an index request only with requests of the same indices" in {
+      val evaluations = new AtomicInteger(0)
+      val acl = aclWith(userBlock("b1", "user1", evaluations))
+      def indexRequest(id: String, index: String) =
+        MockGeneralIndexRequestContext(
+          timestamp = Instant.now(),
+          id = RequestContext.Id.fromString(id),
+          restRequest = MockRestRequest(allHeaders = Set(basicAuthHeader("user1:pass"))),
+          esServices = esServicesWith(metadataVersion = Some(1)),
+          filteredIndices = Set(requestedIndex(index)),
+          allAllowedIndices = Set.empty
+        )
+      val request1 = indexRequest("r1", "logs")
+      val request2 = indexRequest("r2", "logs")
+      val request3 = indexRequest("r3", "metrics")
+
+      val result1 = acl.handleRegularRequest(request1).runSyncUnsafe()._1
+      val result2 = acl.handleRegularRequest(request2).runSyncUnsafe()._1
+      val result3 = acl.handleRegularRequest(request3).runSyncUnsafe()._1
+
+      evaluations.get() should be(2)
+      inside(result2) { case RegularRequestResult.Allowed(blockContext) =>
+        blockContext.requestContext should be theSameInstanceAs request2
+        blockContext.filteredIndices should be(Set(requestedIndex("logs")))
+      }
+      inside(result3) { case RegularRequestResult.Allowed(blockContext) =>
+        blockContext.filteredIndices should be(Set(requestedIndex("metrics")))
+      }
+      inside(result1) { case RegularRequestResult.Allowed(blockContext) =>
+        blockContext.requestContext should be theSameInstanceAs request1
+      }
+    }
+    "share the decision of a filterable request with the same request" in {
+      val evaluations = new AtomicInteger(0)
+      val acl = aclWith(userBlock("b1", "user1", evaluations))
+      def filterableRequest(id: String) =
+        MockFilterableRequestBlockContext(
+          timestamp = Instant.now(),
+          id = RequestContext.Id.fromString(id),
+          restRequest = MockRestRequest(allHeaders = Set(basicAuthHeader("user1:pass"))),
+          esServices = esServicesWith(metadataVersion = Some(1)),
+          indices = Set(requestedIndex("logs")),
+          allAllowedIndices = Set.empty
+        )
+      val request1 = filterableRequest("r1")
+      val request2 = filterableRequest("r2")
+
+      acl.handleRegularRequest(request1).runSyncUnsafe()
+      val (result2, _) = acl.handleRegularRequest(request2).runSyncUnsafe()
+
+      evaluations.get() should be(1)
+      inside(result2) { case RegularRequestResult.Allowed(blockContext) =>
+        blockContext.requestContext should be theSameInstanceAs request2
+      }
+    }
+    "rebase the history of the shared decision on the request which gets it" in {
+      val acl = aclWith(
+        userBlock("b1", "user2", new AtomicInteger(0)),
+        userBlock("b2", "user1", new AtomicInteger(0))
+      )
+      val request1 = requestContext(id = "r1", headers = Set(basicAuthHeader("user1:pass")))
+      val request2 = requestContext(id = "r2", headers = Set(basicAuthHeader("user1:pass")))
+
+      val (_, history1) = acl.handleRegularRequest(request1).runSyncUnsafe()
+      val (_, history2) = acl.handleRegularRequest(request2).runSyncUnsafe()
+
+      history2.blocks.map(_.block.name) should be(history1.blocks.map(_.block.name))
+      history2.blocks.flatMap(_.history.map(_.rule)) should be(history1.blocks.flatMap(_.history.map(_.rule)))
+      history2.blocks.foreach {
+        case BlockHistory.Permitted(_, Decision.Permitted(blockContext), _) =>
+          blockContext.requestContext should be theSameInstanceAs request2
+        case BlockHistory.Denied(_, _, _) =>
+      }
+      history2.blocks.flatMap(_.history).map(_.decision).foreach {
+        case Decision.Permitted(blockContext) => blockContext.requestContext should be theSameInstanceAs request2
+        case Decision.Denied(_)               =>
+      }
+    }
+  }
+
+  private def decision(
+      cache: DecisionsCache,
+      requestContext: MockGeneralNonIndexRequestContext,
+      evaluations: AtomicInteger,
+      delay: FiniteDuration = Duration.Zero,
+      failed: Boolean = false
+  ) = {
+    cache
+      .decisionFor[GeneralNonIndexRequestBlockContext](requestContext, block) {
+        Task
+          .delay {
+            evaluations.incrementAndGet()
+            val result: RegularRequestResult[GeneralNonIndexRequestBlockContext] =
+              if (failed) RegularRequestResult.Failed(new Exception("failure"))
+              else RegularRequestResult.Allowed(requestContext.initialBlockContext(block))
+            result -> History.empty[GeneralNonIndexRequestBlockContext]
+          }
+          .delayExecution(delay)
+      }
+      .map(_._1)
+  }
+
+  private def requestContext(
+      id: String = "mock",
+      headers: Set[Header] = Set.empty,
+      action: Action = Action("cluster:monitor/health"),
+      metadataVersion: Option[Long] = Some(1),
+      path: String = "_cat/nodes",
+      content: String = "",
+      contentLength: Information = Bytes(0)
+  ) = {
+    MockGeneralNonIndexRequestContext(
+      timestamp = Instant.now(),
+      id = RequestContext.Id.fromString(id),
+      restRequest = MockRestRequest(
+        path = UriPath.from(path),
+        allHeaders = headers,
+        content = content,
+        contentLength = contentLength
+      ),
+      action = action,
+      esServices = esServicesWith(metadataVersion)
+    )
+  }
+
+  private def esServicesWith(metadataVersion: Option[Long]) =
+    MockEsServices.`with`(MockEsClusterService(metadataVersion = metadataVersion))
+
+  private def enabledCache(rorSettings: Json = Json.Null) =
+    DecisionsCache.create(
+      Some(
+        DecisionsCache.Settings(positiveFiniteDuration(1, TimeUnit.MINUTES), DecisionsCache.Settings.defaultMaxSize)
+      ),
+      rorSettings
+    )
+
+  private def aclWith(blocks: Block*): AccessControlList = {
+    val blocksNel = NonEmptyList.fromListUnsafe(blocks.toList)
+    new EnabledAccessControlList(
+      blocksNel,
+      new AccessControlListStaticContext(
+        blocks = blocksNel,
+        globalSettings = GlobalSettings(
+          showBasicAuthPrompt = false,
+          forbiddenRequestMessage = "Forbidden",
+          flsEngine = FlsEngine.default,
+          settingsIndex = RorSettingsIndex(IndexName.Full(".readonlyrest")),
+          userIdCaseSensitivity = CaseSensitivity.Enabled,
+          usersDefinitionDuplicateUsernamesValidationEnabled = true
+        ),
+        obfuscatedHeaders = Set.empty,
+        decisionsCache = enabledCache()
+      )
+    )
+  }
+
+  private def userBlock(name: String, user: String, evaluations: AtomicInteger) = new Block(
+    name = Block.Name(name),
+    policy = Block.Policy.Allow,
+    rules = NonEmptyList.of(
+      new AuthKeyRule(
+        BasicAuthenticationRule.Settings(Credentials(User.Id(user), PlainTextSecret("pass"))),
+        CaseSensitivity.Enabled,
+        Impersonation.Disabled
+      ),
+      countingRule(evaluations)
+    ),
+    audit = Block.Audit.Enabled()
+  )
+
+  private def countingRule(evaluations: AtomicInteger): RegularRule = new RegularRule {
+    override val name: Rule.Name = Rule.Name("counting")
+
+    override protected def regularCheck[B <: BlockContext: BlockContextUpdater](blockContext: B): Task[Decision[B]] =
+      Task.delay {
+        evaluations.incrementAndGet()
+        Decision.Permitted(blockContext)
+      }
+  }
+
+}
@@ -0,0 +1,286 @@
+/*
+ *    This file is part of ReadonlyREST.
+ *
+ *    ReadonlyREST is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    ReadonlyREST is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with ReadonlyREST.  If not, see http://www.gnu.org/licenses/
+ */
+package tech.beshu.ror.unit.acl
+
+import cats.data.NonEmptyList
+import eu.timepit.refined.api.Refined
+import eu.timepit.refined.numeric.Positive
+import eu.timepit.refined.types.string.NonEmptyString
+import monix.eval.Task
+import monix.execution.Scheduler.Implicits.global
+import org.scalatest.Inside
+import org.scalatest.matchers.should.Matchers.*
+import org.scalatest.wordspec.AnyWordSpec
+import tech.beshu.ror.accesscontrol.AccessControlList.RegularRequestResult
+import tech.beshu.ror.accesscontrol.EnabledAccessControlList.AccessControlListStaticContext
+import tech.beshu.ror.accesscontrol.blocks.Decision.Denied.Cause
+import tech.beshu.ror.accesscontrol.blocks.definitions.{ExternalAuthenticationService, ExternalGroupsProviderService}
+import tech.beshu.ror.accesscontrol.blocks.definitions.ExternalAuthenticationService.AuthenticationResult
+import tech.beshu.ror.accesscontrol.blocks.rules.Rule
+import tech.beshu.ror.accesscontrol.blocks.rules.Rule.RegularRule
+import tech.beshu.ror.accesscontrol.blocks.rules.auth.{ExternalAuthenticationRule, ExternalAuthorizationRule}
+import tech.beshu.ror.accesscontrol.blocks.rules.auth.base.impersonation.Impersonation
+import tech.beshu.ror.accesscontrol.blocks.{Block, BlockContext, BlockContextUpdater, Decision}
+import tech.beshu.ror.accesscontrol.domain.*
+import tech.beshu.ror.accesscontrol.domain.GroupIdLike.GroupId
+import tech.beshu.ror.accesscontrol.domain.LoggedUser.DirectlyLoggedUser
+import tech.beshu.ror.accesscontrol.factory.GlobalSettings
+import tech.beshu.ror.accesscontrol.factory.GlobalSettings.FlsEngine
+import tech.beshu.ror.accesscontrol.{EnabledAccessControlList, SpeculativeBlockEvaluations}
+import tech.beshu.ror.mocks.MockRequestContext
+import tech.beshu.ror.utils.RefinedUtils.{PositiveFiniteDuration, positiveFiniteDuration, positiveInt}
+import tech.beshu.ror.utils.TestsUtils.{*, given}
+import tech.beshu.ror.utils.uniquelist.{UniqueList, UniqueNonEmptyList}
+
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.{ConcurrentHashMap, CountDownLatch, TimeUnit}
+import scala.concurrent.duration.*
+
+class SpeculativeBlockEvaluationsTests extends AnyWordSpec with Inside {
+
+  "SpeculativeBlockEvaluations" should {
+    "evaluate the started blocks once and return their results when joined" in {
+      val evaluations = new AtomicInteger(0)
+      val speculations = new SpeculativeBlockEvaluations[String](idx =>
+        Task.delay(evaluations.incrementAndGet()).map(_ => s"block$idx")
+      )
+
+      val results = (for {
+        _ <- speculations.start(List(1, 2))
+        _ <- speculations.start(List(2, 3))
+        results <- Task.sequence(List(0, 1, 2, 3).map(speculations.joinOrEvaluate))
+      } yield results).runSyncUnsafe(5.seconds)
+
+      results should be(List("block0", "block1", "block2", "block3"))
+      evaluations.get() should be(4)
+    }
+    "cancel the started blocks which were not joined" in {
+      val finished = ConcurrentHashMap.newKeySet[Int]()
+      val cancelled = new CountDownLatch(2)
+      val speculations = new SpeculativeBlockEvaluations[Unit](idx =>
+        if (idx == 1) Task.delay(finished.add(idx)).void
+        else Task.never[Unit].doOnCancel(Task.delay(cancelled.countDown()))
+      )
+
+      (for {
+        _ <- speculations.start(List(1, 2, 3))
+        _ <- speculations.joinOrEvaluate(1)
+        _ <- speculations.cancelAll
+      } yield ()).runSyncUnsafe(5.seconds)
+
+      cancelled.await(5, TimeUnit.SECONDS) should be(true)
+      finished.contains(1) should be(true)
+    }
+    "cancel the blocks started after all the started blocks were cancelled" in {
+      val cancelled = new CountDownLatch(1)
+      val speculations = new SpeculativeBlockEvaluations[Unit](_ =>
+        Task.never[Unit].doOnCancel(Task.delay(cancelled.countDown()))
+      )
+
+      (for {
+        _ <- speculations.cancelAll
+        _ <- speculations.start(List(1))
+      } yield ()).runSyncUnsafe(5.seconds)
+
+      cancelled.await(5, TimeUnit.SECONDS) should be(true)
+    }
+  }
+
+  "An ACL with the speculative blocks evaluation" should {
+    "take the same decision and report the same history as the ACL without it" in {
+      val service1 = new CountingExternalAuthService("service1", acceptedUser = "user1", latency = 200.millis)
+      val blocks = NonEmptyList.of(
+        externalAuthBlock("b1", service1, "user2"),
+        externalAuthBlock("b2", service1, "user1"),
+        externalAuthBlock("b3", service1, "user1")
+      )
+      val requestContext = MockRequestContext.indices.withHeaders(basicAuthHeader("user1:pass"))
+
+      val (result, history) = aclWith(blocks, speculationDepth = Some(positiveInt(2)))
+        .handleRegularRequest(requestContext)
+        .runSyncUnsafe(5.seconds)
+      val (expectedResult, expectedHistory) = aclWith(blocks, speculationDepth = None)
+        .handleRegularRequest(requestContext)
+        .runSyncUnsafe(5.seconds)
+
+      inside(result) { case RegularRequestResult.Allowed(blockContext) =>
+        blockContext.block.name should be(Block.Name("b2"))
+      }
+      result should be(expectedResult)
+      history should be(expectedHistory)
+      history.blocks.map(_.block.name) should be(Vector(Block.Name("b1"), Block.Name("b2")))
+    }
+    "not send the credentials to a service which the currently evaluated block doesn't send them to" in {
+      val service1 = new CountingExternalAuthService("service1", acceptedUser = "user1", latency = 200.millis)
+      val service2 = new CountingExternalAuthService("service2", acceptedUser = "user1")
+      val acl = aclWith(
+        NonEmptyList.of(externalAuthBlock("b1", service1, "user1"), externalAuthBlock("b2", service2, "user1")),
+        speculationDepth = Some(positiveInt(2))
+      )
+
+      val (result, _) = acl
+        .handleRegularRequest(MockRequestContext.indices.withHeaders(basicAuthHeader("user1:pass")))
+        .runSyncUnsafe(5.seconds)
+
+      inside(result) { case RegularRequestResult.Allowed(blockContext) =>
+        blockContext.block.name should be(Block.Name("b1"))
+      }
+      service2.calls.get() should be(0)
+    }
+    "not record the metrics of the speculatively evaluated blocks which were not needed" in {
+      val service1 = new CountingExternalAuthService("service1", acceptedUser = "user1", latency = 200.millis)
+      val b1 = externalAuthBlock("b1", service1, "user1")
+      val b2 = externalAuthBlock("b2", service1, "user1")
+      val acl = aclWith(NonEmptyList.of(b1, b2), speculationDepth = Some(positiveInt(1)))
+
+      val (result, _) = acl
+        .handleRegularRequest(MockRequestContext.indices.withHeaders(basicAuthHeader("user1:pass")))
+        .runSyncUnsafe(5.seconds)
+
+      inside(result) { case RegularRequestResult.Allowed(blockContext) =>
+        blockContext.block.name should be(Block.Name("b1"))
+      }
+      service1.calls.get() should be(2)
+      b1.metrics.snapshot.evaluated should be(1L)
+      b1.metrics.snapshot.matched should be(1L)
+      b2.metrics.snapshot.evaluated should be(0L)
+      b2.metrics.snapshot.rules.values.map(_.count).sum should be(0L)
+    }
+    "not speculate the blocks which call an external service but send the credentials nowhere" in {
+      val service1 = new CountingExternalAuthService("service1", acceptedUser = "user1", latency = 200.millis)
+      val checks = new AtomicInteger(0)
+      val authorizationOnlyBlock = new Block(
+        name = Block.Name("b2"),
+        policy = Block.Policy.Allow,
+        rules = NonEmptyList.of(
+          countingRule(checks),
+          new ExternalAuthorizationRule(
+            ExternalAuthorizationRule.Settings(
+              service = new StaticGroupsProviderService("groups_service", groupIds = "g1"),
+              permittedGroupsLogic = GroupsLogic.AnyOf(GroupIds(UniqueNonEmptyList.of(GroupId("g1")))),
+              users = UniqueNonEmptyList.of(User.Id("user1"))
+            ),
+            CaseSensitivity.Enabled,
+            Impersonation.Disabled
+          )
+        ),
+        audit = Block.Audit.Enabled()
+      )
+      val acl = aclWith(
+        NonEmptyList.of(externalAuthBlock("b1", service1, "user1"), authorizationOnlyBlock),
+        speculationDepth = Some(positiveInt(1))
+      )
+
+      val (result, _) = acl
+        .handleRegularRequest(MockRequestContext.indices.withHeaders(basicAuthHeader("user1:pass")))
+        .runSyncUnsafe(5.seconds)
+
+      inside(result) { case RegularRequestResult.Allowed(blockContext) =>
+        blockContext.block.name should be(Block.Name("b1"))
+      }
+      checks.get() should be(0)
+    }
+  }
+
+  private def aclWith(blocks: NonEmptyList[Block], speculationDepth: Option[Int Refined Positive]) = {
+    new EnabledAccessControlList(
+      blocks,
+      new AccessControlListStaticContext(
+        blocks = blocks,
+        globalSettings = GlobalSettings(
+          showBasicAuthPrompt = false,
+          forbiddenRequestMessage = "Forbidden",
+          flsEngine = FlsEngine.default,
+          settingsIndex = RorSettingsIndex(IndexName.Full(".readonlyrest")),
+          userIdCaseSensitivity = CaseSensitivity.Enabled,
+          usersDefinitionDuplicateUsernamesValidationEnabled = true,
+          speculativeBlocksEvaluationDepth = speculationDepth
+        ),
+        obfuscatedHeaders = Set.empty
+      )
+    )
+  }
+
+  // the block matches only the given user, even when the service would authenticate the request
+  private def externalAuthBlock(name: String, service: ExternalAuthenticationService, user: String) = new Block(
+    name = Block.Name(name),
+    policy = Block.Policy.Allow,
+    rules = NonEmptyList.of(
+      new ExternalAuthenticationRule(
+        ExternalAuthenticationRule.Settings(service),
+        CaseSensitivity.Enabled,
+        Impersonation.Disabled
+      ),
+      loggedUserRule(user)
+    ),
+    audit = Block.Audit.Enabled()
+  )
+
+  private def loggedUserRule(user: String): RegularRule = new RegularRule {
+    override val name: Rule.Name = Rule.Name("logged_user")
+
+    override protected def regularCheck[B <: BlockContext: BlockContextUpdater](blockContext: B): Task[Decision[B]] =
+      Task.now {
+        Decision.permit(`with` = blockContext)(
+          when = blockContext.blockMetadata.loggedUser.exists(_.id == User.Id(user))
+        )
+      }
+  }
+
+  private def countingRule(checks: AtomicInteger): RegularRule = new RegularRule {
+    override val name: Rule.Name = Rule.Name("counting")
+
+    override protected def regularCheck[B <: BlockContext: BlockContextUpdater](blockContext: B): Task[Decision[B]] =
+      Task.delay(checks.incrementAndGet()).map(_ => Decision.permit(blockContext))
+  }
+
+  private class StaticGroupsProviderService(name: String, groupIds: String*) extends ExternalGroupsProviderService {
+
+    override val id: ExternalGroupsProviderService.Name =
+      ExternalGroupsProviderService.Name(NonEmptyString.unsafeFrom(name))
+
+    override val serviceTimeout: PositiveFiniteDuration = positiveFiniteDuration(5, TimeUnit.SECONDS)
+
+    override def groupsFor(userId: User.Id)(implicit requestId: RequestId): Task[UniqueList[Group]] =
+      Task.now(UniqueList.from(groupIds.map(groupId => group(groupId))))
+
+  }
+
+  private class CountingExternalAuthService(name: String, acceptedUser: String, latency: FiniteDuration = Duration.Zero)
+      extends ExternalAuthenticationService {
+
+    val calls = new AtomicInteger(0)
+
+    override val id: ExternalAuthenticationService.Name =
+      ExternalAuthenticationService.Name(NonEmptyString.unsafeFrom(name))
+
+    override val serviceTimeout: PositiveFiniteDuration = positiveFiniteDuration(5, TimeUnit.SECONDS)
+
+    override def authenticate(credentials: Credentials)(
+        implicit requestId: RequestId
+    ): Task[AuthenticationResult] =
+      Task
+        .delay(calls.incrementAndGet())
+        .flatMap(_ => Task.sleep(latency))
+        .map { _ =>
+          if (credentials.user == User.Id(acceptedUser)) Right(DirectlyLoggedUser(credentials.user))
+          else Left(Cause.AuthenticationFailed("Invalid credentials"))
+        }
+
+  }
+
+}
@@ -0,0 +1,202 @@
+/*
+ *    This file is part of ReadonlyREST.
+ *
+ *    ReadonlyREST is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    ReadonlyREST is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with ReadonlyREST.  If not, see http://www.gnu.org/licenses/
+ */
+package tech.beshu.ror.unit.acl.blocks
+
+import cats.data.{NonEmptyList, NonEmptySet}
+import monix.eval.Task
+import monix.execution.Scheduler.Implicits.global
+import org.scalatest.Inside
+import org.scalatest.matchers.should.Matchers.*
+import org.scalatest.wordspec.AnyWordSpec
+import tech.beshu.ror.accesscontrol.AccessControlList.RegularRequestResult
+import tech.beshu.ror.accesscontrol.EnabledAccessControlList
+import tech.beshu.ror.accesscontrol.EnabledAccessControlList.AccessControlListStaticContext
+import tech.beshu.ror.accesscontrol.History.{BlockHistory, RuleHistory}
+import tech.beshu.ror.accesscontrol.blocks.Decision.Denied.Cause
+import tech.beshu.ror.accesscontrol.blocks.rules.Rule
+import tech.beshu.ror.accesscontrol.blocks.rules.Rule.RegularRule
+import tech.beshu.ror.accesscontrol.blocks.rules.auth.AuthKeyRule
+import tech.beshu.ror.accesscontrol.blocks.rules.auth.base.BasicAuthenticationRule
+import tech.beshu.ror.accesscontrol.blocks.rules.auth.base.impersonation.Impersonation
+import tech.beshu.ror.accesscontrol.blocks.rules.elasticsearch.ActionsRule
+import tech.beshu.ror.accesscontrol.blocks.rules.http.MethodsRule
+import tech.beshu.ror.accesscontrol.blocks.{Block, BlockContext, BlockContextUpdater, Decision}
+import tech.beshu.ror.accesscontrol.domain.*
+import tech.beshu.ror.accesscontrol.factory.GlobalSettings
+import tech.beshu.ror.accesscontrol.factory.GlobalSettings.FlsEngine
+import tech.beshu.ror.accesscontrol.orders.*
+import tech.beshu.ror.accesscontrol.request.RequestContext.Method
+import tech.beshu.ror.mocks.{MockRequestContext, MockRestRequest}
+import tech.beshu.ror.utils.TestsUtils.{*, given}
+
+import java.util.concurrent.atomic.AtomicInteger
+
+class BlockPreFilterIndexTests extends AnyWordSpec with Inside {
+
+  "The EnabledAccessControlList with the blocks pre-filter index" should {
+    "not evaluate blocks which cannot match the request method or action" in {
+      val b1Evaluations = new AtomicInteger(0)
+      val b2Evaluations = new AtomicInteger(0)
+      val b3Evaluations = new AtomicInteger(0)
+      val acl = createAcl(
+        block("b1", methodsRule(Method.PUT), countingRule(b1Evaluations)),
+        block("b2", actionsRule("indices:data/write/*"), countingRule(b2Evaluations)),
+        block("b3", actionsRule("indices:admin/*"), countingRule(b3Evaluations)),
+      )
+
+      val (result, history) = acl.handleRegularRequest(MockRequestContext.indices).runSyncUnsafe()
+
+      inside(result) { case RegularRequestResult.Allowed(blockContext) =>
+        blockContext.block.name should be(Block.Name("b3"))
+      }
+      b1Evaluations.get() should be(0)
+      b2Evaluations.get() should be(0)
+      b3Evaluations.get() should be(1)
+
+      history.blocks.map(_.block.name) should be(Vector(Block.Name("b1"), Block.Name("b2"), Block.Name("b3")))
+      inside(history.blocks(0)) { case BlockHistory.Denied(_, Decision.Denied(Cause.NotAuthorized), rules) =>
+        rules should be(Vector(RuleHistory(MethodsRule.Name.name, Decision.Denied(Cause.NotAuthorized))))
+      }
+      inside(history.blocks(1)) { case BlockHistory.Denied(_, Decision.Denied(Cause.NotAuthorized), rules) =>
+        rules should be(Vector(RuleHistory(ActionsRule.Name.name, Decision.Denied(Cause.NotAuthorized))))
+      }
+    }
+    "evaluate all blocks of an impersonation request" in {
+      val b1Evaluations = new AtomicInteger(0)
+      val acl = createAcl(
+        block("b1", methodsRule(Method.PUT), countingRule(b1Evaluations)),
+        block("b2", actionsRule("indices:admin/*")),
+      )
+      val requestContext = MockRequestContext.indices.withHeaders(header("x-ror-impersonating", "user1"))
+
+      val (result, _) = acl.handleRegularRequest(requestContext).runSyncUnsafe()
+
+      inside(result) { case RegularRequestResult.Allowed(blockContext) =>
+        blockContext.block.name should be(Block.Name("b2"))
+      }
+      b1Evaluations.get() should be(1)
+    }
+    "report a skipped block in the history the same way as its full evaluation does" in {
+      val b1Evaluations = new AtomicInteger(0)
+      val b1 = block("b1", methodsRule(Method.GET), actionsRule("indices:data/write/*"), countingRule(b1Evaluations))
+      val acl = createAcl(b1, block("b2", actionsRule("indices:admin/*")))
+      val requestContext = MockRequestContext.indices
+
+      val (_, history) = acl.handleRegularRequest(requestContext).runSyncUnsafe()
+      b1Evaluations.get() should be(0)
+      val (_, fullEvaluationHistory) = b1.evaluateForRegularRequest(requestContext).runSyncUnsafe()
+
+      history.blocks(0) should be(fullEvaluationHistory)
+      inside(history.blocks(0)) { case BlockHistory.Denied(_, _, rules) =>
+        rules.map(_.rule) should be(Vector(MethodsRule.Name.name, ActionsRule.Name.name))
+      }
+    }
+    "not skip a block because of a rule which is preceded by a rule the index cannot decide" in {
+      val b1Evaluations = new AtomicInteger(0)
+      val b1 = block("b1", authKeyRule("user1"), methodsRule(Method.PUT), countingRule(b1Evaluations))
+      val acl = createAcl(b1, block("b2", actionsRule("indices:admin/*")))
+      val requestContext = MockRequestContext.indices.withHeaders(basicAuthHeader("user1:wrong"))
+
+      val (result, history) = acl.handleRegularRequest(requestContext).runSyncUnsafe()
+      val (_, fullEvaluationHistory) = b1.evaluateForRegularRequest(requestContext).runSyncUnsafe()
+
+      inside(result) { case RegularRequestResult.Allowed(blockContext) =>
+        blockContext.block.name should be(Block.Name("b2"))
+      }
+      history.blocks(0) should be(fullEvaluationHistory)
+      inside(history.blocks(0)) { case BlockHistory.Denied(_, Decision.Denied(Cause.AuthenticationFailed(_)), rules) =>
+        rules.map(_.rule) should be(Vector(AuthKeyRule.Name.name))
+      }
+      b1Evaluations.get() should be(0)
+    }
+    "skip a block without basic auth credentials the same way as its full evaluation does" in {
+      val b1 = block("b1", authKeyRule("user1"), methodsRule(Method.PUT))
+      val acl = createAcl(b1, block("b2", actionsRule("indices:admin/*")))
+      val requestContext = MockRequestContext.indices
+
+      val (_, history) = acl.handleRegularRequest(requestContext).runSyncUnsafe()
+      val (_, fullEvaluationHistory) = b1.evaluateForRegularRequest(requestContext).runSyncUnsafe()
+
+      history.blocks(0) should be(fullEvaluationHistory)
+    }
+    "deny the request the same way as the full evaluation does" in {
+      val acl = createAcl(
+        block("b1", methodsRule(Method.PUT)),
+        block("b2", actionsRule("indices:data/write/*")),
+      )
+      val requestContext =
+        MockRequestContext.indices.copy(restRequest = MockRestRequest(method = Method.GET))
+
+      val (result, _) = acl.handleRegularRequest(requestContext).runSyncUnsafe()
+
+      inside(result) { case RegularRequestResult.ForbiddenByMismatched(causes) =>
+        causes.toList should be(
+          (Block.Name("b1") -> Cause.NotAuthorized) :: (Block.Name("b2") -> Cause.NotAuthorized) :: Nil
+        )
+      }
+    }
+  }
+
+  private def createAcl(blocks: Block*) = {
+    val blocksNel = NonEmptyList.fromListUnsafe(blocks.toList)
+    new EnabledAccessControlList(
+      blocksNel,
+      new AccessControlListStaticContext(
+        blocks = blocksNel,
+        globalSettings = GlobalSettings(
+          showBasicAuthPrompt = false,
+          forbiddenRequestMessage = "Forbidden",
+          flsEngine = FlsEngine.default,
+          settingsIndex = RorSettingsIndex(IndexName.Full(".readonlyrest")),
+          userIdCaseSensitivity = CaseSensitivity.Enabled,
+          usersDefinitionDuplicateUsernamesValidationEnabled = true
+        ),
+        obfuscatedHeaders = Set.empty
+      )
+    )
+  }
+
+  private def block(name: String, rule: Rule, rules: Rule*) = new Block(
+    name = Block.Name(name),
+    policy = Block.Policy.Allow,
+    rules = NonEmptyList.of(rule, rules*),
+    audit = Block.Audit.Enabled(),
+  )
+
+  private def methodsRule(method: Method) =
+    new MethodsRule(MethodsRule.Settings(NonEmptySet.of(method)))
+
+  private def actionsRule(action: String) =
+    new ActionsRule(ActionsRule.Settings(NonEmptySet.of(Action(action))))
+
+  private def authKeyRule(user: String) = new AuthKeyRule(
+    BasicAuthenticationRule.Settings(Credentials(User.Id(user), PlainTextSecret("pass"))),
+    CaseSensitivity.Enabled,
+    Impersonation.Disabled
+  )
+
+  private def countingRule(evaluations: AtomicInteger): RegularRule = new RegularRule {
+    override val name: Rule.Name = Rule.Name("counting")
+
+    override protected def regularCheck[B <: BlockContext: BlockContextUpdater](blockContext: B): Task[Decision[B]] =
+      Task.delay {
+        evaluations.incrementAndGet()
+        Decision.Permitted(blockContext)
+      }
+  }
+
+}
@@ -0,0 +1,118 @@
+/*
+ *    This file is part of ReadonlyREST.
+ *
+ *    ReadonlyREST is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    ReadonlyREST is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with ReadonlyREST.  If not, see http://www.gnu.org/licenses/
+ */
+package tech.beshu.ror.unit.acl.blocks.definitions.ldap.implementations
+
+import monix.catnap.Semaphore
+import monix.eval.Task
+import monix.execution.Scheduler
+import monix.execution.Scheduler.Implicits.global
+import org.scalatest.concurrent.Eventually
+import org.scalatest.matchers.should.Matchers.*
+import org.scalatest.time.{Millis, Seconds, Span}
+import org.scalatest.wordspec.AnyWordSpec
+import org.scalatest.{BeforeAndAfterAll, Inside}
+import tech.beshu.ror.accesscontrol.blocks.definitions.ldap.implementations.LdapBindBulkhead
+import tech.beshu.ror.accesscontrol.blocks.definitions.ldap.implementations.LdapBindBulkhead.BindBulkheadFullException
+import tech.beshu.ror.utils.RefinedUtils.positiveFiniteDuration
+
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.{CountDownLatch, TimeUnit}
+import scala.concurrent.Await
+import scala.concurrent.duration.*
+import scala.util.{Failure, Try}
+
+class LdapBindBulkheadTests extends AnyWordSpec with Inside with Eventually with BeforeAndAfterAll {
+
+  override implicit val patienceConfig: PatienceConfig =
+    PatienceConfig(timeout = scaled(Span(5, Seconds)), interval = scaled(Span(20, Millis)))
+
+  private val bindScheduler = Scheduler.fixedPool("test-ldap-bind", 4)
+
+  override protected def afterAll(): Unit = {
+    bindScheduler.shutdown()
+  }
+
+  "An LdapBindBulkhead" should {
+    "run at most the number of permits binds at the same time" in {
+      val bulkhead = createBulkhead(permits = 2, maxPermitWaitMillis = 5000)
+      val release = new CountDownLatch(1)
+      val concurrentBinds = new AtomicInteger(0)
+      val maxConcurrentBinds = new AtomicInteger(0)
+
+      val binds = List.fill(4) {
+        bulkhead.run {
+          maxConcurrentBinds.accumulateAndGet(concurrentBinds.incrementAndGet(), Math.max)
+          release.await(5, TimeUnit.SECONDS)
+          concurrentBinds.decrementAndGet()
+        }.runToFuture
+      }
+
+      eventually {
+        bulkhead.stats.inFlight should be(2)
+        bulkhead.stats.waiting should be(2)
+      }
+      release.countDown()
+      binds.foreach(Await.result(_, 5.seconds))
+
+      maxConcurrentBinds.get() should be(2)
+      val stats = bulkhead.stats
+      stats.inFlight should be(0)
+      stats.waiting should be(0)
+      stats.completed should be(4)
+      stats.rejected should be(0)
+      stats.maxWaitNanos should be > 0L
+      stats.totalWaitNanos should be >= stats.maxWaitNanos
+    }
+    "reject a bind which waits for a permit longer than the max permit wait" in {
+      val bulkhead = createBulkhead(permits = 1, maxPermitWaitMillis = 100)
+      val release = new CountDownLatch(1)
+      val blockingBind = bulkhead.run(release.await(5, TimeUnit.SECONDS)).runToFuture
+      eventually(bulkhead.stats.inFlight should be(1))
+
+      val rejectedBind = Try(bulkhead.run("bound").runSyncUnsafe(5.seconds))
+
+      inside(rejectedBind) { case Failure(_: BindBulkheadFullException) => }
+      bulkhead.stats.rejected should be(1)
+      bulkhead.stats.waiting should be(0)
+
+      release.countDown()
+      Await.result(blockingBind, 5.seconds) should be(true)
+      bulkhead.run("bound").runSyncUnsafe(5.seconds) should be("bound")
+      bulkhead.stats.completed should be(2)
+    }
+    "release the permit of a failed bind" in {
+      val bulkhead = createBulkhead(permits = 1, maxPermitWaitMillis = 100)
+
+      val failedBind = Try(bulkhead.run[String](throw new IllegalStateException("LDAP down")).runSyncUnsafe(5.seconds))
+
+      inside(failedBind) { case Failure(_: IllegalStateException) => }
+      bulkhead.run("bound").runSyncUnsafe(5.seconds) should be("bound")
+      bulkhead.stats.rejected should be(0)
+      bulkhead.stats.inFlight should be(0)
+    }
+  }
+
+  private def createBulkhead(permits: Int, maxPermitWaitMillis: Long) = {
+    new LdapBindBulkhead(
+      poolName = "test-pool",
+      permits = Semaphore[Task](permits.toLong).runSyncUnsafe(),
+      maxPermitWait = positiveFiniteDuration(maxPermitWaitMillis, TimeUnit.MILLISECONDS),
+      scheduler = bindScheduler
+    )
+  }
+
+}
@@ -0,0 +1,193 @@
+/*
+ *    This file is part of ReadonlyREST.
+ *
+ *    ReadonlyREST is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    ReadonlyREST is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with ReadonlyREST.  If not, see http://www.gnu.org/licenses/
+ */
+package tech.beshu.ror.unit.acl.blocks.definitions.ldap.implementations
+
+import cats.data.EitherT
+import eu.timepit.refined.api.Refined
+import monix.execution.Scheduler.Implicits.global
+import org.scalatest.BeforeAndAfterAll
+import org.scalatest.matchers.should.Matchers.*
+import org.scalatest.wordspec.AnyWordSpec
+import tech.beshu.ror.accesscontrol.blocks.definitions.ldap.Dn
+import tech.beshu.ror.accesscontrol.blocks.definitions.ldap.LdapService.Name
+import tech.beshu.ror.accesscontrol.blocks.definitions.ldap.implementations.*
+import tech.beshu.ror.accesscontrol.blocks.definitions.ldap.implementations.UnboundidLdapConnectionPoolProvider.LdapConnectionConfig
+import tech.beshu.ror.accesscontrol.blocks.definitions.ldap.implementations.UnboundidLdapConnectionPoolProvider.LdapConnectionConfig.{
+  BindRequestUser,
+  ConnectionMethod,
+  LdapHost
+}
+import tech.beshu.ror.accesscontrol.blocks.definitions.ldap.implementations.UserGroupsSearchFilterConfig.UserGroupsSearchMode.*
+import tech.beshu.ror.accesscontrol.blocks.definitions.ldap.implementations.domain.LdapGroup
+import tech.beshu.ror.accesscontrol.domain.PlainTextSecret
+import tech.beshu.ror.accesscontrol.metrics.AclMetrics
+import tech.beshu.ror.accesscontrol.metrics.AclMetrics.{CacheCounters, ExternalCall}
+import tech.beshu.ror.utils.RefinedUtils.*
+import tech.beshu.ror.utils.TestsUtils.*
+import tech.beshu.ror.utils.{SingletonLdapContainers, WithDummyRequestIdSupport}
+
+import java.util.UUID
+import scala.concurrent.duration.*
+import scala.language.postfixOps
+
+class UnboundidLdapNestedGroupsServiceTests extends AnyWordSpec with BeforeAndAfterAll with WithDummyRequestIdSupport {
+
+  private val ldapConnectionPoolProvider = new UnboundidLdapConnectionPoolProvider
+
+  override protected def afterAll(): Unit = {
+    super.afterAll()
+    ldapConnectionPoolProvider.close().runSyncUnsafe()
+  }
+
+  // in the test LDAP: 'speakers (external)' is a member of 'developers' which is a member of 'it'
+  private val speakers = ldapGroup("speakers (external)", "Speakers group")
+  private val developers = ldapGroup("developers", "Developers group")
+  private val itGroup = group("it", "IT group")
+
+  private val ttl = (60 seconds).toRefinedPositiveUnsafe
+
+  "An LDAP nested groups service" when {
+    "the nested groups cache is enabled" should {
+      "share the parent groups fetched for one user's groups with the lookups of the other users" in {
+        val (service, pool) = nestedGroupsService(cache = Some(NestedGroupsCacheConfig(ttl, prewarm = false)))
+
+        val (speakerGroups, speakerCacheStats, speakerSearches) = measured(pool) {
+          service.fetchNestedGroupsOf(List(speakers)).runSyncUnsafe()
+        }
+        speakerGroups.map(_.group) should be(Set(developers.group, itGroup))
+        speakerCacheStats should be(CacheCounters.Snapshot(hits = 0, misses = 2))
+        speakerSearches should be(2)
+
+        val (developerGroups, developerCacheStats, developerSearches) = measured(pool) {
+          service.fetchNestedGroupsOf(List(developers)).runSyncUnsafe()
+        }
+        developerGroups.map(_.group) should be(Set(itGroup))
+        developerCacheStats should be(CacheCounters.Snapshot(hits = 1, misses = 1))
+        developerSearches should be(1)
+
+        val (repeatedGroups, repeatedCacheStats, repeatedSearches) = measured(pool) {
+          service.fetchNestedGroupsOf(List(speakers)).runSyncUnsafe()
+        }
+        repeatedGroups should be(speakerGroups)
+        repeatedCacheStats should be(CacheCounters.Snapshot(hits = 2, misses = 0))
+        repeatedSearches should be(0)
+      }
+      "answer the lookups from the prewarmed cache without searching LDAP again" in {
+        val (service, pool) = nestedGroupsService(cache = Some(NestedGroupsCacheConfig(ttl, prewarm = true)))
+
+        val (_, _, prewarmSearches) = measured(pool) {
+          service.prewarmCache().runSyncUnsafe()
+        }
+        prewarmSearches should be(1)
+
+        val (speakerGroups, speakerCacheStats, speakerSearches) = measured(pool) {
+          service.fetchNestedGroupsOf(List(speakers)).runSyncUnsafe()
+        }
+        speakerGroups.map(_.group) should be(Set(developers.group, itGroup))
+        speakerCacheStats should be(CacheCounters.Snapshot(hits = 2, misses = 0))
+        speakerSearches should be(0)
+
+        val (developerGroups, developerCacheStats, developerSearches) = measured(pool) {
+          service.fetchNestedGroupsOf(List(developers)).runSyncUnsafe()
+        }
+        developerGroups.map(_.group) should be(Set(itGroup))
+        developerCacheStats should be(CacheCounters.Snapshot(hits = 2, misses = 0))
+        developerSearches should be(0)
+      }
+    }
+    "the nested groups cache is disabled" should {
+      "search LDAP on each lookup and not prewarm anything" in {
+        val (service, pool) = nestedGroupsService(cache = None)
+
+        val (_, _, prewarmSearches) = measured(pool) {
+          service.prewarmCache().runSyncUnsafe()
+        }
+        prewarmSearches should be(0)
+
+        (1 to 2).foreach { _ =>
+          val (speakerGroups, _, speakerSearches) = measured(pool) {
+            service.fetchNestedGroupsOf(List(speakers)).runSyncUnsafe()
+          }
+          speakerGroups.map(_.group) should be(Set(developers.group, itGroup))
+          speakerSearches should be(2)
+        }
+      }
+    }
+  }
+
+  // the metrics are node-wide, so each service gets its own pool (and the deltas of its counters are measured)
+  private def measured[T](pool: UnboundidLdapConnectionPool)(action: => T): (T, CacheCounters.Snapshot, Long) = {
+    def cacheStats = AclMetrics.cache(s"ldap_nested_groups:${pool.name}").snapshot
+    def searches = AclMetrics.externalCall(ExternalCall.ldapSearch, pool.name).snapshot.count
+    val (cacheStatsBefore, searchesBefore) = (cacheStats, searches)
+    val result = action
+    val (cacheStatsAfter, searchesAfter) = (cacheStats, searches)
+    (
+      result,
+      CacheCounters.Snapshot(
+        hits = cacheStatsAfter.hits - cacheStatsBefore.hits,
+        misses = cacheStatsAfter.misses - cacheStatsBefore.misses
+      ),
+      searchesAfter - searchesBefore
+    )
+  }
+
+  private def nestedGroupsService(cache: Option[NestedGroupsCacheConfig]) = {
+    val connectionConfig = createLdapConnectionConfig(Name(s"ldap-${UUID.randomUUID()}"))
+    val pool = EitherT(
+      UnboundidLdapConnectionPoolProvider.connectWithOptionalBindingTest(ldapConnectionPoolProvider, connectionConfig)
+    ).valueOrThrowIllegalState()
+    val service = new UnboundidLdapNestedGroupsService(
+      connectionPool = pool,
+      config = NestedGroupsConfig(
+        nestedLevels = positiveInt(2),
+        Dn("ou=Roles,dc=example,dc=com"),
+        GroupSearchFilter("(cn=*)"),
+        UniqueMemberAttribute("uniqueMember"),
+        GroupAttribute(GroupIdAttribute("cn"), GroupNameAttribute("o")),
+        cache
+      ),
+      serviceTimeout = connectionConfig.requestTimeout
+    )
+    (service, pool)
+  }
+
+  private def ldapGroup(id: String, name: String) =
+    LdapGroup(group(id, name), Dn(s"cn=$id,ou=Roles,dc=example,dc=com"))
+
+  private def createLdapConnectionConfig(poolName: Name) = {
+    LdapConnectionConfig(
+      poolName = poolName,
+      connectionMethod = ConnectionMethod.SingleServer(
+        LdapHost
+          .from(s"ldap://${SingletonLdapContainers.ldap1.ldapHost}:${SingletonLdapContainers.ldap1.ldapPort}")
+          .get
+      ),
+      poolSize = positiveInt(1),
+      connectionHealthCheckInterval = Refined.unsafeApply(120 seconds),
+      connectionMaxAge = Refined.unsafeApply(120 seconds),
+      connectionTimeout = Refined.unsafeApply(5 seconds),
+      requestTimeout = Refined.unsafeApply(5 seconds),
+      trustAllCerts = false,
+      bindRequestUser = BindRequestUser.CustomUser(
+        Dn("cn=admin,dc=example,dc=com"),
+        PlainTextSecret("password")
+      ),
+      ignoreLdapConnectivityProblems = false
+    )
+  }
+}
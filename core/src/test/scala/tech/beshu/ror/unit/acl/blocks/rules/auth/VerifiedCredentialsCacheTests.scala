@@ -0,0 +1,108 @@
+/*
+ *    This file is part of ReadonlyREST.
+ *
+ *    ReadonlyREST is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    ReadonlyREST is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with ReadonlyREST.  If not, see http://www.gnu.org/licenses/
+ */
+package tech.beshu.ror.unit.acl.blocks.rules.auth
+
+import org.scalatest.matchers.should.Matchers.*
+import org.scalatest.wordspec.AnyWordSpec
+import tech.beshu.ror.accesscontrol.blocks.rules.Rule
+import tech.beshu.ror.accesscontrol.blocks.rules.auth.AuthKeyHashingRule.HashedCredentials
+import tech.beshu.ror.accesscontrol.blocks.rules.auth.AuthKeyHashingRule.HashedCredentials.HashedUserAndPassword
+import tech.beshu.ror.accesscontrol.blocks.rules.auth.{AuthKeySha1Rule, AuthKeySha256Rule, VerifiedCredentialsCache}
+import tech.beshu.ror.accesscontrol.domain.{Credentials, PlainTextSecret, User}
+import tech.beshu.ror.accesscontrol.metrics.AclMetrics
+import tech.beshu.ror.utils.RefinedUtils.positiveFiniteDuration
+import tech.beshu.ror.utils.TestsUtils.unsafeNes
+
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+class VerifiedCredentialsCacheTests extends AnyWordSpec {
+
+  private val configured = HashedUserAndPassword("4338fa3ea95532196849ae27fdd8ac1f0dbd2d7d")
+  private val credentials = Credentials(User.Id("logstash"), PlainTextSecret("logstash"))
+
+  "A verified credentials cache" should {
+    "not verify the same credentials again" in {
+      val cache = enabledCache()
+      val verifications = new AtomicInteger(0)
+      val metricsBefore = AclMetrics.cache(VerifiedCredentialsCache.cacheName).snapshot
+
+      check(cache, verifications, result = true) should be(true)
+      check(cache, verifications, result = true) should be(true)
+
+      verifications.get() should be(1)
+      val metricsAfter = AclMetrics.cache(VerifiedCredentialsCache.cacheName).snapshot
+      (metricsAfter.hits - metricsBefore.hits) should be(1)
+      (metricsAfter.misses - metricsBefore.misses) should be(1)
+    }
+    "not cache failed verifications" in {
+      val cache = enabledCache()
+      val verifications = new AtomicInteger(0)
+
+      check(cache, verifications, result = false) should be(false)
+      check(cache, verifications, result = false) should be(false)
+
+      verifications.get() should be(2)
+    }
+    "not share the verification between different rules, configured credentials or presented credentials" in {
+      val cache = enabledCache()
+      val verifications = new AtomicInteger(0)
+
+      check(cache, verifications, result = true)
+      check(cache, verifications, result = true, rule = AuthKeySha256Rule.Name.name)
+      check(cache, verifications, result = true, configuredCredentials = HashedUserAndPassword("other"))
+      check(cache, verifications, result = true, presented = credentials.copy(secret = PlainTextSecret("other")))
+
+      verifications.get() should be(4)
+    }
+    "verify the credentials again after invalidation" in {
+      val cache = enabledCache()
+      val verifications = new AtomicInteger(0)
+
+      check(cache, verifications, result = true)
+      cache.invalidateAll()
+      check(cache, verifications, result = true)
+
+      verifications.get() should be(2)
+    }
+  }
+
+  private def check(
+      cache: VerifiedCredentialsCache,
+      verifications: AtomicInteger,
+      result: Boolean,
+      rule: Rule.Name = AuthKeySha1Rule.Name.name,
+      configuredCredentials: HashedCredentials = configured,
+      presented: Credentials = credentials
+  ) = {
+    cache.verified(rule, configuredCredentials, presented) {
+      verifications.incrementAndGet()
+      result
+    }
+  }
+
+  private def enabledCache() =
+    VerifiedCredentialsCache.create(
+      Some(
+        VerifiedCredentialsCache.Settings(
+          positiveFiniteDuration(1, TimeUnit.MINUTES),
+          VerifiedCredentialsCache.Settings.defaultMaxSize
+        )
+      )
+    )
+
+}
@@ -264,6 +264,21 @@ trait IndicesRuleLocalIndexTests {
           allowed = Indices.Found(Set(requestedIndex("test1"))) :: Nil
         )
       }
+      "multi filterable request repeats the same indices in its packs" in {
+        assertMatchRuleForMultiIndexRequest(
+          configured = NonEmptySet.of(indexNameVar("test1"), indexNameVar("test3")),
+          indexPacks = Indices.Found(Set(requestedIndex("test1"), requestedIndex("test2"))) ::
+            Indices.Found(Set(requestedIndex("test3"))) ::
+            Indices.Found(Set(requestedIndex("test1"), requestedIndex("test2"))) ::
+            Indices.NotFound ::
+            Nil,
+          allowed = Indices.Found(Set(requestedIndex("test1"))) ::
+            Indices.Found(Set(requestedIndex("test3"))) ::
+            Indices.Found(Set(requestedIndex("test1"))) ::
+            Indices.NotFound ::
+            Nil
+        )
+      }
       "kibana-related index in requested" when {
         "there is full name kibana index passed" in {
           assertMatchRuleForIndexRequest(
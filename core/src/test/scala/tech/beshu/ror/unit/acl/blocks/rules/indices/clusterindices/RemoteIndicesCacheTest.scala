@@ -0,0 +1,135 @@
+/*
+ *    This file is part of ReadonlyREST.
+ *
+ *    ReadonlyREST is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    ReadonlyREST is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with ReadonlyREST.  If not, see http://www.gnu.org/licenses/
+ */
+package tech.beshu.ror.unit.acl.blocks.rules.indices.clusterindices
+
+import monix.eval.Task
+import monix.execution.Scheduler.Implicits.global
+import org.scalatest.matchers.should.Matchers.*
+import org.scalatest.wordspec.AnyWordSpec
+import tech.beshu.ror.accesscontrol.blocks.rules.elasticsearch.indices.clusterindices.RemoteIndicesCache
+import tech.beshu.ror.accesscontrol.domain.*
+import tech.beshu.ror.accesscontrol.domain.ClusterIndexName.Remote.ClusterName
+import tech.beshu.ror.utils.RefinedUtils.positiveFiniteDuration
+
+import java.time.{Clock, Instant, ZoneId, ZoneOffset}
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import scala.concurrent.duration.*
+
+class RemoteIndicesCacheTest extends AnyWordSpec {
+
+  private given RequestId = RequestId("test")
+
+  private val snapshot1 = Set(remoteIndex("es_us", "logs-1"))
+  private val snapshot2 = Set(remoteIndex("es_us", "logs-1"), remoteIndex("es_us", "logs-2"))
+
+  "RemoteIndicesCache" should {
+    "fetch the remote indices once within the TTL" in {
+      val clock = new SettableClock
+      val cache = enabledCache(clock)
+      val fetches = new AtomicInteger(0)
+
+      cache.indices(fetch(fetches, snapshot1)).runSyncUnsafe() should be(snapshot1)
+      clock.advance(30.seconds)
+      cache.indices(fetch(fetches, snapshot2)).runSyncUnsafe() should be(snapshot1)
+
+      fetches.get() should be(1)
+    }
+    "serve the stale remote indices and refresh them in the background after the TTL" in {
+      val clock = new SettableClock
+      val cache = enabledCache(clock)
+      val fetches = new AtomicInteger(0)
+
+      cache.indices(fetch(fetches, snapshot1)).runSyncUnsafe()
+      clock.advance(2.minutes)
+      cache.indices(fetch(fetches, snapshot2)).runSyncUnsafe() should be(snapshot1)
+
+      eventually(cache.indices(fetch(fetches, snapshot2)).runSyncUnsafe() == snapshot2)
+    }
+    "keep serving the last remote indices when the refresh fails" in {
+      val clock = new SettableClock
+      val cache = enabledCache(clock)
+      val fetches = new AtomicInteger(0)
+
+      cache.indices(fetch(fetches, snapshot1)).runSyncUnsafe()
+      clock.advance(2.minutes)
+      cache.indices(failingFetch(fetches)).runSyncUnsafe() should be(snapshot1)
+      cache.indices(failingFetch(fetches)).runSyncUnsafe() should be(snapshot1)
+    }
+    "wait for the fresh remote indices when the cached ones are older than the allowed staleness" in {
+      val clock = new SettableClock
+      val cache = enabledCache(clock)
+      val fetches = new AtomicInteger(0)
+
+      cache.indices(fetch(fetches, snapshot1)).runSyncUnsafe()
+      clock.advance(10.minutes)
+      cache.indices(fetch(fetches, snapshot2)).runSyncUnsafe() should be(snapshot2)
+
+      fetches.get() should be(2)
+    }
+    "fetch the remote indices for each call when it's disabled" in {
+      val fetches = new AtomicInteger(0)
+
+      RemoteIndicesCache.Disabled.indices(fetch(fetches, snapshot1)).runSyncUnsafe()
+      RemoteIndicesCache.Disabled.indices(fetch(fetches, snapshot1)).runSyncUnsafe()
+
+      fetches.get() should be(2)
+    }
+  }
+
+  private def enabledCache(clock: Clock) =
+    new RemoteIndicesCache.Enabled(
+      RemoteIndicesCache.Settings(positiveFiniteDuration(1, TimeUnit.MINUTES), maxStale = 5.minutes),
+      clock
+    )
+
+  private def fetch(fetches: AtomicInteger, result: Set[FullRemoteIndexWithAliases]) =
+    Task.delay {
+      fetches.incrementAndGet()
+      result
+    }
+
+  private def failingFetch(fetches: AtomicInteger) =
+    Task
+      .delay(fetches.incrementAndGet())
+      .flatMap(_ => Task.raiseError[Set[FullRemoteIndexWithAliases]](new Exception("remote cluster unreachable")))
+
+  private def eventually(condition: => Boolean): Unit = {
+    val deadline = 5.seconds.fromNow
+    while (!condition && deadline.hasTimeLeft()) Thread.sleep(10)
+    condition should be(true)
+  }
+
+  private def remoteIndex(clusterName: String, indexName: String) =
+    new FullRemoteIndexWithAliases(
+      ClusterName.Full.fromString(clusterName).get,
+      IndexName.Full.fromString(indexName).get,
+      IndexAttribute.Opened,
+      Set.empty
+    )
+
+  private final class SettableClock extends Clock {
+    @volatile private var now: Instant = Instant.parse("2026-01-01T12:00:00Z")
+
+    def advance(duration: FiniteDuration): Unit = now = now.plusMillis(duration.toMillis)
+
+    override def getZone: ZoneId = ZoneOffset.UTC
+    override def withZone(zone: ZoneId): Clock = this
+    override def instant(): Instant = now
+  }
+
+}
@@ -102,7 +102,7 @@ class AuditSettingsTests extends AnyWordSpec with Inside {
             NoOpMocksProvider
           )
           .runSyncUnsafe()
-        inside(core) { case Right(Core(_, RorDependencies(_, _, _), AuditingConfig(None, true, _))) => }
+        inside(core) { case Right(Core(_, RorDependencies(_, _, _, _, _), AuditingConfig(None, true, _))) => }
       }
     }
     "audit is disabled" should {
@@ -215,7 +215,7 @@ class AuditSettingsTests extends AnyWordSpec with Inside {
             )
             .runSyncUnsafe()
           inside(core) {
-            case Right(Core(_, RorDependencies(_, _, _), AuditingConfig(Some(WithOutputs(auditSinks)), _, _))) =>
+            case Right(Core(_, RorDependencies(_, _, _, _, _), AuditingConfig(Some(WithOutputs(auditSinks)), _, _))) =>
               auditSinks.size should be(3)
 
               val sink1 = auditSinks.head
@@ -456,6 +456,59 @@ class AuditSettingsTests extends AnyWordSpec with Inside {
                 "Invalid audit 'max_file_size': Cannot parse '100mb' as a data size. Expected format like '1 MB', '512 KB'"
             )
           }
+          "queue section is set" in {
+            val settings = rorSettingsWithAuditUnsafe(
+              """
+                |  audit:
+                |    enabled: true
+                |    outputs:
+                |    - type: log
+                |      queue:
+                |        size: 500
+                |        overflow_policy: drop_oldest
+              """.stripMargin
+            )
+
+            assertAuditSinkQueuePresent(
+              settings,
+              expectedQueue = AuditSink.Queue(positiveInt(500), AuditSink.Queue.OverflowPolicy.DropOldest)
+            )
+          }
+          "queue section without overflow policy is set" in {
+            val settings = rorSettingsWithAuditUnsafe(
+              """
+                |  audit:
+                |    enabled: true
+                |    outputs:
+                |    - type: log
+                |      queue:
+                |        size: 500
+              """.stripMargin
+            )
+
+            assertAuditSinkQueuePresent(
+              settings,
+              expectedQueue = AuditSink.Queue(positiveInt(500), AuditSink.Queue.OverflowPolicy.Block)
+            )
+          }
+          "queue section has unknown overflow policy" in {
+            val settings = rorSettingsWithAuditUnsafe(
+              """
+                |  audit:
+                |    enabled: true
+                |    outputs:
+                |    - type: log
+                |      queue:
+                |        size: 500
+                |        overflow_policy: drop_all
+              """.stripMargin
+            )
+            assertInvalidSettings(
+              settings,
+              expectedErrorMessage =
+                "Unknown audit queue 'overflow_policy': [drop_all]. Supported ones: block, drop_oldest, drop_newest"
+            )
+          }
           "configurable serializer is set" in {
             val settings = rorSettingsWithAuditUnsafe(
               """
@@ -1427,7 +1480,7 @@ class AuditSettingsTests extends AnyWordSpec with Inside {
             )
             .runSyncUnsafe()
           inside(core) {
-            case Right(Core(_, RorDependencies(_, _, _), AuditingConfig(Some(WithOutputs(auditSinks)), _, _))) =>
+            case Right(Core(_, RorDependencies(_, _, _, _, _), AuditingConfig(Some(WithOutputs(auditSinks)), _, _))) =>
               auditSinks.size should be(3)
 
               val sink1 = auditSinks.head
@@ -1488,7 +1541,7 @@ class AuditSettingsTests extends AnyWordSpec with Inside {
             )
             .runSyncUnsafe()
           inside(core) {
-            case Right(Core(_, RorDependencies(_, _, _), AuditingConfig(Some(WithOutputs(auditSinks)), _, _))) =>
+            case Right(Core(_, RorDependencies(_, _, _, _, _), AuditingConfig(Some(WithOutputs(auditSinks)), _, _))) =>
               auditSinks.size should be(2)
 
               val sink1 = auditSinks.head
@@ -1526,7 +1579,7 @@ class AuditSettingsTests extends AnyWordSpec with Inside {
               )
               .runSyncUnsafe()
             inside(core) {
-              case Right(Core(_, RorDependencies(_, _, _), AuditingConfig(Some(WithOutputs(auditSinks)), true, _))) =>
+              case Right(Core(_, RorDependencies(_, _, _, _, _), AuditingConfig(Some(WithOutputs(auditSinks)), true, _))) =>
                 auditSinks.size should be(1)
                 auditSinks.head shouldBe a[AuditSink.Enabled]
             }
@@ -1548,7 +1601,7 @@ class AuditSettingsTests extends AnyWordSpec with Inside {
                 NoOpMocksProvider
               )
               .runSyncUnsafe()
-            inside(core) { case Right(Core(_, RorDependencies(_, _, _), AuditingConfig(None, true, _))) => }
+            inside(core) { case Right(Core(_, RorDependencies(_, _, _, _, _), AuditingConfig(None, true, _))) => }
           }
         }
         "default_acl_log_enabled is set to false" should {
@@ -1573,7 +1626,7 @@ class AuditSettingsTests extends AnyWordSpec with Inside {
               )
               .runSyncUnsafe()
             inside(core) {
-              case Right(Core(_, RorDependencies(_, _, _), AuditingConfig(Some(WithOutputs(auditSinks)), false, _))) =>
+              case Right(Core(_, RorDependencies(_, _, _, _, _), AuditingConfig(Some(WithOutputs(auditSinks)), false, _))) =>
                 auditSinks.size should be(1)
                 auditSinks.head shouldBe a[AuditSink.Enabled]
                 auditSinks.head.asInstanceOf[AuditSink.Enabled].config shouldBe a[Config.EsIndexBasedSink]
@@ -1601,7 +1654,7 @@ class AuditSettingsTests extends AnyWordSpec with Inside {
               case Right(
                     Core(
                       _,
-                      RorDependencies(_, _, _),
+                      RorDependencies(_, _, _, _, _),
                       AuditingConfig(Some(AuditOutputsConfig.NoOutputsConfigured), false, _)
                     )
                   ) =>
@@ -1621,7 +1674,7 @@ class AuditSettingsTests extends AnyWordSpec with Inside {
                 NoOpMocksProvider
               )
               .runSyncUnsafe()
-            inside(core) { case Right(Core(_, RorDependencies(_, _, _), AuditingConfig(None, false, _))) => }
+            inside(core) { case Right(Core(_, RorDependencies(_, _, _, _, _), AuditingConfig(None, false, _))) => }
           }
           "work regardless of audit enabled flag" in {
             val settings = rorSettingsWithAuditUnsafe(
@@ -1641,7 +1694,7 @@ class AuditSettingsTests extends AnyWordSpec with Inside {
                 NoOpMocksProvider
               )
               .runSyncUnsafe()
-            inside(core) { case Right(Core(_, RorDependencies(_, _, _), AuditingConfig(None, false, _))) => }
+            inside(core) { case Right(Core(_, RorDependencies(_, _, _, _, _), AuditingConfig(None, false, _))) => }
           }
           "reject duplicate default_acl_log_enabled key" in {
             val settings = rorSettingsWithAuditUnsafe(
@@ -2420,7 +2473,7 @@ class AuditSettingsTests extends AnyWordSpec with Inside {
         NoOpMocksProvider
       )
       .runSyncUnsafe()
-    inside(core) { case Right(Core(_, RorDependencies(_, _, _), AuditingConfig(None, _, _))) => }
+    inside(core) { case Right(Core(_, RorDependencies(_, _, _, _, _), AuditingConfig(None, _, _))) => }
   }
 
   private def assertSettings(settings: RawRorSettings, expectedAuditSinks: NonEmptyList[AuditSink]): Unit = {
@@ -2433,7 +2486,7 @@ class AuditSettingsTests extends AnyWordSpec with Inside {
         NoOpMocksProvider
       )
       .runSyncUnsafe()
-    inside(core) { case Right(Core(_, RorDependencies(_, _, _), AuditingConfig(Some(WithOutputs(auditSinks)), _, _))) =>
+    inside(core) { case Right(Core(_, RorDependencies(_, _, _, _, _), AuditingConfig(Some(WithOutputs(auditSinks)), _, _))) =>
       auditSinks should be(expectedAuditSinks)
     }
   }
@@ -2450,7 +2503,7 @@ class AuditSettingsTests extends AnyWordSpec with Inside {
       .runSyncUnsafe()
     inside(core) {
       case Right(
-            Core(_, RorDependencies(_, _, _), AuditingConfig(Some(AuditOutputsConfig.NoOutputsConfigured), _, _))
+            Core(_, RorDependencies(_, _, _, _, _), AuditingConfig(Some(AuditOutputsConfig.NoOutputsConfigured), _, _))
           ) =>
     }
   }
@@ -2496,7 +2549,7 @@ class AuditSettingsTests extends AnyWordSpec with Inside {
         NoOpMocksProvider
       )
       .runSyncUnsafe()
-    inside(core) { case Right(Core(_, RorDependencies(_, _, _), AuditingConfig(Some(WithOutputs(auditSinks)), _, _))) =>
+    inside(core) { case Right(Core(_, RorDependencies(_, _, _, _, _), AuditingConfig(Some(WithOutputs(auditSinks)), _, _))) =>
       auditSinks.size should be(1)
 
       val headSink = auditSinks.head
@@ -2543,7 +2596,7 @@ class AuditSettingsTests extends AnyWordSpec with Inside {
         NoOpMocksProvider
       )
       .runSyncUnsafe()
-    inside(core) { case Right(Core(_, RorDependencies(_, _, _), AuditingConfig(Some(WithOutputs(auditSinks)), _, _))) =>
+    inside(core) { case Right(Core(_, RorDependencies(_, _, _, _, _), AuditingConfig(Some(WithOutputs(auditSinks)), _, _))) =>
       auditSinks.size should be(1)
 
       val headSink = auditSinks.head
@@ -2617,7 +2670,7 @@ class AuditSettingsTests extends AnyWordSpec with Inside {
         NoOpMocksProvider
       )
       .runSyncUnsafe()
-    inside(core) { case Right(Core(_, RorDependencies(_, _, _), AuditingConfig(Some(WithOutputs(auditSinks)), _, _))) =>
+    inside(core) { case Right(Core(_, RorDependencies(_, _, _, _, _), AuditingConfig(Some(WithOutputs(auditSinks)), _, _))) =>
       auditSinks.size should be(1)
 
       val headSink = auditSinks.head
@@ -2649,7 +2702,7 @@ class AuditSettingsTests extends AnyWordSpec with Inside {
         NoOpMocksProvider
       )
       .runSyncUnsafe()
-    inside(core) { case Right(Core(_, RorDependencies(_, _, _), AuditingConfig(Some(WithOutputs(auditSinks)), _, _))) =>
+    inside(core) { case Right(Core(_, RorDependencies(_, _, _, _, _), AuditingConfig(Some(WithOutputs(auditSinks)), _, _))) =>
       auditSinks.size should be(1)
 
       val headSink = auditSinks.head
@@ -2664,6 +2717,24 @@ class AuditSettingsTests extends AnyWordSpec with Inside {
     }
   }
 
+  private def assertAuditSinkQueuePresent(settings: RawRorSettings, expectedQueue: AuditSink.Queue) = {
+    val core = factory()
+      .createCoreFrom(
+        settings,
+        RorSettingsIndex(IndexName.Full(".readonlyrest")),
+        MockHttpClientsFactory,
+        MockLdapConnectionPoolProvider,
+        NoOpMocksProvider
+      )
+      .runSyncUnsafe()
+    inside(core) { case Right(Core(_, RorDependencies(_, _, _, _, _), AuditingConfig(Some(WithOutputs(auditSinks)), _, _))) =>
+      auditSinks.size should be(1)
+      inside(auditSinks.head) { case AuditSink.Enabled(_, _, queue) =>
+        queue should be(Some(expectedQueue))
+      }
+    }
+  }
+
   private def assertInvalidSettings(
       settings: RawRorSettings,
       expectedErrorMessage: String,
@@ -0,0 +1,114 @@
+/*
+ *    This file is part of ReadonlyREST.
+ *
+ *    ReadonlyREST is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    ReadonlyREST is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with ReadonlyREST.  If not, see http://www.gnu.org/licenses/
+ */
+package tech.beshu.ror.unit.acl.factory
+
+import io.lemonlabs.uri.Url
+import monix.eval.Task
+import monix.execution.Scheduler.Implicits.global
+import org.scalatest.matchers.should.Matchers.*
+import org.scalatest.wordspec.AnyWordSpec
+import tech.beshu.ror.accesscontrol.domain.RequestId
+import tech.beshu.ror.accesscontrol.factory.HttpClientsFactory.HttpClient
+import tech.beshu.ror.accesscontrol.factory.{BoundedSimpleHttpClient, CoalescingSimpleHttpClient, SimpleHttpClient}
+import tech.beshu.ror.utils.RefinedUtils.positiveFiniteDuration
+
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import scala.concurrent.duration.*
+
+class HttpClientsTests extends AnyWordSpec {
+
+  private given RequestId = RequestId("test")
+
+  private val request1 = request("Bearer token1")
+  private val request2 = request("Bearer token2")
+
+  "CoalescingSimpleHttpClient" should {
+    "send the identical concurrent requests once" in {
+      val delegate = new StubHttpClient(responseTime = 200.millis)
+      val client = new CoalescingSimpleHttpClient(delegate)
+
+      val responses = Task.parSequence(List.fill(10)(client.send(request1))).runSyncUnsafe(5.seconds)
+
+      responses.toSet should be(Set(HttpClient.Response(200, "Bearer token1")))
+      delegate.sent.get() should be(1)
+    }
+    "send the different requests separately" in {
+      val delegate = new StubHttpClient(responseTime = 200.millis)
+      val client = new CoalescingSimpleHttpClient(delegate)
+
+      Task.parSequence(List(client.send(request1), client.send(request2))).runSyncUnsafe(5.seconds)
+
+      delegate.sent.get() should be(2)
+    }
+    "send the request again when the previous one is completed" in {
+      val delegate = new StubHttpClient(responseTime = 0.millis)
+      val client = new CoalescingSimpleHttpClient(delegate)
+
+      client.send(request1).runSyncUnsafe(5.seconds)
+      client.send(request1).runSyncUnsafe(5.seconds)
+
+      delegate.sent.get() should be(2)
+    }
+  }
+
+  "BoundedSimpleHttpClient" should {
+    "send at most the allowed number of requests at once" in {
+      val delegate = new StubHttpClient(responseTime = 50.millis)
+      val client = new BoundedSimpleHttpClient(delegate, 2, positiveFiniteDuration(5, TimeUnit.SECONDS))
+
+      Task.parSequence(List.fill(10)(client.send(request1))).runSyncUnsafe(5.seconds)
+
+      delegate.sent.get() should be(10)
+      delegate.maxInFlight.get() should be(2)
+    }
+    "fail the request which waits for its turn too long" in {
+      val delegate = new StubHttpClient(responseTime = 1.second)
+      val client = new BoundedSimpleHttpClient(delegate, 1, positiveFiniteDuration(50, TimeUnit.MILLISECONDS))
+
+      val results = Task.parSequence(List.fill(2)(client.send(request1).attempt)).runSyncUnsafe(5.seconds)
+
+      results.count(_.isRight) should be(1)
+      results.collect { case Left(ex) => ex } should matchPattern {
+        case (_: HttpClient.TooManyConcurrentRequestsException) :: Nil =>
+      }
+    }
+  }
+
+  private def request(authorization: String) =
+    HttpClient.Request(HttpClient.Method.Get, Url.parse("http://localhost:8080/auth"), Map("Authorization" -> authorization))
+
+  private final class StubHttpClient(responseTime: FiniteDuration) extends SimpleHttpClient[Task] {
+    val sent = new AtomicInteger(0)
+    val maxInFlight = new AtomicInteger(0)
+    private val inFlight = new AtomicInteger(0)
+
+    override def send(request: HttpClient.Request)(
+        implicit requestId: RequestId
+    ): Task[HttpClient.Response] = Task.defer {
+      sent.incrementAndGet()
+      maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math.max)
+      Task
+        .sleep(responseTime)
+        .map(_ => HttpClient.Response(200, request.headers("Authorization")))
+        .guarantee(Task.delay(inFlight.decrementAndGet()).void)
+    }
+
+    override def close(): Task[Unit] = Task.unit
+  }
+
+}
@@ -18,6 +18,9 @@ package tech.beshu.ror.unit.acl.factory.decoders.definitions
 
 import eu.timepit.refined.types.string.NonEmptyString
 import org.scalatest.matchers.should.Matchers.*
+import tech.beshu.ror.accesscontrol.DecisionsCache
+import tech.beshu.ror.accesscontrol.blocks.rules.auth.VerifiedCredentialsCache
+import tech.beshu.ror.accesscontrol.blocks.rules.elasticsearch.indices.clusterindices.RemoteIndicesCache
 import tech.beshu.ror.accesscontrol.domain.{CaseSensitivity, IndexName, RorSettingsIndex}
 import tech.beshu.ror.accesscontrol.factory.GlobalSettings
 import tech.beshu.ror.accesscontrol.factory.GlobalSettings.FlsEngine
@@ -25,6 +28,10 @@ import tech.beshu.ror.accesscontrol.factory.RawRorSettingsBasedCoreFactory.CoreC
 import tech.beshu.ror.accesscontrol.factory.RawRorSettingsBasedCoreFactory.CoreCreationError.Reason.Message
 import tech.beshu.ror.accesscontrol.factory.decoders.GlobalStaticSettingsDecoder
 import tech.beshu.ror.accesscontrol.utils.{SyncDecoder, SyncDecoderCreator}
+import tech.beshu.ror.utils.RefinedUtils.{positiveFiniteDuration, positiveInt}
+
+import java.util.concurrent.TimeUnit
+import scala.concurrent.duration.*
 
 class GlobalSettingsTests extends BaseDecoderTest(GlobalSettingsTests.decoder) {
 
@@ -203,6 +210,151 @@ class GlobalSettingsTests extends BaseDecoderTest(GlobalSettingsTests.decoder) {
         }
       }
     }
+    "'auth_key_hashing_cache'" should {
+      "be decoded with success" when {
+        "TTL and max size are defined" in {
+          assertDecodingSuccess(
+            yaml = s"""
+                      | global_settings:
+                      |   auth_key_hashing_cache:
+                      |     ttl: 1 min
+                      |     max_size: 100
+                     """.stripMargin,
+            assertion = settings =>
+              settings.verifiedCredentialsCacheSettings should be(
+                Some(VerifiedCredentialsCache.Settings(positiveFiniteDuration(1, TimeUnit.MINUTES), positiveInt(100)))
+              )
+          )
+        }
+        "only TTL is defined" in {
+          assertDecodingSuccess(
+            yaml = s"""
+                      | global_settings:
+                      |   auth_key_hashing_cache:
+                      |     ttl_in_sec: 30
+                     """.stripMargin,
+            assertion = settings =>
+              settings.verifiedCredentialsCacheSettings should be(
+                Some(
+                  VerifiedCredentialsCache.Settings(
+                    positiveFiniteDuration(30, TimeUnit.SECONDS),
+                    VerifiedCredentialsCache.Settings.defaultMaxSize
+                  )
+                )
+              )
+          )
+        }
+        "no defined" in {
+          assertDecodingSuccess(
+            yaml = noCustomSettingsYaml,
+            assertion = settings => settings.verifiedCredentialsCacheSettings should be(None)
+          )
+        }
+      }
+    }
+    "'remote_indices_cache'" should {
+      "be decoded with success" when {
+        "TTL and max stale are defined" in {
+          assertDecodingSuccess(
+            yaml = s"""
+                      | global_settings:
+                      |   remote_indices_cache:
+                      |     ttl: 30 sec
+                      |     max_stale: 10 min
+                     """.stripMargin,
+            assertion = settings =>
+              settings.remoteIndicesCacheSettings should be(
+                Some(RemoteIndicesCache.Settings(positiveFiniteDuration(30, TimeUnit.SECONDS), 10.minutes))
+              )
+          )
+        }
+        "only TTL is defined" in {
+          assertDecodingSuccess(
+            yaml = s"""
+                      | global_settings:
+                      |   remote_indices_cache:
+                      |     ttl_in_sec: 30
+                     """.stripMargin,
+            assertion = settings =>
+              settings.remoteIndicesCacheSettings should be(
+                Some(
+                  RemoteIndicesCache.Settings(
+                    positiveFiniteDuration(30, TimeUnit.SECONDS),
+                    RemoteIndicesCache.Settings.defaultMaxStale
+                  )
+                )
+              )
+          )
+        }
+        "no defined" in {
+          assertDecodingSuccess(
+            yaml = noCustomSettingsYaml,
+            assertion = settings => settings.remoteIndicesCacheSettings should be(None)
+          )
+        }
+      }
+    }
+    "'speculative_blocks_evaluation_depth'" should {
+      "be decoded with success" when {
+        "defined" in {
+          assertDecodingSuccess(
+            yaml = s"""
+                      | global_settings:
+                      |   speculative_blocks_evaluation_depth: 3
+                     """.stripMargin,
+            assertion = settings => settings.speculativeBlocksEvaluationDepth should be(Some(positiveInt(3)))
+          )
+        }
+        "no defined" in {
+          assertDecodingSuccess(
+            yaml = noCustomSettingsYaml,
+            assertion = settings => settings.speculativeBlocksEvaluationDepth should be(None)
+          )
+        }
+      }
+    }
+    "'decisions_cache'" should {
+      "be decoded with success" when {
+        "TTL and max size are defined" in {
+          assertDecodingSuccess(
+            yaml = s"""
+                      | global_settings:
+                      |   decisions_cache:
+                      |     ttl: 5 sec
+                      |     max_size: 1000
+                     """.stripMargin,
+            assertion = settings =>
+              settings.decisionsCacheSettings should be(
+                Some(DecisionsCache.Settings(positiveFiniteDuration(5, TimeUnit.SECONDS), positiveInt(1000)))
+              )
+          )
+        }
+        "only TTL is defined" in {
+          assertDecodingSuccess(
+            yaml = s"""
+                      | global_settings:
+                      |   decisions_cache:
+                      |     ttl_in_sec: 2
+                     """.stripMargin,
+            assertion = settings =>
+              settings.decisionsCacheSettings should be(
+                Some(
+                  DecisionsCache.Settings(
+                    positiveFiniteDuration(2, TimeUnit.SECONDS),
+                    DecisionsCache.Settings.defaultMaxSize
+                  )
+                )
+              )
+          )
+        }
+        "no defined" in {
+          assertDecodingSuccess(
+            yaml = noCustomSettingsYaml,
+            assertion = settings => settings.decisionsCacheSettings should be(None)
+          )
+        }
+      }
+    }
   }
 
   "A global settings should be able to be loaded from settings (in the 'readonlyrest' section level)" when {
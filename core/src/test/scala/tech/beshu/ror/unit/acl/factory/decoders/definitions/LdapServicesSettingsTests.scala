@@ -1644,6 +1644,68 @@ class LdapServicesSettingsTests private (ldapConnectionPoolProvider: UnboundidLd
             }
           )
         }
+        "used with the parent groups cache" in {
+          assertDecodingSuccess(
+            yamls = NonEmptyList.of(
+              s"""
+                 |  ldaps:
+                 |  - name: ldap1
+                 |    host: ${SingletonLdapContainers.ldap1.ldapHost}
+                 |    port: ${SingletonLdapContainers.ldap1.ldapPort}
+                 |    ssl_enabled: false
+                 |    ssl_trust_all_certs: true
+                 |    bind_dn: "cn=admin,dc=example,dc=com"
+                 |    bind_password: "password"
+                 |    users:
+                 |      search_user_base_DN: "ou=People,dc=example,dc=com"
+                 |      user_id_attribute: "uid"
+                 |    groups:
+                 |      search_groups_base_DN: "ou=Groups,dc=example,dc=com"
+                 |      mode: search_groups_in_user_entries
+                 |      nested_groups_depth: 5
+                 |      nested_groups_cache_ttl: 60 sec
+                 |      nested_groups_cache_prewarm: true
+              """.stripMargin
+            ),
+            assertion = { definitions =>
+              val expectedLdapServiceName = LdapService.Name("ldap1")
+
+              definitions.items should have size 1
+              val composedLdapAuthService = definitions.items.head.asInstanceOf[ComposedLdapAuthService]
+
+              assertLdapService(composedLdapAuthService.ldapAuthorizationService)(
+                ldapServiceLayer1 =>
+                  ldapServiceLayer1.matchCircuitBreakerDecorator[
+                    CircuitBreakerLdapAuthorizationService.WithoutGroupsFilteringDecorator
+                  ](
+                    name = expectedLdapServiceName,
+                    circuitBreakerConfig = CircuitBreakerConfig(positiveInt(10), (10 second).toRefinedPositiveUnsafe)
+                  ),
+                ldapServiceLayer2 =>
+                  ldapServiceLayer2.matchUnboundidLdapGroupsFromUserEntryAuthorizationService(
+                    name = expectedLdapServiceName,
+                    serviceTimeout = 10 second,
+                    groupsFromUserEntry = GroupsFromUserEntry(
+                      Dn("ou=Groups,dc=example,dc=com"),
+                      GroupSearchFilter("(objectClass=*)"),
+                      GroupIdAttribute("cn"),
+                      GroupsFromUserAttribute("memberOf")
+                    ),
+                    nestedGroupsConfig = Some(
+                      NestedGroupsConfig(
+                        nestedLevels = positiveInt(5),
+                        Dn("ou=Groups,dc=example,dc=com"),
+                        GroupSearchFilter("(objectClass=*)"),
+                        UniqueMemberAttribute("uniqueMember"),
+                        GroupAttribute(GroupIdAttribute("cn"), GroupNameAttribute("cn")),
+                        Some(NestedGroupsCacheConfig((60 seconds).toRefinedPositiveUnsafe, prewarm = true))
+                      )
+                    )
+                  )
+              )
+            }
+          )
+        }
       }
       "User ID attribute is configured to be CN and skipping user search is enabled" in {
         assertDecodingSuccess(
@@ -1863,6 +1925,31 @@ class LdapServicesSettingsTests private (ldapConnectionPoolProvider: UnboundidLd
           }
         )
       }
+      "nested groups cache prewarming is enabled without the cache TTL" in {
+        assertDecodingFailure(
+          yaml =
+            s"""
+               |  ldaps:
+               |  - name: ldap1
+               |    host: ${SingletonLdapContainers.ldap1.ldapHost}
+               |    port: ${SingletonLdapContainers.ldap1.ldapPort}
+               |    ssl_enabled: false
+               |    users:
+               |      search_user_base_DN: "ou=People,dc=example,dc=com"
+               |    groups:
+               |      search_groups_base_DN: "ou=Groups,dc=example,dc=com"
+               |      nested_groups_depth: 5
+               |      nested_groups_cache_prewarm: true
+           """.stripMargin,
+          assertion = { error =>
+            error should be(
+              CoreCreationError.DefinitionsLevelCreationError(
+                Message("'nested_groups_cache_prewarm' requires the 'nested_groups_cache_ttl' to be configured")
+              )
+            )
+          }
+        )
+      }
       "no LDAP service is defined" in {
         assertDecodingFailure(
           yaml = s"""
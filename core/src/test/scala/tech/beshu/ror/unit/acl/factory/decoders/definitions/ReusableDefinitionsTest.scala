@@ -0,0 +1,140 @@
+/*
+ *    This file is part of ReadonlyREST.
+ *
+ *    ReadonlyREST is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    ReadonlyREST is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with ReadonlyREST.  If not, see http://www.gnu.org/licenses/
+ */
+package tech.beshu.ror.unit.acl.factory.decoders.definitions
+
+import cats.{Id, Show}
+import io.circe.{Decoder, HCursor, Json}
+import org.scalatest.matchers.should.Matchers.*
+import org.scalatest.wordspec.AnyWordSpec
+import tech.beshu.ror.accesscontrol.factory.decoders.definitions.Definitions.Item
+import tech.beshu.ror.accesscontrol.factory.decoders.definitions.{DefinitionsBaseDecoder, ReusableDefinitions}
+import tech.beshu.ror.accesscontrol.utils.{SyncDecoder, SyncDecoderCreator}
+import tech.beshu.ror.unit.acl.factory.decoders.definitions.ReusableDefinitionsTest.TestDef
+
+import java.nio.file.{Files, Path}
+import java.util.concurrent.atomic.AtomicInteger
+
+class ReusableDefinitionsTest extends AnyWordSpec {
+
+  "ReusableDefinitions" should {
+    "take over the definitions which didn't change from the previous core" in {
+      val decodings = new AtomicInteger(0)
+      val first = ReusableDefinitions.empty("first")
+      val firstDefs = decode(first, settings(definition("def1", 1), definition("def2", 2)), decodings)
+      val second = first.basedOn("second", reusableOwners = Set("first"))
+      val secondDefs = decode(second, settings(definition("def1", 1), definition("def2", 3)), decodings)
+
+      decodings.get() should be(3)
+      secondDefs.head should be theSameInstanceAs firstDefs.head
+      secondDefs(1) should not be theSameInstanceAs(firstDefs(1))
+      secondDefs(1).value should be(3)
+      second.reusedOwners should be(Set("first"))
+      second.reusedCount should be(1)
+      second.count should be(2)
+    }
+    "pass the taken over definitions to the next core" in {
+      val decodings = new AtomicInteger(0)
+      val first = ReusableDefinitions.empty("first")
+      val firstDefs = decode(first, settings(definition("def1", 1), definition("def2", 2)), decodings)
+      val second = first.basedOn("second", reusableOwners = Set("first"))
+      decode(second, settings(definition("def1", 1), definition("def2", 3)), decodings)
+      val third = second.basedOn("third", reusableOwners = Set("first", "second"))
+      val thirdDefs = decode(third, settings(definition("def1", 1)), decodings)
+
+      decodings.get() should be(3)
+      thirdDefs.head should be theSameInstanceAs firstDefs.head
+      third.reusedOwners should be(Set("first"))
+    }
+    "not take over the definitions when the settings they depend on changed" in {
+      val decodings = new AtomicInteger(0)
+      val first = ReusableDefinitions.empty("first")
+      val firstDefs = decode(first, settings(definition("def1", 1)), decodings, dependencies = Json.fromString("a"))
+      val second = first.basedOn("second", reusableOwners = Set("first"))
+      val secondDefs = decode(second, settings(definition("def1", 1)), decodings, dependencies = Json.fromString("b"))
+
+      decodings.get() should be(2)
+      secondDefs.head should not be theSameInstanceAs(firstDefs.head)
+      second.reusedOwners should be(Set.empty)
+    }
+    "not take over the definitions when the files they depend on changed" in {
+      val file = Files.createTempFile("trust_store", ".jks")
+      try {
+        Files.writeString(file, "first")
+        val decodings = new AtomicInteger(0)
+        val first = ReusableDefinitions.empty("first")
+        val firstDefs = decode(first, settings(definition("def1", 1)), decodings, referencedFiles = file :: Nil)
+        val second = first.basedOn("second", reusableOwners = Set("first"))
+        val secondDefs = decode(second, settings(definition("def1", 1)), decodings, referencedFiles = file :: Nil)
+        Files.writeString(file, "second, rotated")
+        val third = second.basedOn("third", reusableOwners = Set("first", "second"))
+        val thirdDefs = decode(third, settings(definition("def1", 1)), decodings, referencedFiles = file :: Nil)
+
+        decodings.get() should be(2)
+        secondDefs.head should be theSameInstanceAs firstDefs.head
+        thirdDefs.head should not be theSameInstanceAs(firstDefs.head)
+        third.reusedOwners should be(Set.empty)
+      } finally {
+        Files.deleteIfExists(file)
+      }
+    }
+    "not take over the definitions whose owner cannot be reused" in {
+      val decodings = new AtomicInteger(0)
+      val first = ReusableDefinitions.empty("first")
+      decode(first, settings(definition("def1", 1)), decodings)
+      val second = first.basedOn("second", reusableOwners = Set.empty)
+      decode(second, settings(definition("def1", 1)), decodings)
+
+      decodings.get() should be(2)
+      second.reusedOwners should be(Set.empty)
+      second.owners should be(Set("second"))
+    }
+  }
+
+  private def decode(
+      definitions: ReusableDefinitions[String],
+      settings: Json,
+      decodings: AtomicInteger,
+      dependencies: Json = Json.Null,
+      referencedFiles: List[Path] = List.empty
+  ): List[TestDef] = {
+    implicit val decoder: SyncDecoder[TestDef] = SyncDecoderCreator.from(Decoder.instance { c =>
+      decodings.incrementAndGet()
+      for {
+        name <- c.downField("name").as[String]
+        value <- c.downField("value").as[Int]
+      } yield TestDef(name, value)
+    })
+    DefinitionsBaseDecoder
+      .reusableInstance[Id, TestDef]("test_definitions", definitions, dependencies, referencedFiles)
+      .apply(HCursor.fromJson(settings))
+      .fold(failure => throw failure, _.items)
+  }
+
+  private def settings(definitions: Json*) = Json.obj("test_definitions" -> Json.arr(definitions*))
+
+  private def definition(name: String, value: Int) =
+    Json.obj("name" -> Json.fromString(name), "value" -> Json.fromInt(value))
+}
+
+object ReusableDefinitionsTest {
+
+  final case class TestDef(name: String, value: Int) extends Item {
+    override type Id = String
+    override def id: String = name
+    override def idShow: Show[String] = Show.fromToString
+  }
+}
@@ -0,0 +1,181 @@
+/*
+ *    This file is part of ReadonlyREST.
+ *
+ *    ReadonlyREST is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    ReadonlyREST is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with ReadonlyREST.  If not, see http://www.gnu.org/licenses/
+ */
+package tech.beshu.ror.unit.acl.logging
+
+import monix.eval.Task
+import monix.execution.Scheduler.Implicits.global
+import org.scalamock.scalatest.MockFactory
+import org.scalatest.concurrent.Eventually
+import org.scalatest.matchers.should.Matchers.*
+import org.scalatest.time.{Millis, Seconds, Span}
+import org.scalatest.wordspec.AnyWordSpec
+import tech.beshu.ror.accesscontrol.audit.AuditingTool.AuditSettings.AuditSink.Queue
+import tech.beshu.ror.accesscontrol.audit.AuditingTool.AuditSettings.AuditSink.Queue.OverflowPolicy
+import tech.beshu.ror.accesscontrol.audit.sink.{AuditSink, QueuedAuditSink}
+import tech.beshu.ror.accesscontrol.domain.{RequestId, SinkName}
+import tech.beshu.ror.audit.{AuditRequestContext, AuditResponseContext}
+import tech.beshu.ror.utils.RefinedUtils.positiveInt
+
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.atomic.AtomicBoolean
+import scala.concurrent.duration.*
+import scala.concurrent.{Await, Promise}
+import scala.jdk.CollectionConverters.*
+import scala.util.Try
+
+class QueuedAuditSinkTests extends AnyWordSpec with MockFactory with Eventually {
+
+  override implicit val patienceConfig: PatienceConfig =
+    PatienceConfig(timeout = scaled(Span(5, Seconds)), interval = scaled(Span(20, Millis)))
+
+  private implicit val requestId: RequestId = RequestId("test")
+
+  "A QueuedAuditSink" should {
+    "submit the queued events to the underlying sink in the submission order" in {
+      val underlying = new RecordingSink
+      val sink = queuedSink(underlying, queueSize = 10, OverflowPolicy.Block)
+      val events = List.fill(5)(newEvent())
+
+      events.foreach(sink.submit(_).runSyncUnsafe())
+
+      eventually {
+        underlying.submittedEvents should be(events)
+      }
+      sink.stats should be(QueuedAuditSink.Stats(queued = 5, dropped = 0, flushed = 5, pending = 0))
+    }
+    "drop the submitted event when the queue is full and the policy is drop_newest" in {
+      val underlying = new RecordingSink(gated = true)
+      val sink = queuedSink(underlying, queueSize = 2, OverflowPolicy.DropNewest)
+      val List(e1, e2, e3, e4) = List.fill(4)(newEvent()): @unchecked
+
+      sink.submit(e1).runSyncUnsafe()
+      eventually(underlying.inFlight should be(true))
+      List(e2, e3, e4).foreach(sink.submit(_).runSyncUnsafe())
+      sink.stats should be(QueuedAuditSink.Stats(queued = 3, dropped = 1, flushed = 0, pending = 2))
+      underlying.open()
+
+      eventually {
+        underlying.submittedEvents should be(List(e1, e2, e3))
+      }
+      sink.stats should be(QueuedAuditSink.Stats(queued = 3, dropped = 1, flushed = 3, pending = 0))
+    }
+    "drop the oldest queued event when the queue is full and the policy is drop_oldest" in {
+      val underlying = new RecordingSink(gated = true)
+      val sink = queuedSink(underlying, queueSize = 2, OverflowPolicy.DropOldest)
+      val List(e1, e2, e3, e4) = List.fill(4)(newEvent()): @unchecked
+
+      sink.submit(e1).runSyncUnsafe()
+      eventually(underlying.inFlight should be(true))
+      List(e2, e3, e4).foreach(sink.submit(_).runSyncUnsafe())
+      sink.stats should be(QueuedAuditSink.Stats(queued = 4, dropped = 1, flushed = 0, pending = 2))
+      underlying.open()
+
+      eventually {
+        underlying.submittedEvents should be(List(e1, e3, e4))
+      }
+      sink.stats should be(QueuedAuditSink.Stats(queued = 4, dropped = 1, flushed = 3, pending = 0))
+    }
+    "make the submission wait for the room in the queue when the policy is block" in {
+      val underlying = new RecordingSink(gated = true)
+      val sink = queuedSink(underlying, queueSize = 1, OverflowPolicy.Block)
+      val List(e1, e2, e3) = List.fill(3)(newEvent()): @unchecked
+
+      sink.submit(e1).runSyncUnsafe()
+      eventually(underlying.inFlight should be(true))
+      sink.submit(e2).runSyncUnsafe()
+      val blockedSubmission = sink.submit(e3).executeAsync.runToFuture
+
+      Try(Await.result(blockedSubmission, 200.millis)).isFailure should be(true)
+      underlying.open()
+
+      Await.result(blockedSubmission, 5.seconds)
+      eventually {
+        underlying.submittedEvents should be(List(e1, e2, e3))
+      }
+      sink.stats should be(QueuedAuditSink.Stats(queued = 3, dropped = 0, flushed = 3, pending = 0))
+    }
+    "drain the queue before closing the underlying sink" in {
+      val underlying = new RecordingSink
+      val sink = queuedSink(underlying, queueSize = 10, OverflowPolicy.Block)
+      val events = List.fill(3)(newEvent())
+
+      events.foreach(sink.submit(_).runSyncUnsafe())
+      sink.close().runSyncUnsafe(5.seconds)
+
+      underlying.submittedEvents should be(events)
+      underlying.isClosed should be(true)
+      sink.stats should be(QueuedAuditSink.Stats(queued = 3, dropped = 0, flushed = 3, pending = 0))
+    }
+    "count the events which were not drained within the close timeout as dropped" in {
+      val underlying = new RecordingSink(gated = true)
+      val sink = queuedSink(underlying, queueSize = 10, OverflowPolicy.Block, closeTimeout = 100.millis)
+      val List(e1, e2, e3, e4) = List.fill(4)(newEvent()): @unchecked
+
+      sink.submit(e1).runSyncUnsafe()
+      eventually(underlying.inFlight should be(true))
+      List(e2, e3).foreach(sink.submit(_).runSyncUnsafe())
+      sink.close().runSyncUnsafe(5.seconds)
+
+      underlying.isClosed should be(true)
+      sink.stats should be(QueuedAuditSink.Stats(queued = 3, dropped = 2, flushed = 0, pending = 0))
+
+      sink.submit(e4).runSyncUnsafe()
+      sink.stats should be(QueuedAuditSink.Stats(queued = 3, dropped = 3, flushed = 0, pending = 0))
+    }
+  }
+
+  private def queuedSink(
+      underlying: AuditSink,
+      queueSize: Int,
+      overflowPolicy: OverflowPolicy,
+      closeTimeout: FiniteDuration = 5.seconds
+  ) = new QueuedAuditSink(
+    underlying,
+    Queue(positiveInt(queueSize), overflowPolicy),
+    scheduler = global,
+    closeTimeout = closeTimeout
+  )
+
+  private def newEvent(): AuditResponseContext = AuditResponseContext.Forbidden(mock[AuditRequestContext])
+
+  // when gated, the submissions wait until the sink is opened
+  private final class RecordingSink(gated: Boolean = false) extends AuditSink {
+    private val submitted = new ConcurrentLinkedQueue[AuditResponseContext]()
+    private val gate = if (gated) Promise[Unit]() else Promise.successful(())
+    private val inFlightFlag = new AtomicBoolean(false)
+    private val closed = new AtomicBoolean(false)
+
+    override val name: SinkName = SinkName("test")
+
+    override def submit(event: AuditResponseContext)(implicit requestId: RequestId): Task[Unit] = {
+      Task.delay(inFlightFlag.set(true)) >>
+        Task.fromFuture(gate.future) >>
+        Task.delay(submitted.add(event)).void
+    }
+
+    override def close(): Task[Unit] = Task.delay(closed.set(true))
+
+    def open(): Unit = gate.trySuccess(())
+
+    def inFlight: Boolean = inFlightFlag.get()
+
+    def isClosed: Boolean = closed.get()
+
+    def submittedEvents: List[AuditResponseContext] = submitted.asScala.toList
+  }
+
+}
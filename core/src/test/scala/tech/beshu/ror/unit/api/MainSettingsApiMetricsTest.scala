@@ -0,0 +1,182 @@
+/*
+ *    This file is part of ReadonlyREST.
+ *
+ *    ReadonlyREST is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    ReadonlyREST is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with ReadonlyREST.  If not, see http://www.gnu.org/licenses/
+ */
+package tech.beshu.ror.unit.api
+
+import io.circe.Json
+import org.scalatest.matchers.should.Matchers.*
+import org.scalatest.wordspec.AnyWordSpec
+import tech.beshu.ror.accesscontrol.audit.sink.QueuedAuditSink
+import tech.beshu.ror.accesscontrol.blocks.Block
+import tech.beshu.ror.accesscontrol.blocks.rules.Rule
+import tech.beshu.ror.accesscontrol.domain.SinkName
+import tech.beshu.ror.accesscontrol.metrics.AclMetrics.{CacheCounters, ExternalCall, LdapBindPoolStats}
+import tech.beshu.ror.accesscontrol.metrics.{AclMetrics, BlockMetrics, LatencyHistogram}
+import tech.beshu.ror.api.MainSettingsApi.MainSettingsResponse.ProvideMetrics
+import tech.beshu.ror.api.MainSettingsApi.{MainSettingsApiResponseStatus, buildJson, httpStatus}
+import tech.beshu.ror.es.interfaces.EsXContentBuilder
+
+import scala.jdk.CollectionConverters.*
+
+class MainSettingsApiMetricsTest extends AnyWordSpec {
+
+  "The metrics response" should {
+    "contain the block, rule, cache, external call, LDAP bind pool and audit sink stats" in {
+      val response = ProvideMetrics.Metrics(
+        snapshot = AclMetrics.Snapshot(
+          caches = Map("decisions" -> CacheCounters.Snapshot(hits = 3, misses = 1)),
+          externalCalls = Map(
+            ExternalCall(ExternalCall.ldapBind, "ldap1") -> LatencyHistogram.Snapshot(2, 4000, 4000, 4000, 4000, 4000),
+            ExternalCall(ExternalCall.ldapSearch, "ldap1") -> LatencyHistogram.Snapshot.empty
+          ),
+          ldapBindPools = Map(
+            "ldap1" -> LdapBindPoolStats(
+              inFlight = 1,
+              waiting = 2,
+              completed = 30,
+              rejected = 4,
+              totalWaitNanos = 50000,
+              maxWaitNanos = 6000
+            )
+          )
+        ),
+        blocks = Map(
+          Block.Name("b2") -> BlockMetrics.Snapshot(evaluated = 5, matched = 0, skipped = 3, rules = Map.empty),
+          Block.Name("b1") -> BlockMetrics.Snapshot(
+            evaluated = 10,
+            matched = 4,
+            skipped = 0,
+            rules = Map(Rule.Name("auth_key") -> LatencyHistogram.Snapshot(10, 2000, 1000, 3000, 5000, 9000))
+          )
+        ),
+        testSettingsBlocks = Map(
+          Block.Name("b1") -> BlockMetrics.Snapshot(evaluated = 1, matched = 1, skipped = 0, rules = Map.empty)
+        ),
+        auditSinks = Map(SinkName("index") -> QueuedAuditSink.Stats(queued = 7, dropped = 1, flushed = 6, pending = 0))
+      )
+
+      response.httpStatus should be(MainSettingsApiResponseStatus.Ok)
+      jsonOf(response) should be(
+        Json.obj(
+          "status" -> Json.fromString("ok"),
+          "blocks" -> Json.obj(
+            "b1" -> Json.obj(
+              "evaluated" -> Json.fromLong(10),
+              "matched" -> Json.fromLong(4),
+              "skipped" -> Json.fromLong(0),
+              "rules" -> Json.obj(
+                "auth_key" -> latencyJson(count = 10, mean = 2, p50 = 1, p90 = 3, p99 = 5, max = 9)
+              )
+            ),
+            "b2" -> Json.obj(
+              "evaluated" -> Json.fromLong(5),
+              "matched" -> Json.fromLong(0),
+              "skipped" -> Json.fromLong(3),
+              "rules" -> Json.obj()
+            )
+          ),
+          "test_settings_blocks" -> Json.obj(
+            "b1" -> Json.obj(
+              "evaluated" -> Json.fromLong(1),
+              "matched" -> Json.fromLong(1),
+              "skipped" -> Json.fromLong(0),
+              "rules" -> Json.obj()
+            )
+          ),
+          "caches" -> Json.obj(
+            "decisions" -> Json.obj(
+              "hits" -> Json.fromLong(3),
+              "misses" -> Json.fromLong(1),
+              "hit_ratio" -> Json.fromDoubleOrNull(0.75)
+            )
+          ),
+          "external_calls" -> Json.obj(
+            "ldap_bind" -> Json.obj("ldap1" -> latencyJson(count = 2, mean = 4, p50 = 4, p90 = 4, p99 = 4, max = 4)),
+            "ldap_search" -> Json.obj("ldap1" -> latencyJson(count = 0, mean = 0, p50 = 0, p90 = 0, p99 = 0, max = 0))
+          ),
+          "ldap_bind_pools" -> Json.obj(
+            "ldap1" -> Json.obj(
+              "in_flight" -> Json.fromLong(1),
+              "waiting" -> Json.fromLong(2),
+              "completed" -> Json.fromLong(30),
+              "rejected" -> Json.fromLong(4),
+              "total_wait_us" -> Json.fromLong(50),
+              "max_wait_us" -> Json.fromLong(6)
+            )
+          ),
+          "audit_sinks" -> Json.obj(
+            "index" -> Json.obj(
+              "queued" -> Json.fromLong(7),
+              "dropped" -> Json.fromLong(1),
+              "flushed" -> Json.fromLong(6),
+              "pending" -> Json.fromLong(0)
+            )
+          )
+        )
+      )
+    }
+    "contain empty sections when nothing was recorded" in {
+      val response = ProvideMetrics.Metrics(
+        snapshot = AclMetrics.Snapshot(Map.empty, Map.empty, Map.empty),
+        blocks = Map.empty,
+        testSettingsBlocks = Map.empty,
+        auditSinks = Map.empty
+      )
+
+      jsonOf(response) should be(
+        Json.obj(
+          "status" -> Json.fromString("ok"),
+          "blocks" -> Json.obj(),
+          "test_settings_blocks" -> Json.obj(),
+          "caches" -> Json.obj(),
+          "external_calls" -> Json.obj(),
+          "ldap_bind_pools" -> Json.obj(),
+          "audit_sinks" -> Json.obj()
+        )
+      )
+    }
+  }
+
+  private def latencyJson(count: Long, mean: Long, p50: Long, p90: Long, p99: Long, max: Long) = Json.obj(
+    "count" -> Json.fromLong(count),
+    "mean_us" -> Json.fromLong(mean),
+    "p50_us" -> Json.fromLong(p50),
+    "p90_us" -> Json.fromLong(p90),
+    "p99_us" -> Json.fromLong(p99),
+    "max_us" -> Json.fromLong(max)
+  )
+
+  private def jsonOf(response: ProvideMetrics.Metrics): Json = {
+    var built: Option[java.util.Map[String, Any]] = None
+    response.buildJson(new EsXContentBuilder {
+      override def build(map: java.util.Map[String, Any]): Unit = built = Some(map)
+    })
+    built.map(fromJava).getOrElse(fail("The response JSON was not built"))
+  }
+
+  private def fromJava(value: Any): Json = value match {
+    case map: java.util.Map[?, ?] =>
+      Json.fromFields(map.asScala.toList.map { case (key, value) => key.toString -> fromJava(value) })
+    case array: Array[?]  => Json.fromValues(array.toList.map(fromJava))
+    case string: String   => Json.fromString(string)
+    case long: Long       => Json.fromLong(long)
+    case double: Double   => Json.fromDoubleOrNull(double)
+    case boolean: Boolean => Json.fromBoolean(boolean)
+    case null             => Json.Null
+    case other            => fail(s"Unexpected JSON value: $other")
+  }
+
+}
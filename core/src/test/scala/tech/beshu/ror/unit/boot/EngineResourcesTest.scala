@@ -0,0 +1,133 @@
+/*
+ *    This file is part of ReadonlyREST.
+ *
+ *    ReadonlyREST is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    ReadonlyREST is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with ReadonlyREST.  If not, see http://www.gnu.org/licenses/
+ */
+package tech.beshu.ror.unit.boot
+
+import monix.eval.Task
+import monix.execution.Scheduler.Implicits.global
+import org.scalatest.matchers.should.Matchers.*
+import org.scalatest.wordspec.AnyWordSpec
+import tech.beshu.ror.accesscontrol.blocks.definitions.ldap.implementations.UnboundidLdapConnectionPoolProvider
+import tech.beshu.ror.accesscontrol.factory.HttpClientsFactory
+import tech.beshu.ror.accesscontrol.factory.HttpClientsFactory.HttpClient
+import tech.beshu.ror.accesscontrol.factory.SimpleHttpClientCreator
+import tech.beshu.ror.boot.ReadonlyRest.EngineResources
+
+import java.util.concurrent.atomic.AtomicInteger
+
+class EngineResourcesTest extends AnyWordSpec {
+
+  "EngineResources" should {
+    "be closed when the engine which created them is stopped" in {
+      val closing = new ClosingCounter
+      val resources = closing.engineResources()
+
+      resources.release().runSyncUnsafe()
+
+      closing.count should be(1)
+    }
+    "be kept open when the old engine is stopped while the new one reuses them" in {
+      val closing = new ClosingCounter
+      val resources = closing.engineResources()
+
+      // the reload retains the old engine's resources before the new engine is created
+      resources.retain() should be(true)
+      // the old engine is stopped
+      resources.release().runSyncUnsafe()
+      closing.count should be(0)
+
+      // the new engine is stopped
+      resources.release().runSyncUnsafe()
+      closing.count should be(1)
+    }
+    "be kept open when a reload which retained them fails" in {
+      val closing = new ClosingCounter
+      val resources = closing.engineResources()
+
+      // the failed reload releases what it has retained
+      resources.retain() should be(true)
+      resources.release().runSyncUnsafe()
+      closing.count should be(0)
+
+      // the old engine is still working - its stop closes them
+      resources.release().runSyncUnsafe()
+      closing.count should be(1)
+    }
+    "be closed exactly once when shared by three engine generations" in {
+      val closing = new ClosingCounter
+      val resources = closing.engineResources()
+
+      resources.retain() should be(true) // 2nd generation created
+      resources.release().runSyncUnsafe() // 1st generation stopped
+      resources.retain() should be(true) // 3rd generation created
+      resources.release().runSyncUnsafe() // 2nd generation stopped
+      closing.count should be(0)
+
+      resources.release().runSyncUnsafe() // 3rd generation stopped
+      closing.count should be(1)
+
+      resources.release().runSyncUnsafe()
+      closing.count should be(1)
+    }
+    "not be retained once they are closed" in {
+      val closing = new ClosingCounter
+      val resources = closing.engineResources()
+
+      resources.release().runSyncUnsafe()
+
+      resources.retain() should be(false)
+      resources.release().runSyncUnsafe()
+      closing.count should be(1)
+    }
+    "be closed exactly once when the holders release them concurrently" in {
+      val closing = new ClosingCounter
+      val resources = closing.engineResources()
+      val additionalHolders = 100
+      (1 to additionalHolders).foreach(_ => resources.retain() should be(true))
+
+      Task
+        .parSequenceUnordered((0 to additionalHolders).map(_ => resources.release()))
+        .runSyncUnsafe()
+
+      closing.count should be(1)
+      resources.retain() should be(false)
+    }
+  }
+
+  // counts the closing of the resources - each of them should be closed exactly once
+  private final class ClosingCounter {
+
+    private val httpClientsFactoryShutdowns = new AtomicInteger(0)
+    private val ldapConnectionPoolProviderCloses = new AtomicInteger(0)
+
+    def engineResources(): EngineResources = EngineResources.create(
+      httpClientsFactory = new HttpClientsFactory(notUsedHttpClientCreator) {
+        override def shutdown(): Task[Unit] = Task.delay(httpClientsFactoryShutdowns.incrementAndGet()).void
+      },
+      ldapConnectionPoolProvider = new UnboundidLdapConnectionPoolProvider {
+        override def close(): Task[Unit] = Task.delay(ldapConnectionPoolProviderCloses.incrementAndGet()).void
+      }
+    )
+
+    def count: Int = {
+      httpClientsFactoryShutdowns.get() should be(ldapConnectionPoolProviderCloses.get())
+      httpClientsFactoryShutdowns.get()
+    }
+  }
+
+  private val notUsedHttpClientCreator: SimpleHttpClientCreator[Task, HttpClient] =
+    _ => throw new IllegalStateException("HTTP clients are not used in this test")
+}
@@ -217,7 +217,7 @@ class IndexSettingsRelatedRorCoreTest
 
   private def mockCoreFactory(mockedCoreFactory: CoreFactory, rawRorSettings: RawRorSettings): CoreFactory = {
     (mockedCoreFactory.createCoreFrom _)
-      .expects(where { (settings: RawRorSettings, _, _, _, _) =>
+      .expects(where { (settings: RawRorSettings, _, _, _, _, _) =>
         settings == rawRorSettings
       })
       .once()
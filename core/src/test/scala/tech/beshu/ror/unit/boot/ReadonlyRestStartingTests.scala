@@ -35,6 +35,7 @@ import squants.information.Bytes
 import tech.beshu.ror.SystemContext
 import tech.beshu.ror.accesscontrol.AccessControlList
 import tech.beshu.ror.accesscontrol.AccessControlList.AccessControlStaticContext
+import tech.beshu.ror.accesscontrol.DecisionsCache
 import tech.beshu.ror.accesscontrol.audit.AuditingTool
 import tech.beshu.ror.accesscontrol.audit.AuditingTool.AuditSettings.AuditSink
 import tech.beshu.ror.accesscontrol.audit.sink.{
@@ -49,6 +50,7 @@ import tech.beshu.ror.accesscontrol.blocks.mocks.MocksProvider.{
   ExternalGroupsProviderServiceMock,
   LdapServiceMock
 }
+import tech.beshu.ror.accesscontrol.blocks.rules.auth.VerifiedCredentialsCache
 import tech.beshu.ror.accesscontrol.domain.*
 import tech.beshu.ror.accesscontrol.domain.AuditCluster.{AuditClusterNode, ClusterMode}
 import tech.beshu.ror.accesscontrol.factory.RawRorSettingsBasedCoreFactory.CoreCreationError
@@ -364,6 +366,151 @@ class ReadonlyRestStartingTests
         acl2 shouldBe a[AccessControlListLoggingDecorator]
         acl2.asInstanceOf[AccessControlListLoggingDecorator].underlying shouldBe a[EnabledAcl]
       }
+      "be reloaded only if the index settings document version changes" when {
+        "the version check is enabled and the version is unchanged" in withReadonlyRest({
+          val resourcesPath = "/boot_tests/index_settings_reloading/"
+          val originIndexSettingsFile = "readonlyrest.yml"
+          val updatedIndexSettingsFile = "updated_readonlyrest.yml"
+
+          val mockedIndexDocumentManager = mock[IndexDocumentManager]
+          val coreFactory = mock[CoreFactory]
+
+          // the startup load and the first poll's reload (no version was remembered yet)
+          mockGettingMainSettings(
+            mockedIndexDocumentManager,
+            resourcesPath + originIndexSettingsFile,
+            AttemptCount.Exact(2)
+          )
+          // the document changes but its version doesn't, so it shouldn't be loaded
+          mockGettingMainSettings(
+            mockedIndexDocumentManager,
+            resourcesPath + updatedIndexSettingsFile,
+            AttemptCount.AnyNumberOfTimes
+          )
+          mockGettingMainSettingsVersion(mockedIndexDocumentManager, Right(DocumentVersion(1, 0, 1)))
+          mockGettingTestSettingsReturnsError(
+            mockedIndexDocumentManager,
+            error = DocumentNotFound,
+            AttemptCount.AnyNumberOfTimes
+          )
+          mockGettingTestSettingsVersion(mockedIndexDocumentManager, Left(DocumentNotFound))
+          mockCoreFactory(coreFactory, resourcesPath + originIndexSettingsFile, mockDisabledAccessControl)
+          mockCoreFactoryAnyNumberOfTimes(coreFactory, resourcesPath + updatedIndexSettingsFile)
+
+          implicit val systemContext: SystemContext =
+            createSystemContext(refreshInterval = Some(2 seconds), versionCheck = true)
+
+          (
+            readonlyRestBoot(coreFactory, mockedIndexDocumentManager),
+            forceCreateEsConfigBasedRorSettings(resourcesPath)
+          )
+        }) { rorInstance =>
+          Task
+            .sleep(6 seconds)
+            .runSyncUnsafe()
+
+          val acl = rorInstance.engines.value.mainEngine.core.accessControl
+          acl shouldBe a[AccessControlListLoggingDecorator]
+          acl.asInstanceOf[AccessControlListLoggingDecorator].underlying shouldBe a[DisabledAcl]
+        }
+        "the version check is enabled and the version changes" in withReadonlyRest({
+          val resourcesPath = "/boot_tests/index_settings_reloading/"
+          val originIndexSettingsFile = "readonlyrest.yml"
+          val updatedIndexSettingsFile = "updated_readonlyrest.yml"
+
+          val mockedIndexDocumentManager = mock[IndexDocumentManager]
+          val coreFactory = mock[CoreFactory]
+
+          mockGettingMainSettings(
+            mockedIndexDocumentManager,
+            resourcesPath + originIndexSettingsFile,
+            AttemptCount.Exact(2)
+          )
+          mockGettingMainSettings(
+            mockedIndexDocumentManager,
+            resourcesPath + updatedIndexSettingsFile,
+            AttemptCount.AnyNumberOfTimes
+          )
+          mockGettingMainSettingsVersion(
+            mockedIndexDocumentManager,
+            Right(DocumentVersion(1, 0, 1)),
+            AttemptCount.Exact(1)
+          )
+          mockGettingMainSettingsVersion(mockedIndexDocumentManager, Right(DocumentVersion(2, 1, 1)))
+          mockGettingTestSettingsReturnsError(
+            mockedIndexDocumentManager,
+            error = DocumentNotFound,
+            AttemptCount.AnyNumberOfTimes
+          )
+          mockGettingTestSettingsVersion(mockedIndexDocumentManager, Left(DocumentNotFound))
+          mockCoreFactory(coreFactory, resourcesPath + originIndexSettingsFile, mockDisabledAccessControl)
+          mockCoreFactory(coreFactory, resourcesPath + updatedIndexSettingsFile)
+
+          implicit val systemContext: SystemContext =
+            createSystemContext(refreshInterval = Some(2 seconds), versionCheck = true)
+
+          (
+            readonlyRestBoot(coreFactory, mockedIndexDocumentManager),
+            forceCreateEsConfigBasedRorSettings(resourcesPath)
+          )
+        }) { rorInstance =>
+          val acl = rorInstance.engines.value.mainEngine.core.accessControl
+          acl.asInstanceOf[AccessControlListLoggingDecorator].underlying shouldBe a[DisabledAcl]
+
+          Task
+            .sleep(6 seconds)
+            .runSyncUnsafe()
+
+          val acl2 = rorInstance.engines.value.mainEngine.core.accessControl
+          acl2 shouldBe a[AccessControlListLoggingDecorator]
+          acl2.asInstanceOf[AccessControlListLoggingDecorator].underlying shouldBe a[EnabledAcl]
+        }
+        "the version check is enabled and the reload of the changed document failed" in withReadonlyRest({
+          val resourcesPath = "/boot_tests/index_settings_reloading/"
+          val originIndexSettingsFile = "readonlyrest.yml"
+          val updatedIndexSettingsFile = "updated_readonlyrest.yml"
+
+          val mockedIndexDocumentManager = mock[IndexDocumentManager]
+          val coreFactory = mock[CoreFactory]
+
+          mockGettingMainSettings(mockedIndexDocumentManager, resourcesPath + originIndexSettingsFile)
+          mockGettingMainSettings(
+            mockedIndexDocumentManager,
+            resourcesPath + updatedIndexSettingsFile,
+            AttemptCount.AnyNumberOfTimes
+          )
+          // the version of the failed reload is not remembered, so the next poll retries it
+          mockGettingMainSettingsVersion(mockedIndexDocumentManager, Right(DocumentVersion(2, 1, 1)))
+          mockGettingTestSettingsReturnsError(
+            mockedIndexDocumentManager,
+            error = DocumentNotFound,
+            AttemptCount.AnyNumberOfTimes
+          )
+          mockGettingTestSettingsVersion(mockedIndexDocumentManager, Left(DocumentNotFound))
+          mockCoreFactory(coreFactory, resourcesPath + originIndexSettingsFile, mockDisabledAccessControl)
+          mockFailedCoreFactory(coreFactory, resourcesPath + updatedIndexSettingsFile)
+          mockCoreFactory(coreFactory, resourcesPath + updatedIndexSettingsFile)
+
+          implicit val systemContext: SystemContext =
+            createSystemContext(refreshInterval = Some(2 seconds), versionCheck = true)
+
+          (
+            readonlyRestBoot(coreFactory, mockedIndexDocumentManager),
+            forceCreateEsConfigBasedRorSettings(resourcesPath)
+          )
+        }) { rorInstance =>
+          val acl = rorInstance.engines.value.mainEngine.core.accessControl
+          acl.asInstanceOf[AccessControlListLoggingDecorator].underlying shouldBe a[DisabledAcl]
+
+          Task
+            .sleep(6 seconds)
+            .runSyncUnsafe()
+
+          val acl2 = rorInstance.engines.value.mainEngine.core.accessControl
+          acl2 shouldBe a[AccessControlListLoggingDecorator]
+          acl2.asInstanceOf[AccessControlListLoggingDecorator].underlying shouldBe a[EnabledAcl]
+        }
+      }
       "failed to load" when {
         "force load from file is set and settings file is malformed yaml" in {
           val resourcesPath = "/boot_tests/forced_file_loading_malformed_settings/"
@@ -1600,7 +1747,13 @@ class ReadonlyRestStartingTests
           mockedCoreFactory = mock[CoreFactory],
           "/boot_tests/forced_file_loading_with_audit/readonlyrest.yml",
           mockEnabledAccessControl,
-          RorDependencies(RorDependencies.Services.empty, LocalUsers.NotAvailable, NoOpImpersonationWarningsReader),
+          RorDependencies(
+            RorDependencies.Services.empty,
+            LocalUsers.NotAvailable,
+            NoOpImpersonationWarningsReader,
+            VerifiedCredentialsCache.Disabled,
+            DecisionsCache.Disabled
+          ),
           Some(
             AuditingTool.AuditOutputsConfig.WithOutputs(
               NonEmptyList.of(
@@ -1707,9 +1860,9 @@ class ReadonlyRestStartingTests
     val startedAttempts = new AtomicInteger(0)
     val coreFactory = mock[CoreFactory]
     (coreFactory.createCoreFrom _)
-      .expects(*, *, *, *, *)
+      .expects(*, *, *, *, *, *)
       .anyNumberOfTimes()
-      .onCall { (_, _, _, _, _) =>
+      .onCall { (_, _, _, _, _, _) =>
         if (startedAttempts.getAndIncrement() < failingAttemptsCount) {
           failure
         } else {
@@ -1759,13 +1912,18 @@ class ReadonlyRestStartingTests
 
   private def createSystemContext(
       refreshInterval: Option[FiniteDuration] = None,
-      maxYamlSize: Option[String] = None
+      maxYamlSize: Option[String] = None,
+      versionCheck: Boolean = false
   ): SystemContext = {
     def mapWithIntervalFrom(refreshInterval: Option[FiniteDuration]): Map[NonEmptyString, String] =
       refreshInterval
         .map(i => nes("com.readonlyrest.settings.refresh.interval") -> i.toSeconds.toString)
         .toMap
 
+    def mapWithVersionCheck(versionCheck: Boolean): Map[NonEmptyString, String] =
+      if (versionCheck) Map(nes("readonlyrest.load_from_index.version_check") -> "true")
+      else Map.empty
+
     def mapWithMaxYamlSize(maxYamlSize: Option[String]): Map[NonEmptyString, String] =
       maxYamlSize
         .map(size => nes("com.readonlyrest.settings.maxSize") -> size)
@@ -1775,6 +1933,7 @@ class ReadonlyRestStartingTests
       TestsPropertiesProvider.usingMap(
         mapWithIntervalFrom(refreshInterval) ++
           mapWithMaxYamlSize(maxYamlSize) ++
+          mapWithVersionCheck(versionCheck) ++
           Map(
             nes("com.readonlyrest.settings.loading.delay") -> "1",
             nes("com.readonlyrest.settings.loading.attempts.count") -> "1"
@@ -1817,7 +1976,7 @@ class ReadonlyRestStartingTests
       auditingSettings: Option[AuditingTool.AuditOutputsConfig]
   ): CoreFactory = {
     (mockedCoreFactory.createCoreFrom _)
-      .expects(where { (settings: RawRorSettings, _, _, _, _) =>
+      .expects(where { (settings: RawRorSettings, _, _, _, _, _) =>
         settings == loadedMainSettings
       })
       .once()
@@ -1841,7 +2000,7 @@ class ReadonlyRestStartingTests
       createCoreResult: Task[Either[NonEmptyList[CoreCreationError], Core]]
   ): CoreFactory = {
     (mockedCoreFactory.createCoreFrom _)
-      .expects(where { (settings: RawRorSettings, _, _, _, _) =>
+      .expects(where { (settings: RawRorSettings, _, _, _, _, _) =>
         settings == rorSettingsFromResource(resourceFileName)
       })
       .once()
@@ -1849,13 +2008,34 @@ class ReadonlyRestStartingTests
     mockedCoreFactory
   }
 
+  // for the settings which should not be loaded - when they are, the engine becomes an enabled one
+  private def mockCoreFactoryAnyNumberOfTimes(mockedCoreFactory: CoreFactory, resourceFileName: String): CoreFactory = {
+    (mockedCoreFactory.createCoreFrom _)
+      .expects(where { (settings: RawRorSettings, _, _, _, _, _) =>
+        settings == rorSettingsFromResource(resourceFileName)
+      })
+      .anyNumberOfTimes()
+      .returns(
+        Task.now(
+          Right(
+            Core(
+              mockEnabledAccessControl,
+              RorDependencies.noOp,
+              AuditingTool.AuditingConfig(None, defaultAclLog = true, defaultTestEsNodeSettings)
+            )
+          )
+        )
+      )
+    mockedCoreFactory
+  }
+
   private def mockFailedCoreFactory(mockedCoreFactory: CoreFactory, resourceFileName: String): CoreFactory = {
     mockFailedCoreFactory(mockedCoreFactory, rorSettingsFromResource(resourceFileName))
   }
 
   private def mockFailedCoreFactory(mockedCoreFactory: CoreFactory, rawRorSettings: RawRorSettings): CoreFactory = {
     (mockedCoreFactory.createCoreFrom _)
-      .expects(where { (settings: RawRorSettings, _, _, _, _) =>
+      .expects(where { (settings: RawRorSettings, _, _, _, _, _) =>
         settings == rawRorSettings
       })
       .once()
@@ -2068,6 +2248,40 @@ class ReadonlyRestStartingTests
     )
   }
 
+  private def mockGettingMainSettingsVersion(
+      mockedManager: IndexDocumentManager,
+      returnedVersion: Either[ReadError, DocumentVersion],
+      attemptCount: AttemptCount = AttemptCount.AnyNumberOfTimes
+  ) = {
+    mockGettingSettingsVersion(mockedManager, expectedDocument = "1", returnedVersion, attemptCount)
+  }
+
+  private def mockGettingTestSettingsVersion(
+      mockedManager: IndexDocumentManager,
+      returnedVersion: Either[ReadError, DocumentVersion],
+      attemptCount: AttemptCount = AttemptCount.AnyNumberOfTimes
+  ) = {
+    mockGettingSettingsVersion(mockedManager, expectedDocument = "2", returnedVersion, attemptCount)
+  }
+
+  private def mockGettingSettingsVersion(
+      mockedManager: IndexDocumentManager,
+      expectedDocument: String,
+      returnedVersion: Either[ReadError, DocumentVersion],
+      attemptCount: AttemptCount
+  ) = {
+    val handler =
+      ((index: IndexName.Full, id: String, requestId: RequestId) => mockedManager.documentVersion(index, id)(requestId))
+        .expects(fullIndexName(".readonlyrest"), expectedDocument, *)
+    val handlerWithRepetitions = attemptCount match {
+      case AttemptCount.AnyNumberOfTimes => handler.anyNumberOfTimes()
+      case AttemptCount.Exact(count)     => handler.repeated(count)
+    }
+    handlerWithRepetitions
+      .returns(Task.now(returnedVersion))
+    mockedManager
+  }
+
   private def mockSavingMainSettings(
       mockedManager: IndexDocumentManager,
       resourceFileName: String,
@@ -149,6 +149,21 @@ class CacheableEsClusterServiceDecoratorTest extends AnyWordSpec with MockFactor
         } yield ()
         result.runSyncUnsafe()
       }
+      "call underlying again when the previous call failed" in {
+        val decorator = decoratorWith { svc =>
+          (svc.allRemoteIndicesAndAliases(_: RequestId))
+            .expects(*)
+            .returning(Task.raiseError(new Exception("remote cluster unreachable")))
+            .once()
+          (svc.allRemoteIndicesAndAliases(_: RequestId)).expects(*).returning(Task.now(Set.empty)).once()
+        }
+        val result = for {
+          _ <- decorator.allRemoteIndicesAndAliases.attempt
+          _ <- decorator.allRemoteIndicesAndAliases
+          _ <- decorator.allRemoteIndicesAndAliases
+        } yield ()
+        result.runSyncUnsafe()
+      }
     }
 
     "allRemoteDataStreamsAndAliases is called" should {
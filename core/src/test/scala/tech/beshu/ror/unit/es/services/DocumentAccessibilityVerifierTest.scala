@@ -0,0 +1,179 @@
+/*
+ *    This file is part of ReadonlyREST.
+ *
+ *    ReadonlyREST is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    ReadonlyREST is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with ReadonlyREST.  If not, see http://www.gnu.org/licenses/
+ */
+package tech.beshu.ror.unit.es.services
+
+import cats.data.NonEmptyList
+import monix.eval.Task
+import monix.execution.Scheduler.Implicits.global
+import org.scalatest.matchers.should.Matchers.*
+import org.scalatest.wordspec.AnyWordSpec
+import tech.beshu.ror.accesscontrol.domain.*
+import tech.beshu.ror.accesscontrol.domain.DocumentAccessibility.{Accessible, Inaccessible}
+import tech.beshu.ror.es.services.DocumentAccessibilityVerifier
+import tech.beshu.ror.es.services.EsClusterService.{Document, DocumentsAccessibility}
+import tech.beshu.ror.utils.RefinedUtils.nes
+import tech.beshu.ror.utils.WithDummyRequestIdSupport
+
+import java.util.concurrent.ConcurrentLinkedQueue
+import scala.concurrent.Promise
+import scala.concurrent.duration.*
+import scala.jdk.CollectionConverters.*
+
+class DocumentAccessibilityVerifierTest extends AnyWordSpec with WithDummyRequestIdSupport {
+
+  private val index = ClusterIndexName.unsafeFromString("my-index")
+  private val filter = Filter(nes("""{"term":{"owner":"user1"}}"""))
+  private val otherFilter = Filter(nes("""{"term":{"owner":"user2"}}"""))
+  private val blockerId = "blocker"
+
+  "DocumentAccessibilityVerifier" should {
+    "verify the same version of a document only once" in {
+      val verifications = new Verifications(accessible = Set("doc-1"))
+      val verifier = verifierOf(verifications)
+      val document = versionedDocument("doc-1", seqNo = 1)
+
+      verifier.verify(document, filter).runSyncUnsafe() should be(Accessible)
+      verifier.verify(document, filter).runSyncUnsafe() should be(Accessible)
+      verifier.verifyAll(NonEmptyList.one(document), filter).runSyncUnsafe() should be(Map(document -> Accessible))
+
+      verifications.batches should be(List(List(document)))
+    }
+    "verify a document again when its version changes" in {
+      val verifications = new Verifications(accessible = Set("doc-1"))
+      val verifier = verifierOf(verifications)
+      val document = versionedDocument("doc-1", seqNo = 1)
+      val modifiedDocument = versionedDocument("doc-1", seqNo = 2)
+
+      verifier.verify(document, filter).runSyncUnsafe()
+      verifier.verify(modifiedDocument, filter).runSyncUnsafe()
+
+      verifications.batches should be(List(List(document), List(modifiedDocument)))
+    }
+    "verify a document of unknown version each time" in {
+      val verifications = new Verifications(accessible = Set("doc-1"))
+      val verifier = verifierOf(verifications)
+      val document = DocumentWithIndex(index, DocumentId("doc-1"))
+
+      verifier.verify(document, filter).runSyncUnsafe() should be(Accessible)
+      verifier.verify(document, filter).runSyncUnsafe() should be(Accessible)
+
+      verifications.batches should have size 2
+    }
+    "verify only the documents which are not cached yet" in {
+      val verifications = new Verifications(accessible = Set("doc-1"))
+      val verifier = verifierOf(verifications)
+      val document1 = versionedDocument("doc-1", seqNo = 1)
+      val document2 = versionedDocument("doc-2", seqNo = 1)
+
+      verifier.verify(document1, filter).runSyncUnsafe()
+      verifier.verifyAll(NonEmptyList.of(document1, document2), filter).runSyncUnsafe() should be(
+        Map(document1 -> Accessible, document2 -> Inaccessible)
+      )
+
+      verifications.batches should be(List(List(document1), List(document2)))
+    }
+    "treat a document which could not be verified as inaccessible, but not cache it" in {
+      val verifications = new Verifications(accessible = Set.empty, unverifiable = Set("doc-1"))
+      val verifier = verifierOf(verifications)
+      val document = versionedDocument("doc-1", seqNo = 1)
+
+      verifier.verify(document, filter).runSyncUnsafe() should be(Inaccessible)
+      verifier.verify(document, filter).runSyncUnsafe() should be(Inaccessible)
+
+      verifications.batches should have size 2
+    }
+    "not cache an inaccessible document, so it's visible as soon as it's matched by the filter" in {
+      val verifications = new Verifications(accessible = Set.empty)
+      val verifier = verifierOf(verifications)
+      val document = versionedDocument("doc-1", seqNo = 1)
+
+      verifier.verify(document, filter).runSyncUnsafe() should be(Inaccessible)
+      verifications.makeAccessible("doc-1")
+      verifier.verify(document, filter).runSyncUnsafe() should be(Accessible)
+      verifier.verifyAll(NonEmptyList.one(document), filter).runSyncUnsafe() should be(Map(document -> Accessible))
+
+      verifications.batches should be(List(List(document), List(document)))
+    }
+    "not wait for the batch window when no other document is being verified" in {
+      val verifications = new Verifications(accessible = Set("doc-1"))
+      val verifier = verifierOf(verifications, batchWindow = 1.minute)
+      val document = versionedDocument("doc-1", seqNo = 1)
+
+      verifier.verify(document, filter).runSyncUnsafe(5.seconds) should be(Accessible)
+    }
+    "verify the documents requested concurrently with the same filter in one batch" in {
+      val blockerVerified = Promise[Unit]()
+      val verifications = new Verifications(accessible = Set("doc-1", "doc-3"), blocker = blockerVerified)
+      val verifier = verifierOf(verifications, batchWindow = 200.millis)
+      val documents = List("doc-1", "doc-2", "doc-3").map(versionedDocument(_, seqNo = 1))
+      // the verification in progress makes the next documents wait for the batch window
+      val blockerVerification = verifier.verify(versionedDocument(blockerId, seqNo = 1), otherFilter).runToFuture
+
+      Task
+        .parSequence(documents.map(verifier.verify(_, filter)))
+        .runSyncUnsafe() should be(List(Accessible, Inaccessible, Accessible))
+      blockerVerified.success(())
+      Task.fromFuture(blockerVerification).runSyncUnsafe() should be(Inaccessible)
+
+      verifications.batches.filterNot(_.exists(_.documentId.value == blockerId)).map(_.toSet) should be(
+        List(documents.toSet)
+      )
+    }
+  }
+
+  private def verifierOf(verifications: Verifications, batchWindow: FiniteDuration = 1.milli) =
+    new DocumentAccessibilityVerifier(
+      verifyBatch = (documents, _, _) => verifications.verify(documents),
+      indexUuidOf = (_, _) => Some("my-index-uuid"),
+      batchWindow = batchWindow
+    )
+
+  private def versionedDocument(id: String, seqNo: Long) =
+    DocumentWithIndex(index, DocumentId(id), Some(DocumentVersion(seqNo, primaryTerm = 1)))
+
+  private final class Verifications(
+      accessible: Set[String],
+      unverifiable: Set[String] = Set.empty,
+      blocker: Promise[Unit] = Promise.successful(())
+  ) {
+
+    @volatile private var accessibleIds = accessible
+    private val verifiedBatches = new ConcurrentLinkedQueue[List[Document]]()
+
+    def makeAccessible(id: String): Unit = accessibleIds = accessibleIds + id
+
+    def verify(documents: NonEmptyList[Document]): Task[DocumentsAccessibility] = {
+      val blocked =
+        if (documents.exists(_.documentId.value == blockerId)) Task.fromFuture(blocker.future)
+        else Task.unit
+      blocked >> Task.delay(verifiedWithoutBlocking(documents))
+    }
+
+    private def verifiedWithoutBlocking(documents: NonEmptyList[Document]) = {
+      verifiedBatches.add(documents.toList)
+      documents.toList
+        .filterNot(document => unverifiable.contains(document.documentId.value))
+        .map { document =>
+          document -> (if (accessibleIds.contains(document.documentId.value)) Accessible else Inaccessible)
+        }
+        .toMap
+    }
+
+    def batches: List[List[Document]] = verifiedBatches.asScala.toList
+  }
+
+}
@@ -152,6 +152,25 @@ class RorCoreSettingsLoadingStrategyTest extends AnyWordSpec with Inside {
         )
       )
     }
+    "enable the version check of the in-index settings" in {
+      val result = load(
+        """
+          |readonlyrest:
+          |  load_from_index:
+          |    poll_interval: 30s
+          |    version_check: true
+          |""".stripMargin
+      )
+
+      result should be(
+        Right(
+          LoadFromIndexWithFileFallback(
+            indexLoadingRetrySettings = defaultRetrySettings,
+            coreRefreshSettings = Enabled((30 seconds).toRefinedPositiveUnsafe, versionCheck = true)
+          )
+        )
+      )
+    }
     "disable core refresh" when {
       "poll_interval is set to 0" in {
         val result = load(
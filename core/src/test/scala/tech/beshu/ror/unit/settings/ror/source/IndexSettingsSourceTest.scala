@@ -0,0 +1,83 @@
+/*
+ *    This file is part of ReadonlyREST.
+ *
+ *    ReadonlyREST is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    ReadonlyREST is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with ReadonlyREST.  If not, see http://www.gnu.org/licenses/
+ */
+package tech.beshu.ror.unit.settings.ror.source
+
+import io.circe.Json
+import monix.eval.Task
+import monix.execution.Scheduler.Implicits.global
+import org.scalamock.scalatest.MockFactory
+import org.scalatest.matchers.should.Matchers.*
+import org.scalatest.wordspec.AnyWordSpec
+import tech.beshu.ror.accesscontrol.domain.{IndexName, RequestId}
+import tech.beshu.ror.es.services.IndexDocumentManager
+import tech.beshu.ror.es.services.IndexDocumentManager.{DocumentVersion, ReadError}
+import tech.beshu.ror.settings.ror.source.IndexSettingsSource
+import tech.beshu.ror.settings.ror.source.IndexSettingsSource.LoadingError
+import tech.beshu.ror.settings.ror.source.ReadOnlySettingsSource.SettingsLoadingError
+import tech.beshu.ror.utils.TestsUtils.{fullIndexName, unsafeNes}
+
+import java.util.UUID
+
+class IndexSettingsSourceTest extends AnyWordSpec with MockFactory {
+
+  private implicit val requestId: RequestId = RequestId(UUID.randomUUID().toString)
+
+  "An IndexSettingsSource" should {
+    "return the version of the settings document" in {
+      val version = DocumentVersion(version = 3, seqNo = 7, primaryTerm = 1)
+      val source = indexSettingsSource(mockedDocumentVersion(Right(version)))
+
+      source.documentVersion().runSyncUnsafe() should be(Right(version))
+    }
+    "return a loading error when the document version cannot be read" when {
+      "the settings index doesn't exist" in {
+        val source = indexSettingsSource(mockedDocumentVersion(Left(IndexDocumentManager.IndexNotFound)))
+
+        source.documentVersion().runSyncUnsafe() should be(
+          Left(SettingsLoadingError.SourceSpecificError(LoadingError.IndexNotFound))
+        )
+      }
+      "the settings document doesn't exist" in {
+        val source = indexSettingsSource(mockedDocumentVersion(Left(IndexDocumentManager.DocumentNotFound)))
+
+        source.documentVersion().runSyncUnsafe() should be(
+          Left(SettingsLoadingError.SourceSpecificError(LoadingError.DocumentNotFound))
+        )
+      }
+      "the settings document is unreachable" in {
+        val source = indexSettingsSource(mockedDocumentVersion(Left(IndexDocumentManager.DocumentUnreachable)))
+
+        source.documentVersion().runSyncUnsafe() should be(
+          Left(SettingsLoadingError.SourceSpecificError(LoadingError.DocumentUnreachable))
+        )
+      }
+    }
+  }
+
+  private def indexSettingsSource(indexDocumentManager: IndexDocumentManager) =
+    new IndexSettingsSource[Json](indexDocumentManager, fullIndexName(".readonlyrest"), documentId = "1")
+
+  // the document itself (its source) is not fetched
+  private def mockedDocumentVersion(result: Either[ReadError, DocumentVersion]) = {
+    val mockedManager = mock[IndexDocumentManager]
+    ((index: IndexName.Full, id: String, requestId: RequestId) => mockedManager.documentVersion(index, id)(requestId))
+      .expects(fullIndexName(".readonlyrest"), "1", *)
+      .once()
+      .returns(Task.now(result))
+    mockedManager
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ *    This file is part of ReadonlyREST.
+ *
+ *    ReadonlyREST is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    ReadonlyREST is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with ReadonlyREST.  If not, see http://www.gnu.org/licenses/
+ */
+package tech.beshu.ror.unit.utils
+
+import cats.data.NonEmptyList
+import monix.eval.Task
+import monix.execution.Scheduler.Implicits.global
+import org.scalatest.matchers.should.Matchers.*
+import org.scalatest.wordspec.AnyWordSpec
+import tech.beshu.ror.accesscontrol.blocks.rules.Rule
+import tech.beshu.ror.accesscontrol.blocks.rules.Rule.RegularRule
+import tech.beshu.ror.accesscontrol.blocks.{Block, BlockContext, BlockContextUpdater, Decision}
+import tech.beshu.ror.accesscontrol.metrics.AclMetrics
+import tech.beshu.ror.accesscontrol.metrics.AclMetrics.LdapBindPoolStats
+import tech.beshu.ror.mocks.MockRequestContext
+import tech.beshu.ror.utils.TestsUtils.{*, given}
+
+import java.util.concurrent.atomic.AtomicInteger
+
+// AclMetrics is node-wide, so the tests use names no other test uses (the metrics of a block are its own)
+class AclMetricsTest extends AnyWordSpec {
+
+  "AclMetrics" should {
+    "record the evaluations and the latency of each rule check of a block in the block's metrics" in {
+      val checks = new AtomicInteger(0)
+      val ruleName = Rule.Name("acl_metrics_test_rule")
+      val block = blockWith("acl-metrics-test-block", countingRule(ruleName, checks))
+
+      block.evaluateForRegularRequest(MockRequestContext.indices).runSyncUnsafe()
+      block.evaluateForRegularRequest(MockRequestContext.indices).runSyncUnsafe()
+
+      checks.get() should be(2)
+      val metrics = block.metrics.snapshot
+      (metrics.evaluated, metrics.matched, metrics.skipped) should be((2L, 2L, 0L))
+      metrics.rules.keySet should be(Set(ruleName))
+      metrics.rules.get(ruleName).map(_.count) should be(Some(2))
+    }
+    "not share the metrics between blocks with the same name (e.g. of the main and the test settings engines)" in {
+      val ruleName = Rule.Name("acl_metrics_test_rule")
+      val mainEngineBlock = blockWith("acl-metrics-test-same-name-block", countingRule(ruleName, new AtomicInteger(0)))
+      val testEngineBlock = blockWith("acl-metrics-test-same-name-block", countingRule(ruleName, new AtomicInteger(0)))
+
+      mainEngineBlock.evaluateForRegularRequest(MockRequestContext.indices).runSyncUnsafe()
+      testEngineBlock.metrics.recordSkipped()
+
+      val mainEngineMetrics = mainEngineBlock.metrics.snapshot
+      (mainEngineMetrics.evaluated, mainEngineMetrics.skipped) should be((1L, 0L))
+      mainEngineMetrics.rules.get(ruleName).map(_.count) should be(Some(1))
+      val testEngineMetrics = testEngineBlock.metrics.snapshot
+      (testEngineMetrics.evaluated, testEngineMetrics.skipped) should be((0L, 1L))
+      testEngineMetrics.rules should be(Map.empty)
+    }
+    "keep the metrics of a block when its audit sinks are resolved" in {
+      val block = blockWith("acl-metrics-test-audited-block", countingRule(Rule.Name("r"), new AtomicInteger(0)))
+
+      block.withResolvedAuditSinks(Nil).metrics should be theSameInstanceAs block.metrics
+    }
+    "report the stats of the registered LDAP bind pools only" in {
+      val oldPoolStats = () => LdapBindPoolStats(1, 0, 10, 0, 100, 50)
+      val newPoolStats = () => LdapBindPoolStats(0, 2, 20, 1, 300, 200)
+      val poolName = "acl-metrics-test-ldap"
+
+      AclMetrics.registerLdapBindPool(poolName, oldPoolStats)
+      AclMetrics.snapshot.ldapBindPools.get(poolName) should be(Some(oldPoolStats()))
+
+      // a pool of the same name created by a newer engine replaces the stats; closing the old pool keeps them
+      AclMetrics.registerLdapBindPool(poolName, newPoolStats)
+      AclMetrics.unregisterLdapBindPool(poolName, oldPoolStats)
+      AclMetrics.snapshot.ldapBindPools.get(poolName) should be(Some(newPoolStats()))
+
+      AclMetrics.unregisterLdapBindPool(poolName, newPoolStats)
+      AclMetrics.snapshot.ldapBindPools.get(poolName) should be(None)
+    }
+  }
+
+  private def blockWith(name: String, rule: Rule) = new Block(
+    name = Block.Name(name),
+    policy = Block.Policy.Allow,
+    rules = NonEmptyList.one(rule),
+    audit = Block.Audit.Enabled()
+  )
+
+  private def countingRule(ruleName: Rule.Name, checks: AtomicInteger): RegularRule = new RegularRule {
+    override val name: Rule.Name = ruleName
+
+    override protected def regularCheck[B <: BlockContext: BlockContextUpdater](blockContext: B): Task[Decision[B]] =
+      Task.delay {
+        checks.incrementAndGet()
+        Decision.Permitted(blockContext)
+      }
+  }
+
+}
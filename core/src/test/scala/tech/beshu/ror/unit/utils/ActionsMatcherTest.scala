@@ -0,0 +1,88 @@
+/*
+ *    This file is part of ReadonlyREST.
+ *
+ *    ReadonlyREST is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    ReadonlyREST is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with ReadonlyREST.  If not, see http://www.gnu.org/licenses/
+ */
+package tech.beshu.ror.unit.utils
+
+import org.scalacheck.Gen
+import org.scalatest.matchers.should.Matchers.*
+import org.scalatest.wordspec.AnyWordSpec
+import org.scalatestplus.scalacheck.ScalaCheckDrivenPropertyChecks
+import tech.beshu.ror.accesscontrol.domain.Action
+import tech.beshu.ror.accesscontrol.matchers.{ActionsMatcher, PatternsMatcher}
+
+class ActionsMatcherTest extends AnyWordSpec with ScalaCheckDrivenPropertyChecks {
+
+  "ActionsMatcher" should {
+    "match the actions matched by the patterns" in {
+      val matcher = ActionsMatcher.create(List(Action("indices:data/read/*"), Action("cluster:monitor/health")))
+
+      matcher.`match`(Action("indices:data/read/search")) should be(true)
+      matcher.`match`(Action("cluster:monitor/health")) should be(true)
+      matcher.`match`(Action("indices:data/write/index")) should be(false)
+    }
+    "return the same decision for an action seen again" in {
+      val matcher = ActionsMatcher.create(List(Action("indices:data/read/*")))
+
+      matcher.`match`(Action("indices:data/read/get")) should be(true)
+      matcher.`match`(Action("indices:data/read/get")) should be(true)
+      matcher.`match`(Action("indices:admin/create")) should be(false)
+      matcher.`match`(Action("indices:admin/create")) should be(false)
+    }
+    "precompute the decisions of the actions interned before it was created" in {
+      val registry = new Action.Registry(capacity = 8)
+      registry.idOf(Action("indices:admin/mapping/put"))
+      registry.idOf(Action("indices:data/read/search"))
+
+      val matcher = ActionsMatcher.create(List(Action("indices:admin/*")), registry)
+
+      matcher.isDecided(Action("indices:admin/mapping/put")) should be(true)
+      matcher.isDecided(Action("indices:data/read/search")) should be(true)
+      matcher.isDecided(Action("indices:admin/create")) should be(false)
+
+      matcher.`match`(Action("indices:admin/mapping/put")) should be(true)
+      matcher.`match`(Action("indices:data/read/search")) should be(false)
+      matcher.`match`(Action("indices:admin/create")) should be(true)
+      matcher.isDecided(Action("indices:admin/create")) should be(true)
+    }
+    "match the actions which cannot be interned anymore against the patterns" in {
+      val registry = new Action.Registry(capacity = 1)
+      registry.idOf(Action("indices:admin/mapping/put"))
+      registry.idOf(Action("indices:admin/create")) should be(Action.Registry.notInterned)
+
+      val matcher = ActionsMatcher.create(List(Action("indices:admin/*")), registry)
+
+      matcher.`match`(Action("indices:admin/create")) should be(true)
+      matcher.`match`(Action("indices:data/read/search")) should be(false)
+      matcher.isDecided(Action("indices:admin/create")) should be(false)
+    }
+    "match the same actions as the patterns matcher" in {
+      val part = Gen.listOfN(3, Gen.oneOf('a', 'b', '/')).map(_.mkString)
+      val pattern = Gen.listOfN(3, Gen.oneOf('a', 'b', '/', '*')).map(_.mkString)
+      forAll(Gen.listOf(part), Gen.listOf(part), Gen.nonEmptyListOf(pattern)) {
+        (internedBefore: List[String], names: List[String], patterns: List[String]) =>
+          // a small registry, so both the precomputed decisions and the not interned actions are checked
+          val registry = new Action.Registry(capacity = 16)
+          internedBefore.foreach(n => registry.idOf(Action(s"indices:$n")))
+          val actionsMatcher = ActionsMatcher.create(patterns.map(p => Action(s"indices:$p")), registry)
+          val patternsMatcher = PatternsMatcher.create(patterns.map(p => Action(s"indices:$p")))
+          (internedBefore ++ names).map(n => Action(s"indices:$n")).foreach { action =>
+            actionsMatcher.`match`(action) should be(patternsMatcher.`match`(action))
+          }
+      }
+    }
+  }
+
+}
@@ -0,0 +1,107 @@
+/*
+ *    This file is part of ReadonlyREST.
+ *
+ *    ReadonlyREST is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    ReadonlyREST is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with ReadonlyREST.  If not, see http://www.gnu.org/licenses/
+ */
+package tech.beshu.ror.unit.utils
+
+import cats.data.NonEmptyList
+import com.comcast.ip4s.{Cidr, Hostname}
+import monix.eval.Task
+import monix.execution.Scheduler.Implicits.global
+import org.scalatest.matchers.should.Matchers.*
+import org.scalatest.wordspec.AnyWordSpec
+import tech.beshu.ror.accesscontrol.blocks.rules.tranport.HostnameResolver
+import tech.beshu.ror.accesscontrol.domain.Address.{Ip, Name}
+import tech.beshu.ror.utils.CachingHostnameResolver
+
+import java.time.{Clock, Instant, ZoneId, ZoneOffset}
+import java.util.concurrent.atomic.AtomicInteger
+import scala.concurrent.duration.*
+
+class CachingHostnameResolverTest extends AnyWordSpec {
+
+  private val settings = CachingHostnameResolver.Settings(ttl = 30.seconds, negativeTtl = 5.seconds, maxEntries = 100)
+
+  "CachingHostnameResolver" should {
+    "resolve the hostname once within the TTL" in {
+      val clock = new SettableClock
+      val underlying = new CountingResolver(Some(NonEmptyList.one(ip("10.0.0.1"))))
+      val resolver = new CachingHostnameResolver(underlying, settings, clock)
+
+      resolver.resolve(name("es.local")).runSyncUnsafe() should be(Some(NonEmptyList.one(ip("10.0.0.1"))))
+      clock.advance(20.seconds)
+      resolver.resolve(name("es.local")).runSyncUnsafe() should be(Some(NonEmptyList.one(ip("10.0.0.1"))))
+
+      underlying.resolutions.get() should be(1)
+    }
+    "resolve the hostname again after the TTL" in {
+      val clock = new SettableClock
+      val underlying = new CountingResolver(Some(NonEmptyList.one(ip("10.0.0.1"))))
+      val resolver = new CachingHostnameResolver(underlying, settings, clock)
+
+      resolver.resolve(name("es.local")).runSyncUnsafe()
+      clock.advance(31.seconds)
+      resolver.resolve(name("es.local")).runSyncUnsafe()
+
+      underlying.resolutions.get() should be(2)
+    }
+    "keep the unresolvable hostname for the negative TTL" in {
+      val clock = new SettableClock
+      val underlying = new CountingResolver(None)
+      val resolver = new CachingHostnameResolver(underlying, settings, clock)
+
+      resolver.resolve(name("unknown")).runSyncUnsafe() should be(None)
+      clock.advance(4.seconds)
+      resolver.resolve(name("unknown")).runSyncUnsafe() should be(None)
+      underlying.resolutions.get() should be(1)
+
+      clock.advance(2.seconds)
+      resolver.resolve(name("unknown")).runSyncUnsafe() should be(None)
+      underlying.resolutions.get() should be(2)
+    }
+    "coalesce the concurrent resolutions of the same hostname" in {
+      val underlying = new CountingResolver(Some(NonEmptyList.one(ip("10.0.0.1"))), delay = 200.millis)
+      val resolver = new CachingHostnameResolver(underlying, settings)
+
+      Task.parSequenceUnordered(List.fill(10)(resolver.resolve(name("es.local")))).runSyncUnsafe()
+
+      underlying.resolutions.get() should be(1)
+    }
+  }
+
+  private def name(hostname: String) = Name(Hostname.fromString(hostname).get)
+
+  private def ip(value: String) = Ip(Cidr.fromString(s"$value/32").get)
+
+  private final class CountingResolver(result: Option[NonEmptyList[Ip]], delay: FiniteDuration = Duration.Zero)
+      extends HostnameResolver {
+
+    val resolutions = new AtomicInteger(0)
+
+    override def resolve(hostname: Name): Task[Option[NonEmptyList[Ip]]] =
+      Task.delay(resolutions.incrementAndGet()).delayResult(delay).map(_ => result)
+  }
+
+  private final class SettableClock extends Clock {
+    @volatile private var now: Instant = Instant.parse("2026-01-01T12:00:00Z")
+
+    def advance(duration: FiniteDuration): Unit = now = now.plusMillis(duration.toMillis)
+
+    override def getZone: ZoneId = ZoneOffset.UTC
+    override def withZone(zone: ZoneId): Clock = this
+    override def instant(): Instant = now
+  }
+
+}
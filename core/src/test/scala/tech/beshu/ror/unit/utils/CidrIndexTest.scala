@@ -0,0 +1,75 @@
+/*
+ *    This file is part of ReadonlyREST.
+ *
+ *    ReadonlyREST is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    ReadonlyREST is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with ReadonlyREST.  If not, see http://www.gnu.org/licenses/
+ */
+package tech.beshu.ror.unit.utils
+
+import org.scalacheck.Gen
+import org.scalatest.matchers.should.Matchers.*
+import org.scalatest.wordspec.AnyWordSpec
+import org.scalatestplus.scalacheck.ScalaCheckDrivenPropertyChecks
+import tech.beshu.ror.accesscontrol.domain.Address
+import tech.beshu.ror.accesscontrol.domain.Address.Ip
+import tech.beshu.ror.accesscontrol.matchers.CidrIndex
+
+class CidrIndexTest extends AnyWordSpec with ScalaCheckDrivenPropertyChecks {
+
+  "CidrIndex" should {
+    "contain the addresses of the configured IPv4 ranges" in {
+      val index = CidrIndex.from(List(ip("10.0.0.0/8"), ip("192.168.1.1"), ip("172.16.0.0/12")))
+
+      index.contains(ip("10.20.30.40")) should be(true)
+      index.contains(ip("192.168.1.1")) should be(true)
+      index.contains(ip("172.31.255.255")) should be(true)
+      index.contains(ip("192.168.1.2")) should be(false)
+      index.contains(ip("172.32.0.0")) should be(false)
+      index.contains(ip("11.0.0.1")) should be(false)
+    }
+    "contain the addresses of the configured IPv6 ranges" in {
+      val index = CidrIndex.from(List(ip("2001:db8::/32"), ip("::1")))
+
+      index.contains(ip("2001:db8:1::5")) should be(true)
+      index.contains(ip("::1")) should be(true)
+      index.contains(ip("2001:db9::1")) should be(false)
+    }
+    "contain all the addresses of a family for a zero-length prefix" in {
+      val index = CidrIndex.from(List(ip("0.0.0.0/0")))
+
+      index.contains(ip("1.2.3.4")) should be(true)
+      index.contains(ip("255.255.255.255")) should be(true)
+    }
+    "not contain any address when it's empty" in {
+      CidrIndex.from(List.empty).contains(ip("1.2.3.4")) should be(false)
+    }
+    "give the same results as matching the ranges one by one" in {
+      val octet = Gen.choose(0, 255)
+      val address = Gen.listOfN(4, octet).map(_.mkString("."))
+      val range = for {
+        base <- address
+        prefix <- Gen.choose(0, 32)
+      } yield s"$base/$prefix"
+      forAll(Gen.listOf(range), address) { (ranges: List[String], addressToCheck: String) =>
+        val allowed = ranges.map(ip)
+        CidrIndex.from(allowed).contains(ip(addressToCheck)) should be(
+          allowed.exists(_.contains(ip(addressToCheck)))
+        )
+      }
+    }
+  }
+
+  private def ip(value: String) =
+    Address.from(value).collect { case ip: Ip => ip }.get
+
+}
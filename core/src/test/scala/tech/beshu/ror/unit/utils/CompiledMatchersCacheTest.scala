@@ -0,0 +1,47 @@
+/*
+ *    This file is part of ReadonlyREST.
+ *
+ *    ReadonlyREST is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    ReadonlyREST is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with ReadonlyREST.  If not, see http://www.gnu.org/licenses/
+ */
+package tech.beshu.ror.unit.utils
+
+import org.scalatest.matchers.should.Matchers.*
+import org.scalatest.wordspec.AnyWordSpec
+import tech.beshu.ror.accesscontrol.matchers.PatternsMatcher.Matchable
+import tech.beshu.ror.accesscontrol.matchers.{CompiledMatchersCache, PatternsMatcher}
+
+import java.util.concurrent.atomic.AtomicInteger
+
+class CompiledMatchersCacheTest extends AnyWordSpec {
+
+  private implicit val matchable: Matchable[String] = Matchable.caseSensitiveStringMatchable
+
+  "CompiledMatchersCache" should {
+    "compile the matcher once for the same resolved patterns" in {
+      val compilations = new AtomicInteger(0)
+      val cache = new CompiledMatchersCache[Set[String], PatternsMatcher[String]]({ patterns =>
+        compilations.incrementAndGet()
+        PatternsMatcher.create(patterns)
+      })
+
+      cache.get(Set("user1_*")).`match`("user1_logs") should be(true)
+      cache.get(Set("user1_*")).`match`("user2_logs") should be(false)
+      compilations.get() should be(1)
+
+      cache.get(Set("user2_*")).`match`("user2_logs") should be(true)
+      compilations.get() should be(2)
+    }
+  }
+
+}
@@ -33,7 +33,7 @@ class FieldsPolicyTests extends AnyWordSpec {
         DocumentField("item.*Date")
       )
       val fieldsRestrictions = FieldsRestrictions(fields, AccessMode.Whitelist)
-      val matcher = new FieldsPolicy(fieldsRestrictions)
+      val matcher = FieldsPolicy(fieldsRestrictions)
 
       matcher.canKeep("itemresobus2resobus1") should be(true)
       matcher.canKeep("item.endDate") should be(true)
@@ -47,7 +47,7 @@ class FieldsPolicyTests extends AnyWordSpec {
         DocumentField("item.*Date")
       )
       val fieldsRestrictions = FieldsRestrictions(fields, AccessMode.Blacklist)
-      val matcher = new FieldsPolicy(fieldsRestrictions)
+      val matcher = FieldsPolicy(fieldsRestrictions)
 
       matcher.canKeep("itemresobus2resobus1") should be(false)
       matcher.canKeep("item.endDate") should be(false)
@@ -55,6 +55,61 @@ class FieldsPolicyTests extends AnyWordSpec {
       matcher.canKeep("item.endDate.text") should be(false)
       matcher.canKeep("item.endDate1") should be(true)
     }
+    "work for patterns sharing their leading parts" in {
+      val fields = UniqueNonEmptyList.of(
+        DocumentField("user.name"),
+        DocumentField("user.*.city"),
+        DocumentField("user.address")
+      )
+      val whitelist = FieldsPolicy(FieldsRestrictions(fields, AccessMode.Whitelist))
+      val blacklist = FieldsPolicy(FieldsRestrictions(fields, AccessMode.Blacklist))
+
+      // `user.home` is kept as it can be the parent of `user.home.city`
+      List("user", "user.name", "user.home", "user.home.city", "user.address", "user.address.city", "_id").foreach {
+        field => whitelist.canKeep(field) should be(true)
+      }
+      List("user.name.first", "user.home.street", "name").foreach { field =>
+        whitelist.canKeep(field) should be(false)
+      }
+
+      List("user.name", "user.name.first", "user.home.city", "user.address", "user.address.street").foreach { field =>
+        blacklist.canKeep(field) should be(false)
+      }
+      List("user", "user.age", "user.home", "user.home.street", "name", "_id").foreach { field =>
+        blacklist.canKeep(field) should be(true)
+      }
+    }
+    "return the same decisions for the fields it has already decided on" in {
+      val fields = UniqueNonEmptyList.of(
+        DocumentField("user.*.city"),
+        DocumentField("secret*")
+      )
+      val checkedFields = List("user", "user.home", "user.home.city", "user.home.street", "secret", "secrets", "name")
+
+      val expectedDecisions = Map(
+        AccessMode.Whitelist -> List(true, true, true, false, true, true, false),
+        AccessMode.Blacklist -> List(true, true, false, true, false, false, true)
+      )
+
+      expectedDecisions.foreach { case (mode, expected) =>
+        val policy = FieldsPolicy(FieldsRestrictions(fields, mode))
+        checkedFields.map(policy.canKeep) should be(expected)
+        checkedFields.map(policy.canKeep) should be(expected)
+        // the policy of the same restrictions is shared (with its memoized decisions)
+        checkedFields.map(FieldsPolicy(FieldsRestrictions(fields, mode)).canKeep) should be(expected)
+      }
+    }
+    "be shared by all the users of the same restrictions" in {
+      val policy =
+        FieldsPolicy(FieldsRestrictions(UniqueNonEmptyList.of(DocumentField("user.*.city")), AccessMode.Whitelist))
+      val samePolicy =
+        FieldsPolicy(FieldsRestrictions(UniqueNonEmptyList.of(DocumentField("user.*.city")), AccessMode.Whitelist))
+      val otherPolicy =
+        FieldsPolicy(FieldsRestrictions(UniqueNonEmptyList.of(DocumentField("user.*.city")), AccessMode.Blacklist))
+
+      (samePolicy eq policy) should be(true)
+      (otherPolicy eq policy) should be(false)
+    }
   }
 
 }
@@ -0,0 +1,72 @@
+/*
+ *    This file is part of ReadonlyREST.
+ *
+ *    ReadonlyREST is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    ReadonlyREST is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with ReadonlyREST.  If not, see http://www.gnu.org/licenses/
+ */
+package tech.beshu.ror.unit.utils
+
+import monix.eval.Task
+import monix.execution.Scheduler.Implicits.global
+import org.scalacheck.Gen
+import org.scalatest.matchers.should.Matchers.*
+import org.scalatest.wordspec.AnyWordSpec
+import org.scalatestplus.scalacheck.ScalaCheckDrivenPropertyChecks
+import tech.beshu.ror.accesscontrol.metrics.LatencyHistogram
+
+import scala.concurrent.duration.*
+
+class LatencyHistogramTest extends AnyWordSpec with ScalaCheckDrivenPropertyChecks {
+
+  "LatencyHistogram" should {
+    "return an empty snapshot when nothing was recorded" in {
+      new LatencyHistogram().snapshot should be(LatencyHistogram.Snapshot.empty)
+    }
+    "report exact values for the small latencies" in {
+      val histogram = new LatencyHistogram
+      (1L to 5L).foreach(histogram.record)
+
+      val snapshot = histogram.snapshot
+      snapshot.count should be(5)
+      snapshot.meanNanos should be(3)
+      snapshot.p50Nanos should be(3)
+      snapshot.p99Nanos should be(5)
+      snapshot.maxNanos should be(5)
+    }
+    "report percentiles at most 12.5% above the recorded latencies" in {
+      forAll(Gen.nonEmptyListOf(Gen.choose(0L, 10.seconds.toNanos))) { (latencies: List[Long]) =>
+        val histogram = new LatencyHistogram
+        latencies.foreach(histogram.record)
+
+        val sorted = latencies.sorted.toVector
+        val snapshot = histogram.snapshot
+        val expectedP90 = sorted(Math.max(0, Math.ceil(sorted.size * 0.9).toInt - 1))
+        snapshot.count should be(latencies.size)
+        snapshot.maxNanos should be(sorted.last)
+        snapshot.p90Nanos should be >= expectedP90
+        snapshot.p90Nanos.toDouble should be <= expectedP90 * 1.125 + 1
+      }
+    }
+    "record the time of a task, also when it fails" in {
+      val histogram = new LatencyHistogram
+
+      histogram.timed(Task.sleep(20.millis)).runSyncUnsafe()
+      histogram.timed(Task.raiseError[Unit](new Exception("failure"))).attempt.runSyncUnsafe()
+
+      val snapshot = histogram.snapshot
+      snapshot.count should be(2)
+      snapshot.maxNanos should be >= 20.millis.toNanos
+    }
+  }
+
+}
@@ -0,0 +1,96 @@
+/*
+ *    This file is part of ReadonlyREST.
+ *
+ *    ReadonlyREST is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    ReadonlyREST is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with ReadonlyREST.  If not, see http://www.gnu.org/licenses/
+ */
+package tech.beshu.ror.unit.utils
+
+import org.scalatest.matchers.should.Matchers.*
+import org.scalatest.wordspec.AnyWordSpec
+import tech.beshu.ror.fls.PerSegmentCache
+
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.{ConcurrentLinkedQueue, Executors, TimeUnit}
+import scala.jdk.CollectionConverters.*
+
+class PerSegmentCacheTests extends AnyWordSpec {
+
+  "A PerSegmentCache" should {
+    "return the same cache for the same segment and register its closed listener once" in {
+      val segments = new PerSegmentCache[String, String, String](maxEntriesPerSegment = 10)
+      val listeners = new Listeners
+
+      val cache = segments.cacheOf("segment1", listeners.add("segment1"))
+      cache.put("key", "value")
+
+      segments.cacheOf("segment1", listeners.add("segment1")).getIfPresent("key") should be("value")
+      segments.cacheOf("segment2", listeners.add("segment2")).getIfPresent("key") should be(null)
+      listeners.registeredFor("segment1") should be(1)
+      listeners.registeredFor("segment2") should be(1)
+    }
+    "keep at most the given number of entries of a segment" in {
+      val segments = new PerSegmentCache[String, String, String](maxEntriesPerSegment = 100)
+      val cache = segments.cacheOf("segment1", _ => ())
+
+      (1 to 1000).foreach(i => cache.put(s"key$i", s"value$i"))
+      cache.cleanUp()
+
+      cache.estimatedSize() should be <= 100L
+    }
+    "drop the cache of a segment when the segment is closed" in {
+      val segments = new PerSegmentCache[String, String, String](maxEntriesPerSegment = 10)
+      val listeners = new Listeners
+      segments.cacheOf("segment1", listeners.add("segment1")).put("key", "value")
+      segments.cacheOf("segment2", listeners.add("segment2")).put("key", "value")
+
+      listeners.close("segment1")
+
+      segments.cachedSegmentsCount should be(1)
+      segments.cacheOf("segment1", listeners.add("segment1")).getIfPresent("key") should be(null)
+      segments.cacheOf("segment2", listeners.add("segment2")).getIfPresent("key") should be("value")
+    }
+    "register the closed listener of a segment before its cache is used by concurrent readers" in {
+      val segments = new PerSegmentCache[String, String, String](maxEntriesPerSegment = 10)
+      val registrations = new AtomicInteger(0)
+      val caches = new ConcurrentLinkedQueue[AnyRef]()
+      val executor = Executors.newFixedThreadPool(8)
+      try {
+        (1 to 64).foreach { _ =>
+          executor.submit(new Runnable {
+            override def run(): Unit = {
+              caches.add(segments.cacheOf("segment1", _ => registrations.incrementAndGet()))
+            }
+          })
+        }
+      } finally {
+        executor.shutdown()
+        executor.awaitTermination(5, TimeUnit.SECONDS)
+      }
+
+      registrations.get() should be(1)
+      caches.asScala.toList.distinct.size should be(1)
+    }
+  }
+
+  private final class Listeners {
+    private val listeners = new ConcurrentLinkedQueue[(String, String => Unit)]()
+
+    def add(segment: String): (String => Unit) => Unit = listener => listeners.add((segment, listener))
+
+    def registeredFor(segment: String): Int = listeners.asScala.count(_._1 == segment)
+
+    def close(segment: String): Unit = listeners.asScala.filter(_._1 == segment).foreach(_._2(segment))
+  }
+
+}
@@ -0,0 +1,83 @@
+/*
+ *    This file is part of ReadonlyREST.
+ *
+ *    ReadonlyREST is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    ReadonlyREST is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with ReadonlyREST.  If not, see http://www.gnu.org/licenses/
+ */
+package tech.beshu.ror.unit.utils
+
+import org.scalacheck.Gen
+import org.scalatest.matchers.should.Matchers.*
+import org.scalatest.wordspec.AnyWordSpec
+import org.scalatestplus.scalacheck.ScalaCheckDrivenPropertyChecks
+import tech.beshu.ror.accesscontrol.domain.ClusterIndexName
+import tech.beshu.ror.accesscontrol.matchers.PatternsMatcher.Matchable
+import tech.beshu.ror.accesscontrol.matchers.{PatternsMatcher, SortedNamesIndex}
+import tech.beshu.ror.utils.TestsUtils.{clusterIndexName, localIndexName, unsafeNes}
+
+class SortedNamesIndexTest extends AnyWordSpec with ScalaCheckDrivenPropertyChecks {
+
+  private implicit val matchable: Matchable[String] = Matchable.caseSensitiveStringMatchable
+
+  private val names = Set("logs-2023-12", "logs-2024-01", "logs-2024-02", "logs-2025-01", "metrics-2024", "logs")
+
+  "SortedNamesIndex" should {
+    "return only names starting with the literal prefixes of the patterns" in {
+      val index = SortedNamesIndex.from(names)
+
+      index.candidatesFor(PatternsMatcher.create(List("logs-2024*"))).toSet should be(
+        Set("logs-2024-01", "logs-2024-02")
+      )
+      index.candidatesFor(PatternsMatcher.create(List("logs-202?-01", "metrics-2024"))).toSet should be(
+        Set("logs-2023-12", "logs-2024-01", "logs-2024-02", "logs-2025-01", "metrics-2024")
+      )
+    }
+    "not return the same name twice for overlapping prefixes" in {
+      val index = SortedNamesIndex.from(names)
+
+      index.candidatesFor(PatternsMatcher.create(List("logs*", "logs-2024*", "logs"))).toList.sorted should be(
+        List("logs", "logs-2023-12", "logs-2024-01", "logs-2024-02", "logs-2025-01")
+      )
+    }
+    "return all names when one of the patterns has no literal prefix" in {
+      val index = SortedNamesIndex.from(names)
+
+      index.candidatesFor(PatternsMatcher.create(List("logs-2024*", "*-2024"))).toSet should be(names)
+    }
+    "return all names for a case-insensitive matcher" in {
+      val index = SortedNamesIndex.from(names)
+      val matcher = PatternsMatcher.create(List("LOGS-2024*"))(Matchable.caseInsensitiveStringMatchable)
+
+      index.candidatesFor(matcher).toSet should be(names)
+    }
+    "accept a matcher of cluster index names for the local index names" in {
+      val index = SortedNamesIndex.from(
+        Set(localIndexName("logs-2024-01"), localIndexName("logs-2025-01"), localIndexName("metrics"))
+      )
+      val matcher = PatternsMatcher.create(List(clusterIndexName("logs-2024*"), clusterIndexName("metrics")))
+
+      matcher.filter(index.candidatesFor(matcher)).toSet should be(
+        Set(localIndexName("logs-2024-01"), localIndexName("metrics"))
+      )
+    }
+    "let the matcher filter the same names from the candidates as from all the names" in {
+      val name = Gen.listOfN(4, Gen.oneOf('a', 'b', 'c', '-')).map(_.mkString)
+      val pattern = Gen.listOfN(4, Gen.oneOf('a', 'b', 'c', '-', '*', '?')).map(_.mkString)
+      forAll(Gen.listOf(name), Gen.nonEmptyListOf(pattern)) { (names: List[String], patterns: List[String]) =>
+        val matcher = PatternsMatcher.create(patterns)
+        matcher.filter(SortedNamesIndex.from(names.toSet).candidatesFor(matcher)) should be(matcher.filter(names))
+      }
+    }
+  }
+
+}
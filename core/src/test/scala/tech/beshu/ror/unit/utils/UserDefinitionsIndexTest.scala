@@ -0,0 +1,152 @@
+/*
+ *    This file is part of ReadonlyREST.
+ *
+ *    ReadonlyREST is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    ReadonlyREST is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with ReadonlyREST.  If not, see http://www.gnu.org/licenses/
+ */
+package tech.beshu.ror.unit.utils
+
+import cats.data.NonEmptyList
+import org.scalacheck.Gen
+import org.scalatest.matchers.should.Matchers.*
+import org.scalatest.wordspec.AnyWordSpec
+import org.scalatestplus.scalacheck.ScalaCheckDrivenPropertyChecks
+import tech.beshu.ror.accesscontrol.blocks.definitions.UserDef
+import tech.beshu.ror.accesscontrol.blocks.definitions.UserDef.Mode.WithoutGroupsMapping
+import tech.beshu.ror.accesscontrol.blocks.rules.auth.AuthKeyRule
+import tech.beshu.ror.accesscontrol.blocks.rules.auth.base.impersonation.Impersonation
+import tech.beshu.ror.accesscontrol.blocks.rules.auth.base.{BasicAuthenticationRule, UserDefinitionsIndex}
+import tech.beshu.ror.accesscontrol.domain.*
+import tech.beshu.ror.accesscontrol.matchers.GenericPatternMatcher
+import tech.beshu.ror.utils.TestsUtils.{group, unsafeNes, userIdPatterns}
+import tech.beshu.ror.utils.uniquelist.UniqueNonEmptyList
+
+class UserDefinitionsIndexTest extends AnyWordSpec with ScalaCheckDrivenPropertyChecks {
+
+  "UserDefinitionsIndex" should {
+    "return the matching definitions in the definitions order" in {
+      val byPrefix = userDef("j*")
+      val byName = userDef("jan")
+      val bySuffix = userDef("*n")
+      val byQuestionMark = userDef("j?n")
+      val other = userDef("ania")
+      val index = indexOf(CaseSensitivity.Enabled)(byPrefix, other, byName, bySuffix, byQuestionMark)
+
+      index.matching(User.Id("jan")) should be(List(byPrefix, byName, bySuffix, byQuestionMark))
+    }
+    "not return the same definition twice when many of its patterns match" in {
+      val definition = userDef("jan", "ja*", "*an", "j?n")
+      val index = indexOf(CaseSensitivity.Enabled)(definition)
+
+      index.matching(User.Id("jan")) should be(List(definition))
+    }
+    "match the exact usernames" in {
+      val jan = userDef("jan")
+      val ania = userDef("ania", "admin")
+      val index = indexOf(CaseSensitivity.Enabled)(jan, ania)
+
+      index.matching(User.Id("jan")) should be(List(jan))
+      index.matching(User.Id("admin")) should be(List(ania))
+      index.matching(User.Id("ja")) should be(List.empty)
+      index.matching(User.Id("janek")) should be(List.empty)
+    }
+    "match the usernames case-insensitively when the case sensitivity is disabled" in {
+      val jan = userDef("Jan")
+      val admins = userDef("ADM*")
+      val operators = userDef("*_Op")
+
+      val insensitiveIndex = indexOf(CaseSensitivity.Disabled)(jan, admins, operators)
+      insensitiveIndex.matching(User.Id("JAN")) should be(List(jan))
+      insensitiveIndex.matching(User.Id("admin1")) should be(List(admins))
+      insensitiveIndex.matching(User.Id("main_OP")) should be(List(operators))
+
+      val sensitiveIndex = indexOf(CaseSensitivity.Enabled)(jan, admins, operators)
+      sensitiveIndex.matching(User.Id("JAN")) should be(List.empty)
+      sensitiveIndex.matching(User.Id("admin1")) should be(List.empty)
+      sensitiveIndex.matching(User.Id("main_OP")) should be(List.empty)
+      sensitiveIndex.matching(User.Id("Jan")) should be(List(jan))
+    }
+    "match the patterns with literal prefixes of different lengths" in {
+      val d = userDef("d*")
+      val dev = userDef("dev*")
+      val developers = userDef("developer*")
+      val index = indexOf(CaseSensitivity.Enabled)(developers, dev, d)
+
+      index.matching(User.Id("d")) should be(List(d))
+      index.matching(User.Id("dev")) should be(List(dev, d))
+      index.matching(User.Id("devel")) should be(List(dev, d))
+      index.matching(User.Id("developer1")) should be(List(developers, dev, d))
+      index.matching(User.Id("adev")) should be(List.empty)
+    }
+    "match the patterns without a literal prefix for every user" in {
+      val admins = userDef("*_admin")
+      val all = userDef("*")
+      val index = indexOf(CaseSensitivity.Enabled)(admins, all)
+
+      index.matching(User.Id("kibana_admin")) should be(List(admins, all))
+      index.matching(User.Id("_admin")) should be(List(admins, all))
+      index.matching(User.Id("admin")) should be(List(all))
+      index.matching(User.Id("kibana_admin1")) should be(List(all))
+    }
+    "match the patterns with question marks" in {
+      val users = userDef("user?")
+      val admins = userDef("?dmin")
+      val index = indexOf(CaseSensitivity.Enabled)(users, admins)
+
+      index.matching(User.Id("user1")) should be(List(users))
+      index.matching(User.Id("user")) should be(List.empty)
+      index.matching(User.Id("user12")) should be(List.empty)
+      index.matching(User.Id("admin")) should be(List(admins))
+      index.matching(User.Id("dmin")) should be(List.empty)
+    }
+    "return the same definitions as the linear scan of all of them" in {
+      val userId = Gen.choose(1, 4).flatMap(Gen.listOfN(_, Gen.oneOf('a', 'b', 'A', '_'))).map(_.mkString)
+      val pattern = Gen.choose(1, 4).flatMap(Gen.listOfN(_, Gen.oneOf('a', 'b', 'A', '_', '*', '?'))).map(_.mkString)
+      val definitionPatterns = Gen.nonEmptyListOf(pattern)
+      forAll(
+        Gen.nonEmptyListOf(definitionPatterns),
+        Gen.listOf(userId),
+        Gen.oneOf(CaseSensitivity.Enabled, CaseSensitivity.Disabled)
+      ) { (patterns: List[List[String]], userIds: List[String], caseSensitivity: CaseSensitivity) =>
+        val definitions = patterns.map(p => userDef(p.head, p.tail: _*))
+        val index = indexOf(caseSensitivity)(definitions.head, definitions.tail: _*)
+        userIds.map(id => User.Id(id)).foreach { id =>
+          index.matching(id) should be(linearScan(definitions, id)(caseSensitivity))
+        }
+      }
+    }
+  }
+
+  private def indexOf(caseSensitivity: CaseSensitivity)(userDef: UserDef, userDefs: UserDef*) =
+    new UserDefinitionsIndex(NonEmptyList.of(userDef, userDefs: _*))(using caseSensitivity)
+
+  private def linearScan(definitions: List[UserDef], userId: User.Id)(implicit caseSensitivity: CaseSensitivity) =
+    definitions.filter(userDef => new GenericPatternMatcher(userDef.usernames.patterns.toList).`match`(userId))
+
+  private def userDef(username: String, usernames: String*) = {
+    UserDef(
+      userIdPatterns(username, usernames: _*),
+      WithoutGroupsMapping(
+        new AuthKeyRule(
+          BasicAuthenticationRule.Settings(
+            Credentials(User.Id("example-user"), PlainTextSecret("example-password"))
+          ),
+          CaseSensitivity.Enabled,
+          Impersonation.Disabled,
+        ),
+        UniqueNonEmptyList.of(group("example-group"))
+      )
+    )
+  }
+
+}
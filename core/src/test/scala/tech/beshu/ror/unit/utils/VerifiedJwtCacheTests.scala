@@ -0,0 +1,88 @@
+/*
+ *    This file is part of ReadonlyREST.
+ *
+ *    ReadonlyREST is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    ReadonlyREST is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with ReadonlyREST.  If not, see http://www.gnu.org/licenses/
+ */
+package tech.beshu.ror.unit.utils
+
+import io.jsonwebtoken.Jwts
+import org.scalatest.matchers.should.Matchers.*
+import org.scalatest.wordspec.AnyWordSpec
+import tech.beshu.ror.accesscontrol.domain.Jwt
+import tech.beshu.ror.accesscontrol.utils.VerifiedJwtCache
+import tech.beshu.ror.utils.RefinedUtils.nonNegativeInt
+import tech.beshu.ror.utils.TestsUtils.unsafeNes
+
+import java.time.{Clock, Instant, ZoneOffset}
+import java.util.Date
+import java.util.concurrent.atomic.AtomicInteger
+
+class VerifiedJwtCacheTests extends AnyWordSpec {
+
+  private val now = Instant.parse("2026-01-01T12:00:00Z")
+  private val token = Jwt.Token("header.payload.signature")
+
+  "VerifiedJwtCache" should {
+    "verify the same token only once" in {
+      val cache = new VerifiedJwtCache(VerifiedJwtCache.defaultMaxSize, fixedClock)
+      val verifications = new AtomicInteger(0)
+      val payload = payloadExpiringAt(now.plusSeconds(60))
+
+      cache.payloadOf(token)(verified(verifications, Right(payload))) should be(Right(payload))
+      cache.payloadOf(token)(verified(verifications, Right(payload))) should be(Right(payload))
+
+      verifications.get() should be(1)
+    }
+    "not cache the failed verification" in {
+      val cache = new VerifiedJwtCache(VerifiedJwtCache.defaultMaxSize, fixedClock)
+      val verifications = new AtomicInteger(0)
+
+      cache.payloadOf(token)(verified(verifications, Left("invalid"))) should be(Left("invalid"))
+      cache.payloadOf(token)(verified(verifications, Left("invalid"))) should be(Left("invalid"))
+
+      verifications.get() should be(2)
+    }
+    "not keep the payload of the token longer than its expiration time" in {
+      val cache = new VerifiedJwtCache(VerifiedJwtCache.defaultMaxSize, fixedClock)
+      val verifications = new AtomicInteger(0)
+      val payload = payloadExpiringAt(now.minusSeconds(1))
+
+      cache.payloadOf(token)(verified(verifications, Right(payload)))
+      cache.payloadOf(token)(verified(verifications, Right(payload)))
+
+      verifications.get() should be(2)
+    }
+    "verify each token when its size is 0" in {
+      val cache = new VerifiedJwtCache(nonNegativeInt(0), fixedClock)
+      val verifications = new AtomicInteger(0)
+      val payload = payloadExpiringAt(now.plusSeconds(60))
+
+      cache.payloadOf(token)(verified(verifications, Right(payload)))
+      cache.payloadOf(token)(verified(verifications, Right(payload)))
+
+      verifications.get() should be(2)
+    }
+  }
+
+  private def fixedClock = Clock.fixed(now, ZoneOffset.UTC)
+
+  private def payloadExpiringAt(expiration: Instant) =
+    Jwt.Payload(Jwts.claims().subject("user1").expiration(Date.from(expiration)).build())
+
+  private def verified(verifications: AtomicInteger, result: Either[String, Jwt.Payload]) = {
+    verifications.incrementAndGet()
+    result
+  }
+
+}
@@ -24,7 +24,7 @@ import monix.execution.CancelablePromise
 import monix.execution.atomic.Atomic
 import org.elasticsearch.action.ActionListener
 import org.elasticsearch.action.admin.cluster.state.{ClusterStateRequest, ClusterStateResponse}
-import org.elasticsearch.action.search.{MultiSearchResponse, SearchRequestBuilder, SearchResponse}
+import org.elasticsearch.action.search.{MultiSearchResponse, SearchRequestBuilder}
 import org.elasticsearch.client.Client
 import org.elasticsearch.client.node.NodeClient
 import org.elasticsearch.cluster.ClusterChangedEvent
@@ -69,6 +69,11 @@ class EsNodeClusterService(
 
   import EsNodeClusterService.*
 
+  private val documentAccessibilityVerifier = new DocumentAccessibilityVerifier(
+    verifyBatch = (documents, filter, _) => verifyAccessibilityOf(documents, filter),
+    indexUuidOf = (index, requestId) => indexUuidOf(index)(using requestId)
+  )
+
   private val localClusterSnapshotAtomic: Atomic[LocalClusterSnapshot] = Atomic {
     Option(clusterService.state) match {
       case Some(state) => LocalClusterSnapshot.from(state.metaData())
@@ -149,6 +154,11 @@ class EsNodeClusterService(
   ): LocalDataStreamsSnapshot =
     localClusterSnapshotAtomic.get().dataStreams
 
+  override def localMetadataVersion(
+      implicit id: RequestId
+  ): Option[Long] =
+    Some(localClusterSnapshotAtomic.get().version)
+
   override def allRemoteDataStreamsAndAliases(
       implicit id: RequestId
   ): Task[Set[FullRemoteDataStreamWithAliases]] =
@@ -239,8 +249,8 @@ class EsNodeClusterService(
   override def verifyDocumentAccessibility(document: Document, filter: Filter)(
       implicit id: RequestId
   ): Task[DocumentAccessibility] = {
-    createSearchRequest(filter, document)
-      .call(extractAccessibilityFrom)
+    documentAccessibilityVerifier
+      .verify(document, filter)
       .onErrorRecover { case ex =>
         logger.error(s"Could not verify get request. Blocking document", ex)
         Inaccessible
@@ -250,15 +260,26 @@ class EsNodeClusterService(
   override def verifyDocumentsAccessibility(documents: NonEmptyList[Document], filter: Filter)(
       implicit id: RequestId
   ): Task[DocumentsAccessibility] = {
-    createMultiSearchRequest(filter, documents)
-      .call(extractResultsFromSearchResponse)
+    documentAccessibilityVerifier
+      .verifyAll(documents, filter)
       .onErrorRecover { case ex =>
         logger.error(s"Could not verify documents returned by multi get response. Blocking all returned documents", ex)
         blockAllDocsReturned(documents)
       }
+  }
+
+  private def verifyAccessibilityOf(documents: NonEmptyList[Document], filter: Filter) = {
+    createMultiSearchRequest(filter, documents)
+      .call(extractResultsFromSearchResponse)
       .map(results => zip(results, documents))
   }
 
+  private def indexUuidOf(index: ClusterIndexName)(
+      implicit id: RequestId
+  ) = {
+    Try(indexOrAliasUuids(index)).toOption.flatMap(uuids => uuids.headOption.filter(_ => uuids.size == 1))
+  }
+
   private def provideAllRemoteIndices(remoteClusterService: RemoteClusterService)(
       implicit requestId: RequestId
   ) = {
@@ -382,19 +403,14 @@ class EsNodeClusterService(
       .setQuery(composedQuery)
   }
 
-  private def extractAccessibilityFrom(searchResponse: SearchResponse) = {
-    if (searchResponse.getHits.getTotalHits.value == 0L) Inaccessible
-    else Accessible
-  }
-
   private def createMultiSearchRequest(definedFilter: Filter, documents: NonEmptyList[Document]) = {
     documents
       .map(createSearchRequest(definedFilter, _))
       .foldLeft(nodeClient.prepareMultiSearch())(_ add _)
   }
 
-  private def blockAllDocsReturned(docsToVerify: NonEmptyList[Document]) = {
-    List.fill(docsToVerify.size)(Inaccessible)
+  private def blockAllDocsReturned(docsToVerify: NonEmptyList[Document]): DocumentsAccessibility = {
+    docsToVerify.toList.map(_ -> Inaccessible).toMap
   }
 
   private def extractResultsFromSearchResponse(multiSearchResponse: MultiSearchResponse) = {
@@ -403,15 +419,19 @@ class EsNodeClusterService(
       .toList
   }
 
-  private def resolveAccessibilityBasedOnSearchResult(mSearchItem: MultiSearchResponse.Item): DocumentAccessibility = {
-    if (mSearchItem.isFailure) Inaccessible
-    else if (mSearchItem.getResponse.getHits.getTotalHits.value == 0L) Inaccessible
-    else Accessible
+  // a failed search is not a result - such a document is treated as inaccessible, but it's verified again next time
+  private def resolveAccessibilityBasedOnSearchResult(
+      mSearchItem: MultiSearchResponse.Item
+  ): Option[DocumentAccessibility] = {
+    if (mSearchItem.isFailure) None
+    else if (mSearchItem.getResponse.getHits.getTotalHits.value == 0L) Some(Inaccessible)
+    else Some(Accessible)
   }
 
-  private def zip(results: List[DocumentAccessibility], documents: NonEmptyList[Document]) = {
+  private def zip(results: List[Option[DocumentAccessibility]], documents: NonEmptyList[Document]) = {
     documents.toList
       .zip(results)
+      .collect { case (document, Some(accessibility)) => document -> accessibility }
       .toMap
   }
 
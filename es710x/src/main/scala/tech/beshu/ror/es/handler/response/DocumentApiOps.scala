@@ -21,7 +21,7 @@ import org.elasticsearch.action.index.IndexRequest
 import org.elasticsearch.index.get.GetResult
 import org.joor.Reflect.on
 import tech.beshu.ror.accesscontrol.domain.FieldLevelSecurity.FieldsRestrictions
-import tech.beshu.ror.accesscontrol.domain.{ClusterIndexName, DocumentId, DocumentWithIndex}
+import tech.beshu.ror.accesscontrol.domain.{ClusterIndexName, DocumentId, DocumentVersion, DocumentWithIndex}
 import tech.beshu.ror.es.handler.RequestSeemsToBeInvalid
 
 import scala.jdk.CollectionConverters.*
@@ -50,7 +50,8 @@ object DocumentApiOps {
     }
 
     implicit class GetResponseOps(val response: GetResponse) extends AnyVal {
-      def asDocumentWithIndex: DocumentWithIndex = createDocumentWithIndex(response.getIndex, response.getId)
+      def asDocumentWithIndex: DocumentWithIndex =
+        createDocumentWithIndex(response.getIndex, response.getId, documentVersionOf(response))
 
       def filterFieldsUsing(fieldsRestrictions: FieldsRestrictions): GetResponse = {
         val newSource = filterSourceFieldsUsing(fieldsRestrictions)
@@ -106,15 +107,23 @@ object DocumentApiOps {
   object MultiGetApi {
 
     implicit class MultiGetItemResponseOps(val item: MultiGetItemResponse) extends AnyVal {
-      def asDocumentWithIndex: DocumentWithIndex = createDocumentWithIndex(item.getIndex, item.getId)
+      def asDocumentWithIndex: DocumentWithIndex =
+        createDocumentWithIndex(item.getIndex, item.getId, Option(item.getResponse).flatMap(documentVersionOf))
     }
 
   }
 
-  private def createDocumentWithIndex(indexStr: String, docId: String) = {
+  private def createDocumentWithIndex(indexStr: String, docId: String, version: Option[DocumentVersion]) = {
     val indexName = createIndexName(indexStr)
     val documentId = DocumentId(docId)
-    DocumentWithIndex(indexName, documentId)
+    DocumentWithIndex(indexName, documentId, version)
+  }
+
+  // the seq_no and the primary term are unassigned e.g. when the document doesn't exist
+  private def documentVersionOf(response: GetResponse) = {
+    if (response.getSeqNo >= 0 && response.getPrimaryTerm > 0)
+      Some(DocumentVersion(response.getSeqNo, response.getPrimaryTerm))
+    else None
   }
 
   private def createIndexName(indexStr: String) = {
@@ -32,6 +32,7 @@ import tech.beshu.ror.implicits.*
 import tech.beshu.ror.syntax.*
 import tech.beshu.ror.utils.ScalaOps.*
 
+import scala.collection.mutable
 import scala.jdk.CollectionConverters.*
 
 class BulkEsRequestContext(actionRequest: BulkRequest, esContext: EsContext, override val threadPool: ThreadPool)
@@ -76,10 +77,12 @@ class BulkEsRequestContext(actionRequest: BulkRequest, esContext: EsContext, ove
   private lazy val discoveredIndexPacks = indexPacksFrom(actionRequest)
 
   private def indexPacksFrom(request: BulkRequest): List[Indices] = {
+    // the items of a bulk request mostly target the same few indices, so the pack is created once per distinct ones
+    val packsByIndices = mutable.HashMap.empty[List[String], Indices]
     request
       .requests()
       .asScala
-      .map { r => Indices.Found(requestedIndicesFrom(r)) }
+      .map { r => packsByIndices.getOrElseUpdate(r.indices.asSafeList, Indices.Found(requestedIndicesFrom(r))) }
       .toList
   }
 
@@ -0,0 +1,88 @@
+/*
+ *    This file is part of ReadonlyREST.
+ *
+ *    ReadonlyREST is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    ReadonlyREST is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with ReadonlyREST.  If not, see http://www.gnu.org/licenses/
+ */
+package tech.beshu.ror.es.dlsfls
+
+import org.elasticsearch.common.bytes.BytesReference
+import org.elasticsearch.common.xcontent.LoggingDeprecationHandler
+import org.elasticsearch.xcontent.{
+  NamedXContentRegistry,
+  XContentBuilder,
+  XContentFactory,
+  XContentParser,
+  XContentType
+}
+import tech.beshu.ror.fls.FieldsPolicy
+
+import scala.util.Using
+
+/**
+ * Filters the `_source` in a single pass - the parser's tokens are copied to the builder (of the same content type, so
+ * JSON, SMILE, CBOR and YAML sources are supported) and the subtrees of the fields the policy doesn't allow to keep are
+ * skipped without being read into memory.
+ */
+private class XContentPolicyBasedFilterer(policy: FieldsPolicy) {
+
+  def filteredSource(source: Array[Byte]): Array[Byte] = {
+    val xContentType = Option(XContentFactory.xContentType(source)).getOrElse(XContentType.JSON)
+    Using.resource(
+      xContentType
+        .xContent()
+        .createParser(NamedXContentRegistry.EMPTY, LoggingDeprecationHandler.INSTANCE, source)
+    ) { parser =>
+      Option(parser.nextToken()) match {
+        case Some(_) =>
+          val builder = XContentBuilder.builder(xContentType.xContent())
+          copyFiltered(parser, builder, collectedField = "")
+          BytesReference.toBytes(BytesReference.bytes(builder))
+        case None =>
+          source
+      }
+    }
+  }
+
+  private def copyFiltered(parser: XContentParser, builder: XContentBuilder, collectedField: String): Unit = {
+    parser.currentToken() match {
+      case XContentParser.Token.START_OBJECT =>
+        builder.startObject()
+        while (parser.nextToken() == XContentParser.Token.FIELD_NAME) {
+          val fieldName = parser.currentName()
+          val newlyCollectedField = currentField(collectedField, fieldName)
+          parser.nextToken()
+          if (policy.canKeep(newlyCollectedField)) {
+            builder.field(fieldName)
+            copyFiltered(parser, builder, newlyCollectedField)
+          } else {
+            parser.skipChildren()
+          }
+        }
+        builder.endObject()
+      case XContentParser.Token.START_ARRAY =>
+        builder.startArray()
+        while (parser.nextToken() != XContentParser.Token.END_ARRAY) {
+          copyFiltered(parser, builder, collectedField)
+        }
+        builder.endArray()
+      case _ =>
+        builder.copyCurrentStructure(parser)
+    }
+  }
+
+  private def currentField(collectedField: String, currentFieldPart: String) = {
+    if (collectedField.isEmpty) currentFieldPart else s"$collectedField.$currentFieldPart"
+  }
+
+}
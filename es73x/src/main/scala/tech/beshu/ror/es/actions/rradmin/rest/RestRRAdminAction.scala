@@ -33,6 +33,7 @@ class RestRRAdminAction(settings: Settings, controller: RestController)
   register("POST", constants.FORCE_RELOAD_SETTINGS_PATH)
   register("GET", constants.PROVIDE_INDEX_SETTINGS_PATH)
   register("GET", constants.FETCH_CURRENT_AUDIT_CONFIGURATION_PATH)
+  register("GET", constants.PROVIDE_METRICS_PATH)
   register("POST", constants.UPDATE_INDEX_SETTINGS_PATH)
   register("GET", constants.PROVIDE_FILE_SETTINGS_PATH)
 
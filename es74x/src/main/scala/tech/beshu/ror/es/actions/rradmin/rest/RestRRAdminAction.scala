@@ -31,6 +31,7 @@ class RestRRAdminAction(controller: RestController) extends BaseRestHandler with
   register("GET", constants.PROVIDE_FILE_SETTINGS_PATH)
   register("GET", constants.PROVIDE_INDEX_SETTINGS_PATH)
   register("GET", constants.FETCH_CURRENT_AUDIT_CONFIGURATION_PATH)
+  register("GET", constants.PROVIDE_METRICS_PATH)
   register("POST", constants.UPDATE_INDEX_SETTINGS_PATH)
 
   override val getName: String = "ror-admin-handler"
@@ -21,16 +21,12 @@ import org.apache.lucene.index.*
 import org.apache.lucene.index.StoredFieldVisitor.Status
 import org.apache.lucene.util.Bits
 import org.elasticsearch.ExceptionsHelper
-import org.elasticsearch.common.bytes.{BytesArray, BytesReference}
-import org.elasticsearch.common.xcontent.{XContentBuilder, XContentHelper, XContentType}
 import tech.beshu.ror.accesscontrol.domain.FieldLevelSecurity.FieldsRestrictions
 import tech.beshu.ror.constants
 import tech.beshu.ror.es.dlsfls.RorDocumentFieldDirectoryReader.RorDocumentFieldDirectorySubReader
-import tech.beshu.ror.es.utils.XContentBuilderOps.toXContentBuilderOps
-import tech.beshu.ror.fls.{FieldsPolicy, JsonPolicyBasedFilterer}
+import tech.beshu.ror.fls.{FieldsPolicy, PerSegmentCache}
 import tech.beshu.ror.utils.RequestIdAwareLogging
 
-import java.io.ByteArrayOutputStream
 import java.util.Iterator as JavaIterator
 import scala.jdk.CollectionConverters.*
 import scala.util.Try
@@ -39,10 +35,12 @@ private class RorDocumentFieldReader(reader: LeafReader, fieldsRestrictions: Fie
     extends FilterLeafReader(reader)
     with RequestIdAwareLogging {
 
-  private val policy = new FieldsPolicy(fieldsRestrictions)
+  private val policy = FieldsPolicy(fieldsRestrictions)
 
-  private val remainingFieldsInfo = {
-    val fInfos = in.getFieldInfos
+  private val remainingFieldsInfo =
+    RorDocumentFieldReader.FilteredFieldInfosCache.filteredFieldInfosOf(in, fieldsRestrictions)(filterFieldInfos)
+
+  private def filterFieldInfos(fInfos: FieldInfos): FieldInfos = {
     val newInfos = if (fInfos.asScala.isEmpty) {
       noRequestIdLogger.warn("original fields were empty! This is weird!")
       fInfos
@@ -56,7 +54,7 @@ private class RorDocumentFieldReader(reader: LeafReader, fieldsRestrictions: Fie
     newInfos
   }
 
-  private val jsonPolicyBasedFilterer = new JsonPolicyBasedFilterer(policy)
+  private val sourcePolicyBasedFilterer = new XContentPolicyBasedFilterer(policy)
 
   override def getFieldInfos: FieldInfos = remainingFieldsInfo
 
@@ -132,20 +130,7 @@ private class RorDocumentFieldReader(reader: LeafReader, fieldsRestrictions: Fie
       if ("_source" != fieldInfo.name) {
         underlying.binaryField(fieldInfo, value)
       } else {
-        val filteredJson = jsonPolicyBasedFilterer.filteredJson(ujson.read(value))
-
-        val xBuilder = XContentBuilder
-          .builder(
-            XContentHelper
-              .convertToMap(new BytesArray(value), false, XContentType.JSON)
-              .v1()
-              .xContent()
-          )
-          .json(filteredJson)
-
-        val out = new ByteArrayOutputStream
-        BytesReference.bytes(xBuilder).writeTo(out)
-        underlying.binaryField(fieldInfo, out.toByteArray)
+        underlying.binaryField(fieldInfo, sourcePolicyBasedFilterer.filteredSource(value))
       }
     }
 
@@ -157,6 +142,44 @@ object RorDocumentFieldReader {
 
   def wrap(in: DirectoryReader, fieldsRestrictions: FieldsRestrictions): RorDocumentFieldDirectoryReader =
     new RorDocumentFieldDirectoryReader(in, fieldsRestrictions)
+
+  /**
+   * The FLS-filtered field infos of the segments, so they are not filtered again each time a segment's reader is
+   * wrapped (i.e. for each search). They are kept per segment core and restrictions (only the recently used restrictions
+   * of a segment), and dropped when the core is closed. A segment's reader can have different field infos than its core
+   * (after the doc values updates), so the cached ones are used only when they were filtered from the same field infos
+   * instance.
+   */
+  private object FilteredFieldInfosCache {
+
+    private val maxRestrictionsPerSegment = 100L
+
+    private val segments =
+      new PerSegmentCache[IndexReader.CacheKey, FieldsRestrictions, Filtered](maxRestrictionsPerSegment)
+
+    def filteredFieldInfosOf(reader: LeafReader, fieldsRestrictions: FieldsRestrictions)(
+        filter: FieldInfos => FieldInfos
+    ): FieldInfos = {
+      val original = reader.getFieldInfos
+      Option(reader.getCoreCacheHelper) match {
+        case Some(cacheHelper) =>
+          val filteredOfSegment =
+            segments.cacheOf(cacheHelper.getKey, onClosed => cacheHelper.addClosedListener(onClosed(_)))
+          Option(filteredOfSegment.getIfPresent(fieldsRestrictions)) match {
+            case Some(cached) if cached.original eq original =>
+              cached.filtered
+            case Some(_) | None =>
+              val filtered = filter(original)
+              filteredOfSegment.put(fieldsRestrictions, Filtered(original, filtered))
+              filtered
+          }
+        case None =>
+          filter(original)
+      }
+    }
+
+    private final case class Filtered(original: FieldInfos, filtered: FieldInfos)
+  }
 }
 
 final class RorDocumentFieldDirectoryReader(in: DirectoryReader, fieldsRestrictions: FieldsRestrictions)
@@ -37,6 +37,7 @@ class RestRRAdminAction extends BaseRestHandler with RestHandler {
     new Route(GET, constants.PROVIDE_FILE_SETTINGS_PATH),
     new Route(GET, constants.PROVIDE_INDEX_SETTINGS_PATH),
     new Route(GET, constants.FETCH_CURRENT_AUDIT_CONFIGURATION_PATH),
+    new Route(GET, constants.PROVIDE_METRICS_PATH),
     new Route(POST, constants.UPDATE_INDEX_SETTINGS_PATH),
   ).asJava
 
@@ -50,7 +50,7 @@ object FieldsFiltering {
       nonMetadataDocumentFields: NonMetadataDocumentFields[T],
       fieldsRestrictions: FieldsRestrictions
   ): NonMetadataDocumentFields[T] = {
-    val policy = new FieldsPolicy(fieldsRestrictions)
+    val policy = FieldsPolicy(fieldsRestrictions)
 
     NonMetadataDocumentFields {
       nonMetadataDocumentFields.value.filter { case (key, _) =>
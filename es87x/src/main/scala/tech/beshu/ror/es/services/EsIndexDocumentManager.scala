@@ -88,6 +88,39 @@ class EsIndexDocumentManager(client: NodeClient, @unused constructorDiscriminato
       }
   }
 
+  override def documentVersion(index: IndexName.Full, id: String)(
+      implicit requestId: RequestId
+  ): Task[Either[ReadError, DocumentVersion]] = {
+    Task {
+      client
+        .get(
+          client
+            .prepareGet()
+            .setIndex(index.name.value)
+            .setId(id)
+            .setFetchSource(false)
+            .request()
+        )
+        .actionGet()
+    }
+      .map { response =>
+        if (response.isExists) {
+          Right(DocumentVersion(response.getVersion, response.getSeqNo, response.getPrimaryTerm))
+        } else {
+          logger.debug(s"Document [${index.show} ID=$id] not exist")
+          Left(DocumentNotFound)
+        }
+      }
+      .executeOn(RorSchedulers.blockingScheduler)
+      .onErrorRecover {
+        case _: IndexNotFoundException    => Left(IndexNotFound)
+        case _: ResourceNotFoundException => Left(DocumentNotFound)
+        case ex                           =>
+          logger.warnEx(s"Cannot get version of document [${index.show} ID=$id]", ex)
+          Left(DocumentUnreachable)
+      }
+  }
+
   override def saveDocumentJson(index: IndexName.Full, id: String, document: Json)(
       implicit requestId: RequestId
   ): Task[Either[WriteError, Unit]] = {
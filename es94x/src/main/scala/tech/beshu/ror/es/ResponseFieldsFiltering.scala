@@ -17,18 +17,30 @@
 package tech.beshu.ror.es
 
 import monix.execution.atomic.Atomic
+import org.apache.lucene.util.BytesRef
+import org.elasticsearch.action.ActionListener
+import org.elasticsearch.common.bytes.{BytesArray, ReleasableBytesReference}
+import org.elasticsearch.common.recycler.Recycler
 import org.elasticsearch.common.xcontent.LoggingDeprecationHandler
-import org.elasticsearch.rest.RestResponse
+import org.elasticsearch.rest.{ChunkedRestResponseBodyPart, RestResponse}
 import org.elasticsearch.transport.BytesRefRecycler
 import org.elasticsearch.transport.netty4.Netty4WriteThrottlingHandler
 import org.elasticsearch.xcontent.cbor.CborXContent
 import org.elasticsearch.xcontent.json.JsonXContent
 import org.elasticsearch.xcontent.smile.SmileXContent
 import org.elasticsearch.xcontent.yaml.YamlXContent
-import org.elasticsearch.xcontent.{NamedXContentRegistry, XContentBuilder, XContentParserConfiguration, XContentType}
+import org.elasticsearch.xcontent.{
+  NamedXContentRegistry,
+  XContent,
+  XContentBuilder,
+  XContentParserConfiguration,
+  XContentType
+}
 import tech.beshu.ror.accesscontrol.domain.ResponseFieldsFiltering.{AccessMode, ResponseFieldsRestrictions}
+import tech.beshu.ror.es.ResponseFieldsFiltering.FieldsFilteringChunkedRestResponseBodyPart
 import tech.beshu.ror.utils.RequestIdAwareLogging
 
+import java.io.{ByteArrayOutputStream, InputStream}
 import scala.jdk.CollectionConverters.*
 
 trait ResponseFieldsFiltering {
@@ -71,24 +83,39 @@ trait ResponseFieldsFiltering {
         SmileXContent.smileXContent
       else throw new IllegalStateException("Unknown response content type")
 
-    val contentStreamInput = (Option(response.content()), Option(response.chunkedContent())) match {
+    (Option(response.content()), Option(response.chunkedContent())) match {
       case (Some(content), None) =>
-        content.streamInput()
+        filterWholeContent(response, content.streamInput(), xContent, includes, excludes)
+      case (None, Some(chunkedContent)) if chunkedContent.isLastPart =>
+        RestResponse.chunked(
+          response.status(),
+          new FieldsFilteringChunkedRestResponseBodyPart(chunkedContent, xContent, includes, excludes),
+          null
+        )
       case (None, Some(chunkedContent)) =>
-        chunkedContent
+        // a multi-part body can't be filtered chunk by chunk (its next part is supplied asynchronously)
+        val firstChunk = chunkedContent
           .encodeChunk(Netty4WriteThrottlingHandler.MAX_BYTES_PER_WRITE, BytesRefRecycler.NON_RECYCLING_INSTANCE)
-          .streamInput()
+        filterWholeContent(response, firstChunk.streamInput(), xContent, includes, excludes)
       case (Some(_), Some(_)) =>
         throw new IllegalStateException("Content and ChunkedContent should not be Some at the same time")
       case (None, None) =>
         throw new IllegalStateException("Content and ChunkedContent should not be None at the same time")
     }
+  }
 
+  private def filterWholeContent(
+      response: RestResponse,
+      content: InputStream,
+      xContent: XContent,
+      includes: Set[String],
+      excludes: Set[String]
+  ): RestResponse = {
     val parser = xContent.createParser(
       XContentParserConfiguration.EMPTY
         .withDeprecationHandler(LoggingDeprecationHandler.INSTANCE)
         .withRegistry(NamedXContentRegistry.EMPTY),
-      contentStreamInput
+      content
     )
 
     val contentBuilder = XContentBuilder.builder(xContent.`type`(), includes.asJava, excludes.asJava)
@@ -98,3 +125,84 @@ trait ResponseFieldsFiltering {
   }
 
 }
+
+object ResponseFieldsFiltering {
+
+  /**
+   * Filters the chunked body while it's being sent - each chunk of the underlying body is parsed and its (not filtered
+   * out) tokens are written to the filtering generator only when the next chunk of the filtered body is requested.
+   * So only about one chunk of the underlying body and one chunk of the filtered one are kept in memory, regardless
+   * of the response size.
+   */
+  private[es] final class FieldsFilteringChunkedRestResponseBodyPart(
+      underlying: ChunkedRestResponseBodyPart,
+      xContent: XContent,
+      includes: Set[String],
+      excludes: Set[String]
+  ) extends ChunkedRestResponseBodyPart {
+
+    private val underlyingContent = new UnderlyingChunksInputStream(underlying)
+    private val filteredContent = new ByteArrayOutputStream()
+    private lazy val parser = xContent.createParser(
+      XContentParserConfiguration.EMPTY
+        .withDeprecationHandler(LoggingDeprecationHandler.INSTANCE)
+        .withRegistry(NamedXContentRegistry.EMPTY),
+      underlyingContent
+    )
+    private lazy val generator = xContent.createGenerator(filteredContent, includes.asJava, excludes.asJava)
+    private var done = false
+
+    override def isPartComplete: Boolean = done
+
+    override def isLastPart: Boolean = true
+
+    override def getNextPart(listener: ActionListener[ChunkedRestResponseBodyPart]): Unit =
+      listener.onFailure(new IllegalStateException("The filtered response body has only one part"))
+
+    override def encodeChunk(sizeHint: Int, recycler: Recycler[BytesRef]): ReleasableBytesReference = {
+      while (!done && filteredContent.size() < sizeHint) {
+        if (parser.nextToken() == null) {
+          generator.close()
+          parser.close()
+          done = true
+        } else {
+          generator.copyCurrentEvent(parser)
+        }
+      }
+      if (!done) generator.flush()
+      val chunk = filteredContent.toByteArray
+      filteredContent.reset()
+      ReleasableBytesReference.wrap(new BytesArray(chunk))
+    }
+
+    override def getResponseContentTypeString: String = underlying.getResponseContentTypeString
+  }
+
+  // the bytes of the underlying body, encoded chunk by chunk when the parser needs them
+  private final class UnderlyingChunksInputStream(underlying: ChunkedRestResponseBodyPart) extends InputStream {
+
+    private var currentChunk: Option[InputStream] = None
+
+    override def read(): Int = {
+      if (hasNextByte) currentChunk.map(_.read()).getOrElse(-1) else -1
+    }
+
+    override def read(bytes: Array[Byte], offset: Int, length: Int): Int = {
+      if (length == 0) 0
+      else if (hasNextByte) currentChunk.map(_.read(bytes, offset, length)).getOrElse(-1)
+      else -1
+    }
+
+    private def hasNextByte: Boolean = {
+      while (!currentChunk.exists(_.available() > 0) && !underlying.isPartComplete) {
+        currentChunk = Some(
+          underlying
+            .encodeChunk(Netty4WriteThrottlingHandler.MAX_BYTES_PER_WRITE, BytesRefRecycler.NON_RECYCLING_INSTANCE)
+            .streamInput()
+        )
+      }
+      currentChunk.exists(_.available() > 0)
+    }
+  }
+
+}
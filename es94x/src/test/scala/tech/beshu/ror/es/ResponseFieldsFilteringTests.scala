@@ -0,0 +1,159 @@
+/*
+ *    This file is part of ReadonlyREST.
+ *
+ *    ReadonlyREST is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    ReadonlyREST is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with ReadonlyREST.  If not, see http://www.gnu.org/licenses/
+ */
+package tech.beshu.ror.es
+
+import org.apache.lucene.util.BytesRef
+import org.elasticsearch.action.ActionListener
+import org.elasticsearch.common.bytes.{BytesArray, BytesReference, ReleasableBytesReference}
+import org.elasticsearch.common.recycler.Recycler
+import org.elasticsearch.common.xcontent.LoggingDeprecationHandler
+import org.elasticsearch.rest.ChunkedRestResponseBodyPart
+import org.elasticsearch.transport.BytesRefRecycler
+import org.elasticsearch.xcontent.json.JsonXContent
+import org.elasticsearch.xcontent.{NamedXContentRegistry, XContentBuilder, XContentParserConfiguration, XContentType}
+import org.scalatest.matchers.should.Matchers.*
+import org.scalatest.wordspec.AnyWordSpec
+import tech.beshu.ror.es.ResponseFieldsFiltering.FieldsFilteringChunkedRestResponseBodyPart
+
+import java.io.ByteArrayOutputStream
+import java.nio.charset.StandardCharsets
+import scala.jdk.CollectionConverters.*
+
+class ResponseFieldsFilteringTests extends AnyWordSpec {
+
+  private val searchResponse =
+    """{
+      |  "took" : 3,
+      |  "timed_out" : false,
+      |  "_shards" : { "total" : 1, "successful" : 1, "failed" : 0 },
+      |  "hits" : {
+      |    "total" : { "value" : 2, "relation" : "eq" },
+      |    "hits" : [
+      |      { "_index" : "idx", "_id" : "1", "_source" : { "user" : "jan", "secret" : "a \" quoted \\ value" } },
+      |      { "_index" : "idx", "_id" : "2", "_source" : { "user" : "ania", "secret" : "zażółć gęślą jaźń" } }
+      |    ]
+      |  },
+      |  "aggregations" : { "scores" : { "value" : 1.2345678901234567E10 } }
+      |}""".stripMargin
+
+  "A FieldsFilteringChunkedRestResponseBodyPart" should {
+    "produce the same body as the non-streaming filtering" when {
+      "the whitelist mode is used" in {
+        assertSameAsNonStreaming(
+          includes = Set("took", "hits.hits._id", "hits.hits._source.user"),
+          excludes = Set.empty
+        )
+      }
+      "the blacklist mode is used" in {
+        assertSameAsNonStreaming(includes = Set.empty, excludes = Set("_shards", "hits.hits._source.secret"))
+      }
+      "wildcarded fields are used" in {
+        assertSameAsNonStreaming(includes = Set("hits.hits.*", "aggregations.*.value"), excludes = Set.empty)
+        assertSameAsNonStreaming(includes = Set.empty, excludes = Set("*.total", "hits.hits._s*"))
+      }
+    }
+    "split a big filtered body into chunks not smaller than the requested size" in {
+      val bigBody = (1 to 5000)
+        .map(i => s"""{"_id":"$i","_source":{"user":"user$i","secret":"$i"}}""")
+        .mkString("""{"hits":[""", ",", "]}")
+      val excludes = Set("hits._source.secret")
+      val filtered = filteredBody(bigBody, includes = Set.empty, excludes, underlyingChunkSize = 512)
+
+      val chunks = List.newBuilder[Array[Byte]]
+      while (!filtered.isPartComplete) {
+        chunks += BytesReference.toBytes(filtered.encodeChunk(16, BytesRefRecycler.NON_RECYCLING_INSTANCE))
+      }
+
+      val encodedChunks = chunks.result()
+      encodedChunks.size should be > 1
+      encodedChunks.init.foreach(_.length should be >= 16)
+      new String(encodedChunks.flatten.toArray, StandardCharsets.UTF_8) should be(
+        nonStreamingFiltered(bigBody, includes = Set.empty, excludes)
+      )
+    }
+    "be the last and the only part of the body" in {
+      val filtered = filteredBody(searchResponse, includes = Set.empty, excludes = Set.empty, underlyingChunkSize = 5)
+
+      filtered.isLastPart should be(true)
+      filtered.getResponseContentTypeString should be(XContentType.JSON.mediaType())
+    }
+  }
+
+  private def assertSameAsNonStreaming(includes: Set[String], excludes: Set[String]) = {
+    val expected = nonStreamingFiltered(searchResponse, includes, excludes)
+    for {
+      underlyingChunkSize <- List(1, 2, 3, 7, 64, searchResponse.length * 2)
+      filteredChunkSize <- List(1, 5, 16, 1024)
+    } withClue(s"underlying chunk size: $underlyingChunkSize, filtered chunk size: $filteredChunkSize: ") {
+      val filtered = filteredBody(searchResponse, includes, excludes, underlyingChunkSize)
+      readAll(filtered, filteredChunkSize) should be(expected)
+      filtered.isPartComplete should be(true)
+    }
+  }
+
+  private def filteredBody(body: String, includes: Set[String], excludes: Set[String], underlyingChunkSize: Int) = {
+    new FieldsFilteringChunkedRestResponseBodyPart(
+      new FixedSizeChunksBodyPart(body.getBytes(StandardCharsets.UTF_8), underlyingChunkSize),
+      JsonXContent.jsonXContent,
+      includes,
+      excludes
+    )
+  }
+
+  private def readAll(bodyPart: ChunkedRestResponseBodyPart, chunkSize: Int) = {
+    val out = new ByteArrayOutputStream()
+    while (!bodyPart.isPartComplete) {
+      out.write(BytesReference.toBytes(bodyPart.encodeChunk(chunkSize, BytesRefRecycler.NON_RECYCLING_INSTANCE)))
+    }
+    new String(out.toByteArray, StandardCharsets.UTF_8)
+  }
+
+  private def nonStreamingFiltered(body: String, includes: Set[String], excludes: Set[String]) = {
+    val parser = JsonXContent.jsonXContent.createParser(
+      XContentParserConfiguration.EMPTY
+        .withDeprecationHandler(LoggingDeprecationHandler.INSTANCE)
+        .withRegistry(NamedXContentRegistry.EMPTY),
+      body
+    )
+    val builder = XContentBuilder.builder(XContentType.JSON, includes.asJava, excludes.asJava)
+    builder.copyCurrentStructure(parser)
+    builder.close()
+    BytesReference.bytes(builder).utf8ToString()
+  }
+
+  // ignores the size hint, so the chunk boundaries fall inside the tokens (and the multi-byte UTF-8 chars)
+  private final class FixedSizeChunksBodyPart(bytes: Array[Byte], chunkSize: Int) extends ChunkedRestResponseBodyPart {
+
+    private var position = 0
+
+    override def isPartComplete: Boolean = position >= bytes.length
+
+    override def isLastPart: Boolean = true
+
+    override def getNextPart(listener: ActionListener[ChunkedRestResponseBodyPart]): Unit =
+      listener.onFailure(new IllegalStateException("no next part"))
+
+    override def encodeChunk(sizeHint: Int, recycler: Recycler[BytesRef]): ReleasableBytesReference = {
+      val length = math.min(chunkSize, bytes.length - position)
+      val chunk = new BytesArray(bytes, position, length)
+      position += length
+      ReleasableBytesReference.wrap(chunk)
+    }
+
+    override def getResponseContentTypeString: String = XContentType.JSON.mediaType()
+  }
+}
@@ -0,0 +1,178 @@
+/*
+ *    This file is part of ReadonlyREST.
+ *
+ *    ReadonlyREST is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    ReadonlyREST is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with ReadonlyREST.  If not, see http://www.gnu.org/licenses/
+ */
+package tech.beshu.ror.es.dlsfls
+
+import eu.timepit.refined.types.string.NonEmptyString
+import org.elasticsearch.common.bytes.{BytesArray, BytesReference}
+import org.elasticsearch.common.xcontent.XContentHelper
+import org.elasticsearch.xcontent.{XContentBuilder, XContentFactory, XContentType}
+import org.scalatest.matchers.should.Matchers.*
+import org.scalatest.wordspec.AnyWordSpec
+import tech.beshu.ror.accesscontrol.domain.FieldLevelSecurity.FieldsRestrictions
+import tech.beshu.ror.accesscontrol.domain.FieldLevelSecurity.FieldsRestrictions.{AccessMode, DocumentField}
+import tech.beshu.ror.fls.FieldsPolicy
+import tech.beshu.ror.utils.uniquelist.UniqueNonEmptyList
+
+import java.nio.charset.StandardCharsets
+
+class XContentPolicyBasedFiltererTests extends AnyWordSpec {
+
+  "A XContentPolicyBasedFilterer" when {
+    "whitelist mode is used" should {
+      "keep only the allowed fields of nested objects and their parents" in {
+        val filterer = filtererOf(AccessMode.Whitelist, "user.name", "user.address.city")
+
+        filteredJson(
+          filterer,
+          """{"user":{"name":"john","age":30,"address":{"city":"Cracow","street":"Main"}},"active":true}"""
+        ) should be(
+          """{"user":{"name":"john","address":{"city":"Cracow"}}}"""
+        )
+      }
+      "filter every object of an array using the path of the array" in {
+        val filterer = filtererOf(AccessMode.Whitelist, "items.id", "tags", "grid.a")
+
+        filteredJson(
+          filterer,
+          """{"items":[{"id":1,"pin":"a"},{"id":2,"pin":"b"}],"tags":["x","y"],"grid":[[{"a":1,"b":2}],[]],"n":[1]}"""
+        ) should be(
+          """{"items":[{"id":1},{"id":2}],"tags":["x","y"],"grid":[[{"a":1}],[]]}"""
+        )
+      }
+      "match the fields using wildcarded patterns" in {
+        val filterer = filtererOf(AccessMode.Whitelist, "user.*.city", "*_date")
+
+        filteredJson(
+          filterer,
+          """{"user":{"home":{"city":"a","street":"b"},"work":{"city":"c","zip":"d"}},"mod_date":"2020","mod_by":"x"}"""
+        ) should be(
+          """{"user":{"home":{"city":"a"},"work":{"city":"c"}},"mod_date":"2020"}"""
+        )
+      }
+    }
+    "blacklist mode is used" should {
+      "remove the forbidden fields of nested objects with their children" in {
+        val filterer = filtererOf(AccessMode.Blacklist, "user.age", "user.address")
+
+        filteredJson(
+          filterer,
+          """{"user":{"name":"john","age":30,"address":{"city":"Cracow","street":"Main"}},"active":true}"""
+        ) should be(
+          """{"user":{"name":"john"},"active":true}"""
+        )
+      }
+      "filter every object of an array using the path of the array" in {
+        val filterer = filtererOf(AccessMode.Blacklist, "items.secret", "matrix.b")
+
+        filteredJson(
+          filterer,
+          """{"items":[{"id":1,"secret":"a"},{"id":2,"secret":"b"}],"matrix":[[{"a":1,"b":2}]],"tags":["x","y"]}"""
+        ) should be(
+          """{"items":[{"id":1},{"id":2}],"matrix":[[{"a":1}]],"tags":["x","y"]}"""
+        )
+      }
+      "match the fields using wildcarded patterns" in {
+        val filterer = filtererOf(AccessMode.Blacklist, "*.secret", "pass*")
+
+        filteredJson(
+          filterer,
+          """{"a":{"secret":1,"x":2},"b":{"secret":{"nested":3}},"password":"p","passphrase":"q","name":"n"}"""
+        ) should be(
+          """{"a":{"x":2},"b":{},"name":"n"}"""
+        )
+      }
+    }
+    "the source is not a JSON one" should {
+      "filter it keeping its content type and the types of the values" when {
+        "SMILE is used" in {
+          assertRoundTrip(XContentType.SMILE)
+        }
+        "CBOR is used" in {
+          assertRoundTrip(XContentType.CBOR)
+        }
+      }
+    }
+  }
+
+  private def assertRoundTrip(xContentType: XContentType) = {
+    val filterer = filtererOf(AccessMode.Blacklist, "user.secret", "tags")
+    val source = document(xContentType) { builder =>
+      builder
+        .startObject()
+        .startObject("user")
+        .field("name", "john")
+        .field("age", 30)
+        .field("balance", 12345678901L)
+        .field("score", 4.5d)
+        .field("active", true)
+        .nullField("nickname")
+        .field("secret", "s3cr3t")
+        .endObject()
+        .array("tags", "a", "b")
+        .startArray("logins")
+        .startObject()
+        .field("ip", "127.0.0.1")
+        .endObject()
+        .endArray()
+        .endObject()
+    }
+    val expected = document(xContentType) { builder =>
+      builder
+        .startObject()
+        .startObject("user")
+        .field("name", "john")
+        .field("age", 30)
+        .field("balance", 12345678901L)
+        .field("score", 4.5d)
+        .field("active", true)
+        .nullField("nickname")
+        .endObject()
+        .startArray("logins")
+        .startObject()
+        .field("ip", "127.0.0.1")
+        .endObject()
+        .endArray()
+        .endObject()
+    }
+
+    val filtered = filterer.filteredSource(source)
+
+    XContentFactory.xContentType(filtered) should be(xContentType)
+    asMap(filtered, xContentType) should be(asMap(expected, xContentType))
+  }
+
+  private def filtererOf(mode: AccessMode, field: String, fields: String*) = {
+    val documentFields = (field :: fields.toList).map(f => DocumentField(NonEmptyString.unsafeFrom(f)))
+    new XContentPolicyBasedFilterer(
+      FieldsPolicy(FieldsRestrictions(UniqueNonEmptyList.unsafeFrom(documentFields), mode))
+    )
+  }
+
+  private def filteredJson(filterer: XContentPolicyBasedFilterer, json: String) = {
+    new String(filterer.filteredSource(json.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8)
+  }
+
+  private def document(xContentType: XContentType)(build: XContentBuilder => XContentBuilder) = {
+    val builder = build(XContentBuilder.builder(xContentType.xContent()))
+    builder.close()
+    BytesReference.toBytes(BytesReference.bytes(builder))
+  }
+
+  private def asMap(bytes: Array[Byte], xContentType: XContentType) = {
+    XContentHelper.convertToMap(new BytesArray(bytes), true, xContentType).v2()
+  }
+}